@@ -0,0 +1,99 @@
+package nl.lexemmens.podman.benchmark;
+
+import nl.lexemmens.podman.config.image.batch.BatchImageBuildConfiguration;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * Measures finding the Containerfiles of a batch configuration in a large directory tree.
+ * </p>
+ * <p>
+ * The generated tree resembles a repository with many images: groups of 100 image directories, each containing a
+ * Containerfile next to sources and a nested directory with configuration files. Only one in four image directories
+ * holds a Containerfile, so most of the tree is searched without a result.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BatchDiscoveryBenchmark {
+
+    private static final String CONTAINERFILE = "Containerfile";
+    private static final int DIRECTORIES_PER_GROUP = 100;
+
+    @Param({"100", "1000", "10000"})
+    public int directoryCount;
+
+    private Path workDirectory;
+    private BatchImageBuildConfiguration build;
+
+    /**
+     * Creates the directory tree
+     *
+     * @throws IOException In case the tree cannot be created
+     */
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        workDirectory = Files.createTempDirectory("batch-benchmark");
+        List<String> content = Collections.singletonList("FROM registry.example.com/base/image:1.0.0");
+        for (int i = 0; i < directoryCount; i++) {
+            Path imageDirectory = workDirectory.resolve("group-" + (i / DIRECTORIES_PER_GROUP)).resolve("image-" + i);
+            Path configDirectory = Files.createDirectories(imageDirectory.resolve("src").resolve("main").resolve("config"));
+
+            Files.write(imageDirectory.resolve("README.md"), Collections.singletonList("Image " + i), StandardCharsets.UTF_8);
+            Files.write(configDirectory.resolve("application.properties"), Collections.singletonList("image=" + i), StandardCharsets.UTF_8);
+            if (i % 4 == 0) {
+                Files.write(imageDirectory.resolve(CONTAINERFILE), content, StandardCharsets.UTF_8);
+            }
+        }
+
+        build = new BatchImageBuildConfiguration();
+        build.setContainerFileDir(workDirectory.toFile());
+        build.setContainerFile(CONTAINERFILE);
+    }
+
+    /**
+     * Removes the directory tree
+     *
+     * @throws IOException In case the tree cannot be removed
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchmarkSupport.deleteRecursively(workDirectory);
+    }
+
+    /**
+     * Finds all Containerfiles in the tree
+     *
+     * @return The Containerfiles, so the work cannot be eliminated
+     * @throws MojoExecutionException In case the tree cannot be searched
+     */
+    @Benchmark
+    public List<Path> getAllContainerFiles() throws MojoExecutionException {
+        return build.getAllContainerFiles();
+    }
+}
@@ -0,0 +1,155 @@
+package nl.lexemmens.podman.benchmark;
+
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.shared.filtering.MavenFileFilter;
+import org.apache.maven.shared.filtering.MavenFileFilterRequest;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * Support code shared by the benchmarks
+ */
+final class BenchmarkSupport {
+
+    /**
+     * A log that discards everything, so that writing to the console is not measured
+     */
+    static final Log SILENT_LOG = new SilentLog();
+
+    private BenchmarkSupport() {
+        // Utility class
+    }
+
+    /**
+     * Returns a {@link MavenFileFilter} that copies files without filtering them. Filtering itself is implemented by
+     * Maven and requires a Plexus container, so it is not part of what is measured.
+     *
+     * @return A file filter that only supports {@link MavenFileFilter#copyFile(MavenFileFilterRequest)}
+     */
+    static MavenFileFilter copyingFileFilter() {
+        return (MavenFileFilter) Proxy.newProxyInstance(MavenFileFilter.class.getClassLoader(), new Class<?>[]{MavenFileFilter.class}, (proxy, method, args) -> {
+            if ("copyFile".equals(method.getName()) && args != null && args.length == 1 && args[0] instanceof MavenFileFilterRequest) {
+                MavenFileFilterRequest request = (MavenFileFilterRequest) args[0];
+                Files.copy(request.getFrom().toPath(), request.getTo().toPath(), StandardCopyOption.REPLACE_EXISTING);
+                return null;
+            }
+            throw new UnsupportedOperationException(method.getName());
+        });
+    }
+
+    /**
+     * Deletes the provided directory and everything in it
+     *
+     * @param directory The directory to delete. Nothing happens when it is null.
+     * @throws IOException In case the directory could not be deleted
+     */
+    static void deleteRecursively(Path directory) throws IOException {
+        if (directory == null || !Files.exists(directory)) {
+            return;
+        }
+
+        Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private static final class SilentLog implements Log {
+
+        @Override
+        public boolean isDebugEnabled() {
+            return false;
+        }
+
+        @Override
+        public void debug(CharSequence content) {
+            // Discarded
+        }
+
+        @Override
+        public void debug(CharSequence content, Throwable error) {
+            // Discarded
+        }
+
+        @Override
+        public void debug(Throwable error) {
+            // Discarded
+        }
+
+        @Override
+        public boolean isInfoEnabled() {
+            return false;
+        }
+
+        @Override
+        public void info(CharSequence content) {
+            // Discarded
+        }
+
+        @Override
+        public void info(CharSequence content, Throwable error) {
+            // Discarded
+        }
+
+        @Override
+        public void info(Throwable error) {
+            // Discarded
+        }
+
+        @Override
+        public boolean isWarnEnabled() {
+            return false;
+        }
+
+        @Override
+        public void warn(CharSequence content) {
+            // Discarded
+        }
+
+        @Override
+        public void warn(CharSequence content, Throwable error) {
+            // Discarded
+        }
+
+        @Override
+        public void warn(Throwable error) {
+            // Discarded
+        }
+
+        @Override
+        public boolean isErrorEnabled() {
+            return false;
+        }
+
+        @Override
+        public void error(CharSequence content) {
+            // Discarded
+        }
+
+        @Override
+        public void error(CharSequence content, Throwable error) {
+            // Discarded
+        }
+
+        @Override
+        public void error(Throwable error) {
+            // Discarded
+        }
+    }
+}
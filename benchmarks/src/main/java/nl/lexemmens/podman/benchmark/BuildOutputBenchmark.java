@@ -0,0 +1,130 @@
+package nl.lexemmens.podman.benchmark;
+
+import nl.lexemmens.podman.config.image.single.SingleImageBuildConfiguration;
+import nl.lexemmens.podman.config.image.single.SingleImageConfiguration;
+import nl.lexemmens.podman.executor.BuildMetrics;
+import nl.lexemmens.podman.helper.MultiStageBuildOutputHelper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * <p>
+ * Measures processing the output of <code>podman build</code> for a multistage Containerfile, which happens for every
+ * line the build writes.
+ * </p>
+ * <p>
+ * The synthetic output consists of stages of {@value #LINES_PER_STAGE} lines, each starting with a <code>FROM</code>
+ * step followed by pull progress, command output and intermediate image hashes. The lines are prepared once, so only
+ * the processing of the output is measured.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BuildOutputBenchmark {
+
+    private static final int LINES_PER_STAGE = 500;
+    private static final int DISTINCT_STAGES = 64;
+    private static final String FINAL_IMAGE_HASH = "8f2c3d4e5a6b7c8d9e0f1a2b3c4d5e6f7a8b9c0d1e2f3a4b5c6d7e8f9a0b1c2d";
+
+    @Param({"10000", "1000000", "10000000"})
+    public int lineCount;
+
+    private final MultiStageBuildOutputHelper buildOutputHelper = new MultiStageBuildOutputHelper();
+    private final String[] stageLines = new String[DISTINCT_STAGES];
+    private final String[] bodyLines = new String[LINES_PER_STAGE];
+
+    private SingleImageConfiguration image;
+
+    /**
+     * Prepares the image configuration and the lines the output is made of
+     */
+    @Setup
+    public void setup() {
+        image = new SingleImageConfiguration();
+        image.setImageName("benchmark");
+        image.setBuild(new SingleImageBuildConfiguration());
+
+        for (int stage = 0; stage < DISTINCT_STAGES; stage++) {
+            stageLines[stage] = String.format("[%d/%d] STEP 1/12: FROM registry.example.com/base/image-%d:1.0.0 AS stage%d",
+                    stage + 1, DISTINCT_STAGES, stage, stage);
+        }
+
+        for (int line = 1; line < LINES_PER_STAGE; line++) {
+            switch (line % 5) {
+                case 0:
+                    bodyLines[line] = String.format("[1/1] STEP %d/12: RUN ./configure --prefix=/usr/local --with-feature-%d", line % 12, line);
+                    break;
+                case 1:
+                    bodyLines[line] = String.format("Copying blob sha256:%064x", (long) line * 7919);
+                    break;
+                case 2:
+                    bodyLines[line] = String.format("--> %011x", (long) line * 104729);
+                    break;
+                case 3:
+                    bodyLines[line] = "Getting image source signatures";
+                    break;
+                default:
+                    bodyLines[line] = String.format("  compiling module %d of the application, please wait...", line);
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Determines the image hash of every stage, as is done while building a multistage Containerfile
+     *
+     * @return The image hashes, so the work cannot be eliminated
+     */
+    @Benchmark
+    public Map<String, String> collectImageHashes() {
+        image.getImageHashPerStage().clear();
+
+        MultiStageBuildOutputHelper.ImageHashCollector collector = buildOutputHelper.createImageHashCollector(BenchmarkSupport.SILENT_LOG, image);
+        feedOutput(collector);
+        collector.finish();
+        return image.getImageHashPerStage();
+    }
+
+    /**
+     * Records the steps of the build, as is done for every build when metrics are recorded
+     *
+     * @return The metrics, so the work cannot be eliminated
+     */
+    @Benchmark
+    public BuildMetrics recordBuildSteps() {
+        BuildMetrics buildMetrics = new BuildMetrics();
+        try (BuildMetrics.StepRecorder stepRecorder = buildMetrics.recordSteps("benchmark")) {
+            feedOutput(stepRecorder);
+        }
+        return buildMetrics;
+    }
+
+    private void feedOutput(Consumer<String> consumer) {
+        for (int line = 0; line < lineCount - 1; line++) {
+            int lineInStage = line % LINES_PER_STAGE;
+            if (lineInStage == 0) {
+                consumer.accept(stageLines[(line / LINES_PER_STAGE) % DISTINCT_STAGES]);
+            } else {
+                consumer.accept(bodyLines[lineInStage]);
+            }
+        }
+        consumer.accept(FINAL_IMAGE_HASH);
+    }
+}
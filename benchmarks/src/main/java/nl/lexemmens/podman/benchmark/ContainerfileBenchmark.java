@@ -0,0 +1,154 @@
+package nl.lexemmens.podman.benchmark;
+
+import nl.lexemmens.podman.config.image.single.SingleImageBuildConfiguration;
+import nl.lexemmens.podman.config.image.single.SingleImageConfiguration;
+import nl.lexemmens.podman.service.ContainerfileDecorator;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.project.MavenProject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * Measures the work done on a Containerfile before it is built: adding labels to it and determining its stages.
+ * </p>
+ * <p>
+ * The generated Containerfile has a stage for every 50 lines. Filtering the Containerfile is replaced by a plain copy,
+ * see {@link BenchmarkSupport#copyingFileFilter()}.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ContainerfileBenchmark {
+
+    private static final int LINES_PER_STAGE = 50;
+    private static final int LABEL_COUNT = 20;
+
+    @Param({"100", "10000", "100000"})
+    public int lineCount;
+
+    private Path workDirectory;
+    private Path sourceContainerFile;
+    private SingleImageConfiguration image;
+    private ContainerfileDecorator containerfileDecorator;
+    private StageDetector stageDetector;
+
+    /**
+     * Writes the Containerfile and prepares the image configuration
+     *
+     * @throws IOException            In case the Containerfile cannot be written
+     * @throws MojoExecutionException In case the image configuration is invalid
+     */
+    @Setup(Level.Trial)
+    public void setup() throws IOException, MojoExecutionException {
+        workDirectory = Files.createTempDirectory("containerfile-benchmark");
+        Path sourceDirectory = Files.createDirectories(workDirectory.resolve("src"));
+        sourceContainerFile = sourceDirectory.resolve("Containerfile");
+        Files.write(sourceContainerFile, createContainerfile());
+
+        MavenProject project = new MavenProject();
+        project.setFile(workDirectory.resolve("pom.xml").toFile());
+        project.getBuild().setDirectory(workDirectory.resolve("target").toString());
+
+        Map<String, String> labels = new LinkedHashMap<>();
+        for (int i = 0; i < LABEL_COUNT; i++) {
+            labels.put("org.opencontainers.label" + i, "value " + i);
+        }
+
+        SingleImageBuildConfiguration build = new SingleImageBuildConfiguration();
+        build.setContainerFileDir(sourceDirectory.toFile());
+        build.setLabels(labels);
+        build.validate(project, BenchmarkSupport.SILENT_LOG, true);
+
+        image = new SingleImageConfiguration();
+        image.setImageName("benchmark");
+        image.setBuild(build);
+
+        containerfileDecorator = new ContainerfileDecorator(BenchmarkSupport.SILENT_LOG, BenchmarkSupport.copyingFileFilter(), project);
+        stageDetector = new StageDetector();
+    }
+
+    /**
+     * Removes the Containerfiles
+     *
+     * @throws IOException In case the files cannot be removed
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchmarkSupport.deleteRecursively(workDirectory);
+    }
+
+    /**
+     * Copies the Containerfile to the output directory and adds the labels after every <code>FROM</code>
+     *
+     * @throws MojoExecutionException In case the Containerfile cannot be decorated
+     */
+    @Benchmark
+    public void decorateContainerfile() throws MojoExecutionException {
+        containerfileDecorator.decorateContainerfile(image);
+    }
+
+    /**
+     * Determines the stages of the Containerfile
+     *
+     * @return The stages, so the work cannot be eliminated
+     * @throws MojoExecutionException In case the Containerfile cannot be read
+     */
+    @Benchmark
+    public List<String> determineBuildStages() throws MojoExecutionException {
+        stageDetector.determineBuildStages(BenchmarkSupport.SILENT_LOG, sourceContainerFile);
+        return stageDetector.getBuildStages();
+    }
+
+    private List<String> createContainerfile() {
+        List<String> lines = new ArrayList<>();
+        for (int line = 0; line < lineCount; line++) {
+            int lineInStage = line % LINES_PER_STAGE;
+            int stage = line / LINES_PER_STAGE;
+            if (lineInStage == 0) {
+                lines.add(String.format("FROM registry.example.com/base/image-%d:1.0.0 AS stage%d", stage, stage));
+            } else if (lineInStage % 10 == 0) {
+                lines.add("# Installs the dependencies of step " + lineInStage);
+            } else {
+                lines.add(String.format("RUN echo \"step %d of stage %d\" > /tmp/step-%d", lineInStage, stage, lineInStage));
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Makes {@link #determineBuildStages(Log, Path)} available to the benchmark
+     */
+    private static final class StageDetector extends SingleImageBuildConfiguration {
+
+        @Override
+        protected void determineBuildStages(Log log, Path fullContainerFilePath) throws MojoExecutionException {
+            super.determineBuildStages(log, fullContainerFilePath);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package nl.lexemmens.podman.benchmark;
+
+import nl.lexemmens.podman.config.image.single.SingleImageBuildConfiguration;
+import nl.lexemmens.podman.config.image.single.SingleImageConfiguration;
+import nl.lexemmens.podman.helper.ImageNameHelper;
+import nl.lexemmens.podman.helper.ParameterReplacer;
+import org.apache.maven.project.MavenProject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * Measures formatting image names, which happens for every image of a batch configuration.
+ * </p>
+ * <p>
+ * {@link ImageNameHelper#formatImageName(SingleImageConfiguration)} replaces the format parameters and aligns the
+ * artifactId, groupId and version with the image naming conventions. The artifactId is repeated to produce names
+ * that contain many separators.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ImageNameBenchmark {
+
+    @Param({"registry.example.com/%g/%a:%v", "%a-%n/%g__%a:%l"})
+    public String imageName;
+
+    @Param({"1", "64"})
+    public int artifactIdRepetitions;
+
+    private ParameterReplacer parameterReplacer;
+    private ImageNameHelper imageNameHelper;
+    private SingleImageConfiguration image;
+
+    /**
+     * Prepares the Maven project and image configuration
+     */
+    @Setup
+    public void setup() {
+        StringBuilder artifactId = new StringBuilder();
+        for (int i = 0; i < artifactIdRepetitions; i++) {
+            artifactId.append("My...Artifact___Name--With..Separators_");
+        }
+
+        MavenProject project = new MavenProject();
+        project.setGroupId("nl.lexemmens.Example__Group");
+        project.setArtifactId(artifactId.toString());
+        project.setVersion("1.0.0-SNAPSHOT");
+
+        Map<String, ParameterReplacer.Replacement> replacements = new HashMap<>();
+        replacements.put("a", new ConstantReplacement(artifactId.toString()));
+        replacements.put("g", new ConstantReplacement("group"));
+        replacements.put("l", new ConstantReplacement("latest"));
+        replacements.put("n", new ConstantReplacement("0"));
+        replacements.put("v", new ConstantReplacement("1.0.0-SNAPSHOT"));
+        parameterReplacer = new ParameterReplacer(replacements);
+
+        imageNameHelper = new ImageNameHelper(project);
+        image = new SingleImageConfiguration();
+        image.setBuild(new SingleImageBuildConfiguration());
+    }
+
+    /**
+     * Replaces the format parameters of the image name
+     *
+     * @return The image name, so the work cannot be eliminated
+     */
+    @Benchmark
+    public String replaceParameters() {
+        return parameterReplacer.replace(imageName);
+    }
+
+    /**
+     * Formats the image name as is done for every image configuration
+     *
+     * @return The image name, so the work cannot be eliminated
+     */
+    @Benchmark
+    public String formatImageName() {
+        image.setImageName(imageName);
+        imageNameHelper.formatImageName(image);
+        return image.getImageName();
+    }
+
+    private static final class ConstantReplacement implements ParameterReplacer.Replacement {
+        private final String value;
+
+        private ConstantReplacement(String value) {
+            this.value = value;
+        }
+
+        @Override
+        public void adaptReplacement(SingleImageConfiguration imageConfiguration) {
+            // Constant
+        }
+
+        @Override
+        public String get() {
+            return value;
+        }
+    }
+}
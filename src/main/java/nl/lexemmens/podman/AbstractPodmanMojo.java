@@ -4,9 +4,11 @@ import nl.lexemmens.podman.config.image.batch.BatchImageConfiguration;
 import nl.lexemmens.podman.config.image.single.SingleImageConfiguration;
 import nl.lexemmens.podman.config.podman.PodmanConfiguration;
 import nl.lexemmens.podman.config.skopeo.SkopeoConfiguration;
+import nl.lexemmens.podman.executor.BuildMetrics;
 import nl.lexemmens.podman.helper.ImageNameHelper;
 import nl.lexemmens.podman.service.ServiceHub;
 import nl.lexemmens.podman.service.ServiceHubFactory;
+import org.apache.maven.execution.MavenSession;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugins.annotations.Component;
@@ -17,8 +19,11 @@ import org.apache.maven.settings.Settings;
 import org.apache.maven.settings.crypto.SettingsDecrypter;
 import org.apache.maven.shared.filtering.MavenFileFilter;
 
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 public abstract class AbstractPodmanMojo extends AbstractMojo {
@@ -29,6 +34,10 @@ public abstract class AbstractPodmanMojo extends AbstractMojo {
 
     protected static final String CATALOG_HEADER = "[containers]";
 
+    protected static final String BUILD_METRICS_FILE_NAME = "build-metrics.json";
+
+    protected static final String TRACE_FILE_NAME = "trace-%s.json";
+
     /**
      * The Maven project
      */
@@ -41,6 +50,12 @@ public abstract class AbstractPodmanMojo extends AbstractMojo {
     @Parameter(defaultValue = "${settings}", readonly = true)
     protected Settings settings;
 
+    /**
+     * The current Maven session. Probe results, such as the Podman version, are shared within a session.
+     */
+    @Parameter(defaultValue = "${session}", readonly = true)
+    protected MavenSession session;
+
     /**
      * All the source registries that are required to build and push container images. Note that the target registry must be explicitly set!
      */
@@ -93,6 +108,20 @@ public abstract class AbstractPodmanMojo extends AbstractMojo {
     @Parameter(property = "podman.fail.on.missing.containerfile", defaultValue = "true")
     protected boolean failOnMissingContainerfile;
 
+    /**
+     * When set to true, the duration of every command and of phases such as authentication is recorded. The
+     * measurements are written to target/podman/build-metrics.json and summarized in the log when the goal completes.
+     */
+    @Parameter(property = "podman.metrics", defaultValue = "true")
+    protected boolean recordMetrics;
+
+    /**
+     * When set to true, a timeline of the goal is written to target/podman/trace-[goal].json in the Chrome trace event
+     * format, which can be opened in Perfetto or chrome://tracing.
+     */
+    @Parameter(property = "podman.trace", defaultValue = "false")
+    protected boolean recordTrace;
+
     @Component
     private MavenFileFilter mavenFileFilter;
 
@@ -107,6 +136,8 @@ public abstract class AbstractPodmanMojo extends AbstractMojo {
 
     protected final List<SingleImageConfiguration> resolvedImages;
 
+    protected final BuildMetrics buildMetrics = new BuildMetrics();
+
     /**
      * Constructor. Initializes this abstract class with a concrete base class
      */
@@ -127,6 +158,7 @@ public abstract class AbstractPodmanMojo extends AbstractMojo {
 
         initConfigurations();
 
+        serviceHubFactory.startSession(session);
         ServiceHub hub = serviceHubFactory.createServiceHub(
                 getLog(),
                 project,
@@ -135,11 +167,48 @@ public abstract class AbstractPodmanMojo extends AbstractMojo {
                 skopeo,
                 settings,
                 settingsDecrypter,
-                mavenProjectHelper
+                mavenProjectHelper,
+                buildMetrics
         );
 
-        printPodmanVersion(hub);
-        executeInternal(hub);
+        try {
+            printPodmanVersion(hub);
+            executeInternal(hub);
+        } finally {
+            reportMetrics();
+        }
+    }
+
+    private void reportMetrics() {
+        if (!recordMetrics && !recordTrace) {
+            return;
+        }
+
+        String goal = getClass().getSimpleName().replace("Mojo", "").toLowerCase(Locale.ROOT);
+        String module = String.format("%s:%s:%s", project.getGroupId(), project.getArtifactId(), project.getVersion());
+        Path podmanDirectory = Paths.get(project.getBuild().getDirectory(), PODMAN_DIRECTORY);
+
+        // The report and trace are informational only and must not fail (or hide the failure of) the goal
+        if (recordMetrics) {
+            buildMetrics.logSummary(getLog(), goal);
+            Path reportFile = podmanDirectory.resolve(BUILD_METRICS_FILE_NAME);
+            try {
+                buildMetrics.writeReport(reportFile, module, goal);
+                getLog().debug("Build metrics written to " + reportFile);
+            } catch (MojoExecutionException e) {
+                getLog().warn(e.getMessage());
+            }
+        }
+
+        if (recordTrace) {
+            Path traceFile = podmanDirectory.resolve(String.format(TRACE_FILE_NAME, goal));
+            try {
+                buildMetrics.writeTrace(traceFile, module, goal);
+                getLog().info("Trace written to " + traceFile);
+            } catch (MojoExecutionException e) {
+                getLog().warn(e.getMessage());
+            }
+        }
     }
 
     private void printPodmanVersion(ServiceHub hub) throws MojoExecutionException {
@@ -186,10 +255,15 @@ public abstract class AbstractPodmanMojo extends AbstractMojo {
     }
 
     private void resolveImages() throws MojoExecutionException {
+        // The same mojo instance may be executed more than once, for example by a test or an embedding build tool
+        resolvedImages.clear();
+
         if (batch != null) {
             getLog().warn("NOTE: Batch mode enabled.");
             batch.initAndValidate(getLog(), project);
-            resolvedImages.addAll(batch.resolve(getLog()));
+            try (BuildMetrics.Timer ignored = buildMetrics.startPhase("batch discovery", null)) {
+                resolvedImages.addAll(batch.resolve(getLog()));
+            }
         }
 
         if (images != null && !images.isEmpty()) {
@@ -201,7 +275,9 @@ public abstract class AbstractPodmanMojo extends AbstractMojo {
         if (skipAuth) {
             getLog().info("Registry authentication is skipped.");
         } else {
-            hub.getAuthenticationService().authenticate(registries);
+            try (BuildMetrics.Timer ignored = buildMetrics.startPhase("authentication", null)) {
+                hub.getAuthenticationService().authenticate(registries);
+            }
         }
     }
 
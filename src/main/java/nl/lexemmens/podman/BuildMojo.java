@@ -1,10 +1,18 @@
 package nl.lexemmens.podman;
 
+import nl.lexemmens.podman.config.image.AbstractImageBuildConfiguration;
 import nl.lexemmens.podman.config.image.AbstractImageConfiguration;
 import nl.lexemmens.podman.config.image.single.SingleImageConfiguration;
+import nl.lexemmens.podman.enumeration.PullPolicy;
+import nl.lexemmens.podman.executor.BoundedTaskQueue;
+import nl.lexemmens.podman.executor.BuildMetrics;
+import nl.lexemmens.podman.executor.ParallelTaskExecutor;
+import nl.lexemmens.podman.helper.BuildFingerprintHelper;
+import nl.lexemmens.podman.helper.ImageDependencyHelper;
 import nl.lexemmens.podman.helper.MultiStageBuildOutputHelper;
 import nl.lexemmens.podman.service.ServiceHub;
 import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
@@ -13,9 +21,15 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 
@@ -26,6 +40,7 @@ import java.util.stream.Collectors;
 public class BuildMojo extends AbstractPodmanMojo {
 
     private final MultiStageBuildOutputHelper buildOutputHelper;
+    private final Map<Path, Object> containerfileLocks = new ConcurrentHashMap<>();
     /**
      * Indicates if building container images should be skipped
      */
@@ -41,6 +56,57 @@ public class BuildMojo extends AbstractPodmanMojo {
      */
     @Parameter(property = "podman.skip.catalog", defaultValue = "false")
     boolean skipCatalog;
+    /**
+     * The number of container images to build concurrently. Defaults to 1, which builds all images one after another.
+     */
+    @Parameter(property = "podman.build.threads", defaultValue = "1")
+    int buildThreads;
+    /**
+     * Indicates if the build of a container image should be skipped when neither its Containerfile, its context directory
+     * nor its build configuration changed since the previous build, and the image built back then still exists.
+     */
+    @Parameter(property = "podman.build.incremental", defaultValue = "false")
+    boolean incremental;
+    /**
+     * Indicates if the image of every stage of a multistage Containerfile should be determined by building that stage
+     * using the --target option, rather than by searching the output of the build for image hashes.
+     */
+    @Parameter(property = "podman.build.resolveStagesByTarget", defaultValue = "false")
+    boolean resolveStagesByTarget;
+    /**
+     * Indicates if every container image should be pushed as soon as it has been built and tagged, while the remaining
+     * images are still being built. The container catalog is only attached once all images have been pushed.
+     */
+    @Parameter(property = "podman.build.pushWhileBuilding", defaultValue = "false")
+    boolean pushWhileBuilding;
+    /**
+     * The maximum number of built container images that wait for a push worker. When this number is reached, the build
+     * of the next image waits until a push has completed.
+     */
+    @Parameter(property = "podman.build.pushQueueSize", defaultValue = "4")
+    int pushQueueSize;
+    /**
+     * The number of container images to push concurrently while building.
+     */
+    @Parameter(property = "podman.push.threads", defaultValue = "1")
+    int pushThreads;
+    /**
+     * The maximum number of container images to push concurrently to the same registry while building. Defaults to 0,
+     * which means that only the number of pushThreads applies.
+     */
+    @Parameter(property = "podman.push.threadsPerRegistry", defaultValue = "0")
+    int pushThreadsPerRegistry;
+    /**
+     * Sets the number of attempts for a Podman push while building.
+     */
+    @Parameter(property = "podman.push.retries", defaultValue = "0")
+    int pushRetries;
+    /**
+     * Indicates if an image that is listed under several names in the same registry should only be pushed once while
+     * building. The other names are created by copying the pushed image within the registry using skopeo.
+     */
+    @Parameter(property = "podman.push.copyAdditionalTags", defaultValue = "false")
+    boolean copyAdditionalTags;
 
     /**
      * Constructor
@@ -53,8 +119,7 @@ public class BuildMojo extends AbstractPodmanMojo {
 
     @Override
     public void executeInternal(ServiceHub hub) throws MojoExecutionException {
-        checkAuthentication(hub);
-
+        List<SingleImageConfiguration> imagesToBuild = new ArrayList<>();
         for (SingleImageConfiguration image : resolvedImages) {
             if (!image.isValid()) {
                 getLog().warn("Skipping build of container image with name " + image.getImageName()
@@ -62,95 +127,280 @@ public class BuildMojo extends AbstractPodmanMojo {
                 continue;
             }
 
-            decorateContainerfile(image, hub);
-            buildContainerImage(image, hub);
-            tagContainerImage(image, hub);
+            imagesToBuild.add(image);
+        }
+
+        // Images that use another image of this module as base image must be built after that image
+        Map<SingleImageConfiguration, List<SingleImageConfiguration>> dependencies = new ImageDependencyHelper(project)
+                .resolveDependencies(getLog(), imagesToBuild, this::getFullImageNameWithPushRegistry);
+
+        checkAuthentication(hub);
+
+        ParallelTaskExecutor executor = new ParallelTaskExecutor(getLog(), buildThreads, "podman-build");
+        boolean buildConcurrently = executor.isParallel() && imagesToBuild.size() > 1;
+        if (buildConcurrently) {
+            getLog().info("Building " + imagesToBuild.size() + " container images using " + buildThreads + " threads...");
 
-            getLog().info("Built container image.");
+            // All images share the same storage location, so there is no need to set the security context for every image
+            setSecurityContext(hub, getLog());
+        }
+
+        BuildFingerprintHelper fingerprintHelper = incremental
+                ? new BuildFingerprintHelper(podman, Paths.get(project.getBuild().getDirectory(), PODMAN_DIRECTORY))
+                : null;
+
+        try (PushPipeline pushPipeline = pushWhileBuilding ? startPushPipeline(hub) : null) {
+            buildContainerImages(imagesToBuild, dependencies, executor, buildConcurrently, fingerprintHelper, pushPipeline, hub);
+
+            if (pushPipeline != null) {
+                // The catalog is only attached when every image has been pushed
+                pushPipeline.finish(getLog());
+            }
         }
 
         catalogContainers(resolvedImages, hub);
     }
 
+    private void buildContainerImages(List<SingleImageConfiguration> imagesToBuild, Map<SingleImageConfiguration, List<SingleImageConfiguration>> dependencies,
+                                      ParallelTaskExecutor executor, boolean buildConcurrently, BuildFingerprintHelper fingerprintHelper,
+                                      PushPipeline pushPipeline, ServiceHub hub) throws MojoExecutionException {
+        executor.execute(imagesToBuild, SingleImageConfiguration::getImageName, dependencies::get, (image, log) -> {
+            boolean upToDate = false;
+            // Images that use the same target Containerfile cannot be decorated and built at the same time
+            synchronized (containerfileLocks.computeIfAbsent(image.getBuild().getTargetContainerFile(), path -> new Object())) {
+                decorateContainerfile(image, hub, log);
+
+                String fingerprint = null;
+                if (fingerprintHelper != null && isIncrementalBuildSupported(image, log)) {
+                    fingerprint = fingerprintHelper.computeFingerprint(image, hub.getPodmanExecutorService());
+                    upToDate = reuseRecordedBuild(image, fingerprint, fingerprintHelper, hub, log);
+                }
+
+                if (!upToDate) {
+                    if (!buildConcurrently) {
+                        setSecurityContext(hub, log);
+                    }
+                    try (BuildMetrics.Timer ignored = buildMetrics.startPhase("build", image.getImageName())) {
+                        buildContainerImage(image, hub, log);
+                    }
+
+                    if (fingerprint != null) {
+                        fingerprintHelper.recordBuild(image, fingerprint);
+                    }
+                }
+            }
+            try (BuildMetrics.Timer ignored = buildMetrics.startPhase("tag", image.getImageName())) {
+                tagContainerImage(image, hub, log);
+            }
+
+            if (!upToDate) {
+                log.info("Built container image.");
+            }
+
+            if (pushPipeline != null) {
+                pushPipeline.push(singleImageConfigurationToFullImageList(image), log);
+            }
+        });
+    }
+
+    private PushPipeline startPushPipeline(ServiceHub hub) throws MojoExecutionException {
+        if (pushRegistry == null) {
+            String msg = "Failed to push container images. No registry specified. Configure the registry by adding the " +
+                    "<pushRegistry><!-- registry --></pushRegistry> tag to your configuration.";
+
+            getLog().error(msg);
+            throw new MojoExecutionException(msg);
+        }
+
+        if (skipTag) {
+            String msg = "Container images cannot be pushed while building when tagging is skipped.";
+            getLog().error(msg);
+            throw new MojoExecutionException(msg);
+        }
+
+        getLog().info("Pushing container images to registry while building using " + Math.max(1, pushThreads) + " threads...");
+        // Local images are never removed, later images of this module may still use them as base image
+        ImagePusher pusher = new ImagePusher(hub, buildMetrics, podman, pushRegistry, pushRetries, pushThreads, pushThreadsPerRegistry, false);
+        return new PushPipeline(pusher, new BoundedTaskQueue<>(getLog(), pushThreads, pushQueueSize, "podman-push",
+                imageGroup -> imageGroup.get(0), pusher::pushImageGroup));
+    }
+
     @Override
     protected boolean skipGoal() {
         return skipBuild;
     }
 
-    private void decorateContainerfile(SingleImageConfiguration image, ServiceHub hub) throws MojoExecutionException {
-        getLog().info("Filtering Containerfile...");
-        hub.getContainerfileDecorator().decorateContainerfile(image);
+    private void decorateContainerfile(SingleImageConfiguration image, ServiceHub hub, Log log) throws MojoExecutionException {
+        log.info("Filtering Containerfile...");
+        try (BuildMetrics.Timer ignored = buildMetrics.startPhase("containerfile filtering", image.getImageName())) {
+            hub.getContainerfileDecorator().decorateContainerfile(image);
+        }
+    }
+
+    private boolean isIncrementalBuildSupported(SingleImageConfiguration image, Log log) {
+        PullPolicy pullPolicy = image.getBuild().getPullPolicy().orElse(null);
+        if (image.getBuild().isNoCache() || pullPolicy == PullPolicy.ALWAYS || pullPolicy == PullPolicy.TRUE || pullPolicy == PullPolicy.NEWER) {
+            log.debug("Base images may have changed due to the configured noCache or pullPolicy. Incremental build is not possible.");
+            return false;
+        }
+        return true;
     }
 
-    private void buildContainerImage(SingleImageConfiguration image, ServiceHub hub) throws MojoExecutionException {
-        getLog().info("Setting security context...");
+    private boolean reuseRecordedBuild(SingleImageConfiguration image, String fingerprint, BuildFingerprintHelper fingerprintHelper,
+                                       ServiceHub hub, Log log) throws MojoExecutionException {
+        Optional<BuildFingerprintHelper.RecordedBuild> recordedBuild = fingerprintHelper.getRecordedBuild(image, fingerprint);
+        if (!recordedBuild.isPresent()) {
+            log.debug("No previous build found with fingerprint " + fingerprint);
+            return false;
+        }
+
+        String finalImageHash = recordedBuild.get().getFinalImageHash();
+        if (!hub.getPodmanExecutorService().getLocalImageId(finalImageHash).isPresent()) {
+            log.debug("Image " + finalImageHash + " of the previous build no longer exists.");
+            return false;
+        }
+
+        log.info("Container image " + image.getImageName() + " is up to date. Skipping build.");
+        image.setFinalImageHash(finalImageHash);
+        image.getImageHashPerStage().putAll(recordedBuild.get().getImageHashPerStage());
+        return true;
+    }
+
+    private void setSecurityContext(ServiceHub hub, Log log) throws MojoExecutionException {
+        log.info("Setting security context...");
         hub.getSecurityContextService().setSecurityContext();
+    }
+
+    private void buildContainerImage(SingleImageConfiguration image, ServiceHub hub, Log log) throws MojoExecutionException {
+        log.info("Building container image...");
 
-        getLog().info("Building container image...");
-        List<String> processOutput = hub.getPodmanExecutorService().build(image);
+        // The output of a build is not retained. Only the last line is kept, in case Podman did not write the image ID file.
+        AtomicReference<String> lastLine = new AtomicReference<>();
+        Consumer<String> outputConsumer = lastLine::set;
 
-        // Read the final image hash
-        String finalImageHash = processOutput.get(processOutput.size() - 1);
-        getLog().debug("Determined final image hash as " + finalImageHash);
+        boolean multistage = image.getBuild().isMultistageContainerFile();
+        MultiStageBuildOutputHelper.ImageHashCollector imageHashCollector = null;
+        if (multistage) {
+            log.info("Detected multistage Containerfile...");
+            if (!resolveStagesByTarget || !isLayerCacheUsed(image, log)) {
+                imageHashCollector = buildOutputHelper.createImageHashCollector(log, image);
+                outputConsumer = outputConsumer.andThen(imageHashCollector);
+            }
+        }
+
+        Optional<String> imageId;
+        try (BuildMetrics.StepRecorder stepRecorder = buildMetrics.recordSteps(image.getImageName())) {
+            imageId = hub.getPodmanExecutorService().build(image, outputConsumer.andThen(stepRecorder));
+        }
+
+        // Without an image ID file, the last line of the output contains the final image hash
+        String finalImageHash = imageId.orElseGet(lastLine::get);
+        log.debug("Determined final image hash as " + finalImageHash);
         image.setFinalImageHash(finalImageHash);
 
-        if (image.getBuild().isMultistageContainerFile()) {
-            getLog().info("Detected multistage Containerfile...");
-            buildOutputHelper.recordImageHashes(getLog(), image, processOutput);
+        if (imageHashCollector != null) {
+            imageHashCollector.finish();
+        } else if (multistage && image.useCustomImageNameForMultiStageContainerfile()) {
+            resolveStageImages(image, finalImageHash, hub, log);
+        }
+    }
+
+    private static boolean isLayerCacheUsed(SingleImageConfiguration image, Log log) {
+        AbstractImageBuildConfiguration build = image.getBuild();
+        if (build.isNoCache() || Boolean.FALSE == build.getLayers() || Boolean.TRUE == build.getSquash() || Boolean.TRUE == build.getSquashAll()) {
+            log.debug("The layer cache is not used due to the configured noCache, layers, squash or squashAll. Searching the build output for the images of the stages instead.");
+            return false;
         }
+        return true;
     }
 
-    private void tagContainerImage(SingleImageConfiguration image, ServiceHub hub) throws MojoExecutionException {
+    private void resolveStageImages(SingleImageConfiguration image, String finalImageHash, ServiceHub hub, Log log) throws MojoExecutionException {
+        List<String> stages = image.getBuild().getBuildStages();
+        Optional<String> targetStage = image.getBuild().getTargetStage();
+
+        // Stages that are defined after the target stage are not part of the build
+        int lastStage = targetStage.map(stages::indexOf).orElse(stages.size() - 1);
+        for (int i = 0; i <= lastStage; i++) {
+            String stage = stages.get(i);
+            if (image.getImageNamesByStage(stage).isEmpty()) {
+                log.debug("No image name configured for build stage: " + stage + ". Not resolving its image.");
+                continue;
+            }
+
+            Optional<String> stageImageHash;
+            if (i == lastStage) {
+                // The target stage, or the last stage when there is no target stage, is the final image
+                stageImageHash = Optional.ofNullable(finalImageHash);
+            } else {
+                log.info("Resolving image of stage " + stage + "...");
+                // All layers of the stage are taken from the cache of the build that just completed
+                stageImageHash = hub.getPodmanExecutorService().buildStage(image, stage, line -> { });
+            }
+
+            if (stageImageHash.isPresent()) {
+                log.info("Final image for stage " + stage + " is: " + stageImageHash.get());
+                image.getImageHashPerStage().put(stage, stageImageHash.get());
+            } else {
+                log.warn("No image hash found for stage: '" + stage + "'");
+            }
+        }
+    }
+
+    private void tagContainerImage(SingleImageConfiguration image, ServiceHub hub, Log log) throws MojoExecutionException {
         if (skipTag) {
-            getLog().info("Tagging container images is skipped.");
+            log.info("Tagging container images is skipped.");
             return;
         }
 
         if (image.getBuild().getAllTags().isEmpty()) {
-            getLog().info("No tags specified. Skipping tagging of container images.");
+            log.info("No tags specified. Skipping tagging of container images.");
             return;
         }
 
         if (image.getBuild().isMultistageContainerFile() && image.useCustomImageNameForMultiStageContainerfile()) {
-            tagImagesOfMultiStageContainerfile(image, hub);
+            tagImagesOfMultiStageContainerfile(image, hub, log);
         } else if (image.getBuild().isMultistageContainerFile()) {
-            getLog().warn("Missing container names for multistage Containerfile. Falling back to tagging the final container image.");
-            tagFinalImage(image, hub);
+            log.warn("Missing container names for multistage Containerfile. Falling back to tagging the final container image.");
+            tagFinalImage(image, hub, log);
         } else {
-            tagFinalImage(image, hub);
+            tagFinalImage(image, hub, log);
         }
     }
 
-    private void tagImagesOfMultiStageContainerfile(SingleImageConfiguration image, ServiceHub hub) throws MojoExecutionException {
+    private void tagImagesOfMultiStageContainerfile(SingleImageConfiguration image, ServiceHub hub, Log log) throws MojoExecutionException {
         for (Map.Entry<String, String> stageImage : image.getImageHashPerStage().entrySet()) {
             List<String> imageNamesByStage = image.getImageNamesByStage(stageImage.getKey());
 
             if (imageNamesByStage.isEmpty()) {
-                getLog().warn("No image name configured for build stage: " + stageImage.getKey() + ". Image " + stageImage.getValue() + " not tagged!");
+                log.warn("No image name configured for build stage: " + stageImage.getKey() + ". Image " + stageImage.getValue() + " not tagged!");
             } else {
+                List<String> fullImageNames = new ArrayList<>();
                 for (String imageName : imageNamesByStage) {
                     String fullImageName = getFullImageNameWithPushRegistry(imageName);
 
-                    getLog().info("Tagging container image " + stageImage.getValue() + " from stage " + stageImage.getKey() + " as " + fullImageName);
-
-                    hub.getPodmanExecutorService().tag(stageImage.getValue(), fullImageName);
+                    log.info("Tagging container image " + stageImage.getValue() + " from stage " + stageImage.getKey() + " as " + fullImageName);
+                    fullImageNames.add(fullImageName);
                 }
+
+                hub.getPodmanExecutorService().tag(stageImage.getValue(), fullImageNames);
             }
         }
     }
 
-    private void tagFinalImage(SingleImageConfiguration image, ServiceHub hub) throws MojoExecutionException {
+    private void tagFinalImage(SingleImageConfiguration image, ServiceHub hub, Log log) throws MojoExecutionException {
         if (image.getFinalImageHash().isPresent()) {
             String imageHash = image.getFinalImageHash().get();
+            List<String> fullImageNames = new ArrayList<>();
             for (String imageNameWithTag : image.getImageNames()) {
                 String fullImageName = getFullImageNameWithPushRegistry(imageNameWithTag);
 
-                getLog().info("Tagging container image " + imageHash + " as " + fullImageName);
-
-                hub.getPodmanExecutorService().tag(imageHash, fullImageName);
+                log.info("Tagging container image " + imageHash + " as " + fullImageName);
+                fullImageNames.add(fullImageName);
             }
+
+            hub.getPodmanExecutorService().tag(imageHash, fullImageNames);
         } else {
-            getLog().info("No image hash available. Skipping tagging container image.");
+            log.info("No image hash available. Skipping tagging container image.");
         }
     }
 
@@ -180,6 +430,41 @@ public class BuildMojo extends AbstractPodmanMojo {
         }
     }
 
+    /**
+     * Hands built container images over to push workers, while the build continues with the next images.
+     */
+    private final class PushPipeline implements AutoCloseable {
+        private final ImagePusher pusher;
+        private final BoundedTaskQueue<List<String>> queue;
+        private final List<String> pushedImages = Collections.synchronizedList(new ArrayList<>());
+
+        private PushPipeline(ImagePusher pusher, BoundedTaskQueue<List<String>> queue) {
+            this.pusher = pusher;
+            this.queue = queue;
+        }
+
+        private void push(List<String> fullImageNames, Log log) throws MojoExecutionException {
+            List<List<String>> imageGroups = copyAdditionalTags ? pusher.groupByImageId(fullImageNames) : ImagePusher.groupByName(fullImageNames);
+            pushedImages.addAll(fullImageNames);
+            log.info("Queueing " + fullImageNames.size() + " container image name(s) for push.");
+            for (List<String> imageGroup : imageGroups) {
+                queue.submit(imageGroup);
+            }
+        }
+
+        private void finish(Log log) throws MojoExecutionException {
+            log.info("Waiting for pending pushes to complete...");
+            queue.awaitCompletion();
+            pusher.reportFailures(new ArrayList<>(pushedImages), log);
+            log.info("All images have been successfully pushed to the registry");
+        }
+
+        @Override
+        public void close() {
+            queue.close();
+        }
+    }
+
     private List<String> getContainerCatalog(List<SingleImageConfiguration> images) {
         return images.stream()
                 .filter(AbstractImageConfiguration::isValid)
@@ -1,17 +1,28 @@
 package nl.lexemmens.podman;
 
+import nl.lexemmens.podman.executor.BuildMetrics;
+import nl.lexemmens.podman.executor.ParallelTaskExecutor;
+import nl.lexemmens.podman.executor.RetryPolicy;
+import nl.lexemmens.podman.helper.SkopeoSyncHelper;
+import nl.lexemmens.podman.helper.SkopeoSyncHelper.SyncBatch;
+import nl.lexemmens.podman.helper.SkopeoSyncHelper.SyncPlan;
 import nl.lexemmens.podman.service.ServiceHub;
+import nl.lexemmens.podman.service.SkopeoExecutorService;
 import org.apache.commons.io.FileUtils;
 import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Executes a Skopeo copy command, that allows to copy containers from one location
@@ -26,6 +37,24 @@ public class CopyMojo extends AbstractCatalogSupport {
     @Parameter(property = "skopeo.skip.copy", defaultValue = "false")
     boolean skipCopy;
 
+    /**
+     * The number of container images to copy concurrently. Defaults to 1, which copies all images one after another.
+     */
+    @Parameter(property = "skopeo.copy.threads", defaultValue = "1")
+    int copyThreads;
+
+    /**
+     * Indicates if images should only be copied when the destination does not contain an image with the same digest
+     */
+    @Parameter(property = "skopeo.copy.skipExisting", defaultValue = "false")
+    boolean skipExisting;
+
+    /**
+     * Indicates if images should be copied in batches using skopeo sync, rather than using skopeo copy for every image
+     */
+    @Parameter(property = "skopeo.copy.sync", defaultValue = "false")
+    boolean syncImages;
+
     @Override
     public void executeInternal(ServiceHub hub) throws MojoExecutionException {
         checkAuthentication(hub);
@@ -42,9 +71,34 @@ public class CopyMojo extends AbstractCatalogSupport {
         return false;
     }
 
-    private void copyImage(ServiceHub hub, String sourceImage, String targetImage) throws MojoExecutionException {
-        getLog().info(String.format("Copying image %s to %s...", sourceImage, targetImage));
-        hub.getSkopeoExecutorService().copy(sourceImage, targetImage);
+    private void copyImage(ServiceHub hub, String sourceImage, String targetImage, Log log, AtomicInteger skipped) throws MojoExecutionException {
+        if (skipExisting && isAlreadyCopied(hub, sourceImage, targetImage, log)) {
+            skipped.incrementAndGet();
+            return;
+        }
+
+        log.info(String.format("Copying image %s to %s...", sourceImage, targetImage));
+        try (BuildMetrics.Timer ignored = buildMetrics.startPhase("copy", sourceImage)) {
+            new RetryPolicy(podman.getRetry().getRetries(), podman.getRetry())
+                    .execute("copy image " + sourceImage, log, () -> hub.getSkopeoExecutorService().copy(sourceImage, targetImage));
+        }
+    }
+
+    private boolean isAlreadyCopied(ServiceHub hub, String sourceImage, String targetImage, Log log) {
+        SkopeoExecutorService skopeoExecutorService = hub.getSkopeoExecutorService();
+        Optional<String> sourceDigest = skopeoExecutorService.getDigest(sourceImage, skopeo.getCopy().getSrcTlsVerify());
+        if (!sourceDigest.isPresent()) {
+            log.debug("Unable to determine the digest of image " + sourceImage + ", copying it anyway.");
+            return false;
+        }
+
+        Optional<String> targetDigest = skopeoExecutorService.getDigest(targetImage, skopeo.getCopy().getDestTlsVerify());
+        if (sourceDigest.equals(targetDigest)) {
+            log.info(String.format("Not copying image %s, because %s already has digest %s.", sourceImage, targetImage, sourceDigest.get()));
+            return true;
+        }
+
+        return false;
     }
 
     private void performCopyUsingCatalogFile(ServiceHub hub) throws MojoExecutionException {
@@ -61,8 +115,23 @@ public class CopyMojo extends AbstractCatalogSupport {
         } else {
             Map<String, String> transformedImages = performTransformation(cataloguedImages);
 
-            for (Map.Entry<String, String> imageEntry : transformedImages.entrySet()) {
-                copyImage(hub, imageEntry.getKey(), imageEntry.getValue());
+            ParallelTaskExecutor executor = new ParallelTaskExecutor(getLog(), copyThreads, "skopeo-copy");
+            if (executor.isParallel() && transformedImages.size() > 1) {
+                getLog().info("Copying " + transformedImages.size() + " container images using " + copyThreads + " threads...");
+            }
+
+            AtomicInteger skipped = new AtomicInteger();
+            List<Map.Entry<String, String>> imagesToCopy = new ArrayList<>(transformedImages.entrySet());
+            if (syncImages) {
+                imagesToCopy = syncImages(hub, executor, transformedImages, skipped);
+            }
+
+            executor.execute(imagesToCopy, Map.Entry::getKey,
+                    (imageEntry, log) -> copyImage(hub, imageEntry.getKey(), imageEntry.getValue(), log, skipped));
+
+            if (skipExisting) {
+                getLog().info(String.format("Skipped %d of %d container images, because they were already present at the destination.",
+                        skipped.get(), transformedImages.size()));
             }
 
             if (skopeo.getCopy().getDisableLocal() && tempRepo != null) {
@@ -75,12 +144,46 @@ public class CopyMojo extends AbstractCatalogSupport {
         }
     }
 
+    private List<Map.Entry<String, String>> syncImages(ServiceHub hub, ParallelTaskExecutor executor, Map<String, String> transformedImages,
+                                                       AtomicInteger skipped) throws MojoExecutionException {
+        Map<String, String> imagesToSync = new LinkedHashMap<>();
+        for (Map.Entry<String, String> imageEntry : transformedImages.entrySet()) {
+            if (skipExisting && isAlreadyCopied(hub, imageEntry.getKey(), imageEntry.getValue(), getLog())) {
+                skipped.incrementAndGet();
+            } else {
+                imagesToSync.put(imageEntry.getKey(), imageEntry.getValue());
+            }
+        }
+
+        SyncPlan syncPlan = new SkopeoSyncHelper().createSyncPlan(imagesToSync);
+        executor.execute(syncPlan.getBatches(), batch -> batch.getSourceRegistry() + " -> " + batch.getDestination(),
+                (batch, log) -> syncBatch(hub, batch, log));
+
+        Map<String, String> unsupportedImages = syncPlan.getUnsupportedImages();
+        if (!unsupportedImages.isEmpty()) {
+            getLog().info(String.format("Copying %d container images one by one, because their target name cannot be expressed using skopeo sync.",
+                    unsupportedImages.size()));
+        }
+        return new ArrayList<>(unsupportedImages.entrySet());
+    }
+
+    private void syncBatch(ServiceHub hub, SyncBatch batch, Log log) throws MojoExecutionException {
+        log.info(String.format("Copying %d container images from %s to %s using skopeo sync...",
+                batch.getImages().size(), batch.getSourceRegistry(), batch.getDestination()));
+        if (log.isDebugEnabled()) {
+            batch.getImages().forEach((sourceImage, targetImage) -> log.debug("Copying image " + sourceImage + " to " + targetImage));
+        }
+
+        new RetryPolicy(podman.getRetry().getRetries(), podman.getRetry())
+                .execute("sync images to " + batch.getDestination(), log, () -> hub.getSkopeoExecutorService().sync(batch));
+    }
+
     private String transformToTargetImageRepo(String sourceImageRepo) {
         return sourceImageRepo.replace(skopeo.getCopy().getSearchString(), skopeo.getCopy().getReplaceString());
     }
 
     private Map<String, String> performTransformation(List<String> cataloguedImages) {
-        Map<String, String> transformedImages = new HashMap<>(cataloguedImages.size());
+        Map<String, String> transformedImages = new LinkedHashMap<>(cataloguedImages.size());
         for (String image : cataloguedImages) {
             transformedImages.put(
                     image,
@@ -0,0 +1,214 @@
+package nl.lexemmens.podman;
+
+import nl.lexemmens.podman.config.podman.PodmanConfiguration;
+import nl.lexemmens.podman.executor.BuildMetrics;
+import nl.lexemmens.podman.executor.RetryPolicy;
+import nl.lexemmens.podman.service.ServiceHub;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+
+/**
+ * <p>
+ * Pushes container images to a registry. Used by the push goal, and by the build goal when images are pushed while
+ * the remaining images are still being built.
+ * </p>
+ * <p>
+ * A failed push does not stop other images from being pushed. Failures are collected and reported together using
+ * {@link #reportFailures(List, Log)}.
+ * </p>
+ */
+class ImagePusher {
+
+    private static final String DEFAULT_REGISTRY = "docker.io";
+
+    private final ServiceHub hub;
+    private final BuildMetrics buildMetrics;
+    private final PodmanConfiguration podman;
+    private final String pushRegistry;
+    private final int retries;
+    private final int registryPermitCount;
+    private final boolean deleteLocalImageAfterPush;
+
+    private final Map<String, Semaphore> registryPermits = new ConcurrentHashMap<>();
+    private final Map<String, MojoExecutionException> failures = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a new instance of this class
+     *
+     * @param hub                       Provides access to the Podman and Skopeo services
+     * @param buildMetrics              Records the duration of every push and copy
+     * @param podman                    The Podman configuration, which holds the retry and TLS configuration
+     * @param pushRegistry              The registry the images are pushed to. Only used in log messages.
+     * @param retries                   The number of times a failed push is retried
+     * @param pushThreads               The number of images that are pushed concurrently
+     * @param pushThreadsPerRegistry    The maximum number of images pushed concurrently to the same registry, or 0
+     * @param deleteLocalImageAfterPush Whether the local image should be removed after it has been pushed
+     */
+    ImagePusher(ServiceHub hub, BuildMetrics buildMetrics, PodmanConfiguration podman, String pushRegistry, int retries, int pushThreads,
+                int pushThreadsPerRegistry, boolean deleteLocalImageAfterPush) {
+        this.hub = hub;
+        this.buildMetrics = buildMetrics;
+        this.podman = podman;
+        this.pushRegistry = pushRegistry;
+        this.retries = retries;
+        this.registryPermitCount = pushThreads > 1 ? pushThreadsPerRegistry : 0;
+        this.deleteLocalImageAfterPush = deleteLocalImageAfterPush;
+    }
+
+    /**
+     * Returns every image in a group of its own
+     *
+     * @param images The full names of the images to push
+     * @return A group per image
+     */
+    static List<List<String>> groupByName(List<String> images) {
+        List<List<String>> imageGroups = new ArrayList<>();
+        for (String fullImage : images) {
+            imageGroups.add(Collections.singletonList(fullImage));
+        }
+        return imageGroups;
+    }
+
+    /**
+     * Groups the names of the same local image in the same registry. Only the first image of a group is pushed, the
+     * others are copied within the registry. Images that do not exist locally are pushed on their own.
+     *
+     * @param images The full names of the images to push
+     * @return The groups of images
+     */
+    List<List<String>> groupByImageId(List<String> images) {
+        Map<String, List<String>> imageGroups = new LinkedHashMap<>();
+        for (String fullImage : images) {
+            Optional<String> imageId = hub.getPodmanExecutorService().getLocalImageId(fullImage);
+            String key = imageId.map(id -> getRegistry(fullImage) + "@" + id).orElse(fullImage);
+            imageGroups.computeIfAbsent(key, k -> new ArrayList<>()).add(fullImage);
+        }
+        return new ArrayList<>(imageGroups.values());
+    }
+
+    /**
+     * Pushes the first image of the group and copies it to the other names of the group. Failures are recorded
+     * instead of thrown.
+     *
+     * @param imageGroup The group of images to push
+     * @param log        The log to write to
+     */
+    void pushImageGroup(List<String> imageGroup, Log log) {
+        String pushedImage = imageGroup.get(0);
+        try {
+            pushImage(pushedImage, log);
+        } catch (MojoExecutionException e) {
+            for (String fullImage : imageGroup) {
+                log.error("Failed to push image " + fullImage + ": " + e.getMessage());
+                failures.put(fullImage, e);
+            }
+            return;
+        }
+
+        for (String fullImage : imageGroup.subList(1, imageGroup.size())) {
+            try {
+                copyImage(pushedImage, fullImage, log);
+            } catch (MojoExecutionException e) {
+                log.error("Failed to push image " + fullImage + ": " + e.getMessage());
+                failures.put(fullImage, e);
+            }
+        }
+    }
+
+    /**
+     * Throws an exception listing every image that failed to be pushed. Does nothing when all pushes succeeded.
+     *
+     * @param images All images that were pushed
+     * @param log    The log to write to
+     * @throws MojoExecutionException In case one or more images failed to be pushed
+     */
+    void reportFailures(List<String> images, Log log) throws MojoExecutionException {
+        if (failures.isEmpty()) {
+            return;
+        }
+
+        List<String> failedImages = new ArrayList<>();
+        for (String fullImage : images) {
+            if (failures.containsKey(fullImage)) {
+                failedImages.add(fullImage);
+            }
+        }
+
+        log.info("Pushed " + (images.size() - failedImages.size()) + " of " + images.size() + " container images.");
+        String msg = String.format("Failed to push %d of %d container images: %s", failedImages.size(), images.size(), String.join(", ", failedImages));
+        log.error(msg);
+        throw new MojoExecutionException(msg, failures.get(failedImages.get(0)));
+    }
+
+    private void pushImage(String fullImageName, Log log) throws MojoExecutionException {
+        log.info("Pushing image: " + fullImageName + " to " + pushRegistry);
+        try (BuildMetrics.Timer ignored = buildMetrics.startPhase("push", fullImageName)) {
+            withRegistryPermit(fullImageName, () -> hub.getPodmanExecutorService().push(fullImageName), log);
+        }
+        completePush(fullImageName, log);
+    }
+
+    private void copyImage(String pushedImage, String fullImageName, Log log) throws MojoExecutionException {
+        log.info("Copying image: " + pushedImage + " to " + fullImageName);
+        try (BuildMetrics.Timer ignored = buildMetrics.startPhase("copy", fullImageName)) {
+            withRegistryPermit(fullImageName,
+                    () -> hub.getSkopeoExecutorService().copy(pushedImage, fullImageName, podman.getTlsVerify()), log);
+        }
+        completePush(fullImageName, log);
+    }
+
+    private void withRegistryPermit(String fullImageName, RetryPolicy.Action action, Log log) throws MojoExecutionException {
+        Semaphore registrySlots = null;
+        if (registryPermitCount > 0) {
+            registrySlots = registryPermits.computeIfAbsent(getRegistry(fullImageName), registry -> new Semaphore(registryPermitCount));
+            acquire(registrySlots, fullImageName);
+        }
+
+        try {
+            new RetryPolicy(retries, podman.getRetry()).execute("push image " + fullImageName, log, action);
+        } finally {
+            if (registrySlots != null) {
+                registrySlots.release();
+            }
+        }
+    }
+
+    private void completePush(String fullImageName, Log log) throws MojoExecutionException {
+        if (deleteLocalImageAfterPush) {
+            log.info("Removing image " + fullImageName + " from the local repository");
+            hub.getPodmanExecutorService().removeLocalImage(fullImageName);
+        }
+
+        log.info("Successfully pushed container image " + fullImageName + " to " + pushRegistry);
+    }
+
+    private static void acquire(Semaphore registrySlots, String fullImageName) throws MojoExecutionException {
+        try {
+            registrySlots.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("Interrupted while waiting to push image " + fullImageName, e);
+        }
+    }
+
+    private static String getRegistry(String fullImageName) {
+        // The first part of an image name is only a registry when it looks like a host name
+        int firstSlash = fullImageName.indexOf('/');
+        if (firstSlash > 0) {
+            String firstPart = fullImageName.substring(0, firstSlash);
+            if (firstPart.contains(".") || firstPart.contains(":") || "localhost".equals(firstPart)) {
+                return firstPart;
+            }
+        }
+        return DEFAULT_REGISTRY;
+    }
+}
@@ -1,5 +1,6 @@
 package nl.lexemmens.podman;
 
+import nl.lexemmens.podman.executor.ParallelTaskExecutor;
 import nl.lexemmens.podman.service.ServiceHub;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
@@ -33,6 +34,27 @@ public class PushMojo extends AbstractCatalogSupport {
     @Parameter(property = "podman.push.retries", defaultValue = "0", required = true)
     int retries;
 
+    /**
+     * The number of container images to push concurrently. Defaults to 1, which pushes all images one after another.
+     */
+    @Parameter(property = "podman.push.threads", defaultValue = "1")
+    int pushThreads;
+
+    /**
+     * The maximum number of container images to push concurrently to the same registry. Defaults to 0, which means
+     * that only the number of pushThreads applies.
+     */
+    @Parameter(property = "podman.push.threadsPerRegistry", defaultValue = "0")
+    int pushThreadsPerRegistry;
+
+    /**
+     * Indicates if an image that is listed under several names in the same registry should only be pushed once. The
+     * other names are then created by copying the pushed image within the registry using skopeo, which only uploads
+     * the manifest.
+     */
+    @Parameter(property = "podman.push.copyAdditionalTags", defaultValue = "false")
+    boolean copyAdditionalTags;
+
     @Override
     public void executeInternal(ServiceHub hub) throws MojoExecutionException {
         checkAuthentication(hub);
@@ -64,32 +86,17 @@ public class PushMojo extends AbstractCatalogSupport {
     private void pushContainerImages(ServiceHub hub, List<String> images) throws MojoExecutionException {
         getLog().info("Pushing container images to registry ...");
 
-        for (String fullImage : images) {
-            pushImage(hub, fullImage);
-        }
-    }
+        ImagePusher pusher = new ImagePusher(hub, buildMetrics, podman, pushRegistry, retries, pushThreads, pushThreadsPerRegistry, deleteLocalImageAfterPush);
+        List<List<String>> imageGroups = copyAdditionalTags ? pusher.groupByImageId(images) : ImagePusher.groupByName(images);
 
-    private void pushImage(ServiceHub hub, String fullImageName) throws MojoExecutionException {
-        getLog().info("Pushing image: " + fullImageName + " to " + pushRegistry);
-
-        for (int i = 0; i <= retries; i++) {
-            try {
-                hub.getPodmanExecutorService().push(fullImageName);
-                break;
-            } catch (MojoExecutionException e) {
-                if (i != retries) {
-                    getLog().warn("Failed to push image " + fullImageName + ", retrying...");
-                } else {
-                    throw e;
-                }
-            }
+        ParallelTaskExecutor executor = new ParallelTaskExecutor(getLog(), pushThreads, "podman-push");
+        if (executor.isParallel() && imageGroups.size() > 1) {
+            getLog().info("Pushing " + imageGroups.size() + " container images using " + pushThreads + " threads...");
         }
 
-        if (deleteLocalImageAfterPush) {
-            getLog().info("Removing image " + fullImageName + " from the local repository");
-            hub.getPodmanExecutorService().removeLocalImage(fullImageName);
-        }
+        // A failed push does not stop the other images from being pushed. All failures are reported at the end.
+        executor.execute(imageGroups, imageGroup -> imageGroup.get(0), pusher::pushImageGroup);
 
-        getLog().info("Successfully pushed container image " + fullImageName + " to " + pushRegistry);
+        pusher.reportFailures(images, getLog());
     }
 }
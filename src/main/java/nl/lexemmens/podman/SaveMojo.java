@@ -2,8 +2,12 @@ package nl.lexemmens.podman;
 
 import nl.lexemmens.podman.config.image.StageConfiguration;
 import nl.lexemmens.podman.config.image.single.SingleImageConfiguration;
+import nl.lexemmens.podman.enumeration.Compression;
+import nl.lexemmens.podman.executor.ParallelTaskExecutor;
+import nl.lexemmens.podman.helper.SavedArchiveHelper;
 import nl.lexemmens.podman.service.ServiceHub;
 import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
@@ -12,6 +16,9 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
 
 /**
  * SaveMojo for exporting container images to the file system
@@ -19,16 +26,59 @@ import java.nio.file.Path;
 @Mojo(name = "save", defaultPhase = LifecyclePhase.NONE)
 public class SaveMojo extends AbstractPodmanMojo {
 
+    private static final String OCI_LAYOUT_DIRECTORY = "oci-layout";
+
     @Parameter(property = "podman.skip.save", defaultValue = "false")
     boolean skipSave;
 
     @Parameter(property = "podman.save.directory", defaultValue = "${project.build.directory}/" + PODMAN_DIRECTORY)
     File targetDirectory;
 
+    /**
+     * The number of container images to save concurrently. Defaults to 1, which saves all images one after another.
+     */
+    @Parameter(property = "podman.save.threads", defaultValue = "1")
+    int saveThreads;
+
+    /**
+     * How to compress the saved container images. Defaults to GZIP, matching the <code>.tar.gz</code> extension of the
+     * archive. NONE stores the archive created by Podman as is.
+     */
+    @Parameter(property = "podman.save.compression", defaultValue = "GZIP")
+    Compression compression;
+
+    /**
+     * The gzip compression level, from 0 (no compression) to 9 (best compression)
+     */
+    @Parameter(property = "podman.save.compressionLevel", defaultValue = "6")
+    int compressionLevel;
+
+    /**
+     * The number of threads used to compress a single container image. Defaults to the number of available processors,
+     * divided by the number of images that are saved concurrently.
+     */
+    @Parameter(property = "podman.save.compressionThreads", defaultValue = "0")
+    int compressionThreads;
+
+    /**
+     * Indicates if all images of the module should be saved into a single OCI image layout directory, instead of one
+     * archive per image
+     */
+    @Parameter(property = "podman.save.ociLayout", defaultValue = "false")
+    boolean ociLayout;
+
+    /**
+     * Indicates if saving an image should be skipped when the archive already contains the image that is currently
+     * tagged with the same name
+     */
+    @Parameter(property = "podman.save.incremental", defaultValue = "false")
+    boolean incremental;
+
     @Override
     public void executeInternal(ServiceHub hub) throws MojoExecutionException {
         checkAuthentication(hub);
 
+        List<String> imagesToExport = new ArrayList<>();
         for (SingleImageConfiguration image : resolvedImages) {
             if (!image.isValid()) {
                 getLog().warn("Skipping save of container image with name " + image.getImageName()
@@ -37,7 +87,17 @@ public class SaveMojo extends AbstractPodmanMojo {
             }
 
             // No need to check if the image names are empty here - this is checked by the image configuration.
-            exportContainerImages(image, hub);
+            imagesToExport.addAll(determineImagesToExport(image));
+        }
+
+        if (imagesToExport.isEmpty()) {
+            return;
+        }
+
+        if (ociLayout) {
+            exportToOciLayout(imagesToExport, hub);
+        } else {
+            exportContainerImages(imagesToExport, hub);
         }
     }
 
@@ -46,45 +106,93 @@ public class SaveMojo extends AbstractPodmanMojo {
         return skipSave;
     }
 
-    private void exportContainerImages(SingleImageConfiguration image, ServiceHub hub) throws MojoExecutionException {
-        getLog().info("Exporting container images to local disk ...");
-
-        Path targetPodmanDir = targetDirectory.toPath().normalize().toAbsolutePath();
-        createTargetFolder(targetPodmanDir);
-
+    private List<String> determineImagesToExport(SingleImageConfiguration image) {
+        List<String> imagesToExport = new ArrayList<>();
         if (image.getBuild().isMultistageContainerFile() && image.useCustomImageNameForMultiStageContainerfile()) {
             for (StageConfiguration stage : image.getStages()) {
-                for (String imageNameWithTag : image.getImageNamesByStage(stage.getName())) {
-                    doExportContainerImage(hub, imageNameWithTag, targetPodmanDir);
-                }
+                imagesToExport.addAll(image.getImageNamesByStage(stage.getName()));
             }
         } else if (image.getBuild().isMultistageContainerFile()) {
             getLog().warn("Detected multistage Containerfile, but no custom image names have been specified. Falling back to exporting final image.");
 
             // The image configuration cannot produce an empty list of image names.
-            exportContainerImage(image, hub, targetPodmanDir);
+            imagesToExport.addAll(image.getImageNames());
         } else {
             // The image configuration cannot produce an empty list of image names.
-            exportContainerImage(image, hub, targetPodmanDir);
+            imagesToExport.addAll(image.getImageNames());
         }
+        return imagesToExport;
+    }
+
+    private void exportContainerImages(List<String> imagesToExport, ServiceHub hub) throws MojoExecutionException {
+        getLog().info("Exporting container images to local disk ...");
+
+        Path targetPodmanDir = targetDirectory.toPath().normalize().toAbsolutePath();
+        createTargetFolder(targetPodmanDir);
+
+        ParallelTaskExecutor executor = new ParallelTaskExecutor(getLog(), saveThreads, "podman-save");
+        executor.execute(imagesToExport, imageNameWithTag -> imageNameWithTag,
+                (imageNameWithTag, log) -> doExportContainerImage(hub, imageNameWithTag, targetPodmanDir, log));
 
         getLog().info("Container images exported successfully.");
     }
 
-    private void exportContainerImage(SingleImageConfiguration image, ServiceHub hub, Path targetPodmanDir) throws MojoExecutionException {
-        for (String imageNameWithTag : image.getImageNames()) {
-            doExportContainerImage(hub, imageNameWithTag, targetPodmanDir);
+    private void exportToOciLayout(List<String> imagesToExport, ServiceHub hub) throws MojoExecutionException {
+        Path layoutDirectory = targetDirectory.toPath().resolve(OCI_LAYOUT_DIRECTORY).normalize().toAbsolutePath();
+        getLog().info("Exporting container images to OCI image layout " + layoutDirectory + " ...");
+        createTargetFolder(layoutDirectory);
+
+        // All images share the index of the layout, so they are written one after another
+        for (String imageNameWithTag : imagesToExport) {
+            String fullImageName = getFullImageNameWithPushRegistry(imageNameWithTag);
+
+            getLog().info("Exporting image " + imageNameWithTag + " to " + layoutDirectory);
+            hub.getPodmanExecutorService().pushToOciLayout(fullImageName, layoutDirectory.toString(), fullImageName);
         }
+
+        getLog().info("Container images exported successfully.");
     }
 
-    private void doExportContainerImage(ServiceHub hub, String imageNameWithTag, Path targetPodmanDir) throws MojoExecutionException {
+    private void doExportContainerImage(ServiceHub hub, String imageNameWithTag, Path targetPodmanDir, Log log) throws MojoExecutionException {
         String fullImageName = getFullImageNameWithPushRegistry(imageNameWithTag);
 
         String archiveName = String.format("%s.tar.gz", normaliseImageName(imageNameWithTag));
         Path saveImageTargetPath = targetPodmanDir.resolve(archiveName).normalize();
 
-        getLog().info("Exporting image " + imageNameWithTag + " to " + saveImageTargetPath);
-        hub.getPodmanExecutorService().save(saveImageTargetPath.toString(), fullImageName);
+        Optional<String> imageId = Optional.empty();
+        SavedArchiveHelper savedArchiveHelper = new SavedArchiveHelper();
+        if (incremental) {
+            imageId = hub.getPodmanExecutorService().getLocalImageId(fullImageName);
+            if (imageId.isPresent() && savedArchiveHelper.isUpToDate(saveImageTargetPath, imageId.get(), getArchiveFormat())) {
+                log.info("Image " + imageNameWithTag + " has not changed since it was saved to " + saveImageTargetPath + ", skipping.");
+                return;
+            }
+            savedArchiveHelper.invalidate(saveImageTargetPath);
+        }
+
+        log.info("Exporting image " + imageNameWithTag + " to " + saveImageTargetPath);
+        if (compression == Compression.GZIP) {
+            int threads = compressionThreads > 0 ? compressionThreads : getDefaultCompressionThreads();
+            hub.getPodmanExecutorService().save(saveImageTargetPath.toString(), fullImageName, compressionLevel, threads);
+        } else {
+            hub.getPodmanExecutorService().save(saveImageTargetPath.toString(), fullImageName);
+        }
+
+        if (imageId.isPresent()) {
+            savedArchiveHelper.record(saveImageTargetPath, imageId.get(), getArchiveFormat());
+        }
+    }
+
+    int getDefaultCompressionThreads() {
+        // Every concurrently saved image gets its share of the processors, instead of all of them
+        return Math.max(1, Runtime.getRuntime().availableProcessors() / Math.max(1, saveThreads));
+    }
+
+    private String getArchiveFormat() {
+        if (compression == Compression.GZIP) {
+            return Compression.GZIP + ":" + compressionLevel;
+        }
+        return Compression.NONE.toString();
     }
 
     private void createTargetFolder(Path targetPodmanDir) throws MojoExecutionException {
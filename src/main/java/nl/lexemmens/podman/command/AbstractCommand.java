@@ -8,7 +8,9 @@ import org.zeroturnaround.exec.ProcessExecutor;
 import org.zeroturnaround.exec.stream.slf4j.Slf4jStream;
 
 import java.io.File;
+import java.io.OutputStream;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Abstract implementation for each command
@@ -22,6 +24,8 @@ public abstract class AbstractCommand implements Command {
     private final CommandExecutorDelegate delegate;
     private final File workDir;
 
+    private boolean errorOutputAtDebug;
+
 
     /**
      * Constructor. Creates a new instance of the command using the default working directory
@@ -45,6 +49,20 @@ public abstract class AbstractCommand implements Command {
 
     @Override
     public List<String> execute() throws MojoExecutionException {
+        return delegate.executeCommand(createProcessExecutor());
+    }
+
+    @Override
+    public void execute(Consumer<String> outputConsumer) throws MojoExecutionException {
+        delegate.executeCommand(createProcessExecutor(), outputConsumer);
+    }
+
+    @Override
+    public void execute(OutputStream outputStream) throws MojoExecutionException {
+        delegate.executeCommand(createProcessExecutor(), outputStream);
+    }
+
+    private ProcessExecutor createProcessExecutor() {
         String msg = String.format("Executing command '%s' from basedir %s", StringUtils.join(getCommand(), " "), BASE_DIR.getAbsolutePath());
         log.debug(msg);
         ProcessExecutor processExecutor = new ProcessExecutor()
@@ -61,7 +79,19 @@ public abstract class AbstractCommand implements Command {
             processExecutor.redirectError(Slf4jStream.of(getClass().getSimpleName()).asError());
         }
 
-        return delegate.executeCommand(processExecutor);
+        if (errorOutputAtDebug) {
+            processExecutor.redirectError(Slf4jStream.of(getClass().getSimpleName()).asDebug());
+        }
+
+        return processExecutor;
+    }
+
+    /**
+     * Logs the error output of this command at debug level. Intended for commands that probe whether something
+     * exists, for which a failure is an expected outcome rather than an error.
+     */
+    protected void logErrorOutputAtDebug() {
+        this.errorOutputAtDebug = true;
     }
 
     /**
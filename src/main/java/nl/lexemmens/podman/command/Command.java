@@ -2,7 +2,9 @@ package nl.lexemmens.podman.command;
 
 import org.apache.maven.plugin.MojoExecutionException;
 
+import java.io.OutputStream;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Generic Command interface
@@ -17,4 +19,22 @@ public interface Command {
      */
     List<String> execute() throws MojoExecutionException;
 
+    /**
+     * Executes the command without retaining its output. Every line of output is passed to the provided consumer
+     * as soon as it becomes available.
+     *
+     * @param outputConsumer Receives every line of the output of the command
+     * @throws MojoExecutionException If the command execution fails
+     */
+    void execute(Consumer<String> outputConsumer) throws MojoExecutionException;
+
+    /**
+     * Executes the command and writes its output, unaltered, to the provided stream. Intended for commands that
+     * produce binary output.
+     *
+     * @param outputStream Receives the output of the command
+     * @throws MojoExecutionException If the command execution fails
+     */
+    void execute(OutputStream outputStream) throws MojoExecutionException;
+
 }
@@ -0,0 +1,117 @@
+package nl.lexemmens.podman.command.find;
+
+import nl.lexemmens.podman.command.AbstractCommand;
+import nl.lexemmens.podman.command.Command;
+import nl.lexemmens.podman.executor.CommandExecutorDelegate;
+import org.apache.maven.plugin.logging.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Implementation of the GNU <code>find</code> command, limited to the SELinux related expressions.
+ */
+public class FindCommand extends AbstractCommand {
+
+    private static final String BASE_COMMAND = "find";
+
+    private final List<String> command;
+
+    /**
+     * Private constructor
+     *
+     * @param log           The Maven log
+     * @param delegate      The executor delegate
+     * @param startingPoint The directory to search
+     */
+    private FindCommand(Log log, CommandExecutorDelegate delegate, String startingPoint) {
+        super(log, delegate);
+        this.command = new ArrayList<>();
+        this.command.add(BASE_COMMAND);
+        this.command.add(startingPoint);
+    }
+
+    @Override
+    protected List<String> getCommand() {
+        return command;
+    }
+
+    @Override
+    protected boolean redirectError() {
+        return false;
+    }
+
+    protected void withOption(String option, String optionValue) {
+        command.add(option);
+        if (optionValue != null) {
+            command.add(optionValue);
+        }
+    }
+
+    /**
+     * Builder class to build an instance of this {@link FindCommand}
+     */
+    public static class Builder {
+
+        private final FindCommand command;
+
+        /**
+         * Create a new instance of this builder
+         *
+         * @param log           The Maven Log
+         * @param delegate      The executor delegate
+         * @param startingPoint The directory to search
+         */
+        public Builder(Log log, CommandExecutorDelegate delegate, String startingPoint) {
+            this.command = new FindCommand(log, delegate, startingPoint);
+        }
+
+        /**
+         * Prints the SELinux security context of the starting point itself, without descending into it
+         *
+         * @return this builder instance
+         */
+        public Builder printSecurityContext() {
+            this.command.withOption("-maxdepth", "0");
+            this.command.withOption("-printf", "%Z\\n");
+            return this;
+        }
+
+        /**
+         * Only matches files of which the SELinux security context differs from the provided context
+         *
+         * @param securityContext The security context, i.e. <code>system_u:object_r:data_home_t:s0</code>
+         * @return this builder instance
+         */
+        public Builder withoutSecurityContext(String securityContext) {
+            this.command.withOption("!", null);
+            this.command.withOption("-context", securityContext);
+            return this;
+        }
+
+        /**
+         * Applies the security context of the reference directory to all matching files using <code>chcon</code>.
+         * Symbolic links are relabeled themselves, instead of the file they refer to.
+         *
+         * @param referenceDirectory The directory to base the context on
+         * @return this builder instance
+         */
+        public Builder changeSecurityContextTo(String referenceDirectory) {
+            this.command.withOption("-exec", "chcon");
+            this.command.withOption("--no-dereference", null);
+            this.command.withOption("--reference", referenceDirectory);
+            this.command.withOption("{}", "+");
+            return this;
+        }
+
+        /**
+         * Returns the constructed command
+         *
+         * @return The constructed command
+         */
+        public Command build() {
+            return command;
+        }
+
+    }
+}
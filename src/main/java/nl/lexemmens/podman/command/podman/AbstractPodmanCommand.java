@@ -107,7 +107,8 @@ public abstract class AbstractPodmanCommand extends AbstractCommand {
         return !"version".equals(subCommand)
                 && !"tag".equals(subCommand)
                 && !"save".equals(subCommand)
-                && !"rmi".equals(subCommand);
+                && !"rmi".equals(subCommand)
+                && !"image".equals(subCommand);
     }
 
 }
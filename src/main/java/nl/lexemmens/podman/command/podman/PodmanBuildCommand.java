@@ -28,6 +28,7 @@ public class PodmanBuildCommand extends AbstractPodmanCommand {
     private static final String BUILD_ARG_CMD = "--build-arg";
     private static final String PLATFORM_CMD = "--platform";
     private static final String TARGET_STAGE_CMD = "--target";
+    private static final String IID_FILE_CMD = "--iidfile";
     private static final String SUBCOMMAND = "build";
     private static final String PODMAN_ULIMITS_PREFIX = "podman.buildUlimits.";
     private static final String ULIMITS_ARG_CMD = "--ulimit";
@@ -162,6 +163,17 @@ public class PodmanBuildCommand extends AbstractPodmanCommand {
             return this;
         }
 
+        /**
+         * Sets the file the ID of the resulting image is written to
+         *
+         * @param iidFile The file to write the image ID to
+         * @return This builder instance
+         */
+        public Builder setIidFile(Path iidFile) {
+            command.withOption(IID_FILE_CMD, iidFile.toString());
+            return this;
+        }
+
         public Builder addBuildArgs(Map<String, String> args) {
             Map<String, String> allBuildArgs = new HashMap<>(args);
             allBuildArgs.putAll(getBuildArgsFromSystem());
@@ -0,0 +1,79 @@
+package nl.lexemmens.podman.command.podman;
+
+import nl.lexemmens.podman.command.Command;
+import nl.lexemmens.podman.config.podman.PodmanConfiguration;
+import nl.lexemmens.podman.executor.CommandExecutorDelegate;
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Implementation of the <code>podman image</code> command
+ */
+public class PodmanImageCommand extends AbstractPodmanCommand {
+
+    private static final String SUBCOMMAND = "image";
+    private static final String INSPECT_CMD = "inspect";
+    private static final String FORMAT_CMD = "--format";
+
+    private PodmanImageCommand(Log log, PodmanConfiguration podmanConfig, CommandExecutorDelegate delegate) {
+        super(log, podmanConfig, delegate, SUBCOMMAND, true);
+    }
+
+    /**
+     * Builder class for the Podman Image command
+     */
+    public static class Builder {
+
+        private final PodmanImageCommand command;
+
+        public Builder(Log log, PodmanConfiguration podmanConfig, CommandExecutorDelegate delegate) {
+            this.command = new PodmanImageCommand(log, podmanConfig, delegate);
+        }
+
+        /**
+         * Configures this command to inspect an image
+         *
+         * @return This builder instance
+         */
+        public Builder inspect() {
+            command.withOption(INSPECT_CMD, null);
+            return this;
+        }
+
+        /**
+         * Sets the Go template used to format the output
+         *
+         * @param format The format to use, i.e. <code>{{.Id}}</code>
+         * @return This builder instance
+         */
+        public Builder setFormat(String format) {
+            command.withOption(FORMAT_CMD, format);
+            return this;
+        }
+
+        /**
+         * Sets the name or ID of the image to operate on
+         *
+         * @param image The name or ID of the image
+         * @return This builder instance
+         */
+        public Builder setImage(String image) {
+            command.withOption(image, null);
+            return this;
+        }
+
+        /**
+         * Logs the error output of the command at debug level, for example because the image may not exist
+         *
+         * @return This builder instance
+         */
+        public Builder logErrorOutputAtDebug() {
+            command.logErrorOutputAtDebug();
+            return this;
+        }
+
+        public Command build() {
+            return command;
+        }
+
+    }
+}
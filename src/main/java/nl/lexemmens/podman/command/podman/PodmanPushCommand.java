@@ -11,6 +11,7 @@ import org.apache.maven.plugin.logging.Log;
 public class PodmanPushCommand extends AbstractPodmanCommand {
 
     private static final String SUBCOMMAND = "push";
+    private static final String OCI_LAYOUT_TRANSPORT = "oci:";
 
     private PodmanPushCommand(Log log, PodmanConfiguration podmanConfig, CommandExecutorDelegate delegate) {
         super(log, podmanConfig, delegate, SUBCOMMAND, false);
@@ -32,6 +33,19 @@ public class PodmanPushCommand extends AbstractPodmanCommand {
             return this;
         }
 
+        /**
+         * Pushes the image into an OCI image layout directory rather than to a registry. All images pushed to the same
+         * directory share its blob store, so layers they have in common are stored only once.
+         *
+         * @param layoutDirectory The OCI image layout directory
+         * @param reference       The name under which the image is listed in the index of the layout
+         * @return This builder
+         */
+        public Builder setOciLayoutDestination(String layoutDirectory, String reference) {
+            command.withOption(OCI_LAYOUT_TRANSPORT + layoutDirectory + ":" + reference, null);
+            return this;
+        }
+
         public Command build() {
             return command;
         }
@@ -5,6 +5,8 @@ import nl.lexemmens.podman.config.podman.PodmanConfiguration;
 import nl.lexemmens.podman.executor.CommandExecutorDelegate;
 import org.apache.maven.plugin.logging.Log;
 
+import java.util.Collection;
+
 /**
  * Implementation of the <code>podman tag</code> command
  */
@@ -37,6 +39,20 @@ public class PodmanTagCommand extends AbstractPodmanCommand {
             return this;
         }
 
+        /**
+         * Sets all names the image should be tagged with. <code>podman tag</code> accepts multiple target names, so
+         * an image is tagged with all of its names in a single invocation.
+         *
+         * @param fullImageNames The full names of the image
+         * @return This builder instance
+         */
+        public Builder setFullImageNames(Collection<String> fullImageNames) {
+            for (String fullImageName : fullImageNames) {
+                command.withOption(fullImageName, null);
+            }
+            return this;
+        }
+
         public Command build() {
             return command;
         }
@@ -22,14 +22,12 @@ public class SkopeoCopyCommand extends AbstractCommand {
 
     private final List<String> command;
 
-    private SkopeoCopyCommand(Log log, SkopeoConfiguration skopeoConfig, CommandExecutorDelegate delegate) {
+    private SkopeoCopyCommand(Log log, CommandExecutorDelegate delegate) {
         super(log, delegate);
         this.command = new ArrayList<>();
         this.command.add(BASE_COMMAND);
 
         withOption("copy", null);
-        withOption(SRC_TLS_VERIFY_CMD, "" + skopeoConfig.getCopy().getSrcTlsVerify());
-        withOption(DEST_TLS_VERIFY_CMD, "" + skopeoConfig.getCopy().getDestTlsVerify());
     }
 
     @Override
@@ -67,7 +65,33 @@ public class SkopeoCopyCommand extends AbstractCommand {
          * Constructor. Creates a new instance of the builder for the skopeop copy command
          */
         public Builder(Log log, SkopeoConfiguration skopeoConfig, CommandExecutorDelegate delegate) {
-            this.command = new SkopeoCopyCommand(log, skopeoConfig, delegate);
+            this(log, delegate);
+            setSrcTlsVerify(skopeoConfig.getCopy().getSrcTlsVerify());
+            setDestTlsVerify(skopeoConfig.getCopy().getDestTlsVerify());
+        }
+
+        /**
+         * Constructor. Creates a new instance of the builder for the skopeo copy command that uses the default
+         * TLS verification of skopeo, unless specified otherwise.
+         */
+        public Builder(Log log, CommandExecutorDelegate delegate) {
+            this.command = new SkopeoCopyCommand(log, delegate);
+        }
+
+        /**
+         * Sets whether the TLS connection to the source image registry should be verified
+         */
+        public Builder setSrcTlsVerify(boolean srcTlsVerify) {
+            this.command.withOption(SRC_TLS_VERIFY_CMD, "" + srcTlsVerify);
+            return this;
+        }
+
+        /**
+         * Sets whether the TLS connection to the destination image registry should be verified
+         */
+        public Builder setDestTlsVerify(boolean destTlsVerify) {
+            this.command.withOption(DEST_TLS_VERIFY_CMD, "" + destTlsVerify);
+            return this;
         }
 
         /**
@@ -0,0 +1,107 @@
+package nl.lexemmens.podman.command.skopeo;
+
+import nl.lexemmens.podman.command.AbstractCommand;
+import nl.lexemmens.podman.command.Command;
+import nl.lexemmens.podman.executor.CommandExecutorDelegate;
+import org.apache.maven.plugin.logging.Log;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Implementation of the <code>skopeo sync</code> command, using a YAML file as source and a registry as destination.
+ */
+public class SkopeoSyncCommand extends AbstractCommand {
+
+    private static final String SRC_CMD = "--src";
+    private static final String DEST_CMD = "--dest";
+    private static final String DEST_TLS_VERIFY_CMD = "--dest-tls-verify";
+    private static final String YAML_TRANSPORT = "yaml";
+    private static final String DOCKER_TRANSPORT = "docker";
+
+    private static final String BASE_COMMAND = "skopeo";
+
+    private final List<String> command;
+
+    private SkopeoSyncCommand(Log log, CommandExecutorDelegate delegate) {
+        super(log, delegate);
+        this.command = new ArrayList<>();
+        this.command.add(BASE_COMMAND);
+
+        withOption("sync", null);
+        withOption(SRC_CMD, YAML_TRANSPORT);
+        withOption(DEST_CMD, DOCKER_TRANSPORT);
+    }
+
+    @Override
+    protected List<String> getCommand() {
+        return command;
+    }
+
+    @Override
+    protected boolean redirectError() {
+        return false;
+    }
+
+    /**
+     * Specifies a specific option to pass to the skopeo sync command.
+     */
+    private void withOption(String option, String optionValue) {
+        final String subCommand;
+        if (optionValue == null) {
+            subCommand = option;
+        } else {
+            subCommand = String.format("%s=%s", option, optionValue);
+        }
+
+        command.add(subCommand);
+    }
+
+    /**
+     * Builder class for the Skopeo Sync command
+     */
+    public static class Builder {
+
+        private final SkopeoSyncCommand command;
+
+        /**
+         * Constructor. Creates a new instance of the builder for the skopeo sync command
+         */
+        public Builder(Log log, CommandExecutorDelegate delegate) {
+            this.command = new SkopeoSyncCommand(log, delegate);
+        }
+
+        /**
+         * Sets whether the TLS connection to the destination image registry should be verified
+         */
+        public Builder setDestTlsVerify(boolean destTlsVerify) {
+            this.command.withOption(DEST_TLS_VERIFY_CMD, "" + destTlsVerify);
+            return this;
+        }
+
+        /**
+         * Sets the YAML file that lists the images to copy
+         */
+        public Builder setSourceFile(Path sourceFile) {
+            this.command.withOption(sourceFile.toString(), null);
+            return this;
+        }
+
+        /**
+         * Sets the repository to copy the images to
+         */
+        public Builder setDestination(String destination) {
+            this.command.withOption(destination, null);
+            return this;
+        }
+
+        /**
+         * Builds the skopeo sync command
+         */
+        public Command build() {
+            return command;
+        }
+
+    }
+}
@@ -177,11 +177,22 @@ public abstract class AbstractImageBuildConfiguration {
      */
     protected File outputDirectory;
 
+    /**
+     * Directory, relative to the output directory, where the filtered Containerfile is written to. When not set,
+     * the filtered Containerfile is written directly into the output directory.
+     */
+    protected String targetContainerFileDir;
+
     /**
      * Will be set to true when the Containerfile is a multistage Containerfile.
      */
     private boolean isMultistageContainerFile;
 
+    /**
+     * The names of the stages in the Containerfile, in the order in which they are defined.
+     */
+    private final List<String> buildStages = new ArrayList<>();
+
     /**
      * Represents the validity of this configuration
      */
@@ -273,7 +284,11 @@ public abstract class AbstractImageBuildConfiguration {
      * @return Returns a path to the target Containerfile
      */
     public Path getTargetContainerFile() {
-        return Paths.get(outputDirectory.toURI()).resolve(containerFile);
+        Path outputDirectoryPath = Paths.get(outputDirectory.toURI());
+        if (targetContainerFileDir != null) {
+            outputDirectoryPath = outputDirectoryPath.resolve(targetContainerFileDir);
+        }
+        return outputDirectoryPath.resolve(containerFile);
     }
 
     /**
@@ -317,6 +332,15 @@ public abstract class AbstractImageBuildConfiguration {
         return isMultistageContainerFile;
     }
 
+    /**
+     * Returns the names of the stages in a multistage Containerfile, in the order in which they are defined
+     *
+     * @return The names of the stages in the Containerfile. Empty when the Containerfile is not a multistage Containerfile.
+     */
+    public List<String> getBuildStages() {
+        return Collections.unmodifiableList(buildStages);
+    }
+
     /**
      * Returns the Pattern that is used to determine if a line matches a multi-stage Containerfile
      *
@@ -402,6 +426,7 @@ public abstract class AbstractImageBuildConfiguration {
 
     protected void determineBuildStages(Log log, Path fullContainerFilePath) throws MojoExecutionException {
         boolean foundTargetStage = false;
+        buildStages.clear();
         try (Stream<String> containerFileStream = Files.lines(fullContainerFilePath)) {
             List<String> content = containerFileStream.filter(c -> !c.matches("^\\s*#.*"))
                                                       .collect(Collectors.toList());
@@ -411,6 +436,7 @@ public abstract class AbstractImageBuildConfiguration {
                     isMultistageContainerFile = true;
 
                     String stage = matcher.group(3);
+                    buildStages.add(stage);
                     if (Objects.equals(stage, targetStage)) {
                         foundTargetStage = true;
                     }
@@ -558,6 +584,15 @@ public abstract class AbstractImageBuildConfiguration {
         this.containerFileDir = containerFileDir;
     }
 
+    /**
+     * Sets the directory, relative to the project's output directory, where the filtered Containerfile is written to.
+     *
+     * @param targetContainerFileDir The directory to set
+     */
+    public void setTargetContainerFileDir(String targetContainerFileDir) {
+        this.targetContainerFileDir = targetContainerFileDir;
+    }
+
     /**
      * Sets the final target stage to build.
      *
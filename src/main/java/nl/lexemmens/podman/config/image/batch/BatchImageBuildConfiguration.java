@@ -2,14 +2,20 @@ package nl.lexemmens.podman.config.image.batch;
 
 import nl.lexemmens.podman.config.image.AbstractImageBuildConfiguration;
 import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Parameter;
 
 import java.io.IOException;
+import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.PathMatcher;
 import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 /**
  * Contains the configuration for batch image processing.
@@ -17,17 +23,82 @@ import java.util.stream.Stream;
 public class BatchImageBuildConfiguration extends AbstractImageBuildConfiguration {
 
     /**
-     * Takes the {@link #containerFileDir} and looks for Containerfiles in that directory.
+     * Directories that are never searched for Containerfiles, unless {@link #useDefaultExcludes} is false. The build
+     * directory of the project is excluded as well.
+     */
+    static final String[] DEFAULT_EXCLUDES = {"**/target", "**/node_modules", "**/.git", "**/.svn", "**/.hg"};
+
+    /**
+     * Glob patterns, relative to the {@link #containerFileDir}, of the Containerfiles to build. All Containerfiles
+     * are built when no patterns are configured.
+     */
+    @Parameter
+    protected String[] includes;
+
+    /**
+     * Glob patterns, relative to the {@link #containerFileDir}, of the directories and Containerfiles to skip. A
+     * directory that matches is not searched at all.
+     */
+    @Parameter
+    protected String[] excludes;
+
+    /**
+     * Specifies whether the {@link #DEFAULT_EXCLUDES} are applied. Defaults to true.
+     */
+    @Parameter
+    protected Boolean useDefaultExcludes;
+
+    /**
+     * The maximum number of directory levels to search for Containerfiles, where 1 only searches the
+     * {@link #containerFileDir} itself. Not limited by default.
+     */
+    @Parameter
+    protected Integer maxDepth;
+
+    /**
+     * <p>
+     * Takes the {@link #containerFileDir} and looks for Containerfiles in that directory and its subdirectories.
+     * </p>
+     * <p>
+     * Directories that match the excludes are skipped as a whole, so large directory trees such as the build
+     * directory or <code>node_modules</code> are never searched.
+     * </p>
      *
      * @return A collection of Containefiles found. May be an empty list, but is never <code>null</code>
      * @throws MojoExecutionException In case an IOException occurs during the search.
      */
     public List<Path> getAllContainerFiles() throws MojoExecutionException {
-        List<Path> allContainerFiles;
-        try (Stream<Path> pathStream = Files.walk(Paths.get(containerFileDir.toURI()))) {
-            allContainerFiles = pathStream.filter(Files::isRegularFile)
-                    .filter(path -> path.getFileName().toString().equals(containerFile))
-                    .collect(Collectors.toList());
+        if (maxDepth != null && maxDepth < 1) {
+            throw new MojoExecutionException("Invalid maxDepth " + maxDepth + " for batch configuration, must be at least 1");
+        }
+
+        Path root = Paths.get(containerFileDir.toURI());
+        List<PathMatcher> includeMatchers = createMatchers(root, includes == null ? new String[0] : includes);
+        List<PathMatcher> excludeMatchers = createMatchers(root, getAllExcludes());
+        Path buildDirectory = isUseDefaultExcludes() && outputDirectory != null ? Paths.get(outputDirectory.toURI()) : null;
+
+        List<Path> allContainerFiles = new ArrayList<>();
+        try {
+            Files.walkFileTree(root, Collections.emptySet(), maxDepth == null ? Integer.MAX_VALUE : maxDepth, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                    if (!dir.equals(root) && (dir.equals(buildDirectory) || matches(excludeMatchers, root.relativize(dir)))) {
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    if (file.getFileName().toString().equals(containerFile) && Files.isRegularFile(file)) {
+                        Path relativePath = root.relativize(file);
+                        if ((includeMatchers.isEmpty() || matches(includeMatchers, relativePath)) && !matches(excludeMatchers, relativePath)) {
+                            allContainerFiles.add(file);
+                        }
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
         } catch (IOException e) {
             throw new MojoExecutionException("Failed to find Containerfiles with name '" + containerFile + "' in directory " + containerFileDir, e);
         }
@@ -35,6 +106,54 @@ public class BatchImageBuildConfiguration extends AbstractImageBuildConfiguratio
         return allContainerFiles;
     }
 
+    private String[] getAllExcludes() {
+        List<String> allExcludes = new ArrayList<>();
+        if (isUseDefaultExcludes()) {
+            allExcludes.addAll(Arrays.asList(DEFAULT_EXCLUDES));
+        }
+        if (excludes != null) {
+            allExcludes.addAll(Arrays.asList(excludes));
+        }
+        return allExcludes.toArray(new String[0]);
+    }
+
+    private static List<PathMatcher> createMatchers(Path root, String[] patterns) {
+        List<PathMatcher> matchers = new ArrayList<>();
+        for (String pattern : patterns) {
+            matchers.add(root.getFileSystem().getPathMatcher("glob:" + pattern));
+
+            // Makes **/target also exclude target itself and legacy/** prevent legacy from being searched at all
+            if (pattern.startsWith("**/")) {
+                matchers.add(root.getFileSystem().getPathMatcher("glob:" + pattern.substring(3)));
+            }
+            if (pattern.endsWith("/**")) {
+                matchers.add(root.getFileSystem().getPathMatcher("glob:" + pattern.substring(0, pattern.length() - 3)));
+            }
+        }
+        return matchers;
+    }
+
+    private static boolean matches(List<PathMatcher> matchers, Path relativePath) {
+        for (PathMatcher matcher : matchers) {
+            if (matcher.matches(relativePath)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the directory of the provided Containerfile relative to the {@link #containerFileDir}. Used to give
+     * every Containerfile found its own location in the output directory.
+     *
+     * @param containerFilePath A Containerfile as returned by {@link #getAllContainerFiles()}
+     * @return The relative directory, which is empty for a Containerfile located directly in the {@link #containerFileDir}
+     */
+    protected String getRelativeContainerFileDir(Path containerFilePath) {
+        Path relativePath = Paths.get(containerFileDir.toURI()).relativize(containerFilePath.getParent());
+        return relativePath.toString();
+    }
+
     /**
      * Returns all configured tags
      *
@@ -52,4 +171,49 @@ public class BatchImageBuildConfiguration extends AbstractImageBuildConfiguratio
     protected boolean isTagWithMavenProjectVersion() {
         return tagWithMavenProjectVersion;
     }
+
+    /**
+     * Returns whether the {@link #DEFAULT_EXCLUDES} are applied when searching for Containerfiles
+     *
+     * @return true, unless the default excludes have been disabled
+     */
+    protected boolean isUseDefaultExcludes() {
+        return useDefaultExcludes == null || useDefaultExcludes;
+    }
+
+    /**
+     * Sets the glob patterns of the Containerfiles to build
+     *
+     * @param includes The patterns, relative to the directory containing the Containerfiles
+     */
+    public void setIncludes(String[] includes) {
+        this.includes = includes;
+    }
+
+    /**
+     * Sets the glob patterns of the directories and Containerfiles to skip
+     *
+     * @param excludes The patterns, relative to the directory containing the Containerfiles
+     */
+    public void setExcludes(String[] excludes) {
+        this.excludes = excludes;
+    }
+
+    /**
+     * Specifies whether the default excludes are applied
+     *
+     * @param useDefaultExcludes If false, only the configured excludes are applied
+     */
+    public void setUseDefaultExcludes(Boolean useDefaultExcludes) {
+        this.useDefaultExcludes = useDefaultExcludes;
+    }
+
+    /**
+     * Sets the maximum number of directory levels to search for Containerfiles
+     *
+     * @param maxDepth The maximum depth, where 1 only searches the directory itself. Not limited when null.
+     */
+    public void setMaxDepth(Integer maxDepth) {
+        this.maxDepth = maxDepth;
+    }
 }
@@ -63,7 +63,7 @@ public class BatchImageConfiguration extends AbstractImageConfiguration<BatchIma
         List<SingleImageConfiguration> imageConfigurations = new ArrayList<>();
 
         log.info("[BATCH] Found " + allContainerFiles.size() + " Containerfiles");
-        for (Path containerFile : getBuild().getAllContainerFiles()) {
+        for (Path containerFile : allContainerFiles) {
             SingleImageConfiguration imageConfiguration = new SingleImageConfiguration();
             imageConfiguration.setImageName(getImageName());
             imageConfiguration.setCustomImageNameForMultiStageContainerfile(useCustomImageNameForMultiStageContainerfile());
@@ -72,6 +72,7 @@ public class BatchImageConfiguration extends AbstractImageConfiguration<BatchIma
             SingleImageBuildConfiguration buildConfiguration = new SingleImageBuildConfiguration();
             buildConfiguration.setContainerFile(containerFile.getFileName().toString());
             buildConfiguration.setContainerFileDir(containerFile.getParent().toFile());
+            buildConfiguration.setTargetContainerFileDir(getBuild().getRelativeContainerFileDir(containerFile));
             buildConfiguration.setFormat(getBuild().getFormat());
             buildConfiguration.setCreateLatestTag(getBuild().isCreateLatestTag());
             buildConfiguration.setLabels(getBuild().getLabels());
@@ -54,6 +54,22 @@ public class PodmanConfiguration {
     @Parameter(property = "podman.run.dir")
     protected File runDirectory;
 
+    /**
+     * The URL of a Podman system service (<code>podman system service</code>) to execute Podman operations with,
+     * i.e. <code>unix:///run/user/1000/podman/podman.sock</code> or <code>tcp://localhost:8080</code>.
+     * <p>
+     * When set, images are built, tagged, pushed, saved and removed using Podman's REST API rather than by executing
+     * the Podman CLI.
+     */
+    @Parameter(property = "podman.service.url")
+    protected String serviceUrl;
+
+    /**
+     * Determines how commands that communicate with a registry are retried.
+     */
+    @Parameter
+    protected RetryConfiguration retry;
+
     /**
      * Constructor
      */
@@ -97,6 +113,24 @@ public class PodmanConfiguration {
         return runDirectory;
     }
 
+    /**
+     * Returns the URL of the Podman system service to use
+     *
+     * @return The URL of the Podman service, or null when the Podman CLI should be used
+     */
+    public String getServiceUrl() {
+        return serviceUrl;
+    }
+
+    /**
+     * Returns the configuration that determines how commands that communicate with a registry are retried
+     *
+     * @return The retry configuration
+     */
+    public RetryConfiguration getRetry() {
+        return retry;
+    }
+
     /**
      * Returns the cgroupManager that should be used when executing Podman
      * @return The cgroupManager to use
@@ -137,5 +171,17 @@ public class PodmanConfiguration {
         } else {
             log.info("Setting Podman's run directory " + runDirectory.getAbsolutePath());
         }
+
+        if (serviceUrl == null || serviceUrl.trim().isEmpty()) {
+            log.debug("Executing Podman using the Podman CLI.");
+            serviceUrl = null;
+        } else {
+            log.info("Executing Podman using the Podman service at: " + serviceUrl);
+        }
+
+        if (retry == null) {
+            log.debug("Using the default retry configuration.");
+            retry = new RetryConfiguration();
+        }
     }
 }
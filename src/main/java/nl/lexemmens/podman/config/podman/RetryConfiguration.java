@@ -0,0 +1,109 @@
+package nl.lexemmens.podman.config.podman;
+
+import org.apache.maven.plugins.annotations.Parameter;
+
+/**
+ * Holds the configuration that determines how commands that communicate with a registry are retried, such as the
+ * time to wait between two attempts.
+ */
+public class RetryConfiguration {
+
+    /**
+     * The number of times logging in to a registry and copying an image is retried. Pushing an image uses the
+     * retries setting of the push goal.
+     */
+    @Parameter(property = "podman.retry.retries")
+    protected int retries = 0;
+
+    /**
+     * The time in milliseconds to wait before the first retry.
+     */
+    @Parameter(property = "podman.retry.initialBackoff")
+    protected long initialBackoff = 1000;
+
+    /**
+     * The maximum time in milliseconds to wait between two attempts.
+     */
+    @Parameter(property = "podman.retry.maxBackoff")
+    protected long maxBackoff = 30000;
+
+    /**
+     * The factor by which the time to wait grows after every attempt.
+     */
+    @Parameter(property = "podman.retry.multiplier")
+    protected double multiplier = 2.0;
+
+    /**
+     * The fraction of the time to wait that is randomized, so that concurrent retries do not hit the registry at the
+     * same moment. A value of 0.5 waits between 50% and 100% of the calculated time.
+     */
+    @Parameter(property = "podman.retry.jitter")
+    protected double jitter = 0.5;
+
+    /**
+     * The maximum time in milliseconds that may elapse since the first attempt before giving up. 0 means no limit.
+     */
+    @Parameter(property = "podman.retry.maxElapsedTime")
+    protected long maxElapsedTime = 300000;
+
+    /**
+     * Constructor
+     */
+    public RetryConfiguration() {
+        // Empty - will be injected
+    }
+
+    /**
+     * Returns the number of times logging in and copying an image is retried
+     *
+     * @return The number of retries
+     */
+    public int getRetries() {
+        return retries;
+    }
+
+    /**
+     * Returns the time to wait before the first retry
+     *
+     * @return The time to wait in milliseconds
+     */
+    public long getInitialBackoff() {
+        return initialBackoff;
+    }
+
+    /**
+     * Returns the maximum time to wait between two attempts
+     *
+     * @return The maximum time to wait in milliseconds
+     */
+    public long getMaxBackoff() {
+        return maxBackoff;
+    }
+
+    /**
+     * Returns the factor by which the time to wait grows after every attempt
+     *
+     * @return The multiplier
+     */
+    public double getMultiplier() {
+        return multiplier;
+    }
+
+    /**
+     * Returns the fraction of the time to wait that is randomized
+     *
+     * @return The jitter, between 0 and 1
+     */
+    public double getJitter() {
+        return jitter;
+    }
+
+    /**
+     * Returns the maximum time that may elapse since the first attempt before giving up
+     *
+     * @return The maximum elapsed time in milliseconds, or 0 when there is no limit
+     */
+    public long getMaxElapsedTime() {
+        return maxElapsedTime;
+    }
+}
@@ -0,0 +1,17 @@
+package nl.lexemmens.podman.enumeration;
+
+/**
+ * Defines how container images are compressed when they are saved to the file system.
+ */
+public enum Compression {
+
+    /**
+     * The archive written by podman save is stored as is.
+     */
+    NONE,
+
+    /**
+     * The output of podman save is compressed using gzip while it is being written.
+     */
+    GZIP
+}
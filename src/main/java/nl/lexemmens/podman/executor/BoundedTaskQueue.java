@@ -0,0 +1,144 @@
+package nl.lexemmens.podman.executor;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+
+/**
+ * <p>
+ * Runs a task for items that are submitted one by one, on a bounded number of worker threads. Allows a producer,
+ * such as the build of container images, to hand over items while it is still producing the next ones.
+ * </p>
+ * <p>
+ * The number of items that are waiting or running is bounded. When the workers cannot keep up, {@link #submit(Object)}
+ * blocks until a worker has finished an item. Every task writes to its own {@link BufferedLog}, which is written to
+ * Maven's log as one block as soon as the task has finished. Failures are reported together by
+ * {@link #awaitCompletion()}.
+ * </p>
+ *
+ * @param <T> The type of the items
+ */
+public class BoundedTaskQueue<T> implements AutoCloseable {
+
+    private final Log log;
+    private final Function<T, String> nameFunction;
+    private final ParallelTaskExecutor.Task<T> task;
+    private final ExecutorService executorService;
+    private final Semaphore slots;
+    private final List<Submission> submissions = new ArrayList<>();
+
+    /**
+     * Constructs a new instance of this class
+     *
+     * @param log              Access to Maven's log system
+     * @param threads          The maximum number of tasks to run concurrently. Values lower than 1 are treated as 1.
+     * @param capacity         The maximum number of items waiting for a worker. Values lower than 0 are treated as 0.
+     * @param threadNamePrefix Prefix for the names of the worker threads, for example 'podman-push'
+     * @param nameFunction     Function that returns a descriptive name for an item. Used in log output and error reporting.
+     * @param task             The task to execute for every submitted item
+     */
+    public BoundedTaskQueue(Log log, int threads, int capacity, String threadNamePrefix, Function<T, String> nameFunction, ParallelTaskExecutor.Task<T> task) {
+        this.log = log;
+        this.nameFunction = nameFunction;
+        this.task = task;
+        this.executorService = Executors.newFixedThreadPool(Math.max(1, threads), new ParallelTaskExecutor.NamedThreadFactory(threadNamePrefix));
+        this.slots = new Semaphore(Math.max(1, threads) + Math.max(0, capacity));
+    }
+
+    /**
+     * Hands the provided item over to a worker. Blocks while the maximum number of items is waiting or running.
+     *
+     * @param item The item to execute the task for
+     * @throws MojoExecutionException In case the calling thread is interrupted while waiting
+     */
+    public void submit(T item) throws MojoExecutionException {
+        String name = nameFunction.apply(item);
+        try {
+            slots.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("Interrupted while waiting to hand over " + name, e);
+        }
+
+        try {
+            Future<?> future = executorService.submit(() -> runBuffered(name, item));
+            synchronized (submissions) {
+                submissions.add(new Submission(name, future));
+            }
+        } catch (RuntimeException e) {
+            slots.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Waits until the tasks of all submitted items have completed.
+     *
+     * @throws MojoExecutionException In case one or more tasks failed
+     */
+    public void awaitCompletion() throws MojoExecutionException {
+        List<Submission> toAwait;
+        synchronized (submissions) {
+            toAwait = new ArrayList<>(submissions);
+        }
+
+        List<String> failedNames = new ArrayList<>();
+        Throwable firstFailure = null;
+        for (Submission submission : toAwait) {
+            try {
+                submission.future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new MojoExecutionException("Interrupted while waiting for " + submission.name + " to complete", e);
+            } catch (ExecutionException e) {
+                log.error("Failed to process " + submission.name + ": " + e.getCause().getMessage());
+                failedNames.add(submission.name);
+                if (firstFailure == null) {
+                    firstFailure = e.getCause();
+                }
+            }
+        }
+
+        if (!failedNames.isEmpty()) {
+            String msg = String.format("%d of %d tasks failed: %s", failedNames.size(), toAwait.size(), String.join(", ", failedNames));
+            throw new MojoExecutionException(msg, firstFailure);
+        }
+    }
+
+    /**
+     * Stops the workers. Items that have not been started yet are discarded, running tasks are interrupted.
+     */
+    @Override
+    public void close() {
+        executorService.shutdownNow();
+    }
+
+    private Void runBuffered(String name, T item) throws MojoExecutionException {
+        BufferedLog bufferedLog = new BufferedLog(log);
+        try {
+            task.execute(item, bufferedLog);
+            return null;
+        } finally {
+            bufferedLog.flush("[" + name + "] ");
+            slots.release();
+        }
+    }
+
+    private static final class Submission {
+        private final String name;
+        private final Future<?> future;
+
+        private Submission(String name, Future<?> future) {
+            this.name = name;
+            this.future = future;
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package nl.lexemmens.podman.executor;
+
+import org.apache.maven.plugin.logging.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>
+ * {@link Log} implementation that collects all messages in memory, so that the output of a single task can be
+ * written to Maven's log as one block once that task has finished.
+ * </p>
+ * <p>
+ * Used when tasks run concurrently, to prevent the output of several images from being interleaved.
+ * </p>
+ */
+public final class BufferedLog implements Log {
+
+    private enum Level {DEBUG, INFO, WARN, ERROR}
+
+    private final Log target;
+    private final List<Entry> entries = new ArrayList<>();
+
+    /**
+     * Constructs a new instance of this class
+     *
+     * @param target The log messages will eventually be written to. Also used to determine which levels are enabled.
+     */
+    public BufferedLog(Log target) {
+        this.target = target;
+    }
+
+    /**
+     * Writes all collected messages to the target log, prefixing each message with the provided prefix. Writing
+     * is done while holding the target log's monitor, so that blocks written by different threads do not interleave.
+     *
+     * @param prefix The prefix to add to every message, for example the name of the image
+     */
+    public void flush(String prefix) {
+        List<Entry> toFlush;
+        synchronized (entries) {
+            toFlush = new ArrayList<>(entries);
+            entries.clear();
+        }
+
+        synchronized (target) {
+            for (Entry entry : toFlush) {
+                entry.writeTo(target, prefix);
+            }
+        }
+    }
+
+    @Override
+    public boolean isDebugEnabled() {
+        return target.isDebugEnabled();
+    }
+
+    @Override
+    public void debug(CharSequence content) {
+        add(Level.DEBUG, content, null);
+    }
+
+    @Override
+    public void debug(CharSequence content, Throwable error) {
+        add(Level.DEBUG, content, error);
+    }
+
+    @Override
+    public void debug(Throwable error) {
+        add(Level.DEBUG, null, error);
+    }
+
+    @Override
+    public boolean isInfoEnabled() {
+        return target.isInfoEnabled();
+    }
+
+    @Override
+    public void info(CharSequence content) {
+        add(Level.INFO, content, null);
+    }
+
+    @Override
+    public void info(CharSequence content, Throwable error) {
+        add(Level.INFO, content, error);
+    }
+
+    @Override
+    public void info(Throwable error) {
+        add(Level.INFO, null, error);
+    }
+
+    @Override
+    public boolean isWarnEnabled() {
+        return target.isWarnEnabled();
+    }
+
+    @Override
+    public void warn(CharSequence content) {
+        add(Level.WARN, content, null);
+    }
+
+    @Override
+    public void warn(CharSequence content, Throwable error) {
+        add(Level.WARN, content, error);
+    }
+
+    @Override
+    public void warn(Throwable error) {
+        add(Level.WARN, null, error);
+    }
+
+    @Override
+    public boolean isErrorEnabled() {
+        return target.isErrorEnabled();
+    }
+
+    @Override
+    public void error(CharSequence content) {
+        add(Level.ERROR, content, null);
+    }
+
+    @Override
+    public void error(CharSequence content, Throwable error) {
+        add(Level.ERROR, content, error);
+    }
+
+    @Override
+    public void error(Throwable error) {
+        add(Level.ERROR, null, error);
+    }
+
+    private void add(Level level, CharSequence content, Throwable error) {
+        if (level == Level.DEBUG && !target.isDebugEnabled()) {
+            // Don't keep messages in memory that will never be written
+            return;
+        }
+
+        synchronized (entries) {
+            entries.add(new Entry(level, content == null ? null : content.toString(), error));
+        }
+    }
+
+    private static final class Entry {
+        private final Level level;
+        private final String content;
+        private final Throwable error;
+
+        private Entry(Level level, String content, Throwable error) {
+            this.level = level;
+            this.content = content;
+            this.error = error;
+        }
+
+        private void writeTo(Log log, String prefix) {
+            String message = content == null ? null : prefix + content;
+            switch (level) {
+                case DEBUG:
+                    if (message == null) {
+                        log.debug(error);
+                    } else if (error == null) {
+                        log.debug(message);
+                    } else {
+                        log.debug(message, error);
+                    }
+                    break;
+                case INFO:
+                    if (message == null) {
+                        log.info(error);
+                    } else if (error == null) {
+                        log.info(message);
+                    } else {
+                        log.info(message, error);
+                    }
+                    break;
+                case WARN:
+                    if (message == null) {
+                        log.warn(error);
+                    } else if (error == null) {
+                        log.warn(message);
+                    } else {
+                        log.warn(message, error);
+                    }
+                    break;
+                default:
+                    if (message == null) {
+                        log.error(error);
+                    } else if (error == null) {
+                        log.error(message);
+                    } else {
+                        log.error(message, error);
+                    }
+                    break;
+            }
+        }
+    }
+}
@@ -0,0 +1,445 @@
+package nl.lexemmens.podman.executor;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * <p>
+ * Records where the time of a goal is spent: every process that is executed, and phases that run in Java such as
+ * filtering Containerfiles or authenticating.
+ * </p>
+ * <p>
+ * Once the goal has finished, the recorded measurements are written to a JSON report and summarized in Maven's log.
+ * They can also be written as a Chrome trace, which shows a timeline per thread in Perfetto or chrome://tracing.
+ * Measurements may be recorded from several threads concurrently.
+ * </p>
+ */
+public class BuildMetrics {
+
+    private static final List<String> EXECUTABLES_WITH_SUBCOMMAND = Arrays.asList("podman", "skopeo", "buildah");
+    private static final Pattern STEP_PATTERN = Pattern.compile("^(\\[\\d+/\\d+] )?STEP \\d+(/\\d+)?: .*");
+    private static final int MAX_STEP_NAME_LENGTH = 120;
+    private static final int TRACE_PROCESS_ID = 1;
+
+    private final long startNanos = System.nanoTime();
+    private final Instant started = Instant.now();
+    private final List<CommandMetric> commands = Collections.synchronizedList(new ArrayList<>());
+    private final List<PhaseMetric> phases = Collections.synchronizedList(new ArrayList<>());
+    private final List<PhaseMetric> steps = Collections.synchronizedList(new ArrayList<>());
+
+    /**
+     * Records the execution of a process.
+     *
+     * @param command     The executed command. Only the executable and its subcommand are recorded.
+     * @param startNanos  The value of {@link System#nanoTime()} when the process was started
+     * @param exitCode    The exit code of the process, or -1 when it is unknown
+     * @param stdoutBytes The number of bytes the process wrote to its output stream
+     * @param stderrBytes The number of bytes the process wrote to its error stream
+     */
+    public void recordCommand(List<String> command, long startNanos, int exitCode, long stdoutBytes, long stderrBytes) {
+        long endNanos = System.nanoTime();
+        String executable = command.isEmpty() ? "unknown" : command.get(0);
+        String subcommand = null;
+        if (EXECUTABLES_WITH_SUBCOMMAND.contains(executable)) {
+            subcommand = command.stream().skip(1).filter(part -> !part.startsWith("-")).findFirst().orElse(null);
+        }
+
+        commands.add(new CommandMetric(executable, subcommand, Thread.currentThread().getName(), startNanos, endNanos,
+                exitCode, stdoutBytes, stderrBytes));
+    }
+
+    /**
+     * Starts measuring a phase. The phase is recorded when the returned timer is closed.
+     *
+     * @param phase   The name of the phase, i.e. <code>authentication</code>
+     * @param subject What the phase is executed for, such as the name of an image. May be null.
+     * @return A timer that records the phase when it is closed
+     */
+    public Timer startPhase(String phase, String subject) {
+        long phaseStartNanos = System.nanoTime();
+        String thread = Thread.currentThread().getName();
+        return () -> phases.add(new PhaseMetric(phase, subject, thread, phaseStartNanos, System.nanoTime()));
+    }
+
+    /**
+     * Creates a recorder that measures the steps of a <code>podman build</code> from its output. A step starts at a
+     * line such as <code>STEP 2/5: RUN ...</code> and ends when the next step starts or the recorder is closed.
+     * Steps only appear in the trace, not in the report or the summary.
+     *
+     * @param subject The image that is built
+     * @return A recorder that must receive every line of output of the build, and must be closed when it completes
+     */
+    public StepRecorder recordSteps(String subject) {
+        return new StepRecorder(subject);
+    }
+
+    /**
+     * Writes all measurements to the provided JSON file. The file contains an entry per goal, so the measurements of
+     * other goals of the same module that were written earlier are retained.
+     *
+     * @param reportFile The file to write to
+     * @param module     The identification of the module, i.e. <code>groupId:artifactId:version</code>
+     * @param goal       The name of the goal
+     * @throws MojoExecutionException In case the report cannot be written
+     */
+    public void writeReport(Path reportFile, String module, String goal) throws MojoExecutionException {
+        try {
+            JSONObject report = readReport(reportFile, module);
+            report.getJSONObject("goals").put(goal, toJson());
+
+            Files.createDirectories(reportFile.getParent());
+            Files.write(reportFile, report.toString(2).getBytes(StandardCharsets.UTF_8));
+        } catch (IOException | JSONException e) {
+            throw new MojoExecutionException("Failed to write build metrics to " + reportFile + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Writes all measurements to the provided file in the Chrome trace event format. Every thread is shown as a
+     * separate track with a span per command, phase and build step.
+     *
+     * @param traceFile The file to write to
+     * @param module    The identification of the module, i.e. <code>groupId:artifactId:version</code>
+     * @param goal      The name of the goal
+     * @throws MojoExecutionException In case the trace cannot be written
+     */
+    public void writeTrace(Path traceFile, String module, String goal) throws MojoExecutionException {
+        try {
+            JSONObject trace = new JSONObject();
+            trace.put("traceEvents", toTraceEvents(module + " " + goal));
+            trace.put("displayTimeUnit", "ms");
+
+            Files.createDirectories(traceFile.getParent());
+            Files.write(traceFile, trace.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException | JSONException e) {
+            throw new MojoExecutionException("Failed to write trace to " + traceFile + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Writes a table to the provided log that lists, per subcommand and phase, how often it ran and how long it took.
+     *
+     * @param log  The log to write to
+     * @param goal The name of the goal
+     */
+    public void logSummary(Log log, String goal) {
+        Map<String, Totals> totals = getTotals();
+        log.info("Performance summary of goal " + goal + " (" + toMillis(startNanos, System.nanoTime()) + " ms):");
+        log.info(String.format("  %-40s %6s %12s %10s", "Step", "Count", "Total (ms)", "Max (ms)"));
+        for (Map.Entry<String, Totals> entry : totals.entrySet()) {
+            Totals total = entry.getValue();
+            log.info(String.format("  %-40s %6d %12d %10d", entry.getKey(), total.count, total.totalMillis, total.maxMillis));
+        }
+    }
+
+    /**
+     * Returns the number of times a subcommand or phase was recorded, its total and its maximum duration. Subcommands
+     * are named after the executable and subcommand, i.e. <code>podman build</code>.
+     *
+     * @return The totals per subcommand and phase, in the order in which they were first recorded
+     */
+    Map<String, Totals> getTotals() {
+        Map<String, Totals> totals = new LinkedHashMap<>();
+        synchronized (commands) {
+            for (CommandMetric command : commands) {
+                totals.computeIfAbsent(command.getName(), key -> new Totals()).add(command.getDurationMillis());
+            }
+        }
+        synchronized (phases) {
+            for (PhaseMetric phase : phases) {
+                totals.computeIfAbsent(phase.phase, key -> new Totals()).add(phase.getDurationMillis());
+            }
+        }
+        return totals;
+    }
+
+    private JSONObject toJson() {
+        JSONObject goal = new JSONObject();
+        goal.put("started", started.toString());
+        goal.put("durationMs", toMillis(startNanos, System.nanoTime()));
+
+        JSONArray commandArray = new JSONArray();
+        synchronized (commands) {
+            for (CommandMetric command : commands) {
+                JSONObject json = new JSONObject();
+                json.put("executable", command.executable);
+                if (command.subcommand != null) {
+                    json.put("subcommand", command.subcommand);
+                }
+                json.put("thread", command.thread);
+                json.put("startOffsetMs", toMillis(startNanos, command.startNanos));
+                json.put("durationMs", command.getDurationMillis());
+                json.put("exitCode", command.exitCode);
+                json.put("stdoutBytes", command.stdoutBytes);
+                json.put("stderrBytes", command.stderrBytes);
+                commandArray.put(json);
+            }
+        }
+        goal.put("commands", commandArray);
+
+        JSONArray phaseArray = new JSONArray();
+        synchronized (phases) {
+            for (PhaseMetric phase : phases) {
+                JSONObject json = new JSONObject();
+                json.put("phase", phase.phase);
+                if (phase.subject != null) {
+                    json.put("subject", phase.subject);
+                }
+                json.put("thread", phase.thread);
+                json.put("startOffsetMs", toMillis(startNanos, phase.startNanos));
+                json.put("durationMs", phase.getDurationMillis());
+                phaseArray.put(json);
+            }
+        }
+        goal.put("phases", phaseArray);
+
+        JSONObject summary = new JSONObject();
+        for (Map.Entry<String, Totals> entry : getTotals().entrySet()) {
+            JSONObject json = new JSONObject();
+            json.put("count", entry.getValue().count);
+            json.put("totalMs", entry.getValue().totalMillis);
+            json.put("maxMs", entry.getValue().maxMillis);
+            summary.put(entry.getKey(), json);
+        }
+        goal.put("summary", summary);
+        return goal;
+    }
+
+    private JSONArray toTraceEvents(String processName) {
+        JSONArray events = new JSONArray();
+        Map<String, Integer> threadIds = new LinkedHashMap<>();
+        events.put(createMetadataEvent("process_name", 0, processName));
+
+        synchronized (commands) {
+            for (CommandMetric command : commands) {
+                JSONObject args = new JSONObject();
+                args.put("exitCode", command.exitCode);
+                args.put("stdoutBytes", command.stdoutBytes);
+                args.put("stderrBytes", command.stderrBytes);
+                events.put(createSpanEvent(command.getName(), "command", command.thread, command.startNanos, command.endNanos, args, threadIds));
+            }
+        }
+        addPhaseEvents(events, phases, "phase", threadIds);
+        addPhaseEvents(events, steps, "step", threadIds);
+
+        for (Map.Entry<String, Integer> thread : threadIds.entrySet()) {
+            events.put(createMetadataEvent("thread_name", thread.getValue(), thread.getKey()));
+        }
+        return events;
+    }
+
+    private void addPhaseEvents(JSONArray events, List<PhaseMetric> phaseMetrics, String category, Map<String, Integer> threadIds) {
+        synchronized (phaseMetrics) {
+            for (PhaseMetric phase : phaseMetrics) {
+                JSONObject args = new JSONObject();
+                if (phase.subject != null) {
+                    args.put("subject", phase.subject);
+                }
+                events.put(createSpanEvent(phase.phase, category, phase.thread, phase.startNanos, phase.endNanos, args, threadIds));
+            }
+        }
+    }
+
+    private JSONObject createSpanEvent(String name, String category, String thread, long spanStartNanos, long spanEndNanos,
+                                       JSONObject args, Map<String, Integer> threadIds) {
+        JSONObject event = new JSONObject();
+        event.put("name", name);
+        event.put("cat", category);
+        event.put("ph", "X");
+        event.put("ts", toMicros(startNanos, spanStartNanos));
+        event.put("dur", toMicros(spanStartNanos, spanEndNanos));
+        event.put("pid", TRACE_PROCESS_ID);
+        event.put("tid", threadIds.computeIfAbsent(thread, key -> threadIds.size() + 1));
+        event.put("args", args);
+        return event;
+    }
+
+    private static JSONObject createMetadataEvent(String name, int threadId, String value) {
+        JSONObject args = new JSONObject();
+        args.put("name", value);
+
+        JSONObject event = new JSONObject();
+        event.put("name", name);
+        event.put("ph", "M");
+        event.put("pid", TRACE_PROCESS_ID);
+        event.put("tid", threadId);
+        event.put("args", args);
+        return event;
+    }
+
+    private static JSONObject readReport(Path reportFile, String module) throws IOException {
+        if (Files.exists(reportFile)) {
+            try {
+                JSONObject existing = new JSONObject(new String(Files.readAllBytes(reportFile), StandardCharsets.UTF_8));
+                if (module.equals(existing.optString("module")) && existing.optJSONObject("goals") != null) {
+                    return existing;
+                }
+            } catch (JSONException e) {
+                // A corrupt report is replaced
+            }
+        }
+
+        JSONObject report = new JSONObject();
+        report.put("module", module);
+        report.put("goals", new JSONObject());
+        return report;
+    }
+
+    private static long toMillis(long fromNanos, long toNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(toNanos - fromNanos);
+    }
+
+    private static long toMicros(long fromNanos, long toNanos) {
+        return TimeUnit.NANOSECONDS.toMicros(toNanos - fromNanos);
+    }
+
+    /**
+     * Measures a phase until it is closed
+     */
+    @FunctionalInterface
+    public interface Timer extends AutoCloseable {
+
+        /**
+         * Stops measuring and records the phase
+         */
+        @Override
+        void close();
+    }
+
+    /**
+     * Measures the steps of a build from its output. Instances are used by a single thread.
+     */
+    public final class StepRecorder implements Consumer<String>, Timer {
+        private final String subject;
+        private final String thread = Thread.currentThread().getName();
+
+        private String currentStep;
+        private long currentStepStartNanos;
+
+        private StepRecorder(String subject) {
+            this.subject = subject;
+        }
+
+        /**
+         * Starts measuring a new step when the provided line of output marks the start of a step
+         *
+         * @param line A line of output of the build
+         */
+        @Override
+        public void accept(String line) {
+            if (line.contains("STEP ") && STEP_PATTERN.matcher(line).matches()) {
+                long now = System.nanoTime();
+                completeStep(now);
+                currentStep = line.length() > MAX_STEP_NAME_LENGTH ? line.substring(0, MAX_STEP_NAME_LENGTH) + "..." : line;
+                currentStepStartNanos = now;
+            }
+        }
+
+        /**
+         * Records the step that is still running
+         */
+        @Override
+        public void close() {
+            completeStep(System.nanoTime());
+        }
+
+        private void completeStep(long endNanos) {
+            if (currentStep != null) {
+                steps.add(new PhaseMetric(currentStep, subject, thread, currentStepStartNanos, endNanos));
+                currentStep = null;
+            }
+        }
+    }
+
+    /**
+     * The number of executions and the durations of a subcommand or phase
+     */
+    static final class Totals {
+        private int count;
+        private long totalMillis;
+        private long maxMillis;
+
+        private void add(long durationMillis) {
+            count++;
+            totalMillis += durationMillis;
+            maxMillis = Math.max(maxMillis, durationMillis);
+        }
+
+        int getCount() {
+            return count;
+        }
+
+        long getTotalMillis() {
+            return totalMillis;
+        }
+    }
+
+    private static final class CommandMetric {
+        private final String executable;
+        private final String subcommand;
+        private final String thread;
+        private final long startNanos;
+        private final long endNanos;
+        private final int exitCode;
+        private final long stdoutBytes;
+        private final long stderrBytes;
+
+        private CommandMetric(String executable, String subcommand, String thread, long startNanos, long endNanos,
+                              int exitCode, long stdoutBytes, long stderrBytes) {
+            this.executable = executable;
+            this.subcommand = subcommand;
+            this.thread = thread;
+            this.startNanos = startNanos;
+            this.endNanos = endNanos;
+            this.exitCode = exitCode;
+            this.stdoutBytes = stdoutBytes;
+            this.stderrBytes = stderrBytes;
+        }
+
+        private String getName() {
+            return subcommand == null ? executable : executable + " " + subcommand;
+        }
+
+        private long getDurationMillis() {
+            return toMillis(startNanos, endNanos);
+        }
+    }
+
+    private static final class PhaseMetric {
+        private final String phase;
+        private final String subject;
+        private final String thread;
+        private final long startNanos;
+        private final long endNanos;
+
+        private PhaseMetric(String phase, String subject, String thread, long startNanos, long endNanos) {
+            this.phase = phase;
+            this.subject = subject;
+            this.thread = thread;
+            this.startNanos = startNanos;
+            this.endNanos = endNanos;
+        }
+
+        private long getDurationMillis() {
+            return toMillis(startNanos, endNanos);
+        }
+    }
+}
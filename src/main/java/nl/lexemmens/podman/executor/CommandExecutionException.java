@@ -0,0 +1,71 @@
+package nl.lexemmens.podman.executor;
+
+import org.apache.maven.plugin.MojoExecutionException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Thrown when the execution of a command fails. Next to the message, it carries the last lines the command wrote to
+ * its error stream, which allows callers to determine why the command failed.
+ */
+public class CommandExecutionException extends MojoExecutionException {
+
+    private final List<String> errorOutput;
+    private final boolean timedOut;
+    private final int exitCode;
+
+    /**
+     * Constructs a new instance of this exception
+     *
+     * @param message     The message of this exception
+     * @param errorOutput The last lines the command wrote to its error stream
+     * @param timedOut    Whether the command failed because it did not complete in time
+     */
+    public CommandExecutionException(String message, List<String> errorOutput, boolean timedOut) {
+        this(message, errorOutput, timedOut, -1);
+    }
+
+    /**
+     * Constructs a new instance of this exception
+     *
+     * @param message     The message of this exception
+     * @param errorOutput The last lines the command wrote to its error stream
+     * @param timedOut    Whether the command failed because it did not complete in time
+     * @param exitCode    The exit code of the command, or -1 when the command did not exit normally
+     */
+    public CommandExecutionException(String message, List<String> errorOutput, boolean timedOut, int exitCode) {
+        super(message);
+        this.errorOutput = Collections.unmodifiableList(new ArrayList<>(errorOutput));
+        this.timedOut = timedOut;
+        this.exitCode = exitCode;
+    }
+
+    /**
+     * Returns the last lines the command wrote to its error stream
+     *
+     * @return The last lines of the error output. Empty when the command did not write to its error stream.
+     */
+    public List<String> getErrorOutput() {
+        return errorOutput;
+    }
+
+    /**
+     * Returns whether the command failed because it did not complete in time
+     *
+     * @return true when the command timed out
+     */
+    public boolean isTimedOut() {
+        return timedOut;
+    }
+
+    /**
+     * Returns the exit code of the command
+     *
+     * @return The exit code, or -1 when the command did not exit normally or the exit code is unknown
+     */
+    public int getExitCode() {
+        return exitCode;
+    }
+}
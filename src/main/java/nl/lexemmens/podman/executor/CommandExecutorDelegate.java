@@ -3,7 +3,11 @@ package nl.lexemmens.podman.executor;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.zeroturnaround.exec.ProcessExecutor;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Interface that allows delegation of command execution to a specific implementation
@@ -23,4 +27,50 @@ public interface CommandExecutorDelegate {
      * @throws MojoExecutionException In case execution of the command fails
      */
     List<String> executeCommand(ProcessExecutor processExecutor) throws MojoExecutionException;
+
+    /**
+     * <p>
+     * Executes the command as configured in the provided ProcessExecutor and passes every line of its output to the
+     * provided consumer as soon as it becomes available.
+     * </p>
+     * <p>
+     * In contrast to {@link #executeCommand(ProcessExecutor)}, the output of the command is not retained. The default
+     * implementation delegates to {@link #executeCommand(ProcessExecutor)} and is intended for implementations that
+     * do not execute an actual process.
+     * </p>
+     *
+     * @param processExecutor The process executor carrying the command to execute
+     * @param outputConsumer  Receives every line of the output of the command
+     * @throws MojoExecutionException In case execution of the command fails
+     */
+    default void executeCommand(ProcessExecutor processExecutor, Consumer<String> outputConsumer) throws MojoExecutionException {
+        for (String line : executeCommand(processExecutor)) {
+            outputConsumer.accept(line);
+        }
+    }
+
+    /**
+     * <p>
+     * Executes the command as configured in the provided ProcessExecutor and writes its output, unaltered, to the
+     * provided stream.
+     * </p>
+     * <p>
+     * The output is neither retained nor logged, which makes this suitable for commands that produce large amounts of
+     * binary output. The default implementation writes the lines returned by {@link #executeCommand(ProcessExecutor)}
+     * and is intended for implementations that do not execute an actual process.
+     * </p>
+     *
+     * @param processExecutor The process executor carrying the command to execute
+     * @param outputStream    Receives the output of the command
+     * @throws MojoExecutionException In case execution of the command fails
+     */
+    default void executeCommand(ProcessExecutor processExecutor, OutputStream outputStream) throws MojoExecutionException {
+        try {
+            for (String line : executeCommand(processExecutor)) {
+                outputStream.write((line + "\n").getBytes(StandardCharsets.UTF_8));
+            }
+        } catch (IOException e) {
+            throw new MojoExecutionException("Failed to write the output of the command: " + e.getMessage(), e);
+        }
+    }
 }
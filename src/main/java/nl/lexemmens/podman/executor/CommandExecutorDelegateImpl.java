@@ -2,10 +2,15 @@ package nl.lexemmens.podman.executor;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.maven.plugin.MojoExecutionException;
+import org.zeroturnaround.exec.InvalidExitValueException;
 import org.zeroturnaround.exec.ProcessExecutor;
 import org.zeroturnaround.exec.ProcessResult;
+import org.zeroturnaround.exec.stream.LogOutputStream;
 
+import java.io.OutputStream;
 import java.util.List;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
 
 /**
  * Delegate class that is responsible for actually executing a specific command. Putting this in
@@ -15,17 +20,54 @@ public final class CommandExecutorDelegateImpl implements CommandExecutorDelegat
 
     @Override
     public List<String> executeCommand(ProcessExecutor processExecutor) throws MojoExecutionException {
+        ErrorOutputTail errorOutputTail = new ErrorOutputTail();
         try {
-            ProcessResult process = processExecutor.execute();
+            ProcessResult process = processExecutor.redirectErrorAlsoTo(errorOutputTail).execute();
             return process.getOutput().getLinesAsUTF8();
         } catch (Exception e) {
-            if (e instanceof InterruptedException) {
-                Thread.currentThread().interrupt();
-            }
+            throw toMojoExecutionException(processExecutor, e, errorOutputTail);
+        }
+    }
 
-            String msg = String.format("Failed to execute command '%s' - caught %s", StringUtils.join(processExecutor.getCommand(), " "), e.getMessage());
-            throw new MojoExecutionException(msg);
+    @Override
+    public void executeCommand(ProcessExecutor processExecutor, Consumer<String> outputConsumer) throws MojoExecutionException {
+        ErrorOutputTail errorOutputTail = new ErrorOutputTail();
+        try {
+            processExecutor.readOutput(false)
+                    .redirectErrorAlsoTo(errorOutputTail)
+                    .redirectOutputAlsoTo(new LogOutputStream() {
+                        @Override
+                        protected void processLine(String line) {
+                            outputConsumer.accept(line);
+                        }
+                    })
+                    .execute();
+        } catch (Exception e) {
+            throw toMojoExecutionException(processExecutor, e, errorOutputTail);
         }
     }
 
+    @Override
+    public void executeCommand(ProcessExecutor processExecutor, OutputStream outputStream) throws MojoExecutionException {
+        ErrorOutputTail errorOutputTail = new ErrorOutputTail();
+        try {
+            processExecutor.readOutput(false)
+                    .redirectErrorAlsoTo(errorOutputTail)
+                    .redirectOutput(outputStream)
+                    .execute();
+        } catch (Exception e) {
+            throw toMojoExecutionException(processExecutor, e, errorOutputTail);
+        }
+    }
+
+    private static MojoExecutionException toMojoExecutionException(ProcessExecutor processExecutor, Exception e, ErrorOutputTail errorOutputTail) {
+        if (e instanceof InterruptedException) {
+            Thread.currentThread().interrupt();
+        }
+
+        String msg = String.format("Failed to execute command '%s' - caught %s", StringUtils.join(processExecutor.getCommand(), " "), e.getMessage());
+        int exitCode = e instanceof InvalidExitValueException ? ((InvalidExitValueException) e).getExitValue() : -1;
+        return new CommandExecutionException(msg, errorOutputTail.getLines(), e instanceof TimeoutException, exitCode);
+    }
+
 }
@@ -0,0 +1,36 @@
+package nl.lexemmens.podman.executor;
+
+import org.zeroturnaround.exec.stream.LogOutputStream;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Retains the last lines written to the error stream of a command, so they can be added to the exception that is
+ * thrown when the command fails.
+ */
+final class ErrorOutputTail extends LogOutputStream {
+
+    private static final int MAX_LINES = 20;
+
+    private final Deque<String> lines = new ArrayDeque<>(MAX_LINES);
+
+    @Override
+    protected synchronized void processLine(String line) {
+        if (lines.size() == MAX_LINES) {
+            lines.removeFirst();
+        }
+        lines.addLast(line);
+    }
+
+    /**
+     * Returns the retained lines, oldest first
+     *
+     * @return The last lines written to the error stream
+     */
+    synchronized List<String> getLines() {
+        return new ArrayList<>(lines);
+    }
+}
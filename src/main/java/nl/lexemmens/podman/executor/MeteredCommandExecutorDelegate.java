@@ -0,0 +1,118 @@
+package nl.lexemmens.podman.executor;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.zeroturnaround.exec.ProcessExecutor;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * {@link CommandExecutorDelegate} that records the duration, exit code and the size of the output of every command
+ * in {@link BuildMetrics}, before and after passing it on to another delegate.
+ */
+public final class MeteredCommandExecutorDelegate implements CommandExecutorDelegate {
+
+    private final CommandExecutorDelegate delegate;
+    private final BuildMetrics buildMetrics;
+
+    /**
+     * Constructs a new instance of this class
+     *
+     * @param delegate     The delegate that executes the commands
+     * @param buildMetrics Receives the measurements
+     */
+    public MeteredCommandExecutorDelegate(CommandExecutorDelegate delegate, BuildMetrics buildMetrics) {
+        this.delegate = delegate;
+        this.buildMetrics = buildMetrics;
+    }
+
+    @Override
+    public List<String> executeCommand(ProcessExecutor processExecutor) throws MojoExecutionException {
+        ByteCounter stdout = new ByteCounter();
+        ByteCounter stderr = new ByteCounter();
+        processExecutor.redirectOutputAlsoTo(stdout).redirectErrorAlsoTo(stderr);
+        return measure(processExecutor, stdout, stderr, () -> delegate.executeCommand(processExecutor));
+    }
+
+    @Override
+    public void executeCommand(ProcessExecutor processExecutor, Consumer<String> outputConsumer) throws MojoExecutionException {
+        ByteCounter stdout = new ByteCounter();
+        ByteCounter stderr = new ByteCounter();
+        processExecutor.redirectOutputAlsoTo(stdout).redirectErrorAlsoTo(stderr);
+        measure(processExecutor, stdout, stderr, () -> {
+            delegate.executeCommand(processExecutor, outputConsumer);
+            return null;
+        });
+    }
+
+    @Override
+    public void executeCommand(ProcessExecutor processExecutor, OutputStream outputStream) throws MojoExecutionException {
+        // The output stream replaces the output of the process executor, so it is counted directly
+        ByteCounter stdout = new ByteCounter(outputStream);
+        ByteCounter stderr = new ByteCounter();
+        processExecutor.redirectErrorAlsoTo(stderr);
+        measure(processExecutor, stdout, stderr, () -> {
+            delegate.executeCommand(processExecutor, stdout);
+            return null;
+        });
+    }
+
+    private <T> T measure(ProcessExecutor processExecutor, ByteCounter stdout, ByteCounter stderr, Execution<T> execution) throws MojoExecutionException {
+        List<String> command = new ArrayList<>(processExecutor.getCommand());
+        long startNanos = System.nanoTime();
+        int exitCode = -1;
+        try {
+            T result = execution.execute();
+            exitCode = 0;
+            return result;
+        } catch (CommandExecutionException e) {
+            exitCode = e.getExitCode();
+            throw e;
+        } finally {
+            buildMetrics.recordCommand(command, startNanos, exitCode, stdout.count, stderr.count);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Execution<T> {
+        T execute() throws MojoExecutionException;
+    }
+
+    private static final class ByteCounter extends FilterOutputStream {
+        private long count;
+
+        private ByteCounter() {
+            this(new OutputStream() {
+                @Override
+                public void write(int b) {
+                    // Only counted
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) {
+                    // Only counted
+                }
+            });
+        }
+
+        private ByteCounter(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package nl.lexemmens.podman.executor;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * <p>
+ * Runs a task for a collection of items on a bounded number of threads.
+ * </p>
+ * <p>
+ * Tasks may depend on each other. A task is never started before the tasks it depends on have completed.
+ * </p>
+ * <p>
+ * When configured with a single thread, all tasks run on the calling thread in the order of the provided items
+ * (respecting dependencies) and the first failure is thrown immediately. When configured with more threads, every task writes to its own
+ * {@link BufferedLog}, which is written to Maven's log as one block as soon as the task has finished. All tasks
+ * are executed, and failures are reported together once every task has completed.
+ * </p>
+ */
+public class ParallelTaskExecutor {
+
+    private final Log log;
+    private final int threads;
+    private final String threadNamePrefix;
+
+    /**
+     * Constructs a new instance of this class
+     *
+     * @param log              Access to Maven's log system
+     * @param threads          The maximum number of tasks to run concurrently. Values lower than 1 are treated as 1.
+     * @param threadNamePrefix Prefix for the names of the worker threads, for example 'podman-build'
+     */
+    public ParallelTaskExecutor(Log log, int threads, String threadNamePrefix) {
+        this.log = log;
+        this.threads = Math.max(1, threads);
+        this.threadNamePrefix = threadNamePrefix;
+    }
+
+    /**
+     * Returns whether this executor runs tasks concurrently
+     *
+     * @return true when more than one thread is configured
+     */
+    public boolean isParallel() {
+        return threads > 1;
+    }
+
+    /**
+     * Executes the provided task for every item.
+     *
+     * @param items        The items to execute the task for
+     * @param nameFunction Function that returns a descriptive name for an item. Used in log output and error reporting.
+     * @param task         The task to execute
+     * @param <T>          The type of the items
+     * @throws MojoExecutionException In case one or more tasks failed
+     */
+    public <T> void execute(List<T> items, Function<T, String> nameFunction, Task<T> task) throws MojoExecutionException {
+        execute(items, nameFunction, item -> Collections.emptyList(), task);
+    }
+
+    /**
+     * Executes the provided task for every item. The task for an item is only started once the tasks of all items it
+     * depends on have completed successfully. When the task of an item fails, the tasks of items depending on it are
+     * skipped.
+     *
+     * @param items        The items to execute the task for
+     * @param nameFunction Function that returns a descriptive name for an item. Used in log output and error reporting.
+     * @param dependencies Function that returns the items an item depends on
+     * @param task         The task to execute
+     * @param <T>          The type of the items
+     * @throws MojoExecutionException In case one or more tasks failed or in case of a circular dependency
+     */
+    public <T> void execute(List<T> items, Function<T, String> nameFunction, Function<T, Collection<T>> dependencies, Task<T> task) throws MojoExecutionException {
+        List<T> orderedItems = sortByDependencies(items, nameFunction, dependencies);
+        if (!isParallel() || items.size() < 2) {
+            for (T item : orderedItems) {
+                task.execute(item, log);
+            }
+            return;
+        }
+
+        ExecutorService executorService = Executors.newFixedThreadPool(Math.min(threads, items.size()), new NamedThreadFactory(threadNamePrefix));
+        try {
+            Set<T> started = ConcurrentHashMap.newKeySet();
+            Map<T, CompletableFuture<Void>> futures = new LinkedHashMap<>();
+            for (T item : orderedItems) {
+                CompletableFuture<?>[] parentFutures = dependencies.apply(item).stream()
+                        .map(futures::get)
+                        .filter(Objects::nonNull)
+                        .toArray(CompletableFuture[]::new);
+
+                String name = nameFunction.apply(item);
+                futures.put(item, CompletableFuture.allOf(parentFutures).thenRunAsync(() -> {
+                    started.add(item);
+                    runBuffered(name, item, task);
+                }, executorService));
+            }
+
+            awaitAll(items, nameFunction, futures, started);
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    private <T> void runBuffered(String name, T item, Task<T> task) {
+        BufferedLog bufferedLog = new BufferedLog(log);
+        try {
+            task.execute(item, bufferedLog);
+        } catch (MojoExecutionException e) {
+            throw new CompletionException(e);
+        } finally {
+            bufferedLog.flush("[" + name + "] ");
+        }
+    }
+
+    private <T> void awaitAll(List<T> items, Function<T, String> nameFunction, Map<T, CompletableFuture<Void>> futures, Set<T> started) throws MojoExecutionException {
+        List<String> failedNames = new ArrayList<>();
+        List<String> skippedNames = new ArrayList<>();
+        Throwable firstFailure = null;
+        for (T item : items) {
+            String name = nameFunction.apply(item);
+            try {
+                futures.get(item).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new MojoExecutionException("Interrupted while waiting for " + name + " to complete", e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause() instanceof CompletionException && e.getCause().getCause() != null ? e.getCause().getCause() : e.getCause();
+                if (started.contains(item)) {
+                    log.error("Failed to process " + name + ": " + cause.getMessage());
+                    failedNames.add(name);
+                    if (firstFailure == null) {
+                        firstFailure = cause;
+                    }
+                } else {
+                    log.error("Skipped " + name + " because an item it depends on failed");
+                    skippedNames.add(name);
+                }
+            }
+        }
+
+        if (!failedNames.isEmpty()) {
+            String msg = String.format("%d of %d tasks failed: %s", failedNames.size(), futures.size(), String.join(", ", failedNames));
+            if (!skippedNames.isEmpty()) {
+                msg += String.format(". Skipped %d dependent tasks: %s", skippedNames.size(), String.join(", ", skippedNames));
+            }
+            throw new MojoExecutionException(msg, firstFailure);
+        }
+    }
+
+    private static <T> List<T> sortByDependencies(List<T> items, Function<T, String> nameFunction, Function<T, Collection<T>> dependencies) throws MojoExecutionException {
+        // Keeps the original order as much as possible: every round picks the items of which all dependencies are already sorted
+        List<T> sorted = new ArrayList<>();
+        List<T> remaining = new ArrayList<>(items);
+        while (!remaining.isEmpty()) {
+            List<T> available = new ArrayList<>();
+            for (T item : remaining) {
+                boolean dependenciesSorted = dependencies.apply(item).stream()
+                        .allMatch(dependency -> sorted.contains(dependency) || !items.contains(dependency));
+                if (dependenciesSorted) {
+                    available.add(item);
+                }
+            }
+
+            if (available.isEmpty()) {
+                List<String> names = new ArrayList<>();
+                for (T item : remaining) {
+                    names.add(nameFunction.apply(item));
+                }
+                throw new MojoExecutionException("Circular dependency detected between: " + String.join(", ", names));
+            }
+
+            sorted.addAll(available);
+            remaining.removeAll(available);
+        }
+        return sorted;
+    }
+
+    /**
+     * Represents the work to be done for a single item.
+     *
+     * @param <T> The type of the item
+     */
+    @FunctionalInterface
+    public interface Task<T> {
+
+        /**
+         * Executes this task for a single item
+         *
+         * @param item The item to process
+         * @param log  The log to write to. When running concurrently, this log is buffered per item.
+         * @throws MojoExecutionException In case processing of the item fails
+         */
+        void execute(T item, Log log) throws MojoExecutionException;
+    }
+
+    static final class NamedThreadFactory implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+        private final String prefix;
+
+        NamedThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
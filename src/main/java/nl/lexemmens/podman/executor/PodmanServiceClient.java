@@ -0,0 +1,606 @@
+package nl.lexemmens.podman.executor;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.ProtocolFamily;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.StandardProtocolFamily;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URLEncoder;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * <p>
+ * Minimal HTTP/1.1 client for the REST API of a Podman system service (<code>podman system service</code>).
+ * </p>
+ * <p>
+ * The service is reached either through a unix socket (<code>unix:///run/user/1000/podman/podman.sock</code>) or
+ * through TCP (<code>tcp://localhost:8080</code>). Unix sockets require Java 16 or newer. Every request uses its own
+ * connection. Request bodies are streamed using chunked transfer encoding, so large build contexts never have to be
+ * held in memory or written to disk.
+ * </p>
+ * <p>
+ * Failed requests result in a {@link CommandExecutionException}, whose error output contains the HTTP status and the
+ * message returned by the service. This allows the {@link RetryPolicy} to classify them in the same way as failed
+ * commands.
+ * </p> * <p>
+ * An existing client library is deliberately not used. This plugin supports Java 8, of which the HTTP clients cannot
+ * connect to a unix socket, which is how a Podman service is reached in the vast majority of setups. The Docker and
+ * Podman client libraries that can, rely on native socket libraries (such as junixsocket or jnr-unixsocket) and bring
+ * an HTTP and JSON stack along, all of which would end up on the classpath of every build that uses this plugin. Only
+ * a handful of endpoints is used, none of which needs more than plain HTTP/1.1 with chunked transfer encoding.
+ * </p>
+ */
+public class PodmanServiceClient {
+
+    private static final String API_VERSION_PREFIX = "/v4.0.0";
+    private static final int CONNECT_TIMEOUT = 10_000;
+    private static final int CHUNK_SIZE = 64 * 1024;
+    private static final String CRLF = "\r\n";
+
+    private final String serviceUrl;
+
+    /**
+     * Constructs a new instance of this class
+     *
+     * @param serviceUrl The URL of the Podman service, i.e. <code>unix:///path/to/podman.sock</code>,
+     *                   <code>tcp://host:port</code> or <code>http://host:port</code>
+     */
+    public PodmanServiceClient(String serviceUrl) {
+        this.serviceUrl = serviceUrl;
+    }
+
+    /**
+     * Returns the URL of the Podman service this client connects to
+     *
+     * @return The URL of the Podman service
+     */
+    public String getServiceUrl() {
+        return serviceUrl;
+    }
+
+    /**
+     * Executes a request without a request body.
+     *
+     * @param method The HTTP method, for example GET or POST
+     * @param path   The path of the endpoint, relative to the versioned API, for example <code>/libpod/version</code>
+     * @return The response. Must be closed by the caller.
+     * @throws MojoExecutionException In case the service cannot be reached or returns an error status
+     */
+    public Response execute(String method, String path) throws MojoExecutionException {
+        return execute(method, path, Collections.emptyMap(), null);
+    }
+
+    /**
+     * Executes a request.
+     *
+     * @param method  The HTTP method, for example GET or POST
+     * @param path    The path of the endpoint, relative to the versioned API, for example <code>/libpod/version</code>
+     * @param headers Additional request headers
+     * @param body    Writes the request body, or null when the request has no body
+     * @return The response. Must be closed by the caller.
+     * @throws MojoExecutionException In case the service cannot be reached or returns an error status
+     */
+    public Response execute(String method, String path, Map<String, String> headers, BodyWriter body) throws MojoExecutionException {
+        String description = method + " " + path;
+        Connection connection = connect();
+        try {
+            writeRequest(connection.out, method, path, headers, body);
+            Response response = readResponse(connection);
+            if (response.getStatus() >= 400) {
+                String message = readErrorMessage(response);
+                response.close();
+                throw new CommandExecutionException(String.format("Podman service returned %d for %s: %s", response.getStatus(), description, message),
+                        Collections.singletonList(response.getStatus() + " " + message), false);
+            }
+            return response;
+        } catch (IOException e) {
+            closeQuietly(connection);
+            throw new CommandExecutionException("Failed to execute " + description + " at " + serviceUrl + " - caught " + e.getMessage(),
+                    Collections.singletonList(String.valueOf(e.getMessage())), e instanceof SocketTimeoutException);
+        } catch (MojoExecutionException | RuntimeException e) {
+            closeQuietly(connection);
+            throw e;
+        }
+    }
+
+    /**
+     * Encodes a value for use in the query string of a request
+     *
+     * @param value The value to encode
+     * @return The encoded value
+     */
+    public static String encode(String value) {
+        try {
+            return URLEncoder.encode(value, StandardCharsets.UTF_8.name()).replace("+", "%20");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException("UTF-8 is not supported", e);
+        }
+    }
+
+    /**
+     * Encodes an image name for use in the path of a request. Slashes and colons are part of image names and are
+     * retained.
+     *
+     * @param imageName The image name to encode
+     * @return The encoded image name
+     */
+    public static String encodeImageName(String imageName) {
+        return encode(imageName).replace("%2F", "/").replace("%3A", ":");
+    }
+
+    private Connection connect() throws MojoExecutionException {
+        URI uri;
+        try {
+            uri = new URI(serviceUrl);
+        } catch (URISyntaxException e) {
+            throw new MojoExecutionException("Invalid Podman service URL " + serviceUrl + ": " + e.getMessage(), e);
+        }
+
+        String scheme = uri.getScheme() == null ? "" : uri.getScheme().toLowerCase(Locale.ROOT);
+        try {
+            switch (scheme) {
+                case "unix":
+                    return connectUnixSocket(uri.getPath());
+                case "tcp":
+                case "http":
+                    return connectTcp(uri.getHost(), uri.getPort());
+                default:
+                    throw new MojoExecutionException("Unsupported Podman service URL " + serviceUrl + ". Use unix:///path/to/podman.sock or tcp://host:port.");
+            }
+        } catch (IOException e) {
+            throw new CommandExecutionException("Failed to connect to the Podman service at " + serviceUrl + " - caught " + e.getMessage(),
+                    Collections.singletonList(String.valueOf(e.getMessage())), e instanceof SocketTimeoutException);
+        }
+    }
+
+    private Connection connectTcp(String host, int port) throws IOException, MojoExecutionException {
+        if (host == null || port < 0) {
+            throw new MojoExecutionException("The Podman service URL " + serviceUrl + " must contain a host and a port.");
+        }
+
+        Socket socket = new Socket();
+        try {
+            socket.connect(new InetSocketAddress(host, port), CONNECT_TIMEOUT);
+            return new Connection(socket, socket.getInputStream(), socket.getOutputStream());
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+    }
+
+    private Connection connectUnixSocket(String path) throws IOException, MojoExecutionException {
+        // Unix domain sockets are available as of Java 16. This plugin targets Java 8, so they are accessed reflectively.
+        SocketAddress address;
+        SocketChannel channel;
+        try {
+            address = (SocketAddress) Class.forName("java.net.UnixDomainSocketAddress").getMethod("of", String.class).invoke(null, path);
+            ProtocolFamily unix = StandardProtocolFamily.valueOf("UNIX");
+            channel = (SocketChannel) SocketChannel.class.getMethod("open", ProtocolFamily.class).invoke(null, unix);
+        } catch (ReflectiveOperationException | IllegalArgumentException e) {
+            throw new MojoExecutionException("Connecting to the Podman service through a unix socket requires Java 16 or newer. "
+                    + "Run Maven using a newer Java version or configure a tcp:// service URL.", e);
+        }
+
+        try {
+            channel.connect(address);
+            return new Connection(channel, Channels.newInputStream(channel), Channels.newOutputStream(channel));
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static void writeRequest(OutputStream out, String method, String path, Map<String, String> headers, BodyWriter body) throws IOException {
+        StringBuilder request = new StringBuilder();
+        request.append(method).append(' ').append(API_VERSION_PREFIX).append(path).append(" HTTP/1.1").append(CRLF);
+        request.append("Host: podman").append(CRLF);
+        request.append("Connection: close").append(CRLF);
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            request.append(header.getKey()).append(": ").append(header.getValue()).append(CRLF);
+        }
+
+        if (body != null) {
+            request.append("Transfer-Encoding: chunked").append(CRLF);
+        } else if (!"GET".equals(method) && !"HEAD".equals(method)) {
+            request.append("Content-Length: 0").append(CRLF);
+        }
+        request.append(CRLF);
+
+        OutputStream bufferedOut = new BufferedOutputStream(out, CHUNK_SIZE);
+        bufferedOut.write(request.toString().getBytes(StandardCharsets.ISO_8859_1));
+        if (body != null) {
+            ChunkedOutputStream chunkedOut = new ChunkedOutputStream(bufferedOut);
+            body.writeTo(chunkedOut);
+            chunkedOut.finish();
+        }
+        bufferedOut.flush();
+    }
+
+    private static Response readResponse(Connection connection) throws IOException {
+        InputStream in = new BufferedInputStream(connection.in);
+
+        String statusLine;
+        int status;
+        Map<String, String> headers;
+        do {
+            statusLine = readLine(in);
+            if (statusLine == null) {
+                throw new IOException("The Podman service closed the connection without a response");
+            }
+
+            String[] statusParts = statusLine.split(" ", 3);
+            if (statusParts.length < 2 || !statusParts[0].startsWith("HTTP/")) {
+                throw new IOException("Invalid response from the Podman service: " + statusLine);
+            }
+            status = parseStatus(statusParts[1], statusLine);
+            headers = readHeaders(in);
+            // Informational responses are followed by the actual response
+        } while (status >= 100 && status < 200);
+
+        InputStream body;
+        String contentLength = headers.get("content-length");
+        if ("chunked".equalsIgnoreCase(headers.get("transfer-encoding"))) {
+            body = new ChunkedInputStream(in);
+        } else if (status == 204 || status == 304) {
+            body = new FixedLengthInputStream(in, 0);
+        } else if (contentLength != null) {
+            body = new FixedLengthInputStream(in, Long.parseLong(contentLength.trim()));
+        } else {
+            body = in;
+        }
+
+        return new Response(status, headers, body, connection);
+    }
+
+    private static int parseStatus(String status, String statusLine) throws IOException {
+        try {
+            return Integer.parseInt(status);
+        } catch (NumberFormatException e) {
+            throw new IOException("Invalid response from the Podman service: " + statusLine, e);
+        }
+    }
+
+    private static Map<String, String> readHeaders(InputStream in) throws IOException {
+        Map<String, String> headers = new HashMap<>();
+        String line;
+        while ((line = readLine(in)) != null && !line.isEmpty()) {
+            int separator = line.indexOf(':');
+            if (separator > 0) {
+                headers.put(line.substring(0, separator).trim().toLowerCase(Locale.ROOT), line.substring(separator + 1).trim());
+            }
+        }
+        return headers;
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != -1) {
+            if (b == '\n') {
+                break;
+            }
+            if (b != '\r') {
+                line.write(b);
+            }
+        }
+
+        if (b == -1 && line.size() == 0) {
+            return null;
+        }
+        return new String(line.toByteArray(), StandardCharsets.ISO_8859_1);
+    }
+
+    private static String readErrorMessage(Response response) {
+        String body;
+        try {
+            body = response.readBody().trim();
+        } catch (IOException e) {
+            return "(failed to read the response: " + e.getMessage() + ")";
+        }
+
+        try {
+            JSONObject error = new JSONObject(body);
+            return error.optString("message", error.optString("cause", body));
+        } catch (JSONException e) {
+            return body;
+        }
+    }
+
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (IOException e) {
+            // Nothing that can be done, the request failed anyway
+        }
+    }
+
+    /**
+     * Writes the body of a request
+     */
+    @FunctionalInterface
+    public interface BodyWriter {
+
+        /**
+         * Writes the body of a request to the provided stream. The stream must not be closed.
+         *
+         * @param out The stream to write the body to
+         * @throws IOException In case writing the body fails
+         */
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    /**
+     * The response to a request. Closing the response closes the connection to the service.
+     */
+    public static final class Response implements Closeable {
+
+        private final int status;
+        private final Map<String, String> headers;
+        private final InputStream body;
+        private final Connection connection;
+
+        private Response(int status, Map<String, String> headers, InputStream body, Connection connection) {
+            this.status = status;
+            this.headers = headers;
+            this.body = body;
+            this.connection = connection;
+        }
+
+        /**
+         * Returns the HTTP status code of this response
+         *
+         * @return The status code
+         */
+        public int getStatus() {
+            return status;
+        }
+
+        /**
+         * Returns the value of a response header
+         *
+         * @param name The name of the header, case-insensitive
+         * @return The value of the header, or null when the response does not contain it
+         */
+        public String getHeader(String name) {
+            return headers.get(name.toLowerCase(Locale.ROOT));
+        }
+
+        /**
+         * Returns the body of this response. The body is read while it is being sent by the service.
+         *
+         * @return The body of this response
+         */
+        public InputStream getBody() {
+            return body;
+        }
+
+        /**
+         * Reads the complete body of this response as text
+         *
+         * @return The body of this response
+         * @throws IOException In case reading the body fails
+         */
+        public String readBody() throws IOException {
+            ByteArrayOutputStream contents = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int length;
+            while ((length = body.read(buffer)) != -1) {
+                contents.write(buffer, 0, length);
+            }
+            return new String(contents.toByteArray(), StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public void close() throws IOException {
+            connection.close();
+        }
+    }
+
+    private static final class Connection implements Closeable {
+        private final Closeable socket;
+        private final InputStream in;
+        private final OutputStream out;
+
+        private Connection(Closeable socket, InputStream in, OutputStream out) {
+            this.socket = socket;
+            this.in = in;
+            this.out = out;
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+
+    /**
+     * Writes data using chunked transfer encoding. Finishing the stream does not close the underlying stream.
+     */
+    private static final class ChunkedOutputStream extends OutputStream {
+        private final OutputStream out;
+        private final byte[] buffer = new byte[CHUNK_SIZE];
+        private int length;
+
+        private ChunkedOutputStream(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (length == buffer.length) {
+                writeChunk();
+            }
+            buffer[length++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            int offset = off;
+            int remaining = len;
+            while (remaining > 0) {
+                if (length == buffer.length) {
+                    writeChunk();
+                }
+                int count = Math.min(remaining, buffer.length - length);
+                System.arraycopy(b, offset, buffer, length, count);
+                length += count;
+                offset += count;
+                remaining -= count;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            writeChunk();
+            out.flush();
+        }
+
+        @Override
+        public void close() {
+            // The body writer must not end the request, this is done by finish()
+        }
+
+        private void finish() throws IOException {
+            writeChunk();
+            out.write(("0" + CRLF + CRLF).getBytes(StandardCharsets.ISO_8859_1));
+        }
+
+        private void writeChunk() throws IOException {
+            if (length == 0) {
+                return;
+            }
+            out.write((Integer.toHexString(length) + CRLF).getBytes(StandardCharsets.ISO_8859_1));
+            out.write(buffer, 0, length);
+            out.write(CRLF.getBytes(StandardCharsets.ISO_8859_1));
+            length = 0;
+        }
+    }
+
+    /**
+     * Reads data that was sent using chunked transfer encoding
+     */
+    private static final class ChunkedInputStream extends InputStream {
+        private final InputStream in;
+        private long remainingInChunk;
+        private boolean finished;
+
+        private ChunkedInputStream(InputStream in) {
+            this.in = in;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) == -1 ? -1 : b[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!startChunk()) {
+                return -1;
+            }
+
+            int count = in.read(b, off, (int) Math.min(len, remainingInChunk));
+            if (count == -1) {
+                throw new IOException("The Podman service closed the connection in the middle of a chunk");
+            }
+            remainingInChunk -= count;
+            if (remainingInChunk == 0) {
+                // Every chunk is followed by a line break
+                readLine(in);
+            }
+            return count;
+        }
+
+        private boolean startChunk() throws IOException {
+            if (finished) {
+                return false;
+            }
+            if (remainingInChunk > 0) {
+                return true;
+            }
+
+            String sizeLine = readLine(in);
+            if (sizeLine == null) {
+                throw new IOException("The Podman service closed the connection before the end of the response");
+            }
+
+            int extension = sizeLine.indexOf(';');
+            String size = (extension >= 0 ? sizeLine.substring(0, extension) : sizeLine).trim();
+            try {
+                remainingInChunk = Long.parseLong(size, 16);
+            } catch (NumberFormatException e) {
+                throw new IOException("Invalid chunk size in response of the Podman service: " + sizeLine, e);
+            }
+
+            if (remainingInChunk == 0) {
+                // Skip the trailers, if any
+                readHeaders(in);
+                finished = true;
+                return false;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Reads a body of which the length is known in advance
+     */
+    private static final class FixedLengthInputStream extends FilterInputStream {
+        private long remaining;
+
+        private FixedLengthInputStream(InputStream in, long length) {
+            super(in);
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int b = super.read();
+            if (b != -1) {
+                remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int count = super.read(b, off, (int) Math.min(len, remaining));
+            if (count != -1) {
+                remaining -= count;
+            }
+            return count;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package nl.lexemmens.podman.executor;
+
+import nl.lexemmens.podman.config.podman.RetryConfiguration;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.function.LongSupplier;
+import java.util.regex.Pattern;
+
+/**
+ * <p>
+ * Retries an action that communicates with a registry, such as pushing or copying an image.
+ * </p>
+ * <p>
+ * The time to wait between two attempts grows exponentially, up to a maximum, and is partially randomized so that
+ * concurrent retries are spread out. Attempts stop when the number of retries is exhausted, when the maximum elapsed time
+ * would be exceeded, or when the error output of the failed command shows that retrying cannot succeed, for example
+ * because the registry rejected the credentials.
+ * </p>
+ */
+public class RetryPolicy {
+
+    /**
+     * Errors that will not go away by trying again
+     */
+    private static final Pattern FATAL_ERROR_PATTERN = Pattern.compile(
+            "\\b(401|403)\\b|unauthorized|authentication required|access denied|requested access to the resource is denied|forbidden"
+    );
+
+    /**
+     * Errors that indicate a temporary problem of the registry or the network
+     */
+    private static final Pattern RETRYABLE_ERROR_PATTERN = Pattern.compile(
+            "\\b(429|5\\d\\d)\\b|too ?many ?requests|timeout|timed out|connection reset|connection refused|temporarily unavailable|unexpected eof"
+    );
+
+    private final int retries;
+    private final RetryConfiguration configuration;
+    private final Sleeper sleeper;
+    private final LongSupplier clock;
+    private final Random random;
+
+    /**
+     * Constructs a new instance of this class
+     *
+     * @param retries       The number of times a failed action is retried
+     * @param configuration Determines the time to wait between two attempts
+     */
+    public RetryPolicy(int retries, RetryConfiguration configuration) {
+        this(retries, configuration, Thread::sleep, System::currentTimeMillis, new Random());
+    }
+
+    RetryPolicy(int retries, RetryConfiguration configuration, Sleeper sleeper, LongSupplier clock, Random random) {
+        this.retries = Math.max(0, retries);
+        this.configuration = configuration;
+        this.sleeper = sleeper;
+        this.clock = clock;
+        this.random = random;
+    }
+
+    /**
+     * Executes the provided action, retrying it according to this policy when it fails.
+     *
+     * @param description Describes the action in log output, for example 'push image registry.example.com/sample:1.0.0'
+     * @param log         Access to Maven's log system
+     * @param action      The action to execute
+     * @throws MojoExecutionException The failure of the last attempt, in case the action did not succeed
+     */
+    public void execute(String description, Log log, Action action) throws MojoExecutionException {
+        long start = clock.getAsLong();
+        for (int attempt = 0; ; attempt++) {
+            try {
+                action.execute();
+                return;
+            } catch (MojoExecutionException e) {
+                if (attempt >= retries) {
+                    throw e;
+                }
+
+                if (!isRetryable(e)) {
+                    log.warn("Failed to " + description + ". The error cannot be resolved by retrying.");
+                    throw e;
+                }
+
+                long backoff = getBackoff(attempt);
+                long maxElapsedTime = configuration.getMaxElapsedTime();
+                if (maxElapsedTime > 0 && clock.getAsLong() - start + backoff > maxElapsedTime) {
+                    log.warn("Failed to " + description + ". Not retrying, because it would take longer than " + maxElapsedTime + " ms.");
+                    throw e;
+                }
+
+                log.warn("Failed to " + description + ", retrying in " + backoff + " ms...");
+                sleep(backoff);
+            }
+        }
+    }
+
+    /**
+     * Returns the time to wait after the provided attempt has failed
+     *
+     * @param attempt The number of the failed attempt, starting at 0
+     * @return The time to wait in milliseconds
+     */
+    long getBackoff(int attempt) {
+        double multiplier = Math.max(1.0, configuration.getMultiplier());
+        double backoff = Math.min(configuration.getMaxBackoff(), configuration.getInitialBackoff() * Math.pow(multiplier, attempt));
+
+        double jitter = Math.min(1.0, Math.max(0.0, configuration.getJitter()));
+        return Math.max(0, Math.round(backoff * (1.0 - jitter * random.nextDouble())));
+    }
+
+    /**
+     * <p>
+     * Determines whether an action that failed with the provided exception may succeed when it is tried again.
+     * </p>
+     * <p>
+     * Authentication and authorization errors are never retried. Since the error output of commands is not always
+     * recognisable, all other errors are considered retryable.
+     * </p>
+     *
+     * @param e The exception the action failed with
+     * @return true when the action should be tried again
+     */
+    static boolean isRetryable(MojoExecutionException e) {
+        if (!(e instanceof CommandExecutionException)) {
+            return true;
+        }
+
+        CommandExecutionException commandException = (CommandExecutionException) e;
+        if (commandException.isTimedOut()) {
+            return true;
+        }
+
+        // When the output contains several errors, the last one reported decides
+        List<String> errorOutput = commandException.getErrorOutput();
+        for (int i = errorOutput.size() - 1; i >= 0; i--) {
+            String line = errorOutput.get(i).toLowerCase(Locale.ROOT);
+            if (FATAL_ERROR_PATTERN.matcher(line).find()) {
+                return false;
+            }
+            if (RETRYABLE_ERROR_PATTERN.matcher(line).find()) {
+                return true;
+            }
+        }
+        return true;
+    }
+
+    private void sleep(long backoff) throws MojoExecutionException {
+        try {
+            sleeper.sleep(backoff);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("Interrupted while waiting to retry", e);
+        }
+    }
+
+    /**
+     * A single attempt of an action that may be retried
+     */
+    @FunctionalInterface
+    public interface Action {
+
+        /**
+         * Executes a single attempt
+         *
+         * @throws MojoExecutionException In case the attempt failed
+         */
+        void execute() throws MojoExecutionException;
+    }
+
+    /**
+     * Waits for the provided time. Allows tests to skip the actual waiting.
+     */
+    @FunctionalInterface
+    interface Sleeper {
+        void sleep(long millis) throws InterruptedException;
+    }
+}
@@ -0,0 +1,246 @@
+package nl.lexemmens.podman.helper;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <p>
+ * Writes the build context of an image as a tar archive, so it can be sent to a Podman service.
+ * </p>
+ * <p>
+ * The archive contains the files in the context directory that are not excluded by its <code>.containerignore</code>
+ * or <code>.dockerignore</code> file, like the Podman CLI only sends those files to the build. The Containerfile is
+ * always part of the archive. When it is not located in the context directory, it is added under a separate name.
+ * </p>
+ * <p>
+ * Entries use the ustar format. Names and sizes that do not fit in a ustar header are written using pax extended
+ * headers.
+ * </p>
+ */
+public class BuildContextArchive {
+
+    private static final int BLOCK_SIZE = 512;
+    private static final int NAME_LENGTH = 100;
+    private static final long MAX_USTAR_SIZE = 077777777777L;
+    private static final String CONTAINERFILE_ENTRY_PREFIX = ".podman-maven-plugin-";
+
+    private static final byte TYPE_FILE = '0';
+    private static final byte TYPE_SYMLINK = '2';
+    private static final byte TYPE_DIRECTORY = '5';
+    private static final byte TYPE_PAX_HEADER = 'x';
+
+    private final Path contextDirectory;
+    private final Path containerFile;
+    private final String containerFileEntry;
+
+    /**
+     * Constructs a new instance of this class
+     *
+     * @param contextDirectory The context directory of the build
+     * @param containerFile    The Containerfile to build
+     */
+    public BuildContextArchive(Path contextDirectory, Path containerFile) {
+        this.contextDirectory = contextDirectory.toAbsolutePath().normalize();
+        this.containerFile = containerFile.toAbsolutePath().normalize();
+
+        if (this.containerFile.startsWith(this.contextDirectory)) {
+            this.containerFileEntry = toEntryName(this.contextDirectory.relativize(this.containerFile));
+        } else {
+            this.containerFileEntry = CONTAINERFILE_ENTRY_PREFIX + this.containerFile.getFileName();
+        }
+    }
+
+    /**
+     * Returns the name of the Containerfile in the archive
+     *
+     * @return The name of the Containerfile in the archive
+     */
+    public String getContainerFileEntry() {
+        return containerFileEntry;
+    }
+
+    /**
+     * Writes the archive to the provided stream. The stream is not closed.
+     *
+     * @param out The stream to write the archive to
+     * @throws IOException In case the context directory cannot be read
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        byte[] buffer = new byte[64 * 1024];
+        for (Path path : listContext()) {
+            String entryName = toEntryName(contextDirectory.relativize(path));
+            writeEntry(out, path, entryName, buffer);
+        }
+
+        if (!containerFile.startsWith(contextDirectory)) {
+            writeEntry(out, containerFile, containerFileEntry, buffer);
+        }
+
+        // The end of an archive is marked by two empty blocks
+        out.write(new byte[2 * BLOCK_SIZE]);
+    }
+
+    private List<Path> listContext() throws IOException {
+        ContainerIgnoreFile ignoreFile = ContainerIgnoreFile.read(contextDirectory);
+        List<Path> paths = new ArrayList<>();
+        Files.walkFileTree(contextDirectory, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                if (dir.equals(contextDirectory)) {
+                    return FileVisitResult.CONTINUE;
+                }
+
+                if (!ignoreFile.isIgnored(contextDirectory.relativize(dir))) {
+                    paths.add(dir);
+                } else if (!ignoreFile.hasExceptions() && !containerFile.startsWith(dir)) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                boolean included = file.equals(containerFile) || !ignoreFile.isIgnored(contextDirectory.relativize(file));
+                if (included && (attrs.isRegularFile() || attrs.isSymbolicLink())) {
+                    paths.add(file);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+
+        // Keep the archive reproducible, the order in which files are visited is not defined
+        Collections.sort(paths);
+        return paths;
+    }
+
+    private static void writeEntry(OutputStream out, Path path, String entryName, byte[] buffer) throws IOException {
+        if (Files.isSymbolicLink(path)) {
+            String target = Files.readSymbolicLink(path).toString().replace(File.separatorChar, '/');
+            writeHeader(out, entryName, target, TYPE_SYMLINK, 0777, 0, Files.getLastModifiedTime(path, LinkOption.NOFOLLOW_LINKS).toMillis());
+        } else if (Files.isDirectory(path)) {
+            writeHeader(out, entryName + "/", "", TYPE_DIRECTORY, 0755, 0, Files.getLastModifiedTime(path).toMillis());
+        } else {
+            long size = Files.size(path);
+            int mode = Files.isExecutable(path) ? 0755 : 0644;
+            writeHeader(out, entryName, "", TYPE_FILE, mode, size, Files.getLastModifiedTime(path).toMillis());
+            writeContents(out, path, size, buffer);
+        }
+    }
+
+    private static void writeContents(OutputStream out, Path path, long size, byte[] buffer) throws IOException {
+        long written = 0;
+        try (InputStream in = Files.newInputStream(path)) {
+            int read;
+            while (written < size && (read = in.read(buffer, 0, (int) Math.min(buffer.length, size - written))) != -1) {
+                out.write(buffer, 0, read);
+                written += read;
+            }
+        }
+
+        if (written != size) {
+            throw new IOException("File " + path + " changed while the build context was being sent");
+        }
+        pad(out, size);
+    }
+
+    private static void writeHeader(OutputStream out, String name, String linkName, byte type, int mode, long size, long lastModified) throws IOException {
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        byte[] linkNameBytes = linkName.getBytes(StandardCharsets.UTF_8);
+
+        StringBuilder paxRecords = new StringBuilder();
+        if (nameBytes.length > NAME_LENGTH) {
+            paxRecords.append(paxRecord("path", name));
+        }
+        if (linkNameBytes.length > NAME_LENGTH) {
+            paxRecords.append(paxRecord("linkpath", linkName));
+        }
+        if (size > MAX_USTAR_SIZE) {
+            paxRecords.append(paxRecord("size", Long.toString(size)));
+        }
+
+        if (paxRecords.length() > 0) {
+            byte[] paxData = paxRecords.toString().getBytes(StandardCharsets.UTF_8);
+            out.write(createHeader(truncate("PaxHeaders/" + name), new byte[0], TYPE_PAX_HEADER, 0644, paxData.length, lastModified));
+            out.write(paxData);
+            pad(out, paxData.length);
+        }
+
+        out.write(createHeader(truncate(name), truncate(linkName), type, mode, size > MAX_USTAR_SIZE ? 0 : size, lastModified));
+    }
+
+    private static byte[] createHeader(byte[] name, byte[] linkName, byte type, int mode, long size, long lastModified) {
+        byte[] header = new byte[BLOCK_SIZE];
+        System.arraycopy(name, 0, header, 0, name.length);
+        writeOctal(header, 100, 8, mode);
+        writeOctal(header, 108, 8, 0);
+        writeOctal(header, 116, 8, 0);
+        writeOctal(header, 124, 12, size);
+        writeOctal(header, 136, 12, lastModified / 1000);
+        header[156] = type;
+        System.arraycopy(linkName, 0, header, 157, linkName.length);
+        System.arraycopy("ustar\u000000".getBytes(StandardCharsets.US_ASCII), 0, header, 257, 8);
+
+        // The checksum is computed while the checksum field consists of spaces
+        for (int i = 148; i < 156; i++) {
+            header[i] = ' ';
+        }
+        long checksum = 0;
+        for (byte b : header) {
+            checksum += b & 0xff;
+        }
+        writeOctal(header, 148, 7, checksum);
+        return header;
+    }
+
+    private static void writeOctal(byte[] header, int offset, int length, long value) {
+        // The value is zero padded and terminated by a NUL byte
+        String octal = Long.toOctalString(value);
+        int digits = length - 1;
+        for (int i = 0; i < digits; i++) {
+            int index = octal.length() - digits + i;
+            header[offset + i] = (byte) (index < 0 ? '0' : octal.charAt(index));
+        }
+        header[offset + digits] = 0;
+    }
+
+    private static String paxRecord(String key, String value) {
+        // The length of a record includes the length of the length field itself
+        String record = " " + key + "=" + value + "\n";
+        int recordLength = record.getBytes(StandardCharsets.UTF_8).length;
+        int length = recordLength + Integer.toString(recordLength).length();
+        if (Integer.toString(length).length() != Integer.toString(recordLength).length()) {
+            length++;
+        }
+        return length + record;
+    }
+
+    private static byte[] truncate(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        byte[] truncated = new byte[Math.min(bytes.length, NAME_LENGTH)];
+        System.arraycopy(bytes, 0, truncated, 0, truncated.length);
+        return truncated;
+    }
+
+    private static void pad(OutputStream out, long size) throws IOException {
+        int remainder = (int) (size % BLOCK_SIZE);
+        if (remainder > 0) {
+            out.write(new byte[BLOCK_SIZE - remainder]);
+        }
+    }
+
+    private static String toEntryName(Path relativePath) {
+        return relativePath.toString().replace(File.separatorChar, '/');
+    }
+}
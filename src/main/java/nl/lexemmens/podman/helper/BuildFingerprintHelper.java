@@ -0,0 +1,321 @@
+package nl.lexemmens.podman.helper;
+
+import nl.lexemmens.podman.config.image.AbstractImageBuildConfiguration;
+import nl.lexemmens.podman.config.image.single.SingleImageConfiguration;
+import nl.lexemmens.podman.config.podman.PodmanConfiguration;
+import nl.lexemmens.podman.service.PodmanExecutorService;
+import org.apache.maven.plugin.MojoExecutionException;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.function.UnaryOperator;
+
+/**
+ * <p>
+ * Helper class that supports incremental builds.
+ * </p>
+ * <p>
+ * Computes a fingerprint over everything that influences the result of a <code>podman build</code>: the filtered
+ * Containerfile, the IDs of its base images, the contents of the context directory, the build arguments, user limits,
+ * labels and the options passed to Podman. The fingerprint is recorded together with the resulting image hashes, so that a next build with
+ * the same fingerprint can reuse the recorded image.
+ * </p>
+ */
+public class BuildFingerprintHelper {
+
+    private static final String STATE_DIRECTORY = "build-state";
+    private static final String FINGERPRINT_KEY = "fingerprint";
+    private static final String FINAL_IMAGE_HASH_KEY = "finalImageHash";
+    private static final String STAGE_KEY_PREFIX = "stage.";
+    private static final String PODMAN_ARG_PREFIX = "podman.buildArg.";
+    private static final String PODMAN_ULIMITS_PREFIX = "podman.buildUlimits.";
+
+    private final PodmanConfiguration podmanConfig;
+    private final Path podmanDirectory;
+    private final Path stateDirectory;
+
+    /**
+     * Constructs a new instance of this {@link BuildFingerprintHelper}
+     *
+     * @param podmanConfig    The Podman configuration in use
+     * @param podmanDirectory The directory used by this plugin to store its files, i.e. target/podman
+     */
+    public BuildFingerprintHelper(PodmanConfiguration podmanConfig, Path podmanDirectory) {
+        this.podmanConfig = podmanConfig;
+        this.podmanDirectory = podmanDirectory;
+        this.stateDirectory = podmanDirectory.resolve(STATE_DIRECTORY);
+    }
+
+    /**
+     * Computes the fingerprint of an image. Must be called after the Containerfile has been filtered and after the
+     * images it uses as base image have been built.
+     *
+     * @param image                 The image to compute the fingerprint for
+     * @param podmanExecutorService Used to look up the IDs of the base images of the image
+     * @return The fingerprint as a hexadecimal SHA-256 hash
+     * @throws MojoExecutionException In case reading the Containerfile or the context directory fails
+     */
+    public String computeFingerprint(SingleImageConfiguration image, PodmanExecutorService podmanExecutorService) throws MojoExecutionException {
+        MessageDigest digest = newDigest();
+        AbstractImageBuildConfiguration build = image.getBuild();
+
+        try {
+            byte[] containerfile = Files.readAllBytes(build.getTargetContainerFile());
+            update(digest, "containerfile");
+            digest.update(containerfile);
+
+            // A base image may have been rebuilt or pulled again under the same name since the previous build
+            List<String> lines = Arrays.asList(new String(containerfile, StandardCharsets.UTF_8).split("\\R"));
+            for (String baseImage : ImageDependencyHelper.getBaseImages(lines, UnaryOperator.identity())) {
+                update(digest, "from=" + baseImage + "=" + podmanExecutorService.getLocalImageId(baseImage).orElse(null));
+            }
+
+            update(digest, "format=" + build.getFormat());
+            update(digest, "squash=" + build.getSquash());
+            update(digest, "squashAll=" + build.getSquashAll());
+            update(digest, "layers=" + build.getLayers());
+            update(digest, "pull=" + build.getPullPolicy().orElse(null));
+            update(digest, "platform=" + build.getPlatform().orElse(null));
+            update(digest, "target=" + build.getTargetStage().orElse(null));
+            update(digest, "root=" + podmanConfig.getRoot());
+            update(digest, "cgroupManager=" + podmanConfig.getCgroupManager());
+
+            updateWithMap(digest, "arg", withSystemProperties(build.getArgs(), PODMAN_ARG_PREFIX));
+            updateWithMap(digest, "ulimit", withSystemProperties(build.getUlimits(), PODMAN_ULIMITS_PREFIX));
+            updateWithMap(digest, "label", build.getLabels());
+
+            Path contextDir = getContextDirectory(image);
+            update(digest, "context=" + contextDir);
+            updateWithDirectory(digest, contextDir);
+        } catch (IOException e) {
+            throw new MojoExecutionException("Failed to compute build fingerprint for image " + image.getImageName(), e);
+        }
+
+        return toHex(digest.digest());
+    }
+
+    /**
+     * Returns the recorded build of an image, if the recorded fingerprint matches the provided fingerprint.
+     *
+     * @param image       The image to read the recorded build for
+     * @param fingerprint The current fingerprint of the image
+     * @return The recorded build, or an empty {@link Optional} if there is no recorded build or the fingerprint is different
+     * @throws MojoExecutionException In case the recorded build cannot be read
+     */
+    public Optional<RecordedBuild> getRecordedBuild(SingleImageConfiguration image, String fingerprint) throws MojoExecutionException {
+        Path stateFile = getStateFile(image);
+        if (!Files.isRegularFile(stateFile)) {
+            return Optional.empty();
+        }
+
+        Properties properties = new Properties();
+        try (InputStream inputStream = Files.newInputStream(stateFile)) {
+            properties.load(inputStream);
+        } catch (IOException e) {
+            throw new MojoExecutionException("Failed to read build state from " + stateFile, e);
+        }
+
+        String finalImageHash = properties.getProperty(FINAL_IMAGE_HASH_KEY);
+        if (!fingerprint.equals(properties.getProperty(FINGERPRINT_KEY)) || finalImageHash == null) {
+            return Optional.empty();
+        }
+
+        Map<String, String> imageHashPerStage = new TreeMap<>();
+        for (String key : properties.stringPropertyNames()) {
+            if (key.startsWith(STAGE_KEY_PREFIX)) {
+                imageHashPerStage.put(key.substring(STAGE_KEY_PREFIX.length()), properties.getProperty(key));
+            }
+        }
+
+        return Optional.of(new RecordedBuild(finalImageHash, imageHashPerStage));
+    }
+
+    /**
+     * Records the fingerprint and resulting image hashes of a build.
+     *
+     * @param image       The image that has been built
+     * @param fingerprint The fingerprint the image was built with
+     * @throws MojoExecutionException In case the build state cannot be written
+     */
+    public void recordBuild(SingleImageConfiguration image, String fingerprint) throws MojoExecutionException {
+        if (!image.getFinalImageHash().isPresent()) {
+            return;
+        }
+
+        Properties properties = new Properties();
+        properties.setProperty(FINGERPRINT_KEY, fingerprint);
+        properties.setProperty(FINAL_IMAGE_HASH_KEY, image.getFinalImageHash().get());
+        for (Map.Entry<String, String> stage : image.getImageHashPerStage().entrySet()) {
+            properties.setProperty(STAGE_KEY_PREFIX + stage.getKey(), stage.getValue());
+        }
+
+        Path stateFile = getStateFile(image);
+        try {
+            Files.createDirectories(stateFile.getParent());
+            try (OutputStream outputStream = Files.newOutputStream(stateFile)) {
+                properties.store(outputStream, "Build state of image " + image.getImageName());
+            }
+        } catch (IOException e) {
+            throw new MojoExecutionException("Failed to write build state to " + stateFile, e);
+        }
+    }
+
+    private Path getStateFile(SingleImageConfiguration image) {
+        String fileName = image.getImageName().replaceAll("[^a-zA-Z0-9._-]", "_") + ".properties";
+        return stateDirectory.resolve(fileName);
+    }
+
+    private Path getContextDirectory(SingleImageConfiguration image) {
+        // Resolved the same way as the context directory passed to 'podman build', which runs in the run directory
+        Path runDirectory = podmanConfig.getRunDirectory() == null ? Paths.get(".") : podmanConfig.getRunDirectory().toPath();
+        return runDirectory.resolve(image.getBuild().getContextDir().orElse(".")).toAbsolutePath().normalize();
+    }
+
+    private void updateWithDirectory(MessageDigest digest, Path contextDir) throws IOException {
+        if (!Files.isDirectory(contextDir)) {
+            return;
+        }
+
+        // The files this plugin writes itself, such as the filtered Containerfile and saved images, are not part of the context
+        List<Path> excludedDirectories = new ArrayList<>();
+        excludedDirectories.add(podmanDirectory.toAbsolutePath().normalize());
+        addIfPresent(excludedDirectories, podmanConfig.getRoot());
+        addIfPresent(excludedDirectories, podmanConfig.getRunRoot());
+
+        ContainerIgnoreFile ignoreFile = ContainerIgnoreFile.read(contextDir);
+        List<Path> files = new ArrayList<>();
+        Files.walkFileTree(contextDir, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                boolean ignored = !ignoreFile.hasExceptions() && ignoreFile.isIgnored(contextDir.relativize(dir));
+                if (excludedDirectories.contains(dir.toAbsolutePath().normalize()) || ignored) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (attrs.isRegularFile() && !ignoreFile.isIgnored(contextDir.relativize(file))) {
+                    files.add(file);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+
+        // The order in which files are visited is not defined, the fingerprint must not depend on it
+        Collections.sort(files);
+        byte[] buffer = new byte[8192];
+        for (Path file : files) {
+            update(digest, "file=" + contextDir.relativize(file).toString().replace(File.separatorChar, '/'));
+            try (InputStream inputStream = Files.newInputStream(file)) {
+                int read;
+                while ((read = inputStream.read(buffer)) != -1) {
+                    digest.update(buffer, 0, read);
+                }
+            }
+        }
+    }
+
+    private static void addIfPresent(List<Path> paths, File directory) {
+        if (directory != null) {
+            paths.add(directory.toPath().toAbsolutePath().normalize());
+        }
+    }
+
+    private static Map<String, String> withSystemProperties(Map<String, String> values, String prefix) {
+        Map<String, String> allValues = new TreeMap<>();
+        if (values != null) {
+            allValues.putAll(values);
+        }
+
+        Properties properties = System.getProperties();
+        for (String key : properties.stringPropertyNames()) {
+            if (key.startsWith(prefix)) {
+                allValues.put(key.substring(prefix.length()), properties.getProperty(key));
+            }
+        }
+        return allValues;
+    }
+
+    private static void updateWithMap(MessageDigest digest, String type, Map<String, String> values) {
+        if (values == null) {
+            return;
+        }
+
+        for (Map.Entry<String, String> entry : new TreeMap<>(values).entrySet()) {
+            update(digest, type + ":" + entry.getKey() + "=" + entry.getValue());
+        }
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+
+    private static MessageDigest newDigest() throws MojoExecutionException {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new MojoExecutionException("SHA-256 is not supported by this JVM", e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * The result of a previous build of an image
+     */
+    public static final class RecordedBuild {
+        private final String finalImageHash;
+        private final Map<String, String> imageHashPerStage;
+
+        private RecordedBuild(String finalImageHash, Map<String, String> imageHashPerStage) {
+            this.finalImageHash = finalImageHash;
+            this.imageHashPerStage = imageHashPerStage;
+        }
+
+        /**
+         * Returns the hash of the final image
+         *
+         * @return The hash of the final image
+         */
+        public String getFinalImageHash() {
+            return finalImageHash;
+        }
+
+        /**
+         * Returns the image hashes per stage in case of a multistage Containerfile
+         *
+         * @return The image hashes per stage. May be empty, but is never <code>null</code>
+         */
+        public Map<String, String> getImageHashPerStage() {
+            return imageHashPerStage;
+        }
+    }
+}
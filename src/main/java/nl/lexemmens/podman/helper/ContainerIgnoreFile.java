@@ -0,0 +1,233 @@
+package nl.lexemmens.podman.helper;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * <p>
+ * Reads the ignore file of a build context and decides which files in the context are ignored.
+ * </p>
+ * <p>
+ * Podman uses the <code>.containerignore</code> file in the context directory, or the <code>.dockerignore</code> file
+ * when there is no <code>.containerignore</code> file. Patterns follow the same rules as when Podman builds the image:
+ * they use the syntax of Go's <code>filepath.Match</code>, <code>**</code> matches any number of directories, a pattern
+ * that matches a directory also matches everything in it and patterns starting with <code>!</code> include files again
+ * that were ignored by a previous pattern. When the ignore file contains a pattern that is not valid, nothing is ignored.
+ * </p>
+ */
+public final class ContainerIgnoreFile {
+
+    private static final List<String> IGNORE_FILES = Collections.unmodifiableList(Arrays.asList(".containerignore", ".dockerignore"));
+    private static final ContainerIgnoreFile EMPTY = new ContainerIgnoreFile(Collections.emptyList());
+
+    private final List<IgnorePattern> patterns;
+    private final boolean hasExceptions;
+
+    private ContainerIgnoreFile(List<IgnorePattern> patterns) {
+        this.patterns = patterns;
+        this.hasExceptions = patterns.stream().anyMatch(pattern -> pattern.exception);
+    }
+
+    /**
+     * Reads the ignore file in the provided context directory
+     *
+     * @param contextDirectory The context directory of the build
+     * @return The patterns of the ignore file. When there is no ignore file, nothing is ignored.
+     * @throws IOException In case the ignore file cannot be read
+     */
+    public static ContainerIgnoreFile read(Path contextDirectory) throws IOException {
+        for (String ignoreFile : IGNORE_FILES) {
+            Path ignoreFilePath = contextDirectory.resolve(ignoreFile);
+            if (Files.isRegularFile(ignoreFilePath)) {
+                return parse(Files.readAllLines(ignoreFilePath, StandardCharsets.UTF_8));
+            }
+        }
+        return EMPTY;
+    }
+
+    /**
+     * Parses the lines of an ignore file
+     *
+     * @param lines The lines of the ignore file
+     * @return The patterns of the ignore file
+     */
+    static ContainerIgnoreFile parse(List<String> lines) {
+        List<IgnorePattern> patterns = new ArrayList<>();
+        for (String line : lines) {
+            String pattern = line.trim();
+            if (pattern.isEmpty() || pattern.startsWith("#")) {
+                continue;
+            }
+
+            boolean exception = pattern.startsWith("!");
+            if (exception) {
+                pattern = pattern.substring(1).trim();
+            }
+            pattern = clean(pattern);
+            if (pattern.isEmpty()) {
+                continue;
+            }
+
+            try {
+                patterns.add(new IgnorePattern(Pattern.compile(toRegex(pattern)), exception));
+            } catch (PatternSyntaxException e) {
+                // Podman refuses to build with an invalid pattern. Ignoring nothing at least never leaves out a file that is used.
+                return EMPTY;
+            }
+        }
+        return new ContainerIgnoreFile(patterns);
+    }
+
+    /**
+     * Returns whether the ignore file contains patterns starting with <code>!</code>. In that case, files in an ignored
+     * directory may be included again, so the contents of an ignored directory must still be inspected.
+     *
+     * @return true when the ignore file contains exceptions
+     */
+    public boolean hasExceptions() {
+        return hasExceptions;
+    }
+
+    /**
+     * Returns whether the provided path is ignored
+     *
+     * @param relativePath The path of a file or directory, relative to the context directory
+     * @return true when the path is ignored
+     */
+    public boolean isIgnored(Path relativePath) {
+        if (patterns.isEmpty()) {
+            return false;
+        }
+
+        String path = relativePath.toString().replace(File.separatorChar, '/');
+        boolean ignored = false;
+        for (IgnorePattern pattern : patterns) {
+            // Only a later exception can include an ignored path again, and only a later pattern can ignore an included path
+            if (pattern.exception == ignored && pattern.matches(path)) {
+                ignored = !pattern.exception;
+            }
+        }
+        return ignored;
+    }
+
+    private static String clean(String pattern) {
+        // Equivalent of Go's filepath.Clean, after which a leading slash is removed
+        Deque<String> elements = new ArrayDeque<>();
+        for (String element : pattern.split("/")) {
+            if (element.isEmpty() || ".".equals(element)) {
+                continue;
+            }
+            if ("..".equals(element) && !elements.isEmpty() && !"..".equals(elements.peekLast())) {
+                elements.removeLast();
+            } else {
+                elements.addLast(element);
+            }
+        }
+        return String.join("/", elements);
+    }
+
+    private static String toRegex(String pattern) {
+        StringBuilder regex = new StringBuilder("^");
+        int i = 0;
+        while (i < pattern.length()) {
+            char c = pattern.charAt(i++);
+            if (c == '*') {
+                if (i < pattern.length() && pattern.charAt(i) == '*') {
+                    i++;
+                    // Like a .gitignore file, '**/' matches zero or more directories
+                    if (i < pattern.length() && pattern.charAt(i) == '/') {
+                        i++;
+                    }
+                    regex.append(i == pattern.length() ? ".*" : "(.*/)?");
+                } else {
+                    regex.append("[^/]*");
+                }
+            } else if (c == '?') {
+                regex.append("[^/]");
+            } else if (c == '[') {
+                i = appendCharacterClass(regex, pattern, i);
+            } else if (c == '\\') {
+                if (i == pattern.length()) {
+                    throw new PatternSyntaxException("Trailing escape character", pattern, i - 1);
+                }
+                appendLiteral(regex, pattern.charAt(i++));
+            } else {
+                appendLiteral(regex, c);
+            }
+        }
+        return regex.append('$').toString();
+    }
+
+    private static int appendCharacterClass(StringBuilder regex, String pattern, int start) {
+        int i = start;
+        regex.append('[');
+        if (i < pattern.length() && pattern.charAt(i) == '^') {
+            regex.append('^');
+            i++;
+        }
+
+        int classStart = i;
+        while (i < pattern.length() && (pattern.charAt(i) != ']' || i == classStart)) {
+            char c = pattern.charAt(i++);
+            if (c == '\\' && i < pattern.length()) {
+                appendLiteral(regex, pattern.charAt(i++));
+            } else if (c == '-' && i > classStart + 1 && i < pattern.length() && pattern.charAt(i) != ']') {
+                regex.append('-');
+            } else if (c == ']') {
+                throw new PatternSyntaxException("Empty character class", pattern, i - 1);
+            } else {
+                appendLiteral(regex, c);
+            }
+        }
+
+        if (i == pattern.length()) {
+            throw new PatternSyntaxException("Unclosed character class", pattern, start - 1);
+        }
+        regex.append(']');
+        return i + 1;
+    }
+
+    private static void appendLiteral(StringBuilder regex, char c) {
+        if (!Character.isLetterOrDigit(c)) {
+            regex.append('\\');
+        }
+        regex.append(c);
+    }
+
+    private static final class IgnorePattern {
+
+        private final Pattern regex;
+        private final boolean exception;
+
+        private IgnorePattern(Pattern regex, boolean exception) {
+            this.regex = regex;
+            this.exception = exception;
+        }
+
+        private boolean matches(String path) {
+            // A pattern that matches a directory also matches everything in that directory
+            String candidate = path;
+            while (true) {
+                if (regex.matcher(candidate).matches()) {
+                    return true;
+                }
+                int separator = candidate.lastIndexOf('/');
+                if (separator < 0) {
+                    return false;
+                }
+                candidate = candidate.substring(0, separator);
+            }
+        }
+    }
+}
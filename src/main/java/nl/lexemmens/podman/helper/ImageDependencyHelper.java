@@ -0,0 +1,245 @@
+package nl.lexemmens.podman.helper;
+
+import nl.lexemmens.podman.config.image.StageConfiguration;
+import nl.lexemmens.podman.config.image.single.SingleImageConfiguration;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.project.MavenProject;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * <p>
+ * Helper class that determines the build order of container images that are built by the same module.
+ * </p>
+ * <p>
+ * The <code>FROM</code> instructions of every Containerfile are matched against the image names produced by all
+ * other images. An image that uses another image of the same module as its base can only be built after that image
+ * has been built and tagged.
+ * </p>
+ */
+public class ImageDependencyHelper {
+
+    private static final Pattern FROM_PATTERN = Pattern.compile("^\\s*FROM\\s+(?:--\\S+\\s+)*(\\S+)(?:\\s+AS\\s+(\\S+))?", Pattern.CASE_INSENSITIVE);
+    private static final Pattern PROPERTY_PATTERN = Pattern.compile("\\$\\{([^}]+)}");
+    private static final String LOCALHOST_PREFIX = "localhost/";
+    private static final String SCRATCH = "scratch";
+
+    private final MavenProject mavenProject;
+
+    /**
+     * Constructs a new instance of this {@link ImageDependencyHelper}
+     *
+     * @param mavenProject The MavenProject to use for resolving properties in <code>FROM</code> instructions
+     */
+    public ImageDependencyHelper(MavenProject mavenProject) {
+        this.mavenProject = mavenProject;
+    }
+
+    /**
+     * <p>
+     * Determines for every image the images it depends on.
+     * </p>
+     * <p>
+     * Only base images that exactly match an image name produced by this module result in a dependency. A base image
+     * of which the repository is built by this module, but with a tag that is not produced by this module, is logged as
+     * a warning. Other base images are ignored.
+     * </p>
+     *
+     * @param log                   Access to Maven's log system
+     * @param images                The images to determine the dependencies for
+     * @param fullImageNameFunction Function that returns the full image name (i.e. including registry) for an image name
+     * @return Map containing the images each image depends on, in the order of the provided images.
+     * @throws MojoExecutionException In case a Containerfile cannot be read or in case of a circular dependency
+     */
+    public Map<SingleImageConfiguration, List<SingleImageConfiguration>> resolveDependencies(Log log, List<SingleImageConfiguration> images,
+                                                                                               Function<String, String> fullImageNameFunction) throws MojoExecutionException {
+        Map<String, SingleImageConfiguration> imagesByName = new HashMap<>();
+        Set<String> repositories = new HashSet<>();
+        for (SingleImageConfiguration image : images) {
+            for (String imageName : getProducedImageNames(image)) {
+                registerImageName(imagesByName, repositories, normalise(imageName), image);
+                registerImageName(imagesByName, repositories, normalise(fullImageNameFunction.apply(imageName)), image);
+            }
+        }
+
+        Map<SingleImageConfiguration, List<SingleImageConfiguration>> dependencies = new LinkedHashMap<>();
+        for (SingleImageConfiguration image : images) {
+            List<SingleImageConfiguration> parents = new ArrayList<>();
+            for (String baseImage : getBaseImages(log, image)) {
+                String normalisedBaseImage = normalise(baseImage);
+                SingleImageConfiguration parent = imagesByName.get(normalisedBaseImage);
+                if (parent == image) {
+                    throw new MojoExecutionException("Circular dependency detected: image " + image.getImageName() + " uses itself as base image " + baseImage);
+                } else if (parent != null) {
+                    log.debug("Image " + image.getImageName() + " depends on image " + parent.getImageName() + " via base image " + baseImage);
+                    if (!parents.contains(parent)) {
+                        parents.add(parent);
+                    }
+                } else if (repositories.contains(repositoryOf(normalisedBaseImage))) {
+                    // For example a previous release of an image of this module, which is pulled or already exists locally
+                    log.warn("Image " + image.getImageName() + " uses base image " + baseImage + ", but this module does not produce this tag. "
+                            + "The image does not wait for any image of this module to be built.");
+                }
+            }
+            dependencies.put(image, parents);
+        }
+
+        verifyNoCycles(dependencies);
+        return dependencies;
+    }
+
+    private static void registerImageName(Map<String, SingleImageConfiguration> imagesByName, Set<String> repositories, String imageName, SingleImageConfiguration image) {
+        imagesByName.putIfAbsent(imageName, image);
+        repositories.add(repositoryOf(imageName));
+    }
+
+    private static List<String> getProducedImageNames(SingleImageConfiguration image) {
+        List<String> imageNames = new ArrayList<>(image.getImageNames());
+        if (image.useCustomImageNameForMultiStageContainerfile() && image.getStages() != null) {
+            for (StageConfiguration stage : image.getStages()) {
+                imageNames.addAll(image.getImageNamesByStage(stage.getName()));
+            }
+        }
+        return imageNames;
+    }
+
+    private List<String> getBaseImages(Log log, SingleImageConfiguration image) throws MojoExecutionException {
+        Path containerFile = image.getBuild().getSourceContainerFileDir();
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(containerFile);
+        } catch (IOException e) {
+            String msg = "Unable to read Containerfile " + containerFile + " to determine its base images.";
+            log.error(msg, e);
+            throw new MojoExecutionException(msg, e);
+        }
+
+        List<String> baseImages = new ArrayList<>();
+        for (String baseImage : getBaseImages(lines, this::resolveProperties)) {
+            if (baseImage.contains("$")) {
+                log.debug("Unable to resolve base image " + baseImage + ". Assuming it is not built by this module.");
+            } else {
+                baseImages.add(baseImage);
+            }
+        }
+        return baseImages;
+    }
+
+    /**
+     * Returns the base images of the <code>FROM</code> instructions in a Containerfile. The scratch image, references to
+     * earlier stages and images that are referenced by digest are left out.
+     *
+     * @param lines    The lines of the Containerfile
+     * @param resolver Function that resolves the properties in a base image
+     * @return The base images, in the order they appear in. Base images that cannot be resolved still contain a <code>$</code>
+     */
+    static List<String> getBaseImages(List<String> lines, UnaryOperator<String> resolver) {
+        Set<String> stageNames = new HashSet<>();
+        List<String> baseImages = new ArrayList<>();
+        for (String line : lines) {
+            Matcher matcher = FROM_PATTERN.matcher(line);
+            if (!matcher.find()) {
+                continue;
+            }
+
+            String baseImage = resolver.apply(matcher.group(1));
+            if (matcher.group(2) != null) {
+                stageNames.add(matcher.group(2).toLowerCase());
+            }
+
+            if (!SCRATCH.equals(baseImage) && !stageNames.contains(baseImage.toLowerCase()) && !baseImage.contains("@")) {
+                baseImages.add(baseImage);
+            }
+        }
+        return baseImages;
+    }
+
+    private String resolveProperties(String value) {
+        Properties projectProperties = mavenProject.getProperties();
+
+        Matcher matcher = PROPERTY_PATTERN.matcher(value);
+        StringBuffer result = new StringBuffer();
+        while (matcher.find()) {
+            String property = matcher.group(1);
+            String replacement = System.getProperty(property);
+            if (replacement == null && projectProperties != null) {
+                replacement = projectProperties.getProperty(property);
+            }
+            if (replacement == null && "project.version".equals(property)) {
+                replacement = mavenProject.getVersion();
+            }
+            if (replacement == null && "project.artifactId".equals(property)) {
+                replacement = mavenProject.getArtifactId();
+            }
+            if (replacement == null && "project.groupId".equals(property)) {
+                replacement = mavenProject.getGroupId();
+            }
+            matcher.appendReplacement(result, Matcher.quoteReplacement(replacement == null ? matcher.group() : replacement));
+        }
+        matcher.appendTail(result);
+        return result.toString();
+    }
+
+    private static String normalise(String imageName) {
+        String normalised = imageName;
+        if (normalised.startsWith(LOCALHOST_PREFIX)) {
+            normalised = normalised.substring(LOCALHOST_PREFIX.length());
+        }
+
+        // An image without a tag refers to the latest tag
+        int lastSlash = normalised.lastIndexOf('/');
+        if (normalised.indexOf(':', lastSlash + 1) < 0) {
+            normalised = normalised + ":latest";
+        }
+        return normalised;
+    }
+
+    private static String repositoryOf(String normalisedImageName) {
+        return normalisedImageName.substring(0, normalisedImageName.lastIndexOf(':'));
+    }
+
+    private static void verifyNoCycles(Map<SingleImageConfiguration, List<SingleImageConfiguration>> dependencies) throws MojoExecutionException {
+        Set<SingleImageConfiguration> verified = new HashSet<>();
+        for (SingleImageConfiguration image : dependencies.keySet()) {
+            verifyNoCycles(image, dependencies, new ArrayList<>(), verified);
+        }
+    }
+
+    private static void verifyNoCycles(SingleImageConfiguration image, Map<SingleImageConfiguration, List<SingleImageConfiguration>> dependencies,
+                                       List<SingleImageConfiguration> path, Set<SingleImageConfiguration> verified) throws MojoExecutionException {
+        if (verified.contains(image)) {
+            return;
+        }
+
+        if (path.contains(image)) {
+            StringBuilder cycle = new StringBuilder();
+            for (SingleImageConfiguration imageInCycle : path.subList(path.indexOf(image), path.size())) {
+                cycle.append(imageInCycle.getImageName()).append(" -> ");
+            }
+            cycle.append(image.getImageName());
+            throw new MojoExecutionException("Circular dependency detected between container images: " + cycle);
+        }
+
+        path.add(image);
+        for (SingleImageConfiguration parent : dependencies.get(image)) {
+            verifyNoCycles(parent, dependencies, path, verified);
+        }
+        path.remove(path.size() - 1);
+        verified.add(image);
+    }
+}
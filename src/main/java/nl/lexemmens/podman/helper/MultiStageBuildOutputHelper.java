@@ -3,8 +3,7 @@ package nl.lexemmens.podman.helper;
 import nl.lexemmens.podman.config.image.single.SingleImageConfiguration;
 import org.apache.maven.plugin.logging.Log;
 
-import java.util.List;
-import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -15,212 +14,163 @@ public final class MultiStageBuildOutputHelper {
 
     private static final Pattern IMAGE_HASH_PATTERN = Pattern.compile("\\b([A-Fa-f0-9]{11,64})\\b");
 
+    /**
+     * Every line that defines a stage contains this keyword. Checking for it is much cheaper than evaluating the stage pattern.
+     */
+    private static final String STAGE_KEYWORD = "FROM";
+
     /**
      * <p>
-     * Tries to determine the image hashes from the output of a Podman build command when using multistage
-     * containerfiles.
+     * Creates an {@link ImageHashCollector} that determines the image hashes of every stage from the output of a
+     * Podman build command when using multistage containerfiles.
      * </p>
      * <p>
-     * This method uses a lookahead strategy to determine the image hashes. It does not care about individual
-     * steps but only looks for stages and image hashes. Image hashes must be either 11 or 64 characters in
+     * The collector is fed the output one line at a time, while the build is still running. It does not care about
+     * individual steps but only looks for stages and image hashes. Image hashes must be between 11 and 64 characters in
      * length in order to be detected.
      * </p>
      * <p>
-     * Identification starts at a line that defines a stage, i.e. <code>FROM [something] AS stageName</code>. From
-     * there it will process every next line until it hits the next stage or reaches the last line, whatever
-     * comes first. During reading of lines, the last image hash found will be recorded. When a next stage
-     * has been found, the last image hash found will be associated with the stage that was being processed.
+     * A stage starts at a line that defines a stage, i.e. <code>FROM [something] AS stageName</code>. While reading the
+     * lines that follow, the last image hash found is remembered. As soon as the next stage starts, or once the end of
+     * the output is reached, the last image hash found is recorded for the stage that was being processed. The last line
+     * of the output contains the hash of the final image and is therefore not taken into account.
      * </p>
      * <p>
-     * To be more specific, the following steps are taken by this method, in the order as listed below:
-     * </p>
-     * <ul>
-     *     <li>
-     *         Read the first line of the output
-     *     </li>
-     *     <li>
-     *         Retrieve the current stage from the the line. If the stage is <code>null</code>, then continue
-     *         with the next line
-     *     </li>
-     *     <li>
-     *         If a stage has been found, find the image hash
-     *     </li>
-     *     <li>
-     *         Record the image hash for the current stage
-     *     </li>
-     * </ul>
-     * <p>
-     * This method allows STEP definitions in a Containerfile to produce multiline output.
+     * This allows STEP definitions in a Containerfile to produce multiline output.
      * </p>
      *
-     * @param log           Maven's logger for log output
-     * @param image         The image configuration
-     * @param processOutput The output of a Podman build command
+     * @param log   Maven's logger for log output
+     * @param image The image configuration to record the image hashes in
+     * @return The collector to pass every line of output to. {@link ImageHashCollector#finish()} must be called once the build has completed.
      */
-    public void recordImageHashes(Log log, SingleImageConfiguration image, List<String> processOutput) {
-        // Use size -2 as the last line is the image hash of the final image, which we already captured before.
+    public ImageHashCollector createImageHashCollector(Log log, SingleImageConfiguration image) {
         Pattern stagePattern = image.getBuild().getMultistageContainerfilePattern();
         log.debug("Using regular expression: " + stagePattern);
 
-        // We are interested in output that starts either with:
-        // * STEP
-        // * -->
-        //
-        // STEP means a Podman build step
-        // --> means the result of a build step. This line contains a hash (post 1.x)
-        //
-        // The last line always contain the final image hash, which not interesting in this case.
-        //
-        // A STEP may produce multiline output.
-
-        // The last line (size - 1) contains the image hash. We want the hash produced by the STEP, which is on the second to last line
-        int lastLine = processOutput.size() - 2;
-        int searchIndex = 0;
-        while (searchIndex <= lastLine) {
-            String currentStage;
-
-            // Read current line
-            String currentLine = processOutput.get(searchIndex);
-
-            // Determine the current stage
-            currentStage = getCurrentStage(log, stagePattern, currentLine);
-            if(currentStage == null) {
-                searchIndex++;
-                continue;
-            }
+        return new ImageHashCollector(log, image, stagePattern);
+    }
 
-            // Find the corresponding image hash
-            ImageHashSearchResult imageHashSearchResult = findImageHash(log, processOutput, searchIndex + 1, stagePattern);
+    /**
+     * <p>
+     * Collects the image hashes of every stage from the output of a Podman build command, one line at a time.
+     * </p>
+     * <p>
+     * Every line is processed as soon as it has been received, so a stage is recorded as soon as the next stage starts.
+     * The last line of the output contains the hash of the final image rather than the hash of a step. Therefore, the
+     * image hash found on the most recent line only counts for the current stage once another line has been received.
+     * </p>
+     */
+    public static final class ImageHashCollector implements Consumer<String> {
+
+        private final Log log;
+        private final SingleImageConfiguration image;
+        private final Pattern stagePattern;
+        private final boolean debugEnabled;
+
+        private String currentStage;
+        private String lastKnownImageHash;
+        private String imageHashOnLastLine;
+
+        private ImageHashCollector(Log log, SingleImageConfiguration image, Pattern stagePattern) {
+            this.log = log;
+            this.image = image;
+            this.stagePattern = stagePattern;
+            this.debugEnabled = log.isDebugEnabled();
+        }
 
-            // Save it
-            recordImageHash(log, image, currentStage, imageHashSearchResult);
+        /**
+         * Processes the next line of output of the build
+         *
+         * @param line The line to process
+         */
+        @Override
+        public void accept(String line) {
+            // The previous line turned out not to be the last line, so its image hash belongs to the current stage
+            if (imageHashOnLastLine != null) {
+                lastKnownImageHash = imageHashOnLastLine;
+                imageHashOnLastLine = null;
+            }
 
-            // Continue with next iteration or break the loop if we have reached the last line
-            if (imageHashSearchResult.isLastLine) {
-                break;
+            Matcher stageMatcher = matchStage(line);
+            if (currentStage == null) {
+                if (debugEnabled) {
+                    log.debug("Processing line: '" + line + "'");
+                }
+                startStage(stageMatcher);
             } else {
-                searchIndex = imageHashSearchResult.nextIndex;
+                processCandidate(line, stageMatcher);
             }
         }
 
-        log.debug("Collected hashes: " + image.getImageHashPerStage());
-    }
+        /**
+         * Records the image hash of the stage that was still being processed. Must be called once all output of the
+         * build has been received.
+         */
+        public void finish() {
+            if (currentStage != null) {
+                completeStage();
+            }
 
-    private static void recordImageHash(Log log, SingleImageConfiguration image, String currentStage, ImageHashSearchResult imageHashSearchResult) {
-        if (imageHashSearchResult.imageHash == null) {
-            log.warn("No image hash found for stage: '" + currentStage + "'");
-        } else {
-            log.info("Final image for stage " + currentStage + " is: " + imageHashSearchResult.imageHash);
-            image.getImageHashPerStage().put(currentStage, imageHashSearchResult.imageHash);
+            log.debug("Collected hashes: " + image.getImageHashPerStage());
         }
-    }
 
-    private static String getCurrentStage(Log log, Pattern stagePattern, String currentLine) {
-        String currentStage = null;
-
-        // Check if the current line defines a new stage
-        Matcher stageMatcher = stagePattern.matcher(currentLine);
-        boolean currentLineDefinesStage = stageMatcher.find();
+        private void startStage(Matcher stageMatcher) {
+            if (stageMatcher == null) {
+                return;
+            }
 
-        log.debug("Processing line: '" + currentLine + "'");
-        if (currentLineDefinesStage) {
             currentStage = stageMatcher.group(3);
-            log.debug("Processing stage in Containerfile: " + currentStage);
+            lastKnownImageHash = null;
+            if (debugEnabled) {
+                log.debug("Processing stage in Containerfile: " + currentStage);
+            }
         }
-        return currentStage;
-    }
-
-    // Javadoc at private method to provide some context
 
-    /**
-     * <p>
-     * Tries to determine the image hash for a provided stage by searching the output of a Podman build
-     * command from the provided index. Returns a {@link ImageHashSearchResult}.
-     * </p>
-     * <p>
-     * This method will process each line, starting from a given inex, and check if it contains either a
-     * hash or a new stage definition, whatever comes first.
-     * </p>
-     * <p>
-     * The search result maybe one of the following:
-     * </p>
-     * <ul>
-     *     <li>
-     *         A step does not necessarily produce a hash. I don't know whether it is possible that a stage results in no hash, but it is a case that is at
-     *         least covered. In this case the hash in the {@link ImageHashSearchResult} will be <code>null</code>
-     *     </li>
-     *     <li>
-     *         If a stage has been found, an instance of {@link ImageHashSearchResult} will be returned. It a hash was found, it contains this hash. The
-     *         {@link ImageHashSearchResult} also contains the index of the next stage or -1 if the last line was reached. In the latter case, the <code>lastLine</code>
-     *         identifier in the {@link ImageHashSearchResult} has the value <coe>true</coe>
-     *     </li>
-     * </ul>
-     *
-     * @param log               Maven logger
-     * @param processOutput     The output of the podman build command
-     * @param searchStartIndex  The index of the output from where the search to start
-     * @param multiStagePattern The pattern to use to recognise a new stage in a containerfile.
-     * @return An instance of {@link ImageHashSearchResult} containing the hash (if found) and the index of the next stage. It also has an identifier that can be used
-     * to detect if the last row of the build output has been reached.
-     */
-    private static ImageHashSearchResult findImageHash(Log log, List<String> processOutput, int searchStartIndex, Pattern multiStagePattern) {
-        ImageHashSearchResult searchResult = ImageHashSearchResult.EMPTY    ;
-        String lastKnownImageHash = null;
-
-        int lastLine = processOutput.size() - 2;
-
-        for (int idx = searchStartIndex; idx <= lastLine; idx++) {
-            boolean isLastLine = idx == lastLine;
-
-            String candidate = processOutput.get(idx);
-            log.debug("Processing candidate: '" + candidate + "'");
+        private void processCandidate(String candidate, Matcher stageMatcher) {
+            if (debugEnabled) {
+                log.debug("Processing candidate: '" + candidate + "'");
+            }
 
-            // Check if the candidate line defines a new stage
-            Matcher nextStageMatcher = multiStagePattern.matcher(candidate);
-            boolean candidateLineDefinesStage = nextStageMatcher.find();
+            if (stageMatcher != null) {
+                completeStage();
 
-            Optional<String> imageHashOptional = retrieveImageHashFromLine(candidate);
-            if (!candidateLineDefinesStage && imageHashOptional.isPresent()) {
-                // Record the image hash we found
-                lastKnownImageHash = imageHashOptional.get();
-                log.debug("Derived hash: '" + lastKnownImageHash + "' from:     " + candidate);
+                if (debugEnabled) {
+                    log.debug("Processing line: '" + candidate + "'");
+                }
+                startStage(stageMatcher);
+                return;
             }
 
-            if (candidateLineDefinesStage || isLastLine) {
-                searchResult = new ImageHashSearchResult(lastKnownImageHash, idx, isLastLine);
-
-                // Stop searching and continue with the outer loop as we found a new stage.
-                break;
-            } else {
+            Matcher imageHashMatcher = IMAGE_HASH_PATTERN.matcher(candidate);
+            if (imageHashMatcher.find()) {
+                imageHashOnLastLine = imageHashMatcher.group(1);
+                if (debugEnabled) {
+                    log.debug("Derived hash: '" + imageHashOnLastLine + "' from:     " + candidate);
+                }
+            } else if (debugEnabled) {
                 log.debug("No stage or image hash on line: " + candidate);
             }
         }
 
-        return searchResult;
-    }
+        private void completeStage() {
+            if (lastKnownImageHash == null) {
+                log.warn("No image hash found for stage: '" + currentStage + "'");
+            } else {
+                log.info("Final image for stage " + currentStage + " is: " + lastKnownImageHash);
+                image.getImageHashPerStage().put(currentStage, lastKnownImageHash);
+            }
 
-    private static Optional<String> retrieveImageHashFromLine(String line) {
-        String imageHash = null;
-        Matcher matcher = IMAGE_HASH_PATTERN.matcher(line);
-        if (matcher.find()) {
-            imageHash = matcher.group(1);
+            currentStage = null;
+            lastKnownImageHash = null;
         }
 
-        return Optional.ofNullable(imageHash);
-    }
-
-    private static class ImageHashSearchResult {
-
-        private static final ImageHashSearchResult EMPTY = new ImageHashSearchResult(null, -1, true);
-
-        private final String imageHash;
-        private final int nextIndex;
-        private final boolean isLastLine;
+        private Matcher matchStage(String line) {
+            if (!line.contains(STAGE_KEYWORD)) {
+                return null;
+            }
 
-        public ImageHashSearchResult(String imageHash, int nextIndex, boolean isLastLine) {
-            this.imageHash = imageHash;
-            this.nextIndex = nextIndex;
-            this.isLastLine = isLastLine;
+            Matcher stageMatcher = stagePattern.matcher(line);
+            return stageMatcher.find() ? stageMatcher : null;
         }
     }
 }
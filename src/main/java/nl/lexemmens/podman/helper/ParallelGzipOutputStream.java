@@ -0,0 +1,220 @@
+package nl.lexemmens.podman.helper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * <p>
+ * An {@link OutputStream} that writes its data in gzip format, compressing blocks of data on multiple threads.
+ * </p>
+ * <p>
+ * The data is split into blocks of equal size, which are compressed independently. Every block except the last one
+ * is terminated by a sync flush, so that the compressed blocks can be concatenated into a single deflate stream. The
+ * last 32 KiB of every block are used as dictionary for the next block, which keeps the compression ratio close to
+ * that of single-threaded gzip. The result is a regular gzip file that can be read by any gzip implementation.
+ * </p>
+ * <p>
+ * The number of blocks that are compressed but not yet written is limited, so memory usage does not depend on the
+ * amount of data written.
+ * </p>
+ */
+public class ParallelGzipOutputStream extends OutputStream {
+
+    private static final int DEFAULT_BLOCK_SIZE = 1024 * 1024;
+    private static final int DICTIONARY_SIZE = 32 * 1024;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Gzip header: magic number, deflate compression method, no flags, no modification time, no extra flags and an
+     * unknown operating system.
+     */
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+    private final OutputStream out;
+    private final int level;
+    private final int blockSize;
+    private final int maxPendingBlocks;
+    private final ExecutorService executorService;
+    private final Deque<Future<byte[]>> pendingBlocks = new ArrayDeque<>();
+    private final CRC32 crc = new CRC32();
+
+    private byte[] block;
+    private int blockLength;
+    private byte[] dictionary;
+    private long uncompressedSize;
+    private boolean closed;
+
+    /**
+     * Constructs a new instance of this class and writes the gzip header to the provided stream.
+     *
+     * @param out     The stream to write the compressed data to. Closed when this stream is closed.
+     * @param level   The compression level, from 0 (no compression) to 9 (best compression)
+     * @param threads The number of threads to compress blocks on
+     * @throws IOException In case the gzip header cannot be written
+     */
+    public ParallelGzipOutputStream(OutputStream out, int level, int threads) throws IOException {
+        this(out, level, threads, DEFAULT_BLOCK_SIZE);
+    }
+
+    ParallelGzipOutputStream(OutputStream out, int level, int threads, int blockSize) throws IOException {
+        int compressionThreads = Math.max(1, threads);
+
+        this.out = out;
+        this.level = Math.min(Deflater.BEST_COMPRESSION, Math.max(Deflater.NO_COMPRESSION, level));
+        this.blockSize = blockSize;
+        this.maxPendingBlocks = compressionThreads * 2;
+        this.executorService = Executors.newFixedThreadPool(compressionThreads, new DaemonThreadFactory());
+        this.block = new byte[blockSize];
+
+        out.write(GZIP_HEADER);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (closed) {
+            throw new IOException("Stream is closed");
+        }
+
+        crc.update(b, off, len);
+        uncompressedSize += len;
+
+        int offset = off;
+        int remaining = len;
+        while (remaining > 0) {
+            int length = Math.min(remaining, blockSize - blockLength);
+            System.arraycopy(b, offset, block, blockLength, length);
+            blockLength += length;
+            offset += length;
+            remaining -= length;
+
+            if (blockLength == blockSize) {
+                submitBlock(false);
+            }
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    /**
+     * Compresses the remaining data, writes the gzip trailer and closes the underlying stream.
+     *
+     * @throws IOException In case compressing or writing the data fails
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        try {
+            submitBlock(true);
+            while (!pendingBlocks.isEmpty()) {
+                writeBlock(pendingBlocks.poll());
+            }
+
+            writeInt((int) crc.getValue());
+            writeInt((int) uncompressedSize);
+            out.flush();
+        } finally {
+            executorService.shutdownNow();
+            out.close();
+        }
+    }
+
+    private void submitBlock(boolean last) throws IOException {
+        byte[] data = block;
+        int length = blockLength;
+        byte[] blockDictionary = dictionary;
+        pendingBlocks.add(executorService.submit(() -> compress(data, length, blockDictionary, last)));
+
+        dictionary = Arrays.copyOfRange(data, Math.max(0, length - DICTIONARY_SIZE), length);
+        block = new byte[blockSize];
+        blockLength = 0;
+
+        // Write blocks that are already done, and wait for the oldest block when too many are pending
+        while (!pendingBlocks.isEmpty() && (pendingBlocks.size() > maxPendingBlocks || pendingBlocks.peek().isDone())) {
+            writeBlock(pendingBlocks.poll());
+        }
+    }
+
+    private byte[] compress(byte[] data, int length, byte[] blockDictionary, boolean last) {
+        Deflater deflater = new Deflater(level, true);
+        try {
+            if (blockDictionary != null && blockDictionary.length > 0) {
+                deflater.setDictionary(blockDictionary);
+            }
+            deflater.setInput(data, 0, length);
+
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(length / 2 + 64);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            if (last) {
+                deflater.finish();
+                while (!deflater.finished()) {
+                    int compressedLength = deflater.deflate(buffer);
+                    compressed.write(buffer, 0, compressedLength);
+                }
+            } else {
+                int compressedLength;
+                do {
+                    compressedLength = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+                    compressed.write(buffer, 0, compressedLength);
+                } while (compressedLength == buffer.length || !deflater.needsInput());
+            }
+            return compressed.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private void writeBlock(Future<byte[]> compressedBlock) throws IOException {
+        try {
+            out.write(compressedBlock.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while compressing data");
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to compress data: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private void writeInt(int value) throws IOException {
+        // Gzip stores numbers in little endian byte order
+        out.write(value & 0xff);
+        out.write((value >> 8) & 0xff);
+        out.write((value >> 16) & 0xff);
+        out.write((value >> 24) & 0xff);
+    }
+
+    private static final class DaemonThreadFactory implements ThreadFactory {
+        private static final AtomicInteger COUNTER = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "gzip-" + COUNTER.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
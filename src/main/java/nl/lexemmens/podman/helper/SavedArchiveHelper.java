@@ -0,0 +1,100 @@
+package nl.lexemmens.podman.helper;
+
+import org.apache.maven.plugin.MojoExecutionException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Properties;
+
+/**
+ * <p>
+ * Helper class that supports incremental saving of container images.
+ * </p>
+ * <p>
+ * After an image has been saved, the ID of the image, the size of the archive and the way it was written are recorded
+ * in a sidecar file next to the archive. When the image is saved again, the archive is up to date if the image that is
+ * currently tagged with the same name has the recorded ID, and the archive has not been changed or replaced since.
+ * </p>
+ */
+public class SavedArchiveHelper {
+
+    private static final String SIDECAR_EXTENSION = ".id";
+    private static final String IMAGE_ID_KEY = "imageId";
+    private static final String SIZE_KEY = "size";
+    private static final String FORMAT_KEY = "format";
+
+    /**
+     * Returns whether the provided archive contains the image with the provided ID, written in the provided format.
+     *
+     * @param archive The archive to check
+     * @param imageId The ID of the image that is currently tagged with the name of the archived image
+     * @param format  Describes how the archive is written, for example whether and how it is compressed
+     * @return true when the archive does not have to be written again
+     * @throws MojoExecutionException In case the sidecar file cannot be read
+     */
+    public boolean isUpToDate(Path archive, String imageId, String format) throws MojoExecutionException {
+        Path sidecarFile = getSidecarFile(archive);
+        if (!Files.isRegularFile(sidecarFile) || !Files.isRegularFile(archive)) {
+            return false;
+        }
+
+        Properties properties = new Properties();
+        try (InputStream inputStream = Files.newInputStream(sidecarFile)) {
+            properties.load(inputStream);
+            return imageId.equals(properties.getProperty(IMAGE_ID_KEY))
+                    && format.equals(properties.getProperty(FORMAT_KEY))
+                    && String.valueOf(Files.size(archive)).equals(properties.getProperty(SIZE_KEY));
+        } catch (IOException e) {
+            throw new MojoExecutionException("Failed to read the state of archive " + archive + " from " + sidecarFile, e);
+        }
+    }
+
+    /**
+     * Removes the recorded state of an archive. Must be called before the archive is written, so that an archive that
+     * is written only partially is never considered to be up to date.
+     *
+     * @param archive The archive that is about to be written
+     * @throws MojoExecutionException In case the sidecar file cannot be removed
+     */
+    public void invalidate(Path archive) throws MojoExecutionException {
+        Path sidecarFile = getSidecarFile(archive);
+        try {
+            Files.deleteIfExists(sidecarFile);
+        } catch (IOException e) {
+            throw new MojoExecutionException("Failed to remove " + sidecarFile, e);
+        }
+    }
+
+    /**
+     * Records the ID of the image that has been saved in the provided archive.
+     *
+     * @param archive The archive that has been written
+     * @param imageId The ID of the image in the archive
+     * @param format  Describes how the archive was written
+     * @throws MojoExecutionException In case the sidecar file cannot be written
+     */
+    public void record(Path archive, String imageId, String format) throws MojoExecutionException {
+        Path sidecarFile = getSidecarFile(archive);
+        try {
+            Properties properties = new Properties();
+            properties.setProperty(IMAGE_ID_KEY, imageId);
+            properties.setProperty(SIZE_KEY, String.valueOf(Files.size(archive)));
+            properties.setProperty(FORMAT_KEY, format);
+
+            try (OutputStream outputStream = Files.newOutputStream(sidecarFile)) {
+                properties.store(outputStream, "State of archive " + archive.getFileName());
+            }
+        } catch (IOException e) {
+            throw new MojoExecutionException("Failed to write the state of archive " + archive + " to " + sidecarFile, e);
+        }
+    }
+
+    private static Path getSidecarFile(Path archive) {
+        Path fileName = Paths.get(archive.getFileName() + SIDECAR_EXTENSION);
+        return archive.resolveSibling(fileName);
+    }
+}
@@ -0,0 +1,213 @@
+package nl.lexemmens.podman.helper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>
+ * Helper class that groups the images to copy into batches that can each be copied by a single
+ * <code>skopeo sync</code> invocation.
+ * </p>
+ * <p>
+ * <code>skopeo sync</code> copies the images of one source registry to a destination repository. The destination of
+ * every image is the destination repository, followed by the last part of the source repository and the source tag.
+ * For example, when syncing <code>registry.example.com/project/product:1.0.0</code> to
+ * <code>release.example.com/project</code>, the image is copied to
+ * <code>release.example.com/project/product:1.0.0</code>. Images of which the target name cannot be expressed this way,
+ * as well as images that are not referenced by tag, cannot be synced and must be copied one by one.
+ * </p>
+ */
+public class SkopeoSyncHelper {
+
+    private static final String DIGEST_SEPARATOR = "@";
+
+    /**
+     * Groups the provided images into batches for <code>skopeo sync</code>.
+     *
+     * @param images The images to copy. The key is the source image, the value the target image.
+     * @return The batches to sync and the images that must be copied one by one
+     */
+    public SyncPlan createSyncPlan(Map<String, String> images) {
+        Map<String, SyncBatch> batches = new LinkedHashMap<>();
+        Map<String, String> unsupportedImages = new LinkedHashMap<>();
+
+        for (Map.Entry<String, String> image : images.entrySet()) {
+            String sourceImage = image.getKey();
+            String targetImage = image.getValue();
+
+            ImageReference source = ImageReference.parse(sourceImage);
+            String destination = source == null ? null : determineDestination(source, targetImage);
+            if (destination == null) {
+                unsupportedImages.put(sourceImage, targetImage);
+                continue;
+            }
+
+            batches.computeIfAbsent(source.registry + " " + destination, key -> new SyncBatch(source.registry, destination))
+                    .add(source, sourceImage, targetImage);
+        }
+
+        return new SyncPlan(new ArrayList<>(batches.values()), unsupportedImages);
+    }
+
+    private static String determineDestination(ImageReference source, String targetImage) {
+        String lastRepositoryPart = source.repository.substring(source.repository.lastIndexOf('/') + 1);
+        String suffix = "/" + lastRepositoryPart + ":" + source.tag;
+        if (!targetImage.endsWith(suffix) || targetImage.contains(DIGEST_SEPARATOR)) {
+            return null;
+        }
+
+        String destination = targetImage.substring(0, targetImage.length() - suffix.length());
+        return destination.isEmpty() ? null : destination;
+    }
+
+    /**
+     * The result of grouping images into batches
+     */
+    public static final class SyncPlan {
+
+        private final List<SyncBatch> batches;
+        private final Map<String, String> unsupportedImages;
+
+        private SyncPlan(List<SyncBatch> batches, Map<String, String> unsupportedImages) {
+            this.batches = Collections.unmodifiableList(batches);
+            this.unsupportedImages = Collections.unmodifiableMap(unsupportedImages);
+        }
+
+        /**
+         * Returns the batches that can be copied using <code>skopeo sync</code>
+         *
+         * @return The batches to sync
+         */
+        public List<SyncBatch> getBatches() {
+            return batches;
+        }
+
+        /**
+         * Returns the images that cannot be synced and must be copied one by one.
+         *
+         * @return The images to copy. The key is the source image, the value the target image.
+         */
+        public Map<String, String> getUnsupportedImages() {
+            return unsupportedImages;
+        }
+    }
+
+    /**
+     * A set of images of the same source registry that are copied to the same destination repository.
+     */
+    public static final class SyncBatch {
+
+        private final String sourceRegistry;
+        private final String destination;
+        private final Map<String, List<String>> tagsPerRepository = new LinkedHashMap<>();
+        private final Map<String, String> images = new LinkedHashMap<>();
+
+        private SyncBatch(String sourceRegistry, String destination) {
+            this.sourceRegistry = sourceRegistry;
+            this.destination = destination;
+        }
+
+        private void add(ImageReference source, String sourceImage, String targetImage) {
+            tagsPerRepository.computeIfAbsent(source.repository, key -> new ArrayList<>()).add(source.tag);
+            images.put(sourceImage, targetImage);
+        }
+
+        /**
+         * Returns the registry all images in this batch are copied from
+         *
+         * @return The source registry
+         */
+        public String getSourceRegistry() {
+            return sourceRegistry;
+        }
+
+        /**
+         * Returns the repository all images in this batch are copied to
+         *
+         * @return The destination, to be passed to <code>skopeo sync</code>
+         */
+        public String getDestination() {
+            return destination;
+        }
+
+        /**
+         * Returns the images in this batch
+         *
+         * @return The images to copy. The key is the source image, the value the target image.
+         */
+        public Map<String, String> getImages() {
+            return Collections.unmodifiableMap(images);
+        }
+
+        /**
+         * Creates the YAML source specification for <code>skopeo sync --src yaml</code>
+         *
+         * @param tlsVerify Whether the TLS connection to the source registry should be verified
+         * @return The contents of the YAML file
+         */
+        public String toYaml(boolean tlsVerify) {
+            StringBuilder yaml = new StringBuilder();
+            yaml.append(quote(sourceRegistry)).append(":\n");
+            yaml.append("  tls-verify: ").append(tlsVerify).append('\n');
+            yaml.append("  images:\n");
+            for (Map.Entry<String, List<String>> repository : tagsPerRepository.entrySet()) {
+                yaml.append("    ").append(quote(repository.getKey())).append(":\n");
+                for (String tag : repository.getValue()) {
+                    yaml.append("      - ").append(quote(tag)).append('\n');
+                }
+            }
+            return yaml.toString();
+        }
+
+        private static String quote(String value) {
+            return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+        }
+    }
+
+    /**
+     * An image name split into registry, repository and tag
+     */
+    private static final class ImageReference {
+
+        private final String registry;
+        private final String repository;
+        private final String tag;
+
+        private ImageReference(String registry, String repository, String tag) {
+            this.registry = registry;
+            this.repository = repository;
+            this.tag = tag;
+        }
+
+        /**
+         * Parses the provided image name. Returns null when the image name does not start with a registry or is not
+         * referenced by tag.
+         */
+        private static ImageReference parse(String imageName) {
+            if (imageName.contains(DIGEST_SEPARATOR)) {
+                return null;
+            }
+
+            int firstSlash = imageName.indexOf('/');
+            int tagSeparator = imageName.lastIndexOf(':');
+            if (firstSlash <= 0 || tagSeparator < imageName.lastIndexOf('/')) {
+                return null;
+            }
+
+            String registry = imageName.substring(0, firstSlash);
+            if (!registry.contains(".") && !registry.contains(":") && !"localhost".equals(registry)) {
+                return null;
+            }
+
+            String repository = imageName.substring(firstSlash + 1, tagSeparator);
+            String tag = imageName.substring(tagSeparator + 1);
+            if (repository.isEmpty() || tag.isEmpty()) {
+                return null;
+            }
+            return new ImageReference(registry, repository, tag);
+        }
+    }
+}
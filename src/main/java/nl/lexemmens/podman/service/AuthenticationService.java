@@ -2,6 +2,7 @@ package nl.lexemmens.podman.service;
 
 import nl.lexemmens.podman.authentication.AuthConfig;
 import nl.lexemmens.podman.authentication.AuthConfigFactory;
+import nl.lexemmens.podman.config.podman.PodmanConfiguration;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.logging.Log;
 import org.apache.maven.settings.Settings;
@@ -17,6 +18,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * <p>
@@ -52,9 +54,16 @@ public class AuthenticationService {
      */
     private static final String DOCKER_CONFIG_FILE = ".docker/config.json";
 
+    /**
+     * Key under which the registries that are known to be authenticated are cached for the Maven session
+     */
+    private static final String AUTHENTICATED_REGISTRIES_CACHE_KEY = "registries.authenticated";
+
     private final Log log;
     private final PodmanExecutorService podmanExecutorService;
     private final AuthConfigFactory authConfigFactory;
+    private final PodmanConfiguration podmanConfig;
+    private final SessionCache sessionCache;
 
     /**
      * Constructs a new instance of this service
@@ -65,9 +74,26 @@ public class AuthenticationService {
      * @param settingsDecrypter     Provides access to Maven's SettingsDecrypter service from Maven core
      */
     public AuthenticationService(Log log, PodmanExecutorService podmanExecutorService, Settings mavenSetings, SettingsDecrypter settingsDecrypter) {
+        this(log, podmanExecutorService, mavenSetings, settingsDecrypter, null, new SessionCache());
+    }
+
+    /**
+     * Constructs a new instance of this service
+     *
+     * @param log                   Provides access to Maven's log system
+     * @param podmanExecutorService Service for executing commands with Podman
+     * @param mavenSetings          Provides access to the Maven Settings
+     * @param settingsDecrypter     Provides access to Maven's SettingsDecrypter service from Maven core
+     * @param podmanConfig          The Podman configuration the registries are authenticated for
+     * @param sessionCache          Holds the registries that are authenticated during the Maven session
+     */
+    public AuthenticationService(Log log, PodmanExecutorService podmanExecutorService, Settings mavenSetings, SettingsDecrypter settingsDecrypter,
+                                 PodmanConfiguration podmanConfig, SessionCache sessionCache) {
         this.podmanExecutorService = podmanExecutorService;
         this.log = log;
         this.authConfigFactory = new AuthConfigFactory(mavenSetings, settingsDecrypter);
+        this.podmanConfig = podmanConfig;
+        this.sessionCache = sessionCache;
     }
 
     /**
@@ -101,16 +127,24 @@ public class AuthenticationService {
             throw new MojoExecutionException(msg);
         }
 
+        // The authentication files are read once per session and configuration. Registries that are authenticated later on are added.
+        String cacheKey = AUTHENTICATED_REGISTRIES_CACHE_KEY + ";authFile=" + System.getenv(REGISTRY_AUTH_FILE);
+        Set<String> authenticatedRegistries = sessionCache.get(cacheKey, podmanConfig, this::readAuthenticatedRegistries);
+        authenticateUnauthenticatedRegistries(registries, authenticatedRegistries);
+
+        log.debug("Authentication status: OK!");
+    }
+
+    private Set<String> readAuthenticatedRegistries() throws MojoExecutionException {
+        Set<String> authenticatedRegistries = ConcurrentHashMap.newKeySet();
         List<Path> registryAuthFiles = getRegistryAuthFiles();
         if (registryAuthFiles.isEmpty()) {
             log.info("Authentication file not (yet) present. Authenticating...");
-            authenticateRegistries(registries);
         } else {
             log.debug("Checking unauthenticated registries...");
-            authenticateUnauthenticatedRegistries(registries, registryAuthFiles);
+            authenticatedRegistries.addAll(getAuthenticatedRegistries(registryAuthFiles));
         }
-
-        log.debug("Authentication status: OK!");
+        return authenticatedRegistries;
     }
 
     /**
@@ -159,8 +193,7 @@ public class AuthenticationService {
         return registryAuthFiles;
     }
 
-    private void authenticateUnauthenticatedRegistries(String[] registries, List<Path> registryAuthFilePaths) throws MojoExecutionException {
-        Set<String> authenticatedRegistries = getAuthenticatedRegistries(registryAuthFilePaths);
+    private void authenticateUnauthenticatedRegistries(String[] registries, Set<String> authenticatedRegistries) throws MojoExecutionException {
         List<String> unauthenticatedRegistries = new ArrayList<>();
         for (String registry : registries) {
             if (!authenticatedRegistries.contains(registry)) {
@@ -168,15 +201,16 @@ public class AuthenticationService {
             }
         }
 
-        authenticateRegistries(unauthenticatedRegistries.toArray(new String[]{}));
+        authenticateRegistries(unauthenticatedRegistries.toArray(new String[]{}), authenticatedRegistries);
     }
 
-    private void authenticateRegistries(String[] registries) throws MojoExecutionException {
+    private void authenticateRegistries(String[] registries, Set<String> authenticatedRegistries) throws MojoExecutionException {
         for (String registry : registries) {
             Optional<AuthConfig> authConfigOptional = authConfigFactory.getAuthConfigForRegistry(registry);
             if (authConfigOptional.isPresent()) {
                 AuthConfig authConfig = authConfigOptional.get();
                 authenticate(authConfig.getRegistry(), authConfig.getUsername(), authConfig.getPassword());
+                authenticatedRegistries.add(registry);
             } else {
                 String msg = "Credentials are missing for registry " + registry + ". Add credentials by specifying the server in the " +
                         "Maven's settings.xml (usually located in ~/.m2/)";
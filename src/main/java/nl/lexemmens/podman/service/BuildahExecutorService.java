@@ -16,7 +16,8 @@ public class BuildahExecutorService {
     private final Log log;
     private final CommandExecutorDelegate delegate;
     private final File podmanRoot;
-
+    private final PodmanConfiguration podmanConfig;
+    private final SessionCache sessionCache;
 
     /**
      * Constructs a new instance of this class.
@@ -26,9 +27,23 @@ public class BuildahExecutorService {
      * @param delegate     A delegate executor that executed the actual command
      */
     public BuildahExecutorService(Log log, PodmanConfiguration podmanConfig, CommandExecutorDelegate delegate) {
+        this(log, podmanConfig, delegate, new SessionCache());
+    }
+
+    /**
+     * Constructs a new instance of this class.
+     *
+     * @param log          Used to access Maven's log system
+     * @param podmanConfig Contains Podman specific configuration, such as tlsVerify and podman's root directory
+     * @param delegate     A delegate executor that executed the actual command
+     * @param sessionCache Holds probe results of the Maven session, which are discarded when the storage is cleaned up
+     */
+    public BuildahExecutorService(Log log, PodmanConfiguration podmanConfig, CommandExecutorDelegate delegate, SessionCache sessionCache) {
         this.log = log;
         this.delegate = delegate;
         this.podmanRoot = podmanConfig.getRoot();
+        this.podmanConfig = podmanConfig;
+        this.sessionCache = sessionCache;
     }
 
     /**
@@ -55,6 +70,9 @@ public class BuildahExecutorService {
                 .removeDirectory(podmanRoot.getAbsolutePath())
                 .build()
                 .execute();
+
+        // Probe results, such as the security context of the root directory, no longer apply to the removed storage
+        sessionCache.invalidate(podmanConfig);
     }
 
 
@@ -1,16 +1,29 @@
 package nl.lexemmens.podman.service;
 
+import nl.lexemmens.podman.command.Command;
 import nl.lexemmens.podman.command.podman.*;
 import nl.lexemmens.podman.config.image.single.SingleImageConfiguration;
 import nl.lexemmens.podman.config.podman.PodmanConfiguration;
+import nl.lexemmens.podman.config.podman.RetryConfiguration;
 import nl.lexemmens.podman.enumeration.PullPolicy;
 import nl.lexemmens.podman.executor.CommandExecutorDelegate;
+import nl.lexemmens.podman.executor.RetryPolicy;
+import nl.lexemmens.podman.helper.ParallelGzipOutputStream;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.logging.Log;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 import java.util.regex.Pattern;
 
 /**
@@ -18,12 +31,19 @@ import java.util.regex.Pattern;
  */
 public class PodmanExecutorService {
 
+    private static final String PODMAN_DIRECTORY = "podman";
+    private static final String IID_FILE_EXTENSION = ".iid";
+    private static final String IMAGE_ID_DIGEST_PREFIX = "sha256:";
+    private static final String VERSION_CACHE_KEY = "podman.version";
+
     private final Log log;
 
     private final CommandExecutorDelegate delegate;
 
     private final PodmanConfiguration podmanConfig;
 
+    private final SessionCache sessionCache;
+
     /**
      * Constructs a new instance of this class.
      *
@@ -32,9 +52,22 @@ public class PodmanExecutorService {
      * @param delegate     A delegate executor that executed the actual command
      */
     public PodmanExecutorService(Log log, PodmanConfiguration podmanConfig, CommandExecutorDelegate delegate) {
+        this(log, podmanConfig, delegate, new SessionCache());
+    }
+
+    /**
+     * Constructs a new instance of this class.
+     *
+     * @param log          Used to access Maven's log system
+     * @param podmanConfig Contains Podman specific configuration, such as tlsVerify and podman's root directory
+     * @param delegate     A delegate executor that executed the actual command
+     * @param sessionCache Holds the results of probes, such as the Podman version, for the whole Maven session
+     */
+    public PodmanExecutorService(Log log, PodmanConfiguration podmanConfig, CommandExecutorDelegate delegate, SessionCache sessionCache) {
         this.log = log;
         this.delegate = delegate;
         this.podmanConfig = podmanConfig;
+        this.sessionCache = sessionCache;
     }
 
     /**
@@ -51,26 +84,76 @@ public class PodmanExecutorService {
      * @throws MojoExecutionException In case the container image could not be built.
      */
     public List<String> build(SingleImageConfiguration image) throws MojoExecutionException {
-        PodmanBuildCommand.Builder builder = new PodmanBuildCommand.Builder(log, podmanConfig, delegate)
-                .setFormat(image.getBuild().getFormat().getValue())
-                .setContainerFile(image.getBuild().getTargetContainerFile())
-                .setNoCache(image.getBuild().isNoCache());
+        return createBuildCommand(image).execute();
+    }
 
-        if (Boolean.TRUE == image.getBuild().getSquash()) {
-            builder = builder.setSquash();
-        }
+    /**
+     * <p>
+     * Implementation of the 'podman build' command that does not retain the output of the build.
+     * </p>
+     * <p>
+     * Every line of output is passed to the provided consumer while the build is running. This prevents the complete
+     * output of verbose builds from being held in memory. The ID of the resulting image is written to a file in the
+     * output directory using the <code>--iidfile</code> option, rather than being derived from the output.
+     * </p>
+     *
+     * @param image          The {@link SingleImageConfiguration} containing the configuration of the image to build
+     * @param outputConsumer Receives every line of output of the build process
+     * @return The ID of the resulting image, or an empty Optional when Podman did not write the image ID file
+     * @throws MojoExecutionException In case the container image could not be built.
+     */
+    public Optional<String> build(SingleImageConfiguration image, Consumer<String> outputConsumer) throws MojoExecutionException {
+        Path iidFile = getIidFile(image, image.getImageName());
 
-        if (Boolean.TRUE == image.getBuild().getSquashAll()) {
-            builder = builder.setSquashAll();
-        }
+        prepareIidFile(iidFile);
+        createBuildCommand(image, image.getBuild().getTargetStage().orElse(null), iidFile, false).execute(outputConsumer);
+        return readIidFile(iidFile);
+    }
 
-        if (image.getBuild().getLayers() != null) {
-            builder = builder.setLayers(image.getBuild().getLayers());
-        }
+    /**
+     * <p>
+     * Implementation of the 'podman build --target' command.
+     * </p>
+     * <p>
+     * Builds the Containerfile of the provided image up to and including the provided stage. When the image has been
+     * built before using the layer cache, all layers of the stage are taken from that cache, so this is a cheap way to
+     * determine the ID of the image that a stage produces.
+     * </p>
+     * <p>
+     * The stage is always built with <code>--layers=true</code> and <code>--pull=never</code>, and without the
+     * <code>noCache</code>, <code>squash</code> and <code>squashAll</code> options of the image, since these would
+     * build the stage again or produce an image that differs from the intermediate image of the stage.
+     * </p>
+     *
+     * @param image          The {@link SingleImageConfiguration} containing the configuration of the image to build
+     * @param stage          The name of the stage to build
+     * @param outputConsumer Receives every line of output of the build process
+     * @return The ID of the image the stage produces, or an empty Optional when Podman did not write the image ID file
+     * @throws MojoExecutionException In case the stage could not be built.
+     */
+    public Optional<String> buildStage(SingleImageConfiguration image, String stage, Consumer<String> outputConsumer) throws MojoExecutionException {
+        Path iidFile = getIidFile(image, image.getImageName() + "-" + stage);
 
-        Optional<PullPolicy> pullPolicyOptional = image.getBuild().getPullPolicy();
-        if (pullPolicyOptional.isPresent()) {
-            builder = builder.setPullPolicy(pullPolicyOptional.get().getValue());
+        prepareIidFile(iidFile);
+        createBuildCommand(image, stage, iidFile, true).execute(outputConsumer);
+        return readIidFile(iidFile);
+    }
+
+    private Command createBuildCommand(SingleImageConfiguration image) {
+        return createBuildCommand(image, image.getBuild().getTargetStage().orElse(null), null, false);
+    }
+
+    private Command createBuildCommand(SingleImageConfiguration image, String targetStage, Path iidFile, boolean fromLayerCache) {
+        PodmanBuildCommand.Builder builder = new PodmanBuildCommand.Builder(log, podmanConfig, delegate)
+                .setFormat(image.getBuild().getFormat().getValue())
+                .setContainerFile(image.getBuild().getTargetContainerFile())
+                .setNoCache(!fromLayerCache && image.getBuild().isNoCache());
+
+        if (fromLayerCache) {
+            // Take the stage from the layer cache of the build that just completed, instead of building or pulling it again
+            builder = builder.setLayers(true).setPullPolicy(PullPolicy.NEVER.getValue());
+        } else {
+            addLayerOptions(builder, image);
         }
 
         Optional<String> platform = image.getBuild().getPlatform();
@@ -78,9 +161,12 @@ public class PodmanExecutorService {
             builder = builder.setPlatform(platform.get());
         }
 
-        Optional<String> targetStage = image.getBuild().getTargetStage();
-        if (targetStage.isPresent()) {
-            builder.setTargetStage(targetStage.get());
+        if (targetStage != null) {
+            builder.setTargetStage(targetStage);
+        }
+
+        if (iidFile != null) {
+            builder.setIidFile(iidFile);
         }
 
         builder.addBuildArgs(image.getBuild().getArgs());
@@ -92,7 +178,62 @@ public class PodmanExecutorService {
 
         builder.addUlimitsArgs(image.getBuild().getUlimits());
 
-        return builder.build().execute();
+        return builder.build();
+    }
+
+    private static void addLayerOptions(PodmanBuildCommand.Builder builder, SingleImageConfiguration image) {
+        if (Boolean.TRUE == image.getBuild().getSquash()) {
+            builder.setSquash();
+        }
+
+        if (Boolean.TRUE == image.getBuild().getSquashAll()) {
+            builder.setSquashAll();
+        }
+
+        if (image.getBuild().getLayers() != null) {
+            builder.setLayers(image.getBuild().getLayers());
+        }
+
+        Optional<PullPolicy> pullPolicyOptional = image.getBuild().getPullPolicy();
+        if (pullPolicyOptional.isPresent()) {
+            builder.setPullPolicy(pullPolicyOptional.get().getValue());
+        }
+    }
+
+    private Path getIidFile(SingleImageConfiguration image, String name) {
+        String fileName = name.replaceAll("[^a-zA-Z0-9._-]", "_") + IID_FILE_EXTENSION;
+        return Paths.get(image.getBuild().getOutputDirectory().toURI()).resolve(PODMAN_DIRECTORY).resolve(fileName);
+    }
+
+    private void prepareIidFile(Path iidFile) throws MojoExecutionException {
+        try {
+            // Remove the image ID of a previous build, so it can never be mistaken for the result of this build
+            Files.createDirectories(iidFile.getParent());
+            Files.deleteIfExists(iidFile);
+        } catch (IOException e) {
+            String msg = "Failed to prepare image ID file " + iidFile + ". Caught: " + e.getMessage();
+            log.error(msg);
+            throw new MojoExecutionException(msg, e);
+        }
+    }
+
+    private Optional<String> readIidFile(Path iidFile) throws MojoExecutionException {
+        if (!Files.exists(iidFile)) {
+            log.debug("Image ID file " + iidFile + " was not written.");
+            return Optional.empty();
+        }
+
+        try {
+            String imageId = new String(Files.readAllBytes(iidFile), StandardCharsets.UTF_8).trim();
+            if (imageId.startsWith(IMAGE_ID_DIGEST_PREFIX)) {
+                imageId = imageId.substring(IMAGE_ID_DIGEST_PREFIX.length());
+            }
+            return imageId.isEmpty() ? Optional.empty() : Optional.of(imageId);
+        } catch (IOException e) {
+            String msg = "Failed to read image ID file " + iidFile + ". Caught: " + e.getMessage();
+            log.error(msg);
+            throw new MojoExecutionException(msg, e);
+        }
     }
 
     /**
@@ -112,6 +253,31 @@ public class PodmanExecutorService {
                 .execute();
     }
 
+    /**
+     * <p>
+     * Implementation of the 'podman tag' command that tags an image with several names at once.
+     * </p>
+     * <p>
+     * All names are passed to a single <code>podman tag</code> invocation, rather than starting a process for every
+     * name.
+     * </p>
+     *
+     * @param imageHash      The image hash as generated by the {@link #build(SingleImageConfiguration)} method
+     * @param fullImageNames The full names of the image. These will be the target names
+     * @throws MojoExecutionException In case the container image could not be tagged.
+     */
+    public void tag(String imageHash, List<String> fullImageNames) throws MojoExecutionException {
+        if (fullImageNames.isEmpty()) {
+            return;
+        }
+
+        new PodmanTagCommand.Builder(log, podmanConfig, delegate)
+                .setImageHash(imageHash)
+                .setFullImageNames(fullImageNames)
+                .build()
+                .execute();
+    }
+
     /**
      * <p>
      * Implementation of the 'podman save' command.
@@ -133,6 +299,50 @@ public class PodmanExecutorService {
                 .execute();
     }
 
+    /**
+     * <p>
+     * Implementation of the 'podman save' command that compresses the archive using gzip.
+     * </p>
+     * <p>
+     * The archive is written to the standard output of podman and compressed while it is being written, so it is
+     * written to disk only once. Blocks of the archive are compressed on multiple threads. In case saving the image
+     * fails, the incomplete archive is removed.
+     * </p>
+     *
+     * @param archiveName        The target name of the archive, where the image will be saved into.
+     * @param fullImageName      The image to save
+     * @param compressionLevel   The gzip compression level, from 0 (no compression) to 9 (best compression)
+     * @param compressionThreads The number of threads to compress the archive on
+     * @throws MojoExecutionException In case the container image could not be saved.
+     */
+    public void save(String archiveName, String fullImageName, int compressionLevel, int compressionThreads) throws MojoExecutionException {
+        Path archive = Paths.get(archiveName);
+        boolean saved = false;
+        try (OutputStream out = new ParallelGzipOutputStream(new BufferedOutputStream(Files.newOutputStream(archive)), compressionLevel, compressionThreads)) {
+            new PodmanSaveCommand.Builder(log, podmanConfig, delegate)
+                    .setFullImageName(fullImageName)
+                    .build()
+                    .execute(out);
+            saved = true;
+        } catch (IOException e) {
+            // Completing the archive may fail after podman has finished
+            saved = false;
+            throw new MojoExecutionException("Failed to write archive " + archiveName + ": " + e.getMessage(), e);
+        } finally {
+            if (!saved) {
+                deleteIncompleteArchive(archive);
+            }
+        }
+    }
+
+    private void deleteIncompleteArchive(Path archive) {
+        try {
+            Files.deleteIfExists(archive);
+        } catch (IOException e) {
+            log.warn("Failed to remove incomplete archive " + archive + ": " + e.getMessage());
+        }
+    }
+
     /**
      * <p>
      * Implementation of the 'podman push' command.
@@ -148,6 +358,28 @@ public class PodmanExecutorService {
                 .execute();
     }
 
+    /**
+     * <p>
+     * Implementation of the 'podman push' command that writes an image into an OCI image layout directory.
+     * </p>
+     * <p>
+     * Every image gets its own entry in the index of the layout, while blobs are stored by digest. Layers that
+     * are shared between images are therefore written only once.
+     * </p>
+     *
+     * @param fullImageName   The image to save
+     * @param layoutDirectory The OCI image layout directory
+     * @param reference       The name under which the image is listed in the index of the layout
+     * @throws MojoExecutionException In case the container image could not be saved.
+     */
+    public void pushToOciLayout(String fullImageName, String layoutDirectory, String reference) throws MojoExecutionException {
+        new PodmanPushCommand.Builder(log, podmanConfig, delegate)
+                .setFullImageName(fullImageName)
+                .setOciLayoutDestination(layoutDirectory, reference)
+                .build()
+                .execute();
+    }
+
     /**
      * <p>
      * Implementation of the 'podman login' command.
@@ -162,13 +394,15 @@ public class PodmanExecutorService {
      * @throws MojoExecutionException In case the login fails. The Exception does not contain a recognisable password.
      */
     public void login(String registry, String username, String password) throws MojoExecutionException {
+        RetryConfiguration retry = podmanConfig.getRetry();
         try {
-            new PodmanLoginCommand.Builder(log, podmanConfig, delegate)
-                    .setRegistry(registry)
-                    .setUsername(username)
-                    .setPassword(password)
-                    .build()
-                    .execute();
+            new RetryPolicy(retry.getRetries(), retry).execute("log in to " + registry, log, () ->
+                    new PodmanLoginCommand.Builder(log, podmanConfig, delegate)
+                            .setRegistry(registry)
+                            .setUsername(username)
+                            .setPassword(password)
+                            .build()
+                            .execute());
         } catch (MojoExecutionException e) {
             // When the command fails, the whole command is put in the error message, possibly exposing passwords.
             // Therefore we catch the exception, remove the password and throw a new exception with an updated message.
@@ -186,9 +420,56 @@ public class PodmanExecutorService {
      * @throws MojoExecutionException In case printing the information fails
      */
     public void version() throws MojoExecutionException {
-        new PodmanVersionCommand.Builder(log, podmanConfig, delegate)
-                .build()
-                .execute();
+        AtomicBoolean executed = new AtomicBoolean(false);
+        List<String> output = sessionCache.get(VERSION_CACHE_KEY, podmanConfig, () -> {
+            executed.set(true);
+            return new PodmanVersionCommand.Builder(log, podmanConfig, delegate)
+                    .build()
+                    .execute();
+        });
+
+        // The output of an executed command has already been logged
+        if (!executed.get()) {
+            output.forEach(log::info);
+        }
+    }
+
+    /**
+     * Returns the cache that holds the results of probes for the whole Maven session
+     *
+     * @return The {@link SessionCache}
+     */
+    protected SessionCache getSessionCache() {
+        return sessionCache;
+    }
+
+    /**
+     * <p>
+     * Implementation of the 'podman image inspect' command.
+     * </p>
+     * <p>
+     * Returns the ID of a local image. An empty {@link Optional} is returned when the image does not exist locally.
+     * </p>
+     *
+     * @param image The name or ID of the image to inspect
+     * @return The full ID of the image, or an empty {@link Optional} when the image does not exist locally.
+     */
+    public Optional<String> getLocalImageId(String image) {
+        try {
+            List<String> output = new PodmanImageCommand.Builder(log, podmanConfig, delegate)
+                    .inspect()
+                    .setFormat("{{.Id}}")
+                    .setImage(image)
+                    // A missing image is an expected outcome, which must not show up as an error in the build log
+                    .logErrorOutputAtDebug()
+                    .build()
+                    .execute();
+
+            return output.stream().map(String::trim).filter(line -> !line.isEmpty()).findFirst();
+        } catch (MojoExecutionException e) {
+            log.debug("Image " + image + " does not exist locally: " + e.getMessage());
+            return Optional.empty();
+        }
     }
 
     /**
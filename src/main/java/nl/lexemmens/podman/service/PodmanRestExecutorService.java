@@ -0,0 +1,491 @@
+package nl.lexemmens.podman.service;
+
+import nl.lexemmens.podman.config.image.AbstractImageBuildConfiguration;
+import nl.lexemmens.podman.config.image.single.SingleImageConfiguration;
+import nl.lexemmens.podman.config.podman.PodmanConfiguration;
+import nl.lexemmens.podman.config.podman.RetryConfiguration;
+import nl.lexemmens.podman.enumeration.ContainerFormat;
+import nl.lexemmens.podman.enumeration.PullPolicy;
+import nl.lexemmens.podman.enumeration.TlsVerify;
+import nl.lexemmens.podman.executor.CommandExecutionException;
+import nl.lexemmens.podman.executor.CommandExecutorDelegate;
+import nl.lexemmens.podman.executor.PodmanServiceClient;
+import nl.lexemmens.podman.executor.RetryPolicy;
+import nl.lexemmens.podman.helper.BuildContextArchive;
+import nl.lexemmens.podman.helper.ParallelGzipOutputStream;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import static nl.lexemmens.podman.executor.PodmanServiceClient.encode;
+import static nl.lexemmens.podman.executor.PodmanServiceClient.encodeImageName;
+
+/**
+ * <p>
+ * Executes Podman operations using the REST API of a Podman system service, rather than by executing the Podman CLI.
+ * </p>
+ * <p>
+ * Every operation is a single HTTP request to a long running service, so no process is started for every build, tag,
+ * push or save. The build context is streamed to the service as a tar archive and saved images are streamed from the
+ * service directly into the target archive.
+ * </p>
+ * <p>
+ * The service manages its own storage. Podman's <code>root</code>, <code>runRoot</code> and <code>cgroupManager</code>
+ * settings therefore do not apply. Writing images into an OCI image layout is not supported by the REST API and still
+ * uses the Podman CLI.
+ * </p>
+ */
+public class PodmanRestExecutorService extends PodmanExecutorService {
+
+    private static final String PODMAN_ARG_PREFIX = "podman.buildArg.";
+    private static final String PODMAN_ULIMITS_PREFIX = "podman.buildUlimits.";
+    private static final String IMAGE_ID_DIGEST_PREFIX = "sha256:";
+    private static final String OCI_MANIFEST_TYPE = "application/vnd.oci.image.manifest.v1+json";
+    private static final String DOCKER_MANIFEST_TYPE = "application/vnd.docker.distribution.manifest.v2+json";
+    private static final String DOCKER_HUB = "docker.io";
+    private static final String VERSION_CACHE_KEY = "podman.service.version";
+    private static final String CREDENTIALS_CACHE_KEY = "podman.service.credentials";
+
+    private final Log log;
+    private final PodmanConfiguration podmanConfig;
+    private final PodmanServiceClient client;
+
+    /**
+     * Constructs a new instance of this class.
+     *
+     * @param log          Used to access Maven's log system
+     * @param podmanConfig Contains Podman specific configuration, such as tlsVerify and the run directory
+     * @param delegate     A delegate executor, used for operations that are not supported by the REST API
+     * @param client       The client that connects to the Podman service
+     */
+    public PodmanRestExecutorService(Log log, PodmanConfiguration podmanConfig, CommandExecutorDelegate delegate, PodmanServiceClient client) {
+        this(log, podmanConfig, delegate, client, new SessionCache());
+    }
+
+    /**
+     * Constructs a new instance of this class.
+     *
+     * @param log          Used to access Maven's log system
+     * @param podmanConfig Contains Podman specific configuration, such as tlsVerify and the run directory
+     * @param delegate     A delegate executor, used for operations that are not supported by the REST API
+     * @param client       The client that connects to the Podman service
+     * @param sessionCache Holds the verified credentials and the version of the service for the whole Maven session
+     */
+    public PodmanRestExecutorService(Log log, PodmanConfiguration podmanConfig, CommandExecutorDelegate delegate, PodmanServiceClient client, SessionCache sessionCache) {
+        super(log, podmanConfig, delegate, sessionCache);
+        this.log = log;
+        this.podmanConfig = podmanConfig;
+        this.client = client;
+    }
+
+    /**
+     * <p>
+     * Builds an image using the <code>/libpod/build</code> endpoint.
+     * </p>
+     * <p>
+     * The output of the build is returned. Its last line contains the ID of the resulting image, like the output of
+     * the <code>podman build</code> command.
+     * </p>
+     *
+     * @param image The {@link SingleImageConfiguration} containing the configuration of the image to build
+     * @return The output of the build process, of which the last line contains the image hash
+     * @throws MojoExecutionException In case the container image could not be built.
+     */
+    @Override
+    public List<String> build(SingleImageConfiguration image) throws MojoExecutionException {
+        List<String> output = new ArrayList<>();
+        Optional<String> imageId = build(image, image.getBuild().getTargetStage().orElse(null), output::add);
+        imageId.ifPresent(output::add);
+        return output;
+    }
+
+    @Override
+    public Optional<String> build(SingleImageConfiguration image, Consumer<String> outputConsumer) throws MojoExecutionException {
+        return build(image, image.getBuild().getTargetStage().orElse(null), outputConsumer);
+    }
+
+    @Override
+    public Optional<String> buildStage(SingleImageConfiguration image, String stage, Consumer<String> outputConsumer) throws MojoExecutionException {
+        return build(image, stage, outputConsumer);
+    }
+
+    private Optional<String> build(SingleImageConfiguration image, String targetStage, Consumer<String> outputConsumer) throws MojoExecutionException {
+        AbstractImageBuildConfiguration build = image.getBuild();
+        BuildContextArchive context = new BuildContextArchive(getContextDirectory(build), build.getTargetContainerFile());
+
+        StringBuilder path = new StringBuilder("/libpod/build?dockerfile=").append(encode(context.getContainerFileEntry()));
+        appendParameter(path, "nocache", Boolean.toString(build.isNoCache()));
+        appendParameter(path, "outputformat", build.getFormat() == ContainerFormat.DOCKER ? DOCKER_MANIFEST_TYPE : OCI_MANIFEST_TYPE);
+        if (Boolean.TRUE == build.getSquashAll()) {
+            // Like 'podman build --squash-all' against a remote service, which squashes all layers into a single layer
+            appendParameter(path, "squash", "true");
+            appendParameter(path, "layers", "false");
+        } else {
+            if (Boolean.TRUE == build.getSquash()) {
+                // Squashes the new layers into a single layer, keeping the layers of the base image
+                appendParameter(path, "squash", "true");
+            }
+            if (build.getLayers() != null) {
+                appendParameter(path, "layers", build.getLayers().toString());
+            }
+        }
+        Optional<PullPolicy> pullPolicy = build.getPullPolicy();
+        if (pullPolicy.isPresent()) {
+            appendParameter(path, "pullpolicy", pullPolicy.get().getValue());
+        }
+        Optional<String> platform = build.getPlatform();
+        if (platform.isPresent()) {
+            appendParameter(path, "platform", platform.get());
+        }
+        if (targetStage != null) {
+            appendParameter(path, "target", targetStage);
+        }
+        appendParameter(path, "buildargs", new JSONObject(withSystemProperties(build.getArgs(), PODMAN_ARG_PREFIX)).toString());
+
+        JSONArray ulimits = new JSONArray();
+        for (Map.Entry<String, String> ulimit : withSystemProperties(build.getUlimits(), PODMAN_ULIMITS_PREFIX).entrySet()) {
+            ulimits.put(ulimit.getKey() + "=" + ulimit.getValue());
+        }
+        if (!ulimits.isEmpty()) {
+            appendParameter(path, "ulimits", ulimits.toString());
+        }
+
+        Map<String, String> headers = new HashMap<>();
+        headers.put("Content-Type", "application/x-tar");
+        Map<String, JSONObject> credentials = getCredentials();
+        if (!credentials.isEmpty()) {
+            // Allows pulling base images from registries that require authentication
+            headers.put("X-Registry-Config", toBase64(new JSONObject(credentials).toString()));
+        }
+
+        log.debug("Building image " + image.getImageName() + " using the Podman service at " + client.getServiceUrl());
+        try (PodmanServiceClient.Response response = client.execute("POST", path.toString(), headers, context::writeTo)) {
+            String imageId = readProgress(response.getBody(), outputConsumer, "build image " + image.getImageName());
+            return Optional.ofNullable(imageId);
+        } catch (IOException e) {
+            throw new MojoExecutionException("Failed to read the build output of image " + image.getImageName() + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void tag(String imageHash, String fullImageName) throws MojoExecutionException {
+        int tagSeparator = fullImageName.lastIndexOf(':');
+        String repository = fullImageName;
+        String tag = "latest";
+        if (tagSeparator > fullImageName.lastIndexOf('/')) {
+            repository = fullImageName.substring(0, tagSeparator);
+            tag = fullImageName.substring(tagSeparator + 1);
+        }
+
+        String path = "/libpod/images/" + encodeImageName(imageHash) + "/tag?repo=" + encode(repository) + "&tag=" + encode(tag);
+        executeAndClose("POST", path, new HashMap<>());
+    }
+
+    /**
+     * Tags an image with several names. The REST API accepts a single name per request, so a request is sent for
+     * every name. When a request fails, the remaining names are still tagged. Tagging an image with a name it already
+     * has is harmless, so a retry may tag the image with all names again.
+     *
+     * @param imageHash      The hash of the image to tag
+     * @param fullImageNames The full names of the image
+     * @throws MojoExecutionException In case the container image could not be tagged with one or more of the names.
+     */
+    @Override
+    public void tag(String imageHash, List<String> fullImageNames) throws MojoExecutionException {
+        List<String> failedImageNames = new ArrayList<>();
+        List<String> errors = new ArrayList<>();
+        for (String fullImageName : fullImageNames) {
+            try {
+                tag(imageHash, fullImageName);
+            } catch (CommandExecutionException e) {
+                log.debug("Failed to tag image " + imageHash + " as " + fullImageName + ": " + e.getMessage());
+                failedImageNames.add(fullImageName);
+                errors.addAll(e.getErrorOutput());
+            }
+        }
+
+        if (!failedImageNames.isEmpty()) {
+            throw new CommandExecutionException("Failed to tag image " + imageHash + " as " + String.join(", ", failedImageNames), errors, false);
+        }
+    }
+
+    @Override
+    public void save(String archiveName, String fullImageName) throws MojoExecutionException {
+        Path archive = Paths.get(archiveName);
+        boolean saved = false;
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(archive))) {
+            saveTo(fullImageName, out);
+            saved = true;
+        } catch (IOException e) {
+            throw new MojoExecutionException("Failed to write archive " + archiveName + ": " + e.getMessage(), e);
+        } finally {
+            if (!saved) {
+                deleteIncompleteArchive(archive);
+            }
+        }
+    }
+
+    @Override
+    public void save(String archiveName, String fullImageName, int compressionLevel, int compressionThreads) throws MojoExecutionException {
+        Path archive = Paths.get(archiveName);
+        boolean saved = false;
+        try (OutputStream out = new ParallelGzipOutputStream(new BufferedOutputStream(Files.newOutputStream(archive)), compressionLevel, compressionThreads)) {
+            saveTo(fullImageName, out);
+            saved = true;
+        } catch (IOException e) {
+            // Completing the archive may fail after the image has been received
+            saved = false;
+            throw new MojoExecutionException("Failed to write archive " + archiveName + ": " + e.getMessage(), e);
+        } finally {
+            if (!saved) {
+                deleteIncompleteArchive(archive);
+            }
+        }
+    }
+
+    private void saveTo(String fullImageName, OutputStream out) throws MojoExecutionException, IOException {
+        String path = "/libpod/images/" + encodeImageName(fullImageName) + "/get?format=oci-archive";
+        try (PodmanServiceClient.Response response = client.execute("GET", path)) {
+            InputStream body = response.getBody();
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = body.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+        }
+    }
+
+    private void deleteIncompleteArchive(Path archive) {
+        try {
+            Files.deleteIfExists(archive);
+        } catch (IOException e) {
+            log.warn("Failed to remove incomplete archive " + archive + ": " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void push(String fullImageName) throws MojoExecutionException {
+        StringBuilder path = new StringBuilder("/libpod/images/").append(encodeImageName(fullImageName)).append("/push?destination=").append(encode(fullImageName));
+        TlsVerify tlsVerify = podmanConfig.getTlsVerify();
+        if (tlsVerify != null && tlsVerify != TlsVerify.NOT_SPECIFIED) {
+            appendParameter(path, "tlsVerify", Boolean.toString(tlsVerify == TlsVerify.TRUE));
+        }
+
+        Map<String, String> headers = new HashMap<>();
+        JSONObject registryCredentials = getCredentials().get(getRegistry(fullImageName));
+        if (registryCredentials != null) {
+            headers.put("X-Registry-Auth", toBase64(registryCredentials.toString()));
+        }
+
+        try (PodmanServiceClient.Response response = client.execute("POST", path.toString(), headers, null)) {
+            readProgress(response.getBody(), log::debug, "push image " + fullImageName);
+        } catch (IOException e) {
+            throw new MojoExecutionException("Failed to read the push output of image " + fullImageName + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * <p>
+     * Verifies the credentials for a registry using the <code>/auth</code> endpoint.
+     * </p>
+     * <p>
+     * The Podman service does not store credentials. Instead, verified credentials are sent along with every push to
+     * the registry and every build.
+     * </p>
+     *
+     * @param registry The registry to logon to
+     * @param username The username to use
+     * @param password The password to use
+     * @throws MojoExecutionException In case the login fails. The Exception does not contain the password.
+     */
+    @Override
+    public void login(String registry, String username, String password) throws MojoExecutionException {
+        JSONObject authConfig = new JSONObject();
+        authConfig.put("username", username);
+        authConfig.put("password", password);
+        authConfig.put("serveraddress", registry);
+
+        RetryConfiguration retry = podmanConfig.getRetry();
+        new RetryPolicy(retry.getRetries(), retry).execute("log in to " + registry, log, () ->
+                executeAndClose("POST", "/auth", authConfig));
+        getCredentials().put(registry, authConfig);
+    }
+
+    @Override
+    public void version() throws MojoExecutionException {
+        List<String> lines = getSessionCache().get(VERSION_CACHE_KEY, podmanConfig, this::readVersion);
+        lines.forEach(log::info);
+    }
+
+    private List<String> readVersion() throws MojoExecutionException {
+        try (PodmanServiceClient.Response response = client.execute("GET", "/libpod/version")) {
+            JSONObject version = new JSONObject(response.readBody());
+            List<String> lines = new ArrayList<>();
+            lines.add("Podman service: " + client.getServiceUrl());
+            lines.add("Version: " + version.optString("Version", "unknown"));
+            lines.add("API Version: " + version.optString("ApiVersion", "unknown"));
+            lines.add("OS/Arch: " + version.optString("Os", "unknown") + "/" + version.optString("Arch", "unknown"));
+            return lines;
+        } catch (IOException | JSONException e) {
+            throw new MojoExecutionException("Failed to read the version of the Podman service: " + e.getMessage(), e);
+        }
+    }
+
+    private Map<String, JSONObject> getCredentials() throws MojoExecutionException {
+        // Credentials are not stored by the service, they are passed along with every request that needs them. They are
+        // shared by all modules that use the same service.
+        return getSessionCache().get(CREDENTIALS_CACHE_KEY, podmanConfig, ConcurrentHashMap::new);
+    }
+
+    @Override
+    public Optional<String> getLocalImageId(String image) {
+        try (PodmanServiceClient.Response response = client.execute("GET", "/libpod/images/" + encodeImageName(image) + "/json")) {
+            String imageId = new JSONObject(response.readBody()).optString("Id", "");
+            return imageId.isEmpty() ? Optional.empty() : Optional.of(stripDigestPrefix(imageId));
+        } catch (MojoExecutionException | IOException | JSONException e) {
+            log.debug("Image " + image + " does not exist locally: " + e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public void removeLocalImage(String fullImageName) throws MojoExecutionException {
+        executeAndClose("DELETE", "/libpod/images/" + encodeImageName(fullImageName), new HashMap<>());
+    }
+
+    private void executeAndClose(String method, String path, Map<String, String> headers) throws MojoExecutionException {
+        try (PodmanServiceClient.Response response = client.execute(method, path, headers, null)) {
+            log.debug(method + " " + path + " returned " + response.getStatus());
+        } catch (IOException e) {
+            log.debug("Failed to close the connection to the Podman service: " + e.getMessage());
+        }
+    }
+
+    private void executeAndClose(String method, String path, JSONObject body) throws MojoExecutionException {
+        Map<String, String> headers = new HashMap<>();
+        headers.put("Content-Type", "application/json");
+        byte[] bodyBytes = body.toString().getBytes(StandardCharsets.UTF_8);
+        try (PodmanServiceClient.Response response = client.execute(method, path, headers, out -> out.write(bodyBytes))) {
+            log.debug(method + " " + path + " returned " + response.getStatus());
+        } catch (IOException e) {
+            log.debug("Failed to close the connection to the Podman service: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reads the progress messages of a build or push. Messages are JSON objects, containing either output of the
+     * operation, an error or the ID of the resulting image.
+     */
+    private String readProgress(InputStream body, Consumer<String> outputConsumer, String description) throws MojoExecutionException {
+        Reader reader = new InputStreamReader(body, StandardCharsets.UTF_8);
+        JSONTokener tokener = new JSONTokener(reader);
+        StringBuilder partialLine = new StringBuilder();
+        String imageId = null;
+        List<String> errors = new ArrayList<>();
+
+        try {
+            while (tokener.nextClean() != 0) {
+                tokener.back();
+                JSONObject message = new JSONObject(tokener);
+
+                String stream = message.optString("stream", "");
+                partialLine.append(stream);
+                int lineEnd;
+                while ((lineEnd = partialLine.indexOf("\n")) >= 0) {
+                    outputConsumer.accept(partialLine.substring(0, lineEnd));
+                    partialLine.delete(0, lineEnd + 1);
+                }
+
+                String error = message.optString("error", "");
+                if (!error.isEmpty()) {
+                    errors.add(error.trim());
+                }
+
+                JSONObject aux = message.optJSONObject("aux");
+                if (aux != null && !aux.optString("ID", "").isEmpty()) {
+                    imageId = stripDigestPrefix(aux.getString("ID"));
+                }
+            }
+        } catch (JSONException e) {
+            throw new CommandExecutionException("Failed to " + description + ", the Podman service sent an invalid response: " + e.getMessage(),
+                    errors, false);
+        }
+
+        if (partialLine.length() > 0) {
+            outputConsumer.accept(partialLine.toString());
+        }
+
+        if (!errors.isEmpty()) {
+            throw new CommandExecutionException("Failed to " + description + ": " + String.join(System.lineSeparator(), errors), errors, false);
+        }
+        return imageId;
+    }
+
+    private Path getContextDirectory(AbstractImageBuildConfiguration build) {
+        // Resolved the same way as the context directory passed to 'podman build', which runs in the run directory
+        Path runDirectory = podmanConfig.getRunDirectory() == null ? Paths.get(".") : podmanConfig.getRunDirectory().toPath();
+        return runDirectory.resolve(build.getContextDir().orElse(".")).toAbsolutePath().normalize();
+    }
+
+    private static String getRegistry(String fullImageName) {
+        int separator = fullImageName.indexOf('/');
+        if (separator > 0) {
+            String firstSegment = fullImageName.substring(0, separator);
+            if (firstSegment.contains(".") || firstSegment.contains(":") || "localhost".equals(firstSegment)) {
+                return firstSegment;
+            }
+        }
+        return DOCKER_HUB;
+    }
+
+    private static Map<String, String> withSystemProperties(Map<String, String> values, String prefix) {
+        Map<String, String> allValues = new HashMap<>();
+        if (values != null) {
+            allValues.putAll(values);
+        }
+
+        Properties properties = System.getProperties();
+        for (String key : properties.stringPropertyNames()) {
+            String value = properties.getProperty(key);
+            if (key.startsWith(prefix) && value != null && !value.isEmpty()) {
+                allValues.put(key.substring(prefix.length()), value);
+            }
+        }
+        return allValues;
+    }
+
+    private static void appendParameter(StringBuilder path, String name, String value) {
+        path.append('&').append(name).append('=').append(encode(value));
+    }
+
+    private static String stripDigestPrefix(String imageId) {
+        return imageId.startsWith(IMAGE_ID_DIGEST_PREFIX) ? imageId.substring(IMAGE_ID_DIGEST_PREFIX.length()) : imageId;
+    }
+
+    private static String toBase64(String value) {
+        return Base64.getUrlEncoder().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -3,6 +3,7 @@ package nl.lexemmens.podman.service;
 
 import nl.lexemmens.podman.command.Command;
 import nl.lexemmens.podman.command.chcon.ChConCommand;
+import nl.lexemmens.podman.command.find.FindCommand;
 import nl.lexemmens.podman.command.podman.PodmanSystemCommand;
 import nl.lexemmens.podman.command.sestatus.SeStatusCommand;
 import nl.lexemmens.podman.config.podman.PodmanConfiguration;
@@ -11,6 +12,7 @@ import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.logging.Log;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
@@ -28,19 +30,35 @@ public class SecurityContextService {
     private static final Pattern GRAPH_ROOT_PATTERN = Pattern.compile("(graphRoot: )([a-zA-Z\\/\\.]+)");
     private static final String UNKNOWN = "unknown";
 
+    private static final String SELINUX_ENABLED_CACHE_KEY = "selinux.enabled";
+    private static final String GRAPH_ROOT_CACHE_KEY = "podman.graphRoot";
+    private static final String SECURITY_CONTEXT_CACHE_KEY = "podman.root.securityContext";
+
+    /**
+     * File in the custom root that records the security context that has been applied to the root
+     */
+    private static final String SECURITY_CONTEXT_MARKER_FILE = ".podman-maven-plugin-security-context";
+
     private final Log log;
     private final PodmanConfiguration podmanCfg;
     private final CommandExecutorDelegate delegate;
+    private final SessionCache sessionCache;
 
     public SecurityContextService(Log log, PodmanConfiguration podmanConfiguration, CommandExecutorDelegate delegate) {
+        this(log, podmanConfiguration, delegate, new SessionCache());
+    }
+
+    public SecurityContextService(Log log, PodmanConfiguration podmanConfiguration, CommandExecutorDelegate delegate, SessionCache sessionCache) {
         this.podmanCfg = podmanConfiguration;
         this.log = log;
         this.delegate = delegate;
+        this.sessionCache = sessionCache;
     }
 
     public void setSecurityContext() throws MojoExecutionException {
         log.debug("Checking SELinux status...");
-        boolean seLinuxEnabled = isSELinuxEnabled();
+        // The SELinux status does not change during a build, so sestatus is executed once per session
+        boolean seLinuxEnabled = sessionCache.get(SELINUX_ENABLED_CACHE_KEY, this::isSELinuxEnabled);
 
         if (seLinuxEnabled) {
             log.debug("SELinux is enabled");
@@ -96,39 +114,114 @@ public class SecurityContextService {
             log.debug("Using Podman default storage location. Assuming security context is set correctly " +
                     "for this location. Refer to the documentation of this plugin if you run into any issues.");
         } else {
-            log.debug("Using custom root with SELinux enabled. Setting security context to " + TARGET_SECURITY_CONTEXT_TYPE + " for " + podmanCfg.getRoot());
-            // In order to set the context, we need to ensure that the destination folder exists.
-            try {
-                Path path = podmanCfg.getRoot().toPath().normalize();
-                Files.createDirectories(path);
-            } catch (IOException e) {
-                throw new MojoExecutionException(
-                        "Failed to set security context on Podman's (custom) root location: " + podmanCfg.getRoot().getAbsolutePath(),
-                        e
-                );
+            // All images share the same root, so the security context is set once per session
+            sessionCache.get(SECURITY_CONTEXT_CACHE_KEY, podmanCfg, () -> {
+                setSecurityContextOfCustomRoot();
+                return Boolean.TRUE;
+            });
+        }
+    }
+
+    private void setSecurityContextOfCustomRoot() throws MojoExecutionException {
+        log.debug("Using custom root with SELinux enabled. Setting security context to " + TARGET_SECURITY_CONTEXT_TYPE + " for " + podmanCfg.getRoot());
+        // In order to set the context, we need to ensure that the destination folder exists.
+        try {
+            Path path = podmanCfg.getRoot().toPath().normalize();
+            Files.createDirectories(path);
+        } catch (IOException e) {
+            throw new MojoExecutionException(
+                    "Failed to set security context on Podman's (custom) root location: " + podmanCfg.getRoot().getAbsolutePath(),
+                    e
+            );
+        }
+
+        List<String> graphRootCmdOutput = sessionCache.get(GRAPH_ROOT_CACHE_KEY, podmanCfg, this::readGraphRoot);
+
+        if(graphRootCmdOutput.size() == 1) {
+            String graphRoot = graphRootCmdOutput.get(0);
+            Matcher graphRootMatcher = GRAPH_ROOT_PATTERN.matcher(graphRoot);
+            if(graphRootMatcher.matches()) {
+                String graphRootLocation = graphRootMatcher.group(2);
+                log.info("Determined graphRoot location to be: " + graphRootLocation + ". Executing chcon using this directory as reference...");
+                relabelCustomRoot(graphRootLocation);
+            } else {
+                log.warn("Failed to determine Podman's storage location from output " + graphRoot);
             }
+        } else {
+            log.warn("Failed to determine Podman's storage location. If SELinux is enabled, this may cause unexpected behaviour.");
+        }
+    }
 
-            List<String> graphRootCmdOutput = new PodmanSystemCommand.Builder(log, podmanCfg, delegate)
-                    .info()
+    private List<String> readGraphRoot() throws MojoExecutionException {
+        return new PodmanSystemCommand.Builder(log, podmanCfg, delegate)
+                .info()
+                .build()
+                .execute()
+                .stream()
+                .filter(output -> output.matches("(graphRoot: )([a-zA-Z\\/\\.]+)"))
+                .collect(Collectors.toList());
+    }
+
+    private void relabelCustomRoot(String referenceStorageLocation) throws MojoExecutionException {
+        Optional<String> securityContext = readSecurityContext(referenceStorageLocation);
+        if (!securityContext.isPresent()) {
+            executeChConCommand(referenceStorageLocation);
+            return;
+        }
+
+        Path markerFile = podmanCfg.getRoot().toPath().resolve(SECURITY_CONTEXT_MARKER_FILE);
+        if (securityContext.get().equals(readMarkerFile(markerFile))) {
+            // Files created later on inherit the context of the directory they are created in
+            log.info("Security context " + securityContext.get() + " has already been applied to " + podmanCfg.getRoot());
+            return;
+        }
+
+        try {
+            // Only files that lack the security context are relabeled, instead of the complete storage
+            new FindCommand.Builder(log, delegate, podmanCfg.getRoot().getAbsolutePath())
+                    .withoutSecurityContext(securityContext.get())
+                    .changeSecurityContextTo(referenceStorageLocation)
+                    .build()
+                    .execute();
+        } catch (MojoExecutionException e) {
+            log.debug("Failed to relabel files lacking security context " + securityContext.get() + ". Relabeling all files...", e);
+            executeChConCommand(referenceStorageLocation);
+        }
+
+        writeMarkerFile(markerFile, securityContext.get());
+    }
+
+    private Optional<String> readSecurityContext(String location) {
+        try {
+            return new FindCommand.Builder(log, delegate, location)
+                    .printSecurityContext()
                     .build()
                     .execute()
                     .stream()
-                    .filter(output -> output.matches("(graphRoot: )([a-zA-Z\\/\\.]+)"))
-                    .collect(Collectors.toList());
-
-            if(graphRootCmdOutput.size() == 1) {
-                String graphRoot = graphRootCmdOutput.get(0);
-                Matcher graphRootMatcher = GRAPH_ROOT_PATTERN.matcher(graphRoot);
-                if(graphRootMatcher.matches()) {
-                    String graphRootLocation = graphRootMatcher.group(2);
-                    log.info("Determined graphRoot location to be: " + graphRootLocation + ". Executing chcon using this directory as reference...");
-                    executeChConCommand(graphRootLocation);
-                } else {
-                    log.warn("Failed to determine Podman's storage location from output " + graphRoot);
-                }
-            } else {
-                log.warn("Failed to determine Podman's storage location. If SELinux is enabled, this may cause unexpected behaviour.");
-            }
+                    .map(String::trim)
+                    .filter(context -> !context.isEmpty() && !context.equals("?"))
+                    .findFirst();
+        } catch (MojoExecutionException e) {
+            log.debug("Failed to determine the security context of " + location, e);
+            return Optional.empty();
+        }
+    }
+
+    private String readMarkerFile(Path markerFile) {
+        try {
+            return Files.exists(markerFile) ? new String(Files.readAllBytes(markerFile), StandardCharsets.UTF_8).trim() : null;
+        } catch (IOException e) {
+            log.debug("Failed to read " + markerFile, e);
+            return null;
+        }
+    }
+
+    private void writeMarkerFile(Path markerFile, String securityContext) {
+        try {
+            Files.write(markerFile, securityContext.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            // Not fatal, the root is relabeled again during the next build
+            log.debug("Failed to write " + markerFile, e);
         }
     }
 
@@ -2,7 +2,11 @@ package nl.lexemmens.podman.service;
 
 import nl.lexemmens.podman.config.podman.PodmanConfiguration;
 import nl.lexemmens.podman.config.skopeo.SkopeoConfiguration;
+import nl.lexemmens.podman.executor.BuildMetrics;
+import nl.lexemmens.podman.executor.CommandExecutorDelegate;
 import nl.lexemmens.podman.executor.CommandExecutorDelegateImpl;
+import nl.lexemmens.podman.executor.MeteredCommandExecutorDelegate;
+import nl.lexemmens.podman.executor.PodmanServiceClient;
 import org.apache.maven.plugin.logging.Log;
 import org.apache.maven.project.MavenProject;
 import org.apache.maven.project.MavenProjectHelper;
@@ -10,6 +14,8 @@ import org.apache.maven.settings.Settings;
 import org.apache.maven.settings.crypto.SettingsDecrypter;
 import org.apache.maven.shared.filtering.MavenFileFilter;
 
+import java.util.function.Supplier;
+
 /**
  * <p>
  * Context class providing access to runtime requirements, such as support classes, image hash
@@ -23,6 +29,7 @@ public class ServiceHub {
     private final ContainerfileDecorator containerfileDecorator;
     private final AuthenticationService authenticationService;
     private final MavenProjectHelper mavenProjectHelper;
+    private final SessionCache sessionCache;
 
     private final SecurityContextService securityContextService;
 
@@ -39,17 +46,55 @@ public class ServiceHub {
      * @param mavenSettings       Access to Maven's settings file
      * @param settingsDecrypter   Access to Maven's settings decryption service
      * @param mavenProjectHelper  The MavenProjectHelper service
+     * @param sessionCache        Holds probe results that are shared by all executions in the Maven session
+     * @param buildMetrics        Records the duration of every command that is executed
      */
-    ServiceHub(Log log, MavenProject mavenProject, MavenFileFilter mavenFileFilter, PodmanConfiguration podmanConfig, SkopeoConfiguration skopeoConfiguration, Settings mavenSettings, SettingsDecrypter settingsDecrypter, MavenProjectHelper mavenProjectHelper) {
-        this.podmanExecutorService = new PodmanExecutorService(log, podmanConfig, new CommandExecutorDelegateImpl());
-        this.buildahExecutorService = new BuildahExecutorService(log, podmanConfig, new CommandExecutorDelegateImpl());
-        this.skopeoExecutorService = new SkopeoExecutorService(log, skopeoConfiguration, new CommandExecutorDelegateImpl());
+    ServiceHub(Log log, MavenProject mavenProject, MavenFileFilter mavenFileFilter, PodmanConfiguration podmanConfig, SkopeoConfiguration skopeoConfiguration, Settings mavenSettings, SettingsDecrypter settingsDecrypter, MavenProjectHelper mavenProjectHelper, SessionCache sessionCache, BuildMetrics buildMetrics) {
+        this(log, mavenProject, mavenFileFilter, podmanConfig, skopeoConfiguration, mavenSettings, settingsDecrypter, mavenProjectHelper, sessionCache, buildMetrics, CommandExecutorDelegateImpl::new);
+    }
+
+    /**
+     * <p>
+     * Constructs a new instance of this class that executes all commands using delegates created by the provided
+     * factory. Allows tests to execute commands using stand-in executables.
+     * </p>
+     *
+     * @param log                 Access to Maven's log system
+     * @param mavenProject        The MavenProject that is being built
+     * @param mavenFileFilter     The {@link MavenFileFilter} service
+     * @param podmanConfig        Holds global configuration for Podman
+     * @param skopeoConfiguration Holds global configuration for Skopeo
+     * @param mavenSettings       Access to Maven's settings file
+     * @param settingsDecrypter   Access to Maven's settings decryption service
+     * @param mavenProjectHelper  The MavenProjectHelper service
+     * @param sessionCache        Holds probe results that are shared by all executions in the Maven session
+     * @param buildMetrics        Records the duration of every command that is executed
+     * @param delegateFactory     Creates the delegates that execute the commands
+     */
+    ServiceHub(Log log, MavenProject mavenProject, MavenFileFilter mavenFileFilter, PodmanConfiguration podmanConfig, SkopeoConfiguration skopeoConfiguration, Settings mavenSettings, SettingsDecrypter settingsDecrypter, MavenProjectHelper mavenProjectHelper, SessionCache sessionCache, BuildMetrics buildMetrics,
+               Supplier<CommandExecutorDelegate> delegateFactory) {
+        this.sessionCache = sessionCache;
+        this.podmanExecutorService = createPodmanExecutorService(log, podmanConfig, sessionCache, createDelegate(delegateFactory, buildMetrics));
+        this.buildahExecutorService = new BuildahExecutorService(log, podmanConfig, createDelegate(delegateFactory, buildMetrics), sessionCache);
+        this.skopeoExecutorService = new SkopeoExecutorService(log, skopeoConfiguration, createDelegate(delegateFactory, buildMetrics));
         this.containerfileDecorator = new ContainerfileDecorator(log, mavenFileFilter, mavenProject);
-        this.authenticationService = new AuthenticationService(log, podmanExecutorService, mavenSettings, settingsDecrypter);
-        this.securityContextService = new SecurityContextService(log, podmanConfig, new CommandExecutorDelegateImpl());
+        this.authenticationService = new AuthenticationService(log, podmanExecutorService, mavenSettings, settingsDecrypter, podmanConfig, sessionCache);
+        this.securityContextService = new SecurityContextService(log, podmanConfig, createDelegate(delegateFactory, buildMetrics), sessionCache);
         this.mavenProjectHelper = mavenProjectHelper;
     }
 
+    private static PodmanExecutorService createPodmanExecutorService(Log log, PodmanConfiguration podmanConfig, SessionCache sessionCache, CommandExecutorDelegate delegate) {
+        if (podmanConfig != null && podmanConfig.getServiceUrl() != null) {
+            PodmanServiceClient client = new PodmanServiceClient(podmanConfig.getServiceUrl());
+            return new PodmanRestExecutorService(log, podmanConfig, delegate, client, sessionCache);
+        }
+        return new PodmanExecutorService(log, podmanConfig, delegate, sessionCache);
+    }
+
+    private static CommandExecutorDelegate createDelegate(Supplier<CommandExecutorDelegate> delegateFactory, BuildMetrics buildMetrics) {
+        return new MeteredCommandExecutorDelegate(delegateFactory.get(), buildMetrics);
+    }
+
     /**
      * Returns a reference to the FileFilterService class
      *
@@ -95,6 +140,15 @@ public class ServiceHub {
         return mavenProjectHelper;
     }
 
+    /**
+     * Returns a reference to the {@link SessionCache}
+     *
+     * @return The {@link SessionCache}
+     */
+    public SessionCache getSessionCache() {
+        return sessionCache;
+    }
+
     public SkopeoExecutorService getSkopeoExecutorService() {
         return skopeoExecutorService;
     }
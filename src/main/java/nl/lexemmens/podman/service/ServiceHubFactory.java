@@ -2,6 +2,8 @@ package nl.lexemmens.podman.service;
 
 import nl.lexemmens.podman.config.podman.PodmanConfiguration;
 import nl.lexemmens.podman.config.skopeo.SkopeoConfiguration;
+import nl.lexemmens.podman.executor.BuildMetrics;
+import org.apache.maven.execution.MavenSession;
 import org.apache.maven.plugin.logging.Log;
 import org.apache.maven.project.MavenProject;
 import org.apache.maven.project.MavenProjectHelper;
@@ -9,6 +11,7 @@ import org.apache.maven.settings.Settings;
 import org.apache.maven.settings.crypto.SettingsDecrypter;
 import org.apache.maven.shared.filtering.MavenFileFilter;
 import org.codehaus.plexus.component.annotations.Component;
+import org.codehaus.plexus.component.annotations.Requirement;
 
 /**
  * <p>
@@ -18,6 +21,21 @@ import org.codehaus.plexus.component.annotations.Component;
 @Component(role = ServiceHubFactory.class, hint = "default")
 public class ServiceHubFactory {
 
+    @Requirement
+    private SessionCache sessionCache = new SessionCache();
+
+    /**
+     * <p>
+     * Marks the start of a plugin execution in the provided Maven session. Cached probe results of an earlier session
+     * are discarded.
+     * </p>
+     *
+     * @param session The current Maven session
+     */
+    public void startSession(MavenSession session) {
+        sessionCache.startSession(session);
+    }
+
     /**
      * <p>
      * Creates a new {@link ServiceHub} instance.
@@ -31,12 +49,14 @@ public class ServiceHubFactory {
      * @param mavenSettings     Access to the Maven Settings
      * @param settingsDecrypter Access to Maven's {@link SettingsDecrypter} service
      * @param mavenProjectHelper Access to Maven's {@link MavenProjectHelper} service
+     * @param buildMetrics      Records the duration of every command that is executed
      * @return A new instance of the {@link ServiceHub}
      */
     public ServiceHub createServiceHub(Log log, MavenProject mavenProject, MavenFileFilter mavenFileFilter, PodmanConfiguration podmanConfig,
                                        SkopeoConfiguration skopeoConfig,
-                                       Settings mavenSettings, SettingsDecrypter settingsDecrypter, MavenProjectHelper mavenProjectHelper) {
-        return new ServiceHub(log, mavenProject, mavenFileFilter, podmanConfig, skopeoConfig, mavenSettings, settingsDecrypter, mavenProjectHelper);
+                                       Settings mavenSettings, SettingsDecrypter settingsDecrypter, MavenProjectHelper mavenProjectHelper,
+                                       BuildMetrics buildMetrics) {
+        return new ServiceHub(log, mavenProject, mavenFileFilter, podmanConfig, skopeoConfig, mavenSettings, settingsDecrypter, mavenProjectHelper, sessionCache, buildMetrics);
     }
 
 }
@@ -0,0 +1,129 @@
+package nl.lexemmens.podman.service;
+
+import nl.lexemmens.podman.config.podman.PodmanConfiguration;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.codehaus.plexus.component.annotations.Component;
+
+import java.io.File;
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>
+ * Holds the results of probes that return the same answer for a complete Maven session, such as the output of
+ * <code>podman version</code>, the SELinux status, Podman's graphRoot and the registries that have been authenticated.
+ * </p>
+ * <p>
+ * This component is shared by all executions of this plugin, so in a reactor build every probe runs once instead of
+ * once per module and goal. Values that depend on the Podman configuration are stored per configuration: a different
+ * root, runRoot or service URL never sees the values of another configuration. All values are discarded when a new
+ * Maven session starts, for example when a build daemon reuses the plugin.
+ * </p>
+ */
+@Component(role = SessionCache.class, hint = "default")
+public class SessionCache {
+
+    private final Map<String, Object> values = new ConcurrentHashMap<>();
+    private final Map<String, Object> locks = new ConcurrentHashMap<>();
+    private WeakReference<MavenSession> session = new WeakReference<>(null);
+
+    /**
+     * Constructs a new instance of this class
+     */
+    public SessionCache() {
+        // Empty - will be injected
+    }
+
+    /**
+     * Discards all values when the provided session differs from the session the values were collected in.
+     *
+     * @param currentSession The current Maven session
+     */
+    public synchronized void startSession(MavenSession currentSession) {
+        if (currentSession != null && session.get() != currentSession) {
+            values.clear();
+            session = new WeakReference<>(currentSession);
+        }
+    }
+
+    /**
+     * Returns the value stored under the provided key. When no value is present, the value is loaded and stored.
+     * Concurrent calls for the same key load the value only once.
+     *
+     * @param key    The key of the value
+     * @param loader Loads the value when it is not present. Must not return null.
+     * @param <T>    The type of the value
+     * @return The value stored under the provided key
+     * @throws MojoExecutionException In case the value could not be loaded. Nothing is stored in that case.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String key, Loader<T> loader) throws MojoExecutionException {
+        Object value = values.get(key);
+        if (value == null) {
+            synchronized (locks.computeIfAbsent(key, k -> new Object())) {
+                value = values.get(key);
+                if (value == null) {
+                    value = loader.load();
+                    values.put(key, value);
+                }
+            }
+        }
+        return (T) value;
+    }
+
+    /**
+     * Returns the value stored under the provided key for the provided Podman configuration.
+     *
+     * @param key          The key of the value
+     * @param podmanConfig The Podman configuration the value belongs to
+     * @param loader       Loads the value when it is not present. Must not return null.
+     * @param <T>          The type of the value
+     * @return The value stored under the provided key for the provided configuration
+     * @throws MojoExecutionException In case the value could not be loaded
+     * @see #get(String, Loader)
+     */
+    public <T> T get(String key, PodmanConfiguration podmanConfig, Loader<T> loader) throws MojoExecutionException {
+        return get(key + scopeOf(podmanConfig), loader);
+    }
+
+    /**
+     * Discards all values that belong to the provided Podman configuration. Must be called when the storage of that
+     * configuration is removed or replaced, for example when the custom root directory is cleaned up.
+     *
+     * @param podmanConfig The Podman configuration of which the values must be discarded
+     */
+    public void invalidate(PodmanConfiguration podmanConfig) {
+        String scope = scopeOf(podmanConfig);
+        values.keySet().removeIf(key -> key.endsWith(scope));
+    }
+
+    private static String scopeOf(PodmanConfiguration podmanConfig) {
+        if (podmanConfig == null) {
+            return "@default";
+        }
+        return "@root=" + pathOf(podmanConfig.getRoot()) + ";runRoot=" + pathOf(podmanConfig.getRunRoot()) + ";service=" + podmanConfig.getServiceUrl();
+    }
+
+    private static String pathOf(File directory) {
+        return directory == null ? "" : directory.getAbsolutePath();
+    }
+
+    /**
+     * Loads a value that is not yet present in the cache
+     *
+     * @param <T> The type of the value
+     */
+    @FunctionalInterface
+    public interface Loader<T> {
+
+        /**
+         * Loads the value
+         *
+         * @return The value. Must not be null.
+         * @throws MojoExecutionException In case the value could not be loaded
+         */
+        T load() throws MojoExecutionException;
+    }
+}
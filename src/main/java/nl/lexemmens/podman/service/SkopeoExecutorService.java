@@ -1,11 +1,24 @@
 package nl.lexemmens.podman.service;
 
 import nl.lexemmens.podman.command.skopeo.SkopeoCopyCommand;
+import nl.lexemmens.podman.command.skopeo.SkopeoInspectCommand;
+import nl.lexemmens.podman.command.skopeo.SkopeoSyncCommand;
 import nl.lexemmens.podman.config.skopeo.SkopeoConfiguration;
+import nl.lexemmens.podman.enumeration.TlsVerify;
 import nl.lexemmens.podman.executor.CommandExecutorDelegate;
+import nl.lexemmens.podman.helper.SkopeoSyncHelper.SyncBatch;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.logging.Log;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * Enables executing the skopeo binary with specific arguments.
  */
@@ -14,6 +27,7 @@ public class SkopeoExecutorService {
     private final Log log;
     private final CommandExecutorDelegate delegate;
     private final SkopeoConfiguration skopeoConfiguration;
+    private final Map<String, Optional<String>> digestCache = new ConcurrentHashMap<>();
 
     /**
      * Constructs a new instance of this class.
@@ -42,4 +56,112 @@ public class SkopeoExecutorService {
                 .build()
                 .execute();
     }
+
+    /**
+     * <p>
+     * Implementation of the skopeo copy command for copying an image that was pushed using Podman.
+     * </p>
+     * <p>
+     * Both the source and the destination registry are accessed using the TLS verification setting of Podman rather
+     * than the settings of the skopeo copy configuration.
+     * </p>
+     *
+     * @param sourceImage      source image to copy
+     * @param destinationImage target for the image
+     * @param tlsVerify        The TLS verification setting of Podman
+     * @throws MojoExecutionException In case the skopeo copy command exits unsuccessfully.
+     */
+    public void copy(String sourceImage, String destinationImage, TlsVerify tlsVerify) throws MojoExecutionException {
+        SkopeoCopyCommand.Builder builder = new SkopeoCopyCommand.Builder(log, delegate);
+        if (tlsVerify != null && tlsVerify != TlsVerify.NOT_SPECIFIED) {
+            boolean verify = tlsVerify == TlsVerify.TRUE;
+            builder.setSrcTlsVerify(verify)
+                    .setDestTlsVerify(verify);
+        }
+
+        builder.setSourceImage(sourceImage)
+                .setDestinationImage(destinationImage)
+                .build()
+                .execute();
+    }
+
+    /**
+     * <p>
+     * Copies all images of the provided batch using a single <code>skopeo sync</code> invocation.
+     * </p>
+     * <p>
+     * Compared to copying the images one by one, skopeo only needs to authenticate with both registries once, and can
+     * reuse its connections for all images in the batch. The images to copy are passed to skopeo using a temporary YAML
+     * file, which is removed afterwards.
+     * </p>
+     *
+     * @param batch The images to copy
+     * @throws MojoExecutionException In case the skopeo sync command exits unsuccessfully.
+     */
+    public void sync(SyncBatch batch) throws MojoExecutionException {
+        Path sourceFile = null;
+        try {
+            sourceFile = Files.createTempFile("skopeo-sync", ".yaml");
+            Files.write(sourceFile, batch.toYaml(skopeoConfiguration.getCopy().getSrcTlsVerify()).getBytes(StandardCharsets.UTF_8));
+
+            new SkopeoSyncCommand.Builder(log, delegate)
+                    .setDestTlsVerify(skopeoConfiguration.getCopy().getDestTlsVerify())
+                    .setSourceFile(sourceFile)
+                    .setDestination(batch.getDestination())
+                    .build()
+                    .execute();
+        } catch (IOException e) {
+            throw new MojoExecutionException("Failed to write the skopeo sync source file: " + e.getMessage(), e);
+        } finally {
+            deleteQuietly(sourceFile);
+        }
+    }
+
+    private void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.debug("Failed to delete " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * <p>
+     * Returns the digest of the manifest of an image in a registry, using <code>skopeo inspect</code>.
+     * </p>
+     * <p>
+     * The result is cached, so every image is inspected at most once during a single execution of the plugin. An image
+     * that cannot be inspected, for example because it does not exist, results in an empty Optional.
+     * </p>
+     *
+     * @param image     The full name of the image to inspect
+     * @param tlsVerify Whether the TLS connection to the image registry should be verified
+     * @return The digest of the image manifest, if the image could be inspected
+     */
+    public Optional<String> getDigest(String image, boolean tlsVerify) {
+        return digestCache.computeIfAbsent(image, key -> inspectDigest(key, tlsVerify));
+    }
+
+    private Optional<String> inspectDigest(String image, boolean tlsVerify) {
+        try {
+            List<String> output = new SkopeoInspectCommand.Builder(log, delegate)
+                    .setTlsVerify(tlsVerify)
+                    .setDigestOnly()
+                    .setImage(image)
+                    .build()
+                    .execute();
+
+            return output.stream()
+                    .map(String::trim)
+                    .filter(line -> !line.isEmpty())
+                    .reduce((first, second) -> second);
+        } catch (MojoExecutionException e) {
+            log.debug("Unable to determine the digest of image " + image + ": " + e.getMessage());
+            return Optional.empty();
+        }
+    }
 }
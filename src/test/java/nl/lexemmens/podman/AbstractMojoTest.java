@@ -1,7 +1,9 @@
 package nl.lexemmens.podman;
 
+import nl.lexemmens.podman.config.image.single.SingleImageConfiguration;
 import nl.lexemmens.podman.service.*;
 import org.apache.maven.model.Build;
+import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.logging.Log;
 import org.apache.maven.project.MavenProject;
 import org.apache.maven.project.MavenProjectHelper;
@@ -11,6 +13,13 @@ import org.apache.maven.shared.filtering.MavenFileFilter;
 import org.mockito.Mock;
 
 import java.io.File;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isA;
+import static org.mockito.Mockito.doAnswer;
 
 public abstract class AbstractMojoTest {
 
@@ -59,4 +68,14 @@ public abstract class AbstractMojoTest {
     @Mock
     protected Log log;
 
+    /**
+     * Makes every build executed via the mocked {@link PodmanExecutorService} produce the provided output.
+     */
+    protected void mockBuildOutput(List<String> buildOutput) throws MojoExecutionException {
+        doAnswer(invocation -> {
+            Consumer<String> outputConsumer = invocation.getArgument(1);
+            buildOutput.forEach(outputConsumer);
+            return Optional.empty();
+        }).when(podmanExecutorService).build(isA(SingleImageConfiguration.class), any());
+    }
 }
@@ -10,6 +10,7 @@ import nl.lexemmens.podman.config.skopeo.SkopeoConfiguration;
 import nl.lexemmens.podman.enumeration.ContainerFormat;
 import nl.lexemmens.podman.enumeration.PullPolicy;
 import nl.lexemmens.podman.enumeration.TlsVerify;
+import nl.lexemmens.podman.executor.BuildMetrics;
 import nl.lexemmens.podman.service.ContainerfileDecorator;
 import org.apache.maven.model.Build;
 import org.apache.maven.plugin.MojoExecutionException;
@@ -31,6 +32,8 @@ import org.mockito.junit.MockitoJUnitRunner;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -38,9 +41,11 @@ import java.util.List;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.isA;
 import static org.mockito.Mockito.when;
 
@@ -168,11 +173,11 @@ public class BatchBuildMojoTest extends AbstractMojoTest {
         when(mavenProject.getBuild()).thenReturn(mockBuild);
         when(mockBuild.getDirectory()).thenReturn("target");
 
-        when(serviceHubFactory.createServiceHub(isA(Log.class), isA(MavenProject.class), isA(MavenFileFilter.class), isA(PodmanConfiguration.class), isA(SkopeoConfiguration.class), isA(Settings.class), isA(SettingsDecrypter.class), isA(MavenProjectHelper.class))).thenReturn(serviceHub);
+        when(serviceHubFactory.createServiceHub(isA(Log.class), isA(MavenProject.class), isA(MavenFileFilter.class), isA(PodmanConfiguration.class), isA(SkopeoConfiguration.class), isA(Settings.class), isA(SettingsDecrypter.class), isA(MavenProjectHelper.class), isA(BuildMetrics.class))).thenReturn(serviceHub);
         when(serviceHub.getContainerfileDecorator()).thenReturn(containerfileDecorator);
         when(serviceHub.getPodmanExecutorService()).thenReturn(podmanExecutorService);
         when(serviceHub.getSecurityContextService()).thenReturn(securityContextService);
-        when(podmanExecutorService.build(isA(SingleImageConfiguration.class))).thenReturn(Collections.singletonList("ca1f5f48ef431c0818d5e8797dfe707557bdc728fe7c3027c75de18f934a3b76"));
+        mockBuildOutput(Collections.singletonList("ca1f5f48ef431c0818d5e8797dfe707557bdc728fe7c3027c75de18f934a3b76"));
 
         assertDoesNotThrow(() -> buildMojo.execute());
     }
@@ -201,12 +206,12 @@ public class BatchBuildMojoTest extends AbstractMojoTest {
         when(mavenProject.getBuild()).thenReturn(mockBuild);
         when(mavenProject.getBasedir()).thenReturn(new File("src/test/resources/batch/subdir"));
         when(mockBuild.getDirectory()).thenReturn("target");
-        when(serviceHubFactory.createServiceHub(isA(Log.class), isA(MavenProject.class), isA(MavenFileFilter.class), isA(PodmanConfiguration.class), isA(SkopeoConfiguration.class), isA(Settings.class), isA(SettingsDecrypter.class), isA(MavenProjectHelper.class))).thenReturn(serviceHub);
+        when(serviceHubFactory.createServiceHub(isA(Log.class), isA(MavenProject.class), isA(MavenFileFilter.class), isA(PodmanConfiguration.class), isA(SkopeoConfiguration.class), isA(Settings.class), isA(SettingsDecrypter.class), isA(MavenProjectHelper.class), isA(BuildMetrics.class))).thenReturn(serviceHub);
         when(serviceHub.getContainerfileDecorator()).thenReturn(containerfileDecorator);
         when(serviceHub.getSecurityContextService()).thenReturn(securityContextService);
         when(serviceHub.getPodmanExecutorService()).thenReturn(podmanExecutorService);
         when(serviceHub.getMavenProjectHelper()).thenReturn(mavenProjectHelper);
-        when(podmanExecutorService.build(isA(SingleImageConfiguration.class))).thenReturn(Collections.singletonList("ca1f5f48ef431c0818d5e8797dfe707557bdc728fe7c3027c75de18f934a3b76"));
+        mockBuildOutput(Collections.singletonList("ca1f5f48ef431c0818d5e8797dfe707557bdc728fe7c3027c75de18f934a3b76"));
 
         assertDoesNotThrow(() -> buildMojo.execute());
         assertEquals(1, buildMojo.resolvedImages.size());
@@ -243,12 +248,12 @@ public class BatchBuildMojoTest extends AbstractMojoTest {
         when(mavenProject.getBuild()).thenReturn(mockBuild);
         when(mockBuild.getDirectory()).thenReturn("target");
 
-        when(serviceHubFactory.createServiceHub(isA(Log.class), isA(MavenProject.class), isA(MavenFileFilter.class), isA(PodmanConfiguration.class), isA(SkopeoConfiguration.class), isA(Settings.class), isA(SettingsDecrypter.class), isA(MavenProjectHelper.class))).thenReturn(serviceHub);
+        when(serviceHubFactory.createServiceHub(isA(Log.class), isA(MavenProject.class), isA(MavenFileFilter.class), isA(PodmanConfiguration.class), isA(SkopeoConfiguration.class), isA(Settings.class), isA(SettingsDecrypter.class), isA(MavenProjectHelper.class), isA(BuildMetrics.class))).thenReturn(serviceHub);
         when(serviceHub.getContainerfileDecorator()).thenReturn(containerfileDecorator);
         when(serviceHub.getPodmanExecutorService()).thenReturn(podmanExecutorService);
         when(serviceHub.getSecurityContextService()).thenReturn(securityContextService);
         when(serviceHub.getMavenProjectHelper()).thenReturn(mavenProjectHelper);
-        when(podmanExecutorService.build(isA(SingleImageConfiguration.class))).thenReturn(Collections.singletonList("ca1f5f48ef431c0818d5e8797dfe707557bdc728fe7c3027c75de18f934a3b76"));
+        mockBuildOutput(Collections.singletonList("ca1f5f48ef431c0818d5e8797dfe707557bdc728fe7c3027c75de18f934a3b76"));
 
         assertDoesNotThrow(() -> buildMojo.execute());
 
@@ -280,6 +285,48 @@ public class BatchBuildMojoTest extends AbstractMojoTest {
     }
 
 
+    @Test
+    public void testBatchBuildWithMultipleThreads() throws MojoExecutionException {
+        PodmanConfiguration podman = new TestPodmanConfigurationBuilder().setTlsVerify(TlsVerify.FALSE).build();
+        BatchImageConfiguration image = new TestBatchImageConfigurationBuilder("sample-image-%d")
+                .setContainerfileDir("src/test/resources/batch")
+                .setTags(new String[]{"1.0.0"})
+                .build();
+
+        configureMojo(podman, image);
+        buildMojo.buildThreads = 2;
+
+        Build mockBuild = Mockito.mock(Build.class);
+        when(mavenProject.getVersion()).thenReturn("1.0.0-SNAPSHOT");
+        when(mavenProject.getBuild()).thenReturn(mockBuild);
+        when(mockBuild.getDirectory()).thenReturn("target");
+
+        when(serviceHubFactory.createServiceHub(isA(Log.class), isA(MavenProject.class), isA(MavenFileFilter.class), isA(PodmanConfiguration.class), isA(SkopeoConfiguration.class), isA(Settings.class), isA(SettingsDecrypter.class), isA(MavenProjectHelper.class), isA(BuildMetrics.class))).thenReturn(serviceHub);
+        when(serviceHub.getContainerfileDecorator()).thenReturn(containerfileDecorator);
+        when(serviceHub.getPodmanExecutorService()).thenReturn(podmanExecutorService);
+        when(serviceHub.getSecurityContextService()).thenReturn(securityContextService);
+        when(serviceHub.getMavenProjectHelper()).thenReturn(mavenProjectHelper);
+        mockBuildOutput(Collections.singletonList("ca1f5f48ef431c0818d5e8797dfe707557bdc728fe7c3027c75de18f934a3b76"));
+
+        assertDoesNotThrow(() -> buildMojo.execute());
+
+        assertEquals(2, buildMojo.resolvedImages.size());
+        Mockito.verify(podmanExecutorService, Mockito.times(2)).build(isA(SingleImageConfiguration.class), any());
+        Mockito.verify(securityContextService, Mockito.times(1)).setSecurityContext();
+        Mockito.verify(log, Mockito.times(1)).info("Building 2 container images using 2 threads...");
+
+        // Every Containerfile must be filtered to its own location, so that images can be built concurrently
+        assertNotEquals(buildMojo.resolvedImages.get(0).getBuild().getTargetContainerFile(), buildMojo.resolvedImages.get(1).getBuild().getTargetContainerFile());
+
+        // The catalog follows the order of the resolved images, regardless of the order in which the builds completed
+        List<String> expectedCatalog = new ArrayList<>();
+        expectedCatalog.add("[containers]");
+        expectedCatalog.add("registry.example.com/" + buildMojo.resolvedImages.get(0).getImageName() + ":1.0.0");
+        expectedCatalog.add("registry.example.com/" + buildMojo.resolvedImages.get(1).getImageName() + ":1.0.0");
+        assertEquals(expectedCatalog, assertDoesNotThrow(() -> Files.readAllLines(Paths.get("target", "container-catalog.txt"))));
+    }
+
+
     private void configureMojo(PodmanConfiguration podman, BatchImageConfiguration batch) {
         buildMojo.podman = podman;
         buildMojo.skip = false;
@@ -6,7 +6,9 @@ import nl.lexemmens.podman.config.podman.PodmanConfiguration;
 import nl.lexemmens.podman.config.podman.TestPodmanConfigurationBuilder;
 import nl.lexemmens.podman.config.skopeo.SkopeoConfiguration;
 import nl.lexemmens.podman.enumeration.TlsVerify;
+import nl.lexemmens.podman.executor.BuildMetrics;
 import nl.lexemmens.podman.service.ContainerfileDecorator;
+import org.apache.commons.io.FileUtils;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.logging.Log;
 import org.apache.maven.project.MavenProject;
@@ -21,9 +23,11 @@ import org.junit.Test;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.runner.RunWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
+import org.mockito.invocation.InvocationOnMock;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.mockito.junit.jupiter.MockitoExtension;
 
@@ -34,17 +38,26 @@ import java.net.URISyntaxException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isA;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -173,17 +186,17 @@ public class BuildMojoTest extends AbstractMojoTest {
 
         when(mavenProject.getBuild()).thenReturn(build);
         when(build.getDirectory()).thenReturn("target");
-        when(serviceHubFactory.createServiceHub(isA(Log.class), isA(MavenProject.class), isA(MavenFileFilter.class), isA(PodmanConfiguration.class), isA(SkopeoConfiguration.class), isA(Settings.class), isA(SettingsDecrypter.class), isA(MavenProjectHelper.class))).thenReturn(serviceHub);
+        when(serviceHubFactory.createServiceHub(isA(Log.class), isA(MavenProject.class), isA(MavenFileFilter.class), isA(PodmanConfiguration.class), isA(SkopeoConfiguration.class), isA(Settings.class), isA(SettingsDecrypter.class), isA(MavenProjectHelper.class), isA(BuildMetrics.class))).thenReturn(serviceHub);
         when(serviceHub.getContainerfileDecorator()).thenReturn(containerfileDecorator);
         when(serviceHub.getPodmanExecutorService()).thenReturn(podmanExecutorService);
         when(serviceHub.getSecurityContextService()).thenReturn(securityContextService);
-        when(podmanExecutorService.build(isA(SingleImageConfiguration.class))).thenReturn(Collections.singletonList("ca1f5f48ef431c0818d5e8797dfe707557bdc728fe7c3027c75de18f934a3b76"));
+        mockBuildOutput(Collections.singletonList("ca1f5f48ef431c0818d5e8797dfe707557bdc728fe7c3027c75de18f934a3b76"));
 
         buildMojo.execute();
 
         verify(log, Mockito.times(1)).info("Tagging container images is skipped.");
         verify(mavenFileFilter, Mockito.times(1)).copyFile(isA(MavenFileFilterRequest.class));
-        verify(podmanExecutorService, times(1)).build(isA(SingleImageConfiguration.class));
+        verify(podmanExecutorService, times(1)).build(isA(SingleImageConfiguration.class), any());
     }
 
     @Test
@@ -195,17 +208,17 @@ public class BuildMojoTest extends AbstractMojoTest {
 
         when(mavenProject.getBuild()).thenReturn(build);
         when(build.getDirectory()).thenReturn("target");
-        when(serviceHubFactory.createServiceHub(isA(Log.class), isA(MavenProject.class), isA(MavenFileFilter.class), isA(PodmanConfiguration.class), isA(SkopeoConfiguration.class), isA(Settings.class), isA(SettingsDecrypter.class), isA(MavenProjectHelper.class))).thenReturn(serviceHub);
+        when(serviceHubFactory.createServiceHub(isA(Log.class), isA(MavenProject.class), isA(MavenFileFilter.class), isA(PodmanConfiguration.class), isA(SkopeoConfiguration.class), isA(Settings.class), isA(SettingsDecrypter.class), isA(MavenProjectHelper.class), isA(BuildMetrics.class))).thenReturn(serviceHub);
         when(serviceHub.getContainerfileDecorator()).thenReturn(containerfileDecorator);
         when(serviceHub.getPodmanExecutorService()).thenReturn(podmanExecutorService);
         when(serviceHub.getSecurityContextService()).thenReturn(securityContextService);
-        when(podmanExecutorService.build(isA(SingleImageConfiguration.class))).thenReturn(Collections.singletonList("ca1f5f48ef431c0818d5e8797dfe707557bdc728fe7c3027c75de18f934a3b76"));
+        mockBuildOutput(Collections.singletonList("ca1f5f48ef431c0818d5e8797dfe707557bdc728fe7c3027c75de18f934a3b76"));
 
         Assertions.assertDoesNotThrow(() -> buildMojo.execute());
 
         verify(log, Mockito.times(1)).info("Tagging container images is skipped.");
         verify(mavenFileFilter, Mockito.times(1)).copyFile(isA(MavenFileFilterRequest.class));
-        verify(podmanExecutorService, times(1)).build(isA(SingleImageConfiguration.class));
+        verify(podmanExecutorService, times(1)).build(isA(SingleImageConfiguration.class), any());
     }
 
     @Test
@@ -219,17 +232,17 @@ public class BuildMojoTest extends AbstractMojoTest {
 
         when(mavenProject.getBuild()).thenReturn(build);
         when(build.getDirectory()).thenReturn("target");
-        when(serviceHubFactory.createServiceHub(isA(Log.class), isA(MavenProject.class), isA(MavenFileFilter.class), isA(PodmanConfiguration.class), isA(SkopeoConfiguration.class), isA(Settings.class), isA(SettingsDecrypter.class), isA(MavenProjectHelper.class))).thenReturn(serviceHub);
+        when(serviceHubFactory.createServiceHub(isA(Log.class), isA(MavenProject.class), isA(MavenFileFilter.class), isA(PodmanConfiguration.class), isA(SkopeoConfiguration.class), isA(Settings.class), isA(SettingsDecrypter.class), isA(MavenProjectHelper.class), isA(BuildMetrics.class))).thenReturn(serviceHub);
         when(serviceHub.getContainerfileDecorator()).thenReturn(containerfileDecorator);
         when(serviceHub.getPodmanExecutorService()).thenReturn(podmanExecutorService);
         when(serviceHub.getSecurityContextService()).thenReturn(securityContextService);
-        when(podmanExecutorService.build(isA(SingleImageConfiguration.class))).thenReturn(Collections.singletonList("ca1f5f48ef431c0818d5e8797dfe707557bdc728fe7c3027c75de18f934a3b76"));
+        mockBuildOutput(Collections.singletonList("ca1f5f48ef431c0818d5e8797dfe707557bdc728fe7c3027c75de18f934a3b76"));
 
         buildMojo.execute();
 
         verify(log, Mockito.times(1)).info("Tagging container images is skipped.");
         verify(mavenFileFilter, Mockito.times(1)).copyFile(isA(MavenFileFilterRequest.class));
-        verify(podmanExecutorService, times(1)).build(isA(SingleImageConfiguration.class));
+        verify(podmanExecutorService, times(1)).build(isA(SingleImageConfiguration.class), any());
     }
 
     @Test
@@ -242,18 +255,18 @@ public class BuildMojoTest extends AbstractMojoTest {
 
         when(mavenProject.getBuild()).thenReturn(build);
         when(build.getDirectory()).thenReturn("target");
-        when(serviceHubFactory.createServiceHub(isA(Log.class), isA(MavenProject.class), isA(MavenFileFilter.class), isA(PodmanConfiguration.class), isA(SkopeoConfiguration.class), isA(Settings.class), isA(SettingsDecrypter.class), isA(MavenProjectHelper.class))).thenReturn(serviceHub);
+        when(serviceHubFactory.createServiceHub(isA(Log.class), isA(MavenProject.class), isA(MavenFileFilter.class), isA(PodmanConfiguration.class), isA(SkopeoConfiguration.class), isA(Settings.class), isA(SettingsDecrypter.class), isA(MavenProjectHelper.class), isA(BuildMetrics.class))).thenReturn(serviceHub);
         when(serviceHub.getContainerfileDecorator()).thenReturn(containerfileDecorator);
         when(serviceHub.getPodmanExecutorService()).thenReturn(podmanExecutorService);
         when(serviceHub.getSecurityContextService()).thenReturn(securityContextService);
-        when(podmanExecutorService.build(isA(SingleImageConfiguration.class))).thenReturn(Collections.singletonList("sha256:sampleimagehash"));
+        mockBuildOutput(Collections.singletonList("sha256:sampleimagehash"));
 
         buildMojo.execute();
 
         verify(log, Mockito.times(0)).info("Tagging container images is skipped.");
         verify(log, Mockito.times(1)).info("No tags specified. Skipping tagging of container images.");
         verify(mavenFileFilter, Mockito.times(1)).copyFile(isA(MavenFileFilterRequest.class));
-        verify(podmanExecutorService, times(1)).build(isA(SingleImageConfiguration.class));
+        verify(podmanExecutorService, times(1)).build(isA(SingleImageConfiguration.class), any());
     }
 
     @Test
@@ -267,18 +280,18 @@ public class BuildMojoTest extends AbstractMojoTest {
 
         when(mavenProject.getBuild()).thenReturn(build);
         when(build.getDirectory()).thenReturn("target");
-        when(serviceHubFactory.createServiceHub(isA(Log.class), isA(MavenProject.class), isA(MavenFileFilter.class), isA(PodmanConfiguration.class), isA(SkopeoConfiguration.class), isA(Settings.class), isA(SettingsDecrypter.class), isA(MavenProjectHelper.class))).thenReturn(serviceHub);
+        when(serviceHubFactory.createServiceHub(isA(Log.class), isA(MavenProject.class), isA(MavenFileFilter.class), isA(PodmanConfiguration.class), isA(SkopeoConfiguration.class), isA(Settings.class), isA(SettingsDecrypter.class), isA(MavenProjectHelper.class), isA(BuildMetrics.class))).thenReturn(serviceHub);
         when(serviceHub.getContainerfileDecorator()).thenReturn(containerfileDecorator);
         when(serviceHub.getPodmanExecutorService()).thenReturn(podmanExecutorService);
         when(serviceHub.getSecurityContextService()).thenReturn(securityContextService);
-        when(podmanExecutorService.build(isA(SingleImageConfiguration.class))).thenReturn(Collections.singletonList("sha256:sampleimagehash"));
+        mockBuildOutput(Collections.singletonList("sha256:sampleimagehash"));
 
         buildMojo.execute();
 
         verify(log, Mockito.times(0)).info("Tagging container images is skipped.");
         verify(log, Mockito.times(1)).info("No tags specified. Skipping tagging of container images.");
         verify(mavenFileFilter, Mockito.times(1)).copyFile(isA(MavenFileFilterRequest.class));
-        verify(podmanExecutorService, times(1)).build(isA(SingleImageConfiguration.class));
+        verify(podmanExecutorService, times(1)).build(isA(SingleImageConfiguration.class), any());
     }
 
     @Test
@@ -296,12 +309,12 @@ public class BuildMojoTest extends AbstractMojoTest {
 
         when(mavenProject.getBuild()).thenReturn(build);
         when(build.getDirectory()).thenReturn("target");
-        when(serviceHubFactory.createServiceHub(isA(Log.class), isA(MavenProject.class), isA(MavenFileFilter.class), isA(PodmanConfiguration.class), isA(SkopeoConfiguration.class), isA(Settings.class), isA(SettingsDecrypter.class), isA(MavenProjectHelper.class))).thenReturn(serviceHub);
+        when(serviceHubFactory.createServiceHub(isA(Log.class), isA(MavenProject.class), isA(MavenFileFilter.class), isA(PodmanConfiguration.class), isA(SkopeoConfiguration.class), isA(Settings.class), isA(SettingsDecrypter.class), isA(MavenProjectHelper.class), isA(BuildMetrics.class))).thenReturn(serviceHub);
         when(serviceHub.getContainerfileDecorator()).thenReturn(containerfileDecorator);
         when(serviceHub.getPodmanExecutorService()).thenReturn(podmanExecutorService);
         when(serviceHub.getMavenProjectHelper()).thenReturn(mavenProjectHelper);
         when(serviceHub.getSecurityContextService()).thenReturn(securityContextService);
-        when(podmanExecutorService.build(isA(SingleImageConfiguration.class))).thenReturn(Collections.singletonList(imageHash));
+        mockBuildOutput(Collections.singletonList(imageHash));
 
         buildMojo.execute();
 
@@ -309,8 +322,8 @@ public class BuildMojoTest extends AbstractMojoTest {
         verify(log, Mockito.times(0)).info("No tags specified. Skipping tagging of container images.");
         verify(log, Mockito.times(1)).info("Tagging container image " + imageHash + " as " + expectedFullImageName);
         verify(mavenFileFilter, Mockito.times(1)).copyFile(isA(MavenFileFilterRequest.class));
-        verify(podmanExecutorService, times(1)).build(isA(SingleImageConfiguration.class));
-        verify(podmanExecutorService, times(1)).tag(imageHash, expectedFullImageName);
+        verify(podmanExecutorService, times(1)).build(isA(SingleImageConfiguration.class), any());
+        verify(podmanExecutorService, times(1)).tag(imageHash, Collections.singletonList(expectedFullImageName));
         verifyContainerCatalog(expectedFullImageName);
     }
 
@@ -329,12 +342,12 @@ public class BuildMojoTest extends AbstractMojoTest {
 
         when(mavenProject.getBuild()).thenReturn(build);
         when(build.getDirectory()).thenReturn("target");
-        when(serviceHubFactory.createServiceHub(isA(Log.class), isA(MavenProject.class), isA(MavenFileFilter.class), isA(PodmanConfiguration.class), isA(SkopeoConfiguration.class), isA(Settings.class), isA(SettingsDecrypter.class), isA(MavenProjectHelper.class))).thenReturn(serviceHub);
+        when(serviceHubFactory.createServiceHub(isA(Log.class), isA(MavenProject.class), isA(MavenFileFilter.class), isA(PodmanConfiguration.class), isA(SkopeoConfiguration.class), isA(Settings.class), isA(SettingsDecrypter.class), isA(MavenProjectHelper.class), isA(BuildMetrics.class))).thenReturn(serviceHub);
         when(serviceHub.getContainerfileDecorator()).thenReturn(containerfileDecorator);
         when(serviceHub.getPodmanExecutorService()).thenReturn(podmanExecutorService);
         when(serviceHub.getMavenProjectHelper()).thenReturn(mavenProjectHelper);
         when(serviceHub.getSecurityContextService()).thenReturn(securityContextService);
-        when(podmanExecutorService.build(isA(SingleImageConfiguration.class))).thenReturn(Collections.singletonList(imageHash));
+        mockBuildOutput(Collections.singletonList(imageHash));
 
         buildMojo.execute();
 
@@ -343,8 +356,8 @@ public class BuildMojoTest extends AbstractMojoTest {
         verify(log, Mockito.times(1)).info("Tagging container image " + imageHash + " as registry.example.com/sample:latest");
         verify(mavenFileFilter, Mockito.times(1)).copyFile(isA(MavenFileFilterRequest.class));
 
-        verify(podmanExecutorService, times(1)).build(isA(SingleImageConfiguration.class));
-        verify(podmanExecutorService, times(1)).tag(imageHash, expectedFullImageName);
+        verify(podmanExecutorService, times(1)).build(isA(SingleImageConfiguration.class), any());
+        verify(podmanExecutorService, times(1)).tag(imageHash, Collections.singletonList(expectedFullImageName));
         verifyContainerCatalog(expectedFullImageName);
     }
 
@@ -381,7 +394,7 @@ public class BuildMojoTest extends AbstractMojoTest {
 
         when(mavenProject.getBuild()).thenReturn(build);
         when(build.getDirectory()).thenReturn("target");
-        when(serviceHubFactory.createServiceHub(isA(Log.class), isA(MavenProject.class), isA(MavenFileFilter.class), isA(PodmanConfiguration.class), isA(SkopeoConfiguration.class), isA(Settings.class), isA(SettingsDecrypter.class), isA(MavenProjectHelper.class))).thenReturn(serviceHub);
+        when(serviceHubFactory.createServiceHub(isA(Log.class), isA(MavenProject.class), isA(MavenFileFilter.class), isA(PodmanConfiguration.class), isA(SkopeoConfiguration.class), isA(Settings.class), isA(SettingsDecrypter.class), isA(MavenProjectHelper.class), isA(BuildMetrics.class))).thenReturn(serviceHub);
 
         Assertions.assertDoesNotThrow(buildMojo::execute);
         verify(log, Mockito.times(1)).warn("No Containerfile was found at " + targetLocationAsString + File.separator + "Containerfile, however this will be ignored due to current plugin configuration.");
@@ -470,12 +483,13 @@ public class BuildMojoTest extends AbstractMojoTest {
 
         when(mavenProject.getBuild()).thenReturn(build);
         when(build.getDirectory()).thenReturn("target");
-        when(serviceHubFactory.createServiceHub(isA(Log.class), isA(MavenProject.class), isA(MavenFileFilter.class), isA(PodmanConfiguration.class), isA(SkopeoConfiguration.class), isA(Settings.class), isA(SettingsDecrypter.class), isA(MavenProjectHelper.class))).thenReturn(serviceHub);
+        when(serviceHubFactory.createServiceHub(isA(Log.class), isA(MavenProject.class), isA(MavenFileFilter.class), isA(PodmanConfiguration.class), isA(SkopeoConfiguration.class), isA(Settings.class), isA(SettingsDecrypter.class), isA(MavenProjectHelper.class), isA(BuildMetrics.class))).thenReturn(serviceHub);
         when(serviceHub.getContainerfileDecorator()).thenReturn(containerfileDecorator);
         when(serviceHub.getPodmanExecutorService()).thenReturn(podmanExecutorService);
         when(serviceHub.getMavenProjectHelper()).thenReturn(mavenProjectHelper);
         when(serviceHub.getSecurityContextService()).thenReturn(securityContextService);
-        when(podmanExecutorService.build(isA(SingleImageConfiguration.class))).thenReturn(buildOutputUnderTest);
+        when(log.isDebugEnabled()).thenReturn(true);
+        mockBuildOutput(buildOutputUnderTest);
 
         buildMojo.execute();
 
@@ -498,7 +512,7 @@ public class BuildMojoTest extends AbstractMojoTest {
 
         // Verify tagging image
         verify(log, times(1)).info("Tagging container image d2efc6645cbb6ea012f8adcaaab6b03ef847dd3d2b4fa418ca4cde57eff28a7f as registry.example.com/sample:1.0.0");
-        verify(podmanExecutorService, times(1)).tag("d2efc6645cbb6ea012f8adcaaab6b03ef847dd3d2b4fa418ca4cde57eff28a7f", "registry.example.com/sample:1.0.0");
+        verify(podmanExecutorService, times(1)).tag("d2efc6645cbb6ea012f8adcaaab6b03ef847dd3d2b4fa418ca4cde57eff28a7f", Collections.singletonList("registry.example.com/sample:1.0.0"));
 
         verify(log, times(1)).info("Built container image.");
         verifyContainerCatalog("registry.example.com/sample:1.0.0");
@@ -529,12 +543,13 @@ public class BuildMojoTest extends AbstractMojoTest {
 
         when(mavenProject.getBuild()).thenReturn(build);
         when(build.getDirectory()).thenReturn("target");
-        when(serviceHubFactory.createServiceHub(isA(Log.class), isA(MavenProject.class), isA(MavenFileFilter.class), isA(PodmanConfiguration.class), isA(SkopeoConfiguration.class), isA(Settings.class), isA(SettingsDecrypter.class), isA(MavenProjectHelper.class))).thenReturn(serviceHub);
+        when(serviceHubFactory.createServiceHub(isA(Log.class), isA(MavenProject.class), isA(MavenFileFilter.class), isA(PodmanConfiguration.class), isA(SkopeoConfiguration.class), isA(Settings.class), isA(SettingsDecrypter.class), isA(MavenProjectHelper.class), isA(BuildMetrics.class))).thenReturn(serviceHub);
         when(serviceHub.getContainerfileDecorator()).thenReturn(containerfileDecorator);
         when(serviceHub.getPodmanExecutorService()).thenReturn(podmanExecutorService);
         when(serviceHub.getMavenProjectHelper()).thenReturn(mavenProjectHelper);
         when(serviceHub.getSecurityContextService()).thenReturn(securityContextService);
-        when(podmanExecutorService.build(isA(SingleImageConfiguration.class))).thenReturn(buildOutputUnderTest);
+        when(log.isDebugEnabled()).thenReturn(true);
+        mockBuildOutput(buildOutputUnderTest);
 
         buildMojo.execute();
 
@@ -562,8 +577,8 @@ public class BuildMojoTest extends AbstractMojoTest {
         verify(log, times(1)).info("Tagging container image d2efc6645cb from stage phase2 as registry.example.com/image-name-number-2:0.2.1");
         verify(log, times(0)).info("Tagging container image d2efc6645cb as registry.example.com/sample:1.0.0");
 
-        verify(podmanExecutorService, times(1)).tag("7f55eab001a", "registry.example.com/image-name-number-1:0.2.1");
-        verify(podmanExecutorService, times(1)).tag("d2efc6645cb", "registry.example.com/image-name-number-2:0.2.1");
+        verify(podmanExecutorService, times(1)).tag("7f55eab001a", Collections.singletonList("registry.example.com/image-name-number-1:0.2.1"));
+        verify(podmanExecutorService, times(1)).tag("d2efc6645cb", Collections.singletonList("registry.example.com/image-name-number-2:0.2.1"));
 
         verify(log, times(1)).info("Built container image.");
 
@@ -597,11 +612,12 @@ public class BuildMojoTest extends AbstractMojoTest {
 
         when(mavenProject.getBuild()).thenReturn(build);
         when(build.getDirectory()).thenReturn("target");
-        when(serviceHubFactory.createServiceHub(isA(Log.class), isA(MavenProject.class), isA(MavenFileFilter.class), isA(PodmanConfiguration.class), isA(SkopeoConfiguration.class), isA(Settings.class), isA(SettingsDecrypter.class), isA(MavenProjectHelper.class))).thenReturn(serviceHub);
+        when(serviceHubFactory.createServiceHub(isA(Log.class), isA(MavenProject.class), isA(MavenFileFilter.class), isA(PodmanConfiguration.class), isA(SkopeoConfiguration.class), isA(Settings.class), isA(SettingsDecrypter.class), isA(MavenProjectHelper.class), isA(BuildMetrics.class))).thenReturn(serviceHub);
         when(serviceHub.getContainerfileDecorator()).thenReturn(containerfileDecorator);
         when(serviceHub.getPodmanExecutorService()).thenReturn(podmanExecutorService);
         when(serviceHub.getSecurityContextService()).thenReturn(securityContextService);
-        when(podmanExecutorService.build(isA(SingleImageConfiguration.class))).thenReturn(buildOutputUnderTest);
+        when(log.isDebugEnabled()).thenReturn(true);
+        mockBuildOutput(buildOutputUnderTest);
 
         buildMojo.execute();
 
@@ -653,12 +669,13 @@ public class BuildMojoTest extends AbstractMojoTest {
 
         when(mavenProject.getBuild()).thenReturn(build);
         when(build.getDirectory()).thenReturn("target");
-        when(serviceHubFactory.createServiceHub(isA(Log.class), isA(MavenProject.class), isA(MavenFileFilter.class), isA(PodmanConfiguration.class), isA(SkopeoConfiguration.class), isA(Settings.class), isA(SettingsDecrypter.class), isA(MavenProjectHelper.class))).thenReturn(serviceHub);
+        when(serviceHubFactory.createServiceHub(isA(Log.class), isA(MavenProject.class), isA(MavenFileFilter.class), isA(PodmanConfiguration.class), isA(SkopeoConfiguration.class), isA(Settings.class), isA(SettingsDecrypter.class), isA(MavenProjectHelper.class), isA(BuildMetrics.class))).thenReturn(serviceHub);
         when(serviceHub.getContainerfileDecorator()).thenReturn(containerfileDecorator);
         when(serviceHub.getPodmanExecutorService()).thenReturn(podmanExecutorService);
         when(serviceHub.getSecurityContextService()).thenReturn(securityContextService);
         when(serviceHub.getMavenProjectHelper()).thenReturn(mavenProjectHelper);
-        when(podmanExecutorService.build(isA(SingleImageConfiguration.class))).thenReturn(buildOutputUnderTest);
+        when(log.isDebugEnabled()).thenReturn(true);
+        mockBuildOutput(buildOutputUnderTest);
 
         buildMojo.execute();
 
@@ -713,12 +730,13 @@ public class BuildMojoTest extends AbstractMojoTest {
 
         when(mavenProject.getBuild()).thenReturn(build);
         when(build.getDirectory()).thenReturn("target");
-        when(serviceHubFactory.createServiceHub(isA(Log.class), isA(MavenProject.class), isA(MavenFileFilter.class), isA(PodmanConfiguration.class), isA(SkopeoConfiguration.class), isA(Settings.class), isA(SettingsDecrypter.class), isA(MavenProjectHelper.class))).thenReturn(serviceHub);
+        when(serviceHubFactory.createServiceHub(isA(Log.class), isA(MavenProject.class), isA(MavenFileFilter.class), isA(PodmanConfiguration.class), isA(SkopeoConfiguration.class), isA(Settings.class), isA(SettingsDecrypter.class), isA(MavenProjectHelper.class), isA(BuildMetrics.class))).thenReturn(serviceHub);
         when(serviceHub.getContainerfileDecorator()).thenReturn(containerfileDecorator);
         when(serviceHub.getPodmanExecutorService()).thenReturn(podmanExecutorService);
         when(serviceHub.getSecurityContextService()).thenReturn(securityContextService);
         when(serviceHub.getMavenProjectHelper()).thenReturn(mavenProjectHelper);
-        when(podmanExecutorService.build(isA(SingleImageConfiguration.class))).thenReturn(buildOutputUnderTest);
+        when(log.isDebugEnabled()).thenReturn(true);
+        mockBuildOutput(buildOutputUnderTest);
 
         buildMojo.execute();
 
@@ -774,12 +792,13 @@ public class BuildMojoTest extends AbstractMojoTest {
 
         when(mavenProject.getBuild()).thenReturn(build);
         when(build.getDirectory()).thenReturn("target");
-        when(serviceHubFactory.createServiceHub(isA(Log.class), isA(MavenProject.class), isA(MavenFileFilter.class), isA(PodmanConfiguration.class), isA(SkopeoConfiguration.class), isA(Settings.class), isA(SettingsDecrypter.class), isA(MavenProjectHelper.class))).thenReturn(serviceHub);
+        when(serviceHubFactory.createServiceHub(isA(Log.class), isA(MavenProject.class), isA(MavenFileFilter.class), isA(PodmanConfiguration.class), isA(SkopeoConfiguration.class), isA(Settings.class), isA(SettingsDecrypter.class), isA(MavenProjectHelper.class), isA(BuildMetrics.class))).thenReturn(serviceHub);
         when(serviceHub.getContainerfileDecorator()).thenReturn(containerfileDecorator);
         when(serviceHub.getPodmanExecutorService()).thenReturn(podmanExecutorService);
         when(serviceHub.getSecurityContextService()).thenReturn(securityContextService);
         when(serviceHub.getMavenProjectHelper()).thenReturn(mavenProjectHelper);
-        when(podmanExecutorService.build(isA(SingleImageConfiguration.class))).thenReturn(buildOutputUnderTest);
+        when(log.isDebugEnabled()).thenReturn(true);
+        mockBuildOutput(buildOutputUnderTest);
 
         buildMojo.execute();
 
@@ -805,8 +824,8 @@ public class BuildMojoTest extends AbstractMojoTest {
         verify(log, times(1)).info("Tagging container image d2efc6645cb from stage phase2 as registry.example.com/image-name-number-2:0.2.1");
         verify(log, times(0)).info("Tagging container image d2efc6645cb as registry.example.com/sample:1.0.0");
 
-        verify(podmanExecutorService, times(1)).tag("7f55eab001a", "registry.example.com/image-name-number-1:0.2.1");
-        verify(podmanExecutorService, times(1)).tag("d2efc6645cb", "registry.example.com/image-name-number-2:0.2.1");
+        verify(podmanExecutorService, times(1)).tag("7f55eab001a", Collections.singletonList("registry.example.com/image-name-number-1:0.2.1"));
+        verify(podmanExecutorService, times(1)).tag("d2efc6645cb", Collections.singletonList("registry.example.com/image-name-number-2:0.2.1"));
 
         verify(log, times(1)).info("Built container image.");
 
@@ -841,12 +860,13 @@ public class BuildMojoTest extends AbstractMojoTest {
 
         when(mavenProject.getBuild()).thenReturn(build);
         when(build.getDirectory()).thenReturn("target");
-        when(serviceHubFactory.createServiceHub(isA(Log.class), isA(MavenProject.class), isA(MavenFileFilter.class), isA(PodmanConfiguration.class), isA(SkopeoConfiguration.class), isA(Settings.class), isA(SettingsDecrypter.class), isA(MavenProjectHelper.class))).thenReturn(serviceHub);
+        when(serviceHubFactory.createServiceHub(isA(Log.class), isA(MavenProject.class), isA(MavenFileFilter.class), isA(PodmanConfiguration.class), isA(SkopeoConfiguration.class), isA(Settings.class), isA(SettingsDecrypter.class), isA(MavenProjectHelper.class), isA(BuildMetrics.class))).thenReturn(serviceHub);
         when(serviceHub.getContainerfileDecorator()).thenReturn(containerfileDecorator);
         when(serviceHub.getPodmanExecutorService()).thenReturn(podmanExecutorService);
         when(serviceHub.getSecurityContextService()).thenReturn(securityContextService);
         when(serviceHub.getMavenProjectHelper()).thenReturn(mavenProjectHelper);
-        when(podmanExecutorService.build(isA(SingleImageConfiguration.class))).thenReturn(buildOutputUnderTest);
+        when(log.isDebugEnabled()).thenReturn(true);
+        mockBuildOutput(buildOutputUnderTest);
 
         buildMojo.execute();
 
@@ -871,8 +891,8 @@ public class BuildMojoTest extends AbstractMojoTest {
         verify(log, times(1)).info("Tagging container image 7f55eab001a from stage phase as registry.example.com/image-name-number-1:0.2.1");
         verify(log, times(1)).info("Tagging container image d2efc6645cb from stage phase2 as registry.example.com/image-name-number-2:0.2.1");
 
-        verify(podmanExecutorService, times(1)).tag("7f55eab001a", "registry.example.com/image-name-number-1:0.2.1");
-        verify(podmanExecutorService, times(1)).tag("d2efc6645cb", "registry.example.com/image-name-number-2:0.2.1");
+        verify(podmanExecutorService, times(1)).tag("7f55eab001a", Collections.singletonList("registry.example.com/image-name-number-1:0.2.1"));
+        verify(podmanExecutorService, times(1)).tag("d2efc6645cb", Collections.singletonList("registry.example.com/image-name-number-2:0.2.1"));
 
         verify(log, times(1)).info("Built container image.");
 
@@ -907,12 +927,13 @@ public class BuildMojoTest extends AbstractMojoTest {
 
         when(mavenProject.getBuild()).thenReturn(build);
         when(build.getDirectory()).thenReturn("target");
-        when(serviceHubFactory.createServiceHub(isA(Log.class), isA(MavenProject.class), isA(MavenFileFilter.class), isA(PodmanConfiguration.class), isA(SkopeoConfiguration.class), isA(Settings.class), isA(SettingsDecrypter.class), isA(MavenProjectHelper.class))).thenReturn(serviceHub);
+        when(serviceHubFactory.createServiceHub(isA(Log.class), isA(MavenProject.class), isA(MavenFileFilter.class), isA(PodmanConfiguration.class), isA(SkopeoConfiguration.class), isA(Settings.class), isA(SettingsDecrypter.class), isA(MavenProjectHelper.class), isA(BuildMetrics.class))).thenReturn(serviceHub);
         when(serviceHub.getContainerfileDecorator()).thenReturn(containerfileDecorator);
         when(serviceHub.getPodmanExecutorService()).thenReturn(podmanExecutorService);
         when(serviceHub.getMavenProjectHelper()).thenReturn(mavenProjectHelper);
         when(serviceHub.getSecurityContextService()).thenReturn(securityContextService);
-        when(podmanExecutorService.build(isA(SingleImageConfiguration.class))).thenReturn(buildOutputUnderTest);
+        when(log.isDebugEnabled()).thenReturn(true);
+        mockBuildOutput(buildOutputUnderTest);
 
         buildMojo.execute();
 
@@ -937,8 +958,8 @@ public class BuildMojoTest extends AbstractMojoTest {
         verify(log, times(1)).info("Tagging container image b51d6faa80bc4cc9ea93ec3b3b3bdff9629500330df37295c72d388d17b9c303 from stage phase as registry.example.com/image-name-number-1:0.2.1");
         verify(log, times(1)).info("Tagging container image ba6cb6863b48c3487810458db4b88b238f086cef65078839d9efe30f1069bed7 from stage phase2 as registry.example.com/image-name-number-2:0.2.1");
 
-        verify(podmanExecutorService, times(1)).tag("b51d6faa80bc4cc9ea93ec3b3b3bdff9629500330df37295c72d388d17b9c303", "registry.example.com/image-name-number-1:0.2.1");
-        verify(podmanExecutorService, times(1)).tag("ba6cb6863b48c3487810458db4b88b238f086cef65078839d9efe30f1069bed7", "registry.example.com/image-name-number-2:0.2.1");
+        verify(podmanExecutorService, times(1)).tag("b51d6faa80bc4cc9ea93ec3b3b3bdff9629500330df37295c72d388d17b9c303", Collections.singletonList("registry.example.com/image-name-number-1:0.2.1"));
+        verify(podmanExecutorService, times(1)).tag("ba6cb6863b48c3487810458db4b88b238f086cef65078839d9efe30f1069bed7", Collections.singletonList("registry.example.com/image-name-number-2:0.2.1"));
 
         verify(log, times(1)).info("Built container image.");
 
@@ -995,12 +1016,13 @@ public class BuildMojoTest extends AbstractMojoTest {
 
         when(mavenProject.getBuild()).thenReturn(build);
         when(build.getDirectory()).thenReturn("target");
-        when(serviceHubFactory.createServiceHub(isA(Log.class), isA(MavenProject.class), isA(MavenFileFilter.class), isA(PodmanConfiguration.class), isA(SkopeoConfiguration.class), isA(Settings.class), isA(SettingsDecrypter.class), isA(MavenProjectHelper.class))).thenReturn(serviceHub);
+        when(serviceHubFactory.createServiceHub(isA(Log.class), isA(MavenProject.class), isA(MavenFileFilter.class), isA(PodmanConfiguration.class), isA(SkopeoConfiguration.class), isA(Settings.class), isA(SettingsDecrypter.class), isA(MavenProjectHelper.class), isA(BuildMetrics.class))).thenReturn(serviceHub);
         when(serviceHub.getContainerfileDecorator()).thenReturn(containerfileDecorator);
         when(serviceHub.getPodmanExecutorService()).thenReturn(podmanExecutorService);
         when(serviceHub.getSecurityContextService()).thenReturn(securityContextService);
         when(serviceHub.getMavenProjectHelper()).thenReturn(mavenProjectHelper);
-        when(podmanExecutorService.build(isA(SingleImageConfiguration.class))).thenReturn(buildOutputUnderTest);
+        when(log.isDebugEnabled()).thenReturn(true);
+        mockBuildOutput(buildOutputUnderTest);
 
         buildMojo.execute();
 
@@ -1026,7 +1048,7 @@ public class BuildMojoTest extends AbstractMojoTest {
         verify(log, times(0)).info("Tagging container image d2efc6645cb from stage phase2 as registry.example.com/sample:0.2.1");
         verify(log, times(1)).info("Tagging container image 7f55eab001adf2dfeas8adc03ef847dd3d2b4fa42b4fa418ca4cdeb6eaef8f3b as registry.example.com/sample:0.2.1");
 
-        verify(podmanExecutorService, times(1)).tag("7f55eab001adf2dfeas8adc03ef847dd3d2b4fa42b4fa418ca4cdeb6eaef8f3b", "registry.example.com/sample:0.2.1");
+        verify(podmanExecutorService, times(1)).tag("7f55eab001adf2dfeas8adc03ef847dd3d2b4fa42b4fa418ca4cdeb6eaef8f3b", Collections.singletonList("registry.example.com/sample:0.2.1"));
 
         verify(log, times(1)).info("Built container image.");
 
@@ -1035,6 +1057,298 @@ public class BuildMojoTest extends AbstractMojoTest {
         );
     }
 
+    @Test
+    public void testIncrementalBuildSkipsUnchangedImage() throws MojoExecutionException, IOException, MavenFilteringException {
+        Path buildDirectory = Files.createTempDirectory("incremental-build");
+
+        PodmanConfiguration podman = new TestPodmanConfigurationBuilder().setTlsVerify(TlsVerify.FALSE).build();
+        SingleImageConfiguration image = new TestSingleImageConfigurationBuilder("sample-incremental")
+                .setContainerfile("Containerfile")
+                .setContainerfileDir("src/test/resources/customdockerfile")
+                .setContextDir("src/test/resources/customdockerfile")
+                .setTags(new String[]{"1.0.0"})
+                .build();
+        configureMojo(podman, image, true, false, false, false, true);
+        buildMojo.incremental = true;
+
+        String imageHash = "ca1f5f48ef431c0818d5e8797dfe707557bdc728fe7c3027c75de18f934a3b76";
+        when(mavenProject.getBuild()).thenReturn(build);
+        when(build.getDirectory()).thenReturn(buildDirectory.toString());
+        when(serviceHubFactory.createServiceHub(isA(Log.class), isA(MavenProject.class), isA(MavenFileFilter.class), isA(PodmanConfiguration.class), isA(SkopeoConfiguration.class), isA(Settings.class), isA(SettingsDecrypter.class), isA(MavenProjectHelper.class), isA(BuildMetrics.class))).thenReturn(serviceHub);
+        when(serviceHub.getContainerfileDecorator()).thenReturn(containerfileDecorator);
+        when(serviceHub.getPodmanExecutorService()).thenReturn(podmanExecutorService);
+        when(serviceHub.getSecurityContextService()).thenReturn(securityContextService);
+        when(serviceHub.getMavenProjectHelper()).thenReturn(mavenProjectHelper);
+        mockBuildOutput(Collections.singletonList(imageHash));
+        when(podmanExecutorService.getLocalImageId(imageHash)).thenReturn(Optional.of(imageHash));
+        doAnswer(this::copyContainerfile).when(mavenFileFilter).copyFile(isA(MavenFileFilterRequest.class));
+
+        try {
+            buildMojo.execute();
+            // Simulate a second invocation of the plugin
+            buildMojo.execute();
+        } finally {
+            FileUtils.deleteDirectory(buildDirectory.toFile());
+        }
+
+        verify(podmanExecutorService, times(1)).build(isA(SingleImageConfiguration.class), any());
+        verify(podmanExecutorService, times(1)).getLocalImageId(imageHash);
+        verify(podmanExecutorService, times(2)).tag(imageHash, Collections.singletonList("registry.example.com/sample-incremental:1.0.0"));
+        verify(log, times(1)).info("Container image sample-incremental is up to date. Skipping build.");
+        verify(log, times(1)).info("Built container image.");
+    }
+
+    @Test
+    public void testIncrementalBuildRebuildsWhenImageNoLongerExists() throws MojoExecutionException, IOException, MavenFilteringException {
+        Path buildDirectory = Files.createTempDirectory("incremental-build");
+
+        PodmanConfiguration podman = new TestPodmanConfigurationBuilder().setTlsVerify(TlsVerify.FALSE).build();
+        SingleImageConfiguration image = new TestSingleImageConfigurationBuilder("sample-removed")
+                .setContainerfile("Containerfile")
+                .setContainerfileDir("src/test/resources/customdockerfile")
+                .setContextDir("src/test/resources/customdockerfile")
+                .build();
+        configureMojo(podman, image, true, false, false, true, true);
+        buildMojo.incremental = true;
+
+        String imageHash = "ca1f5f48ef431c0818d5e8797dfe707557bdc728fe7c3027c75de18f934a3b76";
+        when(mavenProject.getBuild()).thenReturn(build);
+        when(build.getDirectory()).thenReturn(buildDirectory.toString());
+        when(serviceHubFactory.createServiceHub(isA(Log.class), isA(MavenProject.class), isA(MavenFileFilter.class), isA(PodmanConfiguration.class), isA(SkopeoConfiguration.class), isA(Settings.class), isA(SettingsDecrypter.class), isA(MavenProjectHelper.class), isA(BuildMetrics.class))).thenReturn(serviceHub);
+        when(serviceHub.getContainerfileDecorator()).thenReturn(containerfileDecorator);
+        when(serviceHub.getPodmanExecutorService()).thenReturn(podmanExecutorService);
+        when(serviceHub.getSecurityContextService()).thenReturn(securityContextService);
+        mockBuildOutput(Collections.singletonList(imageHash));
+        when(podmanExecutorService.getLocalImageId(imageHash)).thenReturn(Optional.empty());
+        doAnswer(this::copyContainerfile).when(mavenFileFilter).copyFile(isA(MavenFileFilterRequest.class));
+
+        try {
+            buildMojo.execute();
+            // Simulate a second invocation of the plugin
+            buildMojo.execute();
+        } finally {
+            FileUtils.deleteDirectory(buildDirectory.toFile());
+        }
+
+        verify(podmanExecutorService, times(2)).build(isA(SingleImageConfiguration.class), any());
+        verify(log, times(0)).info("Container image sample-removed is up to date. Skipping build.");
+    }
+
+    @Test
+    public void testMultiStageBuildResolvesStagesByTarget() throws MojoExecutionException {
+        PodmanConfiguration podman = new TestPodmanConfigurationBuilder().setTlsVerify(TlsVerify.FALSE).build();
+        SingleImageConfiguration image = new TestSingleImageConfigurationBuilder("sample")
+                .setContainerfileDir("src/test/resources/multistagecontainerfile")
+                .setTags(new String[]{"0.2.1"})
+                .setCreateLatestTag(false)
+                .setUseCustomImageNameForMultiStageContainerfile(true)
+                .addCustomImageNameForBuildStage("phase", "image-name-number-1")
+                .addCustomImageNameForBuildStage("phase2", "image-name-number-2")
+                .build();
+        configureMojo(podman, image, true, false, false, false, true);
+        buildMojo.resolveStagesByTarget = true;
+
+        when(mavenProject.getBuild()).thenReturn(build);
+        when(build.getDirectory()).thenReturn("target");
+        when(serviceHubFactory.createServiceHub(isA(Log.class), isA(MavenProject.class), isA(MavenFileFilter.class), isA(PodmanConfiguration.class), isA(SkopeoConfiguration.class), isA(Settings.class), isA(SettingsDecrypter.class), isA(MavenProjectHelper.class), isA(BuildMetrics.class))).thenReturn(serviceHub);
+        when(serviceHub.getContainerfileDecorator()).thenReturn(containerfileDecorator);
+        when(serviceHub.getPodmanExecutorService()).thenReturn(podmanExecutorService);
+        when(serviceHub.getMavenProjectHelper()).thenReturn(mavenProjectHelper);
+        when(serviceHub.getSecurityContextService()).thenReturn(securityContextService);
+        when(podmanExecutorService.build(isA(SingleImageConfiguration.class), any())).thenReturn(Optional.of("d2efc6645cb"));
+        when(podmanExecutorService.buildStage(isA(SingleImageConfiguration.class), eq("phase"), any())).thenReturn(Optional.of("7f55eab001a"));
+
+        buildMojo.execute();
+
+        verify(log, times(1)).info("Detected multistage Containerfile...");
+        verify(log, times(0)).debug(startsWith("Using regular expression"));
+
+        // Only stages that have an image name configured are resolved
+        verify(podmanExecutorService, times(0)).buildStage(isA(SingleImageConfiguration.class), eq("base"), any());
+        // The last stage is the final image
+        verify(podmanExecutorService, times(0)).buildStage(isA(SingleImageConfiguration.class), eq("phase2"), any());
+        verify(log, times(1)).info("Final image for stage phase is: 7f55eab001a");
+        verify(log, times(1)).info("Final image for stage phase2 is: d2efc6645cb");
+
+        verify(podmanExecutorService, times(1)).tag("7f55eab001a", Collections.singletonList("registry.example.com/image-name-number-1:0.2.1"));
+        verify(podmanExecutorService, times(1)).tag("d2efc6645cb", Collections.singletonList("registry.example.com/image-name-number-2:0.2.1"));
+
+        verify(log, times(1)).info("Built container image.");
+
+        verifyContainerCatalog(
+                "registry.example.com/image-name-number-1:0.2.1",
+                "registry.example.com/image-name-number-2:0.2.1"
+        );
+    }
+
+    @Test
+    public void testMultiStageBuildResolvesStagesByTargetUpToTargetStage() throws MojoExecutionException {
+        PodmanConfiguration podman = new TestPodmanConfigurationBuilder().setTlsVerify(TlsVerify.FALSE).build();
+        SingleImageConfiguration image = new TestSingleImageConfigurationBuilder("sample")
+                .setContainerfileDir("src/test/resources/multistagecontainerfile")
+                .setTags(new String[]{"0.2.1"})
+                .setCreateLatestTag(false)
+                .setTargetStage("phase")
+                .setUseCustomImageNameForMultiStageContainerfile(true)
+                .addCustomImageNameForBuildStage("phase", "image-name-number-1")
+                .addCustomImageNameForBuildStage("phase2", "image-name-number-2")
+                .build();
+        configureMojo(podman, image, true, false, false, false, true);
+        buildMojo.resolveStagesByTarget = true;
+
+        when(mavenProject.getBuild()).thenReturn(build);
+        when(build.getDirectory()).thenReturn("target");
+        when(serviceHubFactory.createServiceHub(isA(Log.class), isA(MavenProject.class), isA(MavenFileFilter.class), isA(PodmanConfiguration.class), isA(SkopeoConfiguration.class), isA(Settings.class), isA(SettingsDecrypter.class), isA(MavenProjectHelper.class), isA(BuildMetrics.class))).thenReturn(serviceHub);
+        when(serviceHub.getContainerfileDecorator()).thenReturn(containerfileDecorator);
+        when(serviceHub.getPodmanExecutorService()).thenReturn(podmanExecutorService);
+        when(serviceHub.getMavenProjectHelper()).thenReturn(mavenProjectHelper);
+        when(serviceHub.getSecurityContextService()).thenReturn(securityContextService);
+        when(podmanExecutorService.build(isA(SingleImageConfiguration.class), any())).thenReturn(Optional.of("7f55eab001a"));
+
+        buildMojo.execute();
+
+        // The target stage is the final image, and stages after the target stage are not built at all
+        verify(podmanExecutorService, times(0)).buildStage(isA(SingleImageConfiguration.class), anyString(), any());
+        verify(log, times(1)).info("Final image for stage phase is: 7f55eab001a");
+
+        verify(podmanExecutorService, times(1)).tag("7f55eab001a", Collections.singletonList("registry.example.com/image-name-number-1:0.2.1"));
+        verify(podmanExecutorService, times(0)).tag(anyString(), eq(Collections.singletonList("registry.example.com/image-name-number-2:0.2.1")));
+
+        verifyContainerCatalog(
+                "registry.example.com/image-name-number-1:0.2.1"
+        );
+    }
+
+    @Test
+    public void testMultiStageBuildSearchesOutputWhenLayerCacheIsNotUsed() throws MojoExecutionException, IOException, URISyntaxException {
+        URI sampleBuildOutputUri = PushMojoTest.class.getResource("/multistagecontainerfile/samplebuildoutput.txt").toURI();
+        Path sampleBuildOutputPath = Paths.get(sampleBuildOutputUri);
+
+        List<String> buildOutputUnderTest;
+        try (Stream<String> buildSampleOutput = Files.lines(sampleBuildOutputPath)) {
+            buildOutputUnderTest = buildSampleOutput.collect(Collectors.toList());
+        }
+
+        PodmanConfiguration podman = new TestPodmanConfigurationBuilder().setTlsVerify(TlsVerify.FALSE).build();
+        SingleImageConfiguration image = new TestSingleImageConfigurationBuilder("sample")
+                .setContainerfileDir("src/test/resources/multistagecontainerfile")
+                .setTags(new String[]{"0.2.1"})
+                .setCreateLatestTag(false)
+                .setNoCache(true)
+                .setUseCustomImageNameForMultiStageContainerfile(true)
+                .addCustomImageNameForBuildStage("phase", "image-name-number-1")
+                .addCustomImageNameForBuildStage("phase2", "image-name-number-2")
+                .build();
+        configureMojo(podman, image, true, false, false, false, true);
+        buildMojo.resolveStagesByTarget = true;
+
+        when(mavenProject.getBuild()).thenReturn(build);
+        when(build.getDirectory()).thenReturn("target");
+        when(serviceHubFactory.createServiceHub(isA(Log.class), isA(MavenProject.class), isA(MavenFileFilter.class), isA(PodmanConfiguration.class), isA(SkopeoConfiguration.class), isA(Settings.class), isA(SettingsDecrypter.class), isA(MavenProjectHelper.class), isA(BuildMetrics.class))).thenReturn(serviceHub);
+        when(serviceHub.getContainerfileDecorator()).thenReturn(containerfileDecorator);
+        when(serviceHub.getPodmanExecutorService()).thenReturn(podmanExecutorService);
+        when(serviceHub.getMavenProjectHelper()).thenReturn(mavenProjectHelper);
+        when(serviceHub.getSecurityContextService()).thenReturn(securityContextService);
+        mockBuildOutput(buildOutputUnderTest);
+
+        buildMojo.execute();
+
+        verify(log, times(1)).info("Final image for stage phase is: 7f55eab001a");
+        verify(podmanExecutorService, times(1)).tag("7f55eab001a", Collections.singletonList("registry.example.com/image-name-number-1:0.2.1"));
+
+        // Without the layer cache, building a stage again would build it from scratch
+        verify(podmanExecutorService, times(0)).buildStage(isA(SingleImageConfiguration.class), anyString(), any());
+        verify(log, times(1)).debug(startsWith("The layer cache is not used"));
+    }
+
+    @Test
+    public void testPushWhileBuilding() throws MojoExecutionException {
+        PodmanConfiguration podman = new TestPodmanConfigurationBuilder().setTlsVerify(TlsVerify.FALSE).build();
+        SingleImageConfiguration image = new TestSingleImageConfigurationBuilder("sample")
+                .setContainerfileDir(DEFAULT_CONTAINERFILE_DIR)
+                .setTags(new String[]{"1.0.0"})
+                .setCreateLatestTag(false)
+                .build();
+        configureMojo(podman, image, true, false, false, false, true);
+        buildMojo.pushWhileBuilding = true;
+        buildMojo.pushThreads = 2;
+
+        String imageHash = "ca1f5f48ef431c0818d5e8797dfe707557bdc728fe7c3027c75de18f934a3b76";
+        String expectedFullImageName = "registry.example.com/sample:1.0.0";
+
+        when(mavenProject.getBuild()).thenReturn(build);
+        when(build.getDirectory()).thenReturn("target");
+        when(serviceHubFactory.createServiceHub(isA(Log.class), isA(MavenProject.class), isA(MavenFileFilter.class), isA(PodmanConfiguration.class), isA(SkopeoConfiguration.class), isA(Settings.class), isA(SettingsDecrypter.class), isA(MavenProjectHelper.class), isA(BuildMetrics.class))).thenReturn(serviceHub);
+        when(serviceHub.getContainerfileDecorator()).thenReturn(containerfileDecorator);
+        when(serviceHub.getPodmanExecutorService()).thenReturn(podmanExecutorService);
+        when(serviceHub.getMavenProjectHelper()).thenReturn(mavenProjectHelper);
+        when(serviceHub.getSecurityContextService()).thenReturn(securityContextService);
+        mockBuildOutput(Collections.singletonList(imageHash));
+
+        buildMojo.execute();
+
+        InOrder inOrder = inOrder(podmanExecutorService, mavenProjectHelper);
+        inOrder.verify(podmanExecutorService, times(1)).tag(imageHash, Collections.singletonList(expectedFullImageName));
+        inOrder.verify(podmanExecutorService, times(1)).push(expectedFullImageName);
+        inOrder.verify(mavenProjectHelper, times(1)).attachArtifact(eq(mavenProject), eq("txt"), eq("container-catalog"), isA(File.class));
+        verify(log, times(1)).info("All images have been successfully pushed to the registry");
+        verifyContainerCatalog(expectedFullImageName);
+    }
+
+    @Test
+    public void testPushWhileBuildingFailureDoesNotAttachCatalog() throws MojoExecutionException {
+        PodmanConfiguration podman = new TestPodmanConfigurationBuilder().setTlsVerify(TlsVerify.FALSE).build();
+        SingleImageConfiguration image = new TestSingleImageConfigurationBuilder("sample")
+                .setContainerfileDir(DEFAULT_CONTAINERFILE_DIR)
+                .setTags(new String[]{"1.0.0"})
+                .setCreateLatestTag(false)
+                .build();
+        configureMojo(podman, image, true, false, false, false, true);
+        buildMojo.pushWhileBuilding = true;
+
+        String imageHash = "ca1f5f48ef431c0818d5e8797dfe707557bdc728fe7c3027c75de18f934a3b76";
+        String expectedFullImageName = "registry.example.com/sample:1.0.0";
+
+        when(mavenProject.getBuild()).thenReturn(build);
+        when(build.getDirectory()).thenReturn("target");
+        when(serviceHubFactory.createServiceHub(isA(Log.class), isA(MavenProject.class), isA(MavenFileFilter.class), isA(PodmanConfiguration.class), isA(SkopeoConfiguration.class), isA(Settings.class), isA(SettingsDecrypter.class), isA(MavenProjectHelper.class), isA(BuildMetrics.class))).thenReturn(serviceHub);
+        when(serviceHub.getContainerfileDecorator()).thenReturn(containerfileDecorator);
+        when(serviceHub.getPodmanExecutorService()).thenReturn(podmanExecutorService);
+        when(serviceHub.getSecurityContextService()).thenReturn(securityContextService);
+        mockBuildOutput(Collections.singletonList(imageHash));
+        doThrow(new MojoExecutionException("Push failed")).when(podmanExecutorService).push(expectedFullImageName);
+
+        MojoExecutionException e = Assertions.assertThrows(MojoExecutionException.class, buildMojo::execute);
+
+        assertEquals("Failed to push 1 of 1 container images: " + expectedFullImageName, e.getMessage());
+        verify(mavenProjectHelper, times(0)).attachArtifact(any(), anyString(), anyString(), any(File.class));
+    }
+
+    @Test
+    public void testPushWhileBuildingWithoutTaggingThrowsException() {
+        PodmanConfiguration podman = new TestPodmanConfigurationBuilder().setTlsVerify(TlsVerify.FALSE).build();
+        SingleImageConfiguration image = new TestSingleImageConfigurationBuilder("sample")
+                .setContainerfileDir(DEFAULT_CONTAINERFILE_DIR)
+                .setTags(new String[]{"1.0.0"})
+                .build();
+        configureMojo(podman, image, true, false, false, true, true);
+        buildMojo.pushWhileBuilding = true;
+
+        when(mavenProject.getBuild()).thenReturn(build);
+        when(build.getDirectory()).thenReturn("target");
+        when(serviceHubFactory.createServiceHub(isA(Log.class), isA(MavenProject.class), isA(MavenFileFilter.class), isA(PodmanConfiguration.class), isA(SkopeoConfiguration.class), isA(Settings.class), isA(SettingsDecrypter.class), isA(MavenProjectHelper.class), isA(BuildMetrics.class))).thenReturn(serviceHub);
+
+        MojoExecutionException e = Assertions.assertThrows(MojoExecutionException.class, buildMojo::execute);
+
+        assertEquals("Container images cannot be pushed while building when tagging is skipped.", e.getMessage());
+    }
+
+    private Object copyContainerfile(InvocationOnMock invocation) throws IOException {
+        MavenFileFilterRequest request = invocation.getArgument(0);
+        Files.copy(request.getFrom().toPath(), request.getTo().toPath(), StandardCopyOption.REPLACE_EXISTING);
+        return null;
+    }
+
     private void configureMojo(PodmanConfiguration podman, SingleImageConfiguration image, boolean skipAuth, boolean skipAll, boolean skipBuild, boolean skipTag, boolean failOnMissingContainerFile) {
         buildMojo.podman = podman;
         buildMojo.skip = skipAll;
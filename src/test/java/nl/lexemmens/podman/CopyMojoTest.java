@@ -5,6 +5,8 @@ import nl.lexemmens.podman.config.podman.TestPodmanConfigurationBuilder;
 import nl.lexemmens.podman.config.skopeo.SkopeoConfiguration;
 import nl.lexemmens.podman.config.skopeo.TestSkopeoConfigurationBuilder;
 import nl.lexemmens.podman.enumeration.TlsVerify;
+import nl.lexemmens.podman.executor.BuildMetrics;
+import nl.lexemmens.podman.helper.SkopeoSyncHelper.SyncBatch;
 import org.apache.maven.artifact.repository.ArtifactRepository;
 import org.apache.maven.artifact.repository.MavenArtifactRepository;
 import org.apache.maven.artifact.repository.layout.DefaultRepositoryLayout;
@@ -47,14 +49,17 @@ import java.nio.file.StandardCopyOption;
 import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.isA;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
@@ -109,7 +114,7 @@ public class CopyMojoTest extends AbstractMojoTest {
         containerCatalogArtifact = containerCatalogArtifact.setFile(containerCatalogPath.toFile());
 
         when(serviceHub.getSkopeoExecutorService()).thenReturn(skopeoExecutorService);
-        when(serviceHubFactory.createServiceHub(isA(Log.class), isA(MavenProject.class), isA(MavenFileFilter.class), isA(PodmanConfiguration.class), isA(SkopeoConfiguration.class), isA(Settings.class), isA(SettingsDecrypter.class), isA(MavenProjectHelper.class))).thenReturn(serviceHub);
+        when(serviceHubFactory.createServiceHub(isA(Log.class), isA(MavenProject.class), isA(MavenFileFilter.class), isA(PodmanConfiguration.class), isA(SkopeoConfiguration.class), isA(Settings.class), isA(SettingsDecrypter.class), isA(MavenProjectHelper.class), isA(BuildMetrics.class))).thenReturn(serviceHub);
 
         when(mavenProject.getRemoteArtifactRepositories()).thenReturn(artifactRepositories);
         copyMojo.repositorySystem = mock(RepositorySystem.class);
@@ -185,6 +190,74 @@ public class CopyMojoTest extends AbstractMojoTest {
         verify(skopeoExecutorService, times(1)).copy("dep2.stage.registry.example.com/project/product:2.1.3", "dep2.release.registry.example.com/project/product:2.1.3");
     }
 
+    @Test
+    public void testParallelCopy() throws MojoExecutionException {
+        configureMojo(false, false, true, null, new String[]{}, "stage", "release", null, false, false, false);
+        copyMojo.copyThreads = 2;
+
+        assertDoesNotThrow(copyMojo::execute);
+        verify(skopeoExecutorService, times(1)).copy("dep1.stage.registry.example.com/foo/bar:0.1.0", "dep1.release.registry.example.com/foo/bar:0.1.0");
+        verify(skopeoExecutorService, times(1)).copy("dep2.stage.registry.example.com/project/product:2.1.3", "dep2.release.registry.example.com/project/product:2.1.3");
+    }
+
+    @Test
+    public void testParallelCopyReportsAllFailures() throws MojoExecutionException {
+        configureMojo(false, false, true, null, new String[]{}, "stage", "release", null, false, false, false);
+        copyMojo.copyThreads = 2;
+        doThrow(new MojoExecutionException("Copy failed")).when(skopeoExecutorService).copy(anyString(), anyString());
+
+        MojoExecutionException e = assertThrows(MojoExecutionException.class, copyMojo::execute);
+        assertTrue(e.getMessage().startsWith("2 of 2 tasks failed"));
+        assertTrue(e.getMessage().contains("dep1.stage.registry.example.com/foo/bar:0.1.0"));
+        assertTrue(e.getMessage().contains("dep2.stage.registry.example.com/project/product:2.1.3"));
+    }
+
+    @Test
+    public void testSkipExistingImages() throws MojoExecutionException {
+        configureMojo(false, false, true, null, new String[]{}, "stage", "release", null, false, false, false);
+        copyMojo.skipExisting = true;
+        when(skopeoExecutorService.getDigest(anyString(), anyBoolean())).thenReturn(Optional.of("sha256:1234"));
+        when(skopeoExecutorService.getDigest("dep2.release.registry.example.com/project/product:2.1.3", false)).thenReturn(Optional.of("sha256:5678"));
+
+        assertDoesNotThrow(copyMojo::execute);
+        verify(skopeoExecutorService, never()).copy("dep1.stage.registry.example.com/foo/bar:0.1.0", "dep1.release.registry.example.com/foo/bar:0.1.0");
+        verify(skopeoExecutorService, times(1)).copy("dep2.stage.registry.example.com/project/product:2.1.3", "dep2.release.registry.example.com/project/product:2.1.3");
+        verify(log, times(1)).info("Skipped 1 of 2 container images, because they were already present at the destination.");
+    }
+
+    @Test
+    public void testSkipExistingCopiesWhenDigestIsUnknown() throws MojoExecutionException {
+        configureMojo(false, false, true, null, new String[]{}, "stage", "release", null, false, false, false);
+        copyMojo.skipExisting = true;
+        when(skopeoExecutorService.getDigest(anyString(), anyBoolean())).thenReturn(Optional.empty());
+
+        assertDoesNotThrow(copyMojo::execute);
+        verify(skopeoExecutorService, times(1)).copy("dep1.stage.registry.example.com/foo/bar:0.1.0", "dep1.release.registry.example.com/foo/bar:0.1.0");
+        verify(skopeoExecutorService, times(1)).copy("dep2.stage.registry.example.com/project/product:2.1.3", "dep2.release.registry.example.com/project/product:2.1.3");
+        verify(log, times(1)).info("Skipped 0 of 2 container images, because they were already present at the destination.");
+    }
+
+    @Test
+    public void testSyncImages() throws MojoExecutionException {
+        configureMojo(false, false, true, null, new String[]{}, "stage", "release", null, false, false, false);
+        copyMojo.syncImages = true;
+
+        assertDoesNotThrow(copyMojo::execute);
+        verify(skopeoExecutorService, times(2)).sync(any(SyncBatch.class));
+        verify(skopeoExecutorService, never()).copy(anyString(), anyString());
+    }
+
+    @Test
+    public void testSyncFallsBackToCopyForRenamedImages() throws MojoExecutionException {
+        configureMojo(false, false, true, null, new String[]{}, "foo/bar", "foo/baz", null, false, false, false);
+        copyMojo.syncImages = true;
+
+        assertDoesNotThrow(copyMojo::execute);
+        verify(skopeoExecutorService, times(1)).sync(any(SyncBatch.class));
+        verify(skopeoExecutorService, times(1)).copy("dep1.stage.registry.example.com/foo/bar:0.1.0", "dep1.stage.registry.example.com/foo/baz:0.1.0");
+        verify(skopeoExecutorService, never()).copy("dep2.stage.registry.example.com/project/product:2.1.3", "dep2.stage.registry.example.com/project/product:2.1.3");
+    }
+
     @Test
     public void testSkipCopyNoCatalogFile() throws ArtifactResolutionException, MojoExecutionException {
         configureMojo(false, false, true, null, new String[]{}, "stage", "release", null, false, false, false);
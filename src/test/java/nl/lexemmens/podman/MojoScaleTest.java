@@ -0,0 +1,261 @@
+package nl.lexemmens.podman;
+
+import nl.lexemmens.podman.config.image.batch.BatchImageConfiguration;
+import nl.lexemmens.podman.config.image.batch.TestBatchImageConfigurationBuilder;
+import nl.lexemmens.podman.config.podman.PodmanConfiguration;
+import nl.lexemmens.podman.config.podman.TestPodmanConfigurationBuilder;
+import nl.lexemmens.podman.config.podman.TestRetryConfigurationBuilder;
+import nl.lexemmens.podman.config.skopeo.SkopeoConfiguration;
+import nl.lexemmens.podman.enumeration.TlsVerify;
+import nl.lexemmens.podman.executor.BuildMetrics;
+import nl.lexemmens.podman.executor.FakeExecutables;
+import nl.lexemmens.podman.service.TestServiceHubBuilder;
+import org.apache.commons.io.FileUtils;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.project.MavenProjectHelper;
+import org.apache.maven.settings.Settings;
+import org.apache.maven.settings.crypto.SettingsDecrypter;
+import org.apache.maven.shared.filtering.MavenFileFilter;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.MockitoAnnotations;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.isA;
+import static org.mockito.Mockito.when;
+
+/**
+ * <p>
+ * Runs the mojos against the stand-in executables of {@link FakeExecutables} at a scale that is impractical with the
+ * real tools, and asserts that they stay within wall-clock and memory ceilings.
+ * </p>
+ * <p>
+ * These tests take a while and are therefore only executed when the <code>podman.scaleTests</code> system property
+ * is set to true, for example by the <code>scale-tests</code> profile: <code>mvn test -Pscale-tests -Dtest=MojoScaleTest</code>
+ * </p>
+ */
+@ExtendWith(MockitoExtension.class)
+@RunWith(MockitoJUnitRunner.class)
+public class MojoScaleTest extends AbstractMojoTest {
+
+    private static final int IMAGE_COUNT = 200;
+    private static final int THREADS = 8;
+    private static final long MEGABYTE = 1024L * 1024L;
+
+    @InjectMocks
+    private BuildMojo buildMojo;
+
+    @InjectMocks
+    private PushMojo pushMojo;
+
+    private FakeExecutables fakeExecutables;
+    private Path workDirectory;
+    private MavenProject project;
+
+    @Before
+    public void setup() throws IOException {
+        Assume.assumeTrue(Boolean.getBoolean("podman.scaleTests") && FakeExecutables.isSupported());
+        MockitoAnnotations.openMocks(this);
+
+        fakeExecutables = FakeExecutables.create();
+        fakeExecutables.on("sestatus").output("SELinux status:                 disabled");
+
+        workDirectory = Files.createTempDirectory("scale-test");
+        project = new MavenProject();
+        project.setFile(workDirectory.resolve("pom.xml").toFile());
+        project.setVersion("1.0.0");
+        project.getBuild().setDirectory(workDirectory.resolve("target").toString());
+
+        when(serviceHubFactory.createServiceHub(isA(Log.class), isA(MavenProject.class), isA(MavenFileFilter.class), isA(PodmanConfiguration.class), isA(SkopeoConfiguration.class), isA(Settings.class), isA(SettingsDecrypter.class), isA(MavenProjectHelper.class), isA(BuildMetrics.class)))
+                .thenAnswer(invocation -> new TestServiceHubBuilder(fakeExecutables)
+                        .setLog(invocation.getArgument(0))
+                        .setMavenProject(invocation.getArgument(1))
+                        .setMavenFileFilter(invocation.getArgument(2))
+                        .setPodmanConfig(invocation.getArgument(3))
+                        .setSkopeoConfig(invocation.getArgument(4))
+                        .setMavenSettings(invocation.getArgument(5))
+                        .setSettingsDecrypter(invocation.getArgument(6))
+                        .setMavenProjectHelper(invocation.getArgument(7))
+                        .setBuildMetrics(invocation.getArgument(8))
+                        .build());
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        if (fakeExecutables != null) {
+            fakeExecutables.close();
+        }
+        if (workDirectory != null) {
+            FileUtils.deleteDirectory(workDirectory.toFile());
+        }
+    }
+
+    @Test
+    public void testBuildManyImagesConcurrently() throws IOException {
+        fakeExecutables.on("podman", "build").latency(100).output("STEP 1/1: FROM scratch").outputVolume(50, 80);
+        configureBuildMojo(createContainerfiles(IMAGE_COUNT));
+
+        long elapsed = measure(() -> assertDoesNotThrow(() -> buildMojo.execute()));
+
+        assertEquals(IMAGE_COUNT, fakeExecutables.getInvocations("podman", "build").size());
+        assertEquals(IMAGE_COUNT, fakeExecutables.getInvocations("podman", "tag").size());
+        assertEquals(1, fakeExecutables.getInvocations("sestatus", "").size());
+        assertEquals(IMAGE_COUNT, buildMojo.resolvedImages.size());
+
+        // Building the images one after another takes at least IMAGE_COUNT * 100 ms
+        assertTrue(elapsed < TimeUnit.SECONDS.toMillis(15), "Building " + IMAGE_COUNT + " images took " + elapsed + " ms");
+    }
+
+    @Test
+    public void testBuildWithOneGigabyteOfOutput() throws IOException {
+        fakeExecutables.on("podman", "build").output("STEP 1/1: FROM scratch").outputVolume(1024 * 1024, 1023);
+        configureBuildMojo(createContainerfiles(1));
+
+        long elapsed;
+        long retainedGrowth;
+        try (HeapMonitor heapMonitor = new HeapMonitor()) {
+            elapsed = measure(() -> assertDoesNotThrow(() -> buildMojo.execute()));
+            retainedGrowth = heapMonitor.getMaximumRetainedGrowth();
+        }
+
+        assertEquals(1, fakeExecutables.getInvocations("podman", "build").size());
+        assertTrue(retainedGrowth < 256 * MEGABYTE, "The heap grew by " + retainedGrowth / MEGABYTE + " MB while building");
+        assertTrue(elapsed < TimeUnit.SECONDS.toMillis(120), "Building an image with 1 GB of output took " + elapsed + " ms");
+    }
+
+    @Test
+    public void testPushManyImagesWithTransientFailures() throws IOException, MojoExecutionException {
+        fakeExecutables.on("podman", "push").latency(50).failFirst(10, 125, "Error: writing blob: 503 Service Unavailable");
+        configureBuildMojo(createContainerfiles(IMAGE_COUNT));
+        buildMojo.execute();
+
+        pushMojo.project = project;
+        pushMojo.podman = buildMojo.podman;
+        pushMojo.batch = buildMojo.batch;
+        pushMojo.skip = false;
+        pushMojo.skipAuth = true;
+        pushMojo.skipPush = false;
+        pushMojo.pushRegistry = "registry.example.com";
+        pushMojo.retries = 3;
+        pushMojo.pushThreads = THREADS;
+
+        long elapsed = measure(() -> assertDoesNotThrow(() -> pushMojo.execute()));
+
+        assertEquals(IMAGE_COUNT + 10, fakeExecutables.getInvocations("podman", "push").size());
+        assertTrue(elapsed < TimeUnit.SECONDS.toMillis(15), "Pushing " + IMAGE_COUNT + " images took " + elapsed + " ms");
+    }
+
+    private void configureBuildMojo(Path containerfileDirectory) {
+        PodmanConfiguration podman = new TestPodmanConfigurationBuilder()
+                .setTlsVerify(TlsVerify.FALSE)
+                .setRetry(new TestRetryConfigurationBuilder().setInitialBackoff(10).setMaxBackoff(100).build())
+                .build();
+        BatchImageConfiguration batch = new TestBatchImageConfigurationBuilder("scale/%d")
+                .setContainerfileDir(containerfileDirectory.toString())
+                .setUseMavenProjectVersion(true)
+                .build();
+
+        buildMojo.project = project;
+        buildMojo.podman = podman;
+        buildMojo.skip = false;
+        buildMojo.skipBuild = false;
+        buildMojo.skipAuth = true;
+        buildMojo.skipTag = false;
+        buildMojo.batch = batch;
+        buildMojo.pushRegistry = "registry.example.com";
+        buildMojo.failOnMissingContainerfile = true;
+        buildMojo.buildThreads = THREADS;
+    }
+
+    private Path createContainerfiles(int count) throws IOException {
+        Path containerfileDirectory = workDirectory.resolve("images");
+        for (int i = 0; i < count; i++) {
+            Path imageDirectory = Files.createDirectories(containerfileDirectory.resolve("image-" + i));
+            Files.write(imageDirectory.resolve("Containerfile"), Collections.singletonList("FROM scratch"));
+        }
+        return containerfileDirectory;
+    }
+
+    private static long measure(Runnable runnable) {
+        long start = System.nanoTime();
+        runnable.run();
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    /**
+     * Samples the heap that is retained after garbage collection. Garbage is not counted, so the samples show whether
+     * memory is held on to rather than how fast garbage is created.
+     */
+    private static final class HeapMonitor implements AutoCloseable {
+
+        private final long baseline;
+        private final AtomicLong maximum = new AtomicLong();
+        private final Thread sampler;
+
+        private volatile boolean running = true;
+
+        private HeapMonitor() {
+            System.gc();
+            baseline = retainedHeap();
+            maximum.set(baseline);
+
+            sampler = new Thread(() -> {
+                while (running) {
+                    maximum.accumulateAndGet(retainedHeap(), Math::max);
+                    try {
+                        Thread.sleep(50);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            }, "heap-monitor");
+            sampler.setDaemon(true);
+            sampler.start();
+        }
+
+        private long getMaximumRetainedGrowth() {
+            maximum.accumulateAndGet(retainedHeap(), Math::max);
+            return maximum.get() - baseline;
+        }
+
+        @Override
+        public void close() {
+            running = false;
+            sampler.interrupt();
+        }
+
+        private static long retainedHeap() {
+            long retained = 0;
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+                    MemoryUsage usage = pool.isCollectionUsageThresholdSupported() ? pool.getCollectionUsage() : pool.getUsage();
+                    retained += usage == null ? 0 : usage.getUsed();
+                }
+            }
+            return retained;
+        }
+    }
+}
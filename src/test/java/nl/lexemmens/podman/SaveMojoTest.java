@@ -5,7 +5,10 @@ import nl.lexemmens.podman.config.image.single.TestSingleImageConfigurationBuild
 import nl.lexemmens.podman.config.podman.PodmanConfiguration;
 import nl.lexemmens.podman.config.podman.TestPodmanConfigurationBuilder;
 import nl.lexemmens.podman.config.skopeo.SkopeoConfiguration;
+import nl.lexemmens.podman.enumeration.Compression;
 import nl.lexemmens.podman.enumeration.TlsVerify;
+import nl.lexemmens.podman.executor.BuildMetrics;
+import org.apache.commons.io.FileUtils;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.logging.Log;
 import org.apache.maven.project.MavenProject;
@@ -23,12 +26,19 @@ import org.mockito.junit.MockitoJUnitRunner;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.isA;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -118,7 +128,7 @@ public class SaveMojoTest extends AbstractMojoTest {
         when(mavenProject.getBuild()).thenReturn(build);
         when(build.getDirectory()).thenReturn("target/podman-test");
         when(mavenProject.getVersion()).thenReturn("1.0.0");
-        when(serviceHubFactory.createServiceHub(isA(Log.class), isA(MavenProject.class), isA(MavenFileFilter.class), isA(PodmanConfiguration.class), isA(SkopeoConfiguration.class), isA(Settings.class), isA(SettingsDecrypter.class), isA(MavenProjectHelper.class))).thenReturn(serviceHub);
+        when(serviceHubFactory.createServiceHub(isA(Log.class), isA(MavenProject.class), isA(MavenFileFilter.class), isA(PodmanConfiguration.class), isA(SkopeoConfiguration.class), isA(Settings.class), isA(SettingsDecrypter.class), isA(MavenProjectHelper.class), isA(BuildMetrics.class))).thenReturn(serviceHub);
         when(serviceHub.getPodmanExecutorService()).thenReturn(podmanExecutorService);
 
         Assertions.assertDoesNotThrow(saveMojo::execute);
@@ -141,7 +151,7 @@ public class SaveMojoTest extends AbstractMojoTest {
         when(mavenProject.getBuild()).thenReturn(build);
         when(build.getDirectory()).thenReturn("target/podman-test");
         when(mavenProject.getVersion()).thenReturn("1.0.0");
-        when(serviceHubFactory.createServiceHub(isA(Log.class), isA(MavenProject.class), isA(MavenFileFilter.class), isA(PodmanConfiguration.class), isA(SkopeoConfiguration.class), isA(Settings.class), isA(SettingsDecrypter.class), isA(MavenProjectHelper.class))).thenReturn(serviceHub);
+        when(serviceHubFactory.createServiceHub(isA(Log.class), isA(MavenProject.class), isA(MavenFileFilter.class), isA(PodmanConfiguration.class), isA(SkopeoConfiguration.class), isA(Settings.class), isA(SettingsDecrypter.class), isA(MavenProjectHelper.class), isA(BuildMetrics.class))).thenReturn(serviceHub);
         when(serviceHub.getPodmanExecutorService()).thenReturn(podmanExecutorService);
 
         Assertions.assertDoesNotThrow(saveMojo::execute);
@@ -164,7 +174,7 @@ public class SaveMojoTest extends AbstractMojoTest {
 
         when(mavenProject.getBuild()).thenReturn(build);
         when(build.getDirectory()).thenReturn("target");
-        when(serviceHubFactory.createServiceHub(isA(Log.class), isA(MavenProject.class), isA(MavenFileFilter.class), isA(PodmanConfiguration.class), isA(SkopeoConfiguration.class), isA(Settings.class), isA(SettingsDecrypter.class), isA(MavenProjectHelper.class))).thenReturn(serviceHub);
+        when(serviceHubFactory.createServiceHub(isA(Log.class), isA(MavenProject.class), isA(MavenFileFilter.class), isA(PodmanConfiguration.class), isA(SkopeoConfiguration.class), isA(Settings.class), isA(SettingsDecrypter.class), isA(MavenProjectHelper.class), isA(BuildMetrics.class))).thenReturn(serviceHub);
         when(serviceHub.getPodmanExecutorService()).thenReturn(podmanExecutorService);
 
         saveMojo.execute();
@@ -193,7 +203,7 @@ public class SaveMojoTest extends AbstractMojoTest {
 
         when(mavenProject.getBuild()).thenReturn(build);
         when(build.getDirectory()).thenReturn("target");
-        when(serviceHubFactory.createServiceHub(isA(Log.class), isA(MavenProject.class), isA(MavenFileFilter.class), isA(PodmanConfiguration.class), isA(SkopeoConfiguration.class), isA(Settings.class), isA(SettingsDecrypter.class), isA(MavenProjectHelper.class))).thenReturn(serviceHub);
+        when(serviceHubFactory.createServiceHub(isA(Log.class), isA(MavenProject.class), isA(MavenFileFilter.class), isA(PodmanConfiguration.class), isA(SkopeoConfiguration.class), isA(Settings.class), isA(SettingsDecrypter.class), isA(MavenProjectHelper.class), isA(BuildMetrics.class))).thenReturn(serviceHub);
         when(serviceHub.getPodmanExecutorService()).thenReturn(podmanExecutorService);
 
         saveMojo.execute();
@@ -208,6 +218,110 @@ public class SaveMojoTest extends AbstractMojoTest {
         verify(log, times(1)).info("Container images exported successfully.");
     }
 
+    @Test
+    public void testSaveCompressedWithGzip() throws MojoExecutionException {
+        Path target = Paths.get(".", "target", "podman");
+
+        SingleImageConfiguration image = new TestSingleImageConfigurationBuilder("sample")
+                .setContainerfileDir(DEFAULT_CONTAINERFILE_DIR)
+                .setTags(new String[]{"1.0.0", "1.0"})
+                .setCreateLatestTag(false)
+                .build();
+        configureMojo(image, false, false, "registry.example.com", true);
+        saveMojo.saveThreads = 2;
+        saveMojo.compression = Compression.GZIP;
+        saveMojo.compressionLevel = 9;
+        saveMojo.compressionThreads = 3;
+
+        when(mavenProject.getBuild()).thenReturn(build);
+        when(build.getDirectory()).thenReturn("target/podman-test");
+        when(serviceHubFactory.createServiceHub(isA(Log.class), isA(MavenProject.class), isA(MavenFileFilter.class), isA(PodmanConfiguration.class), isA(SkopeoConfiguration.class), isA(Settings.class), isA(SettingsDecrypter.class), isA(MavenProjectHelper.class), isA(BuildMetrics.class))).thenReturn(serviceHub);
+        when(serviceHub.getPodmanExecutorService()).thenReturn(podmanExecutorService);
+
+        saveMojo.execute();
+
+        verify(podmanExecutorService, times(1)).save(target.resolve("sample_1_0_0.tar.gz").normalize().toAbsolutePath().toString(), "registry.example.com/sample:1.0.0", 9, 3);
+        verify(podmanExecutorService, times(1)).save(target.resolve("sample_1_0.tar.gz").normalize().toAbsolutePath().toString(), "registry.example.com/sample:1.0", 9, 3);
+        verify(podmanExecutorService, never()).save(anyString(), anyString());
+        verify(log, times(1)).info("Container images exported successfully.");
+    }
+
+    @Test
+    public void testDefaultCompressionThreadsAreSharedBetweenSaveThreads() {
+        int processors = Runtime.getRuntime().availableProcessors();
+
+        saveMojo.saveThreads = 1;
+        Assertions.assertEquals(processors, saveMojo.getDefaultCompressionThreads());
+
+        saveMojo.saveThreads = 2;
+        Assertions.assertEquals(Math.max(1, processors / 2), saveMojo.getDefaultCompressionThreads());
+
+        saveMojo.saveThreads = processors + 1;
+        Assertions.assertEquals(1, saveMojo.getDefaultCompressionThreads());
+    }
+
+    @Test
+    public void testSaveToOciLayout() throws MojoExecutionException {
+        Path layout = Paths.get(".", "target", "podman", "oci-layout").normalize().toAbsolutePath();
+
+        SingleImageConfiguration image = new TestSingleImageConfigurationBuilder("sample")
+                .setContainerfileDir("src/test/resources/multistagecontainerfile")
+                .setTags(new String[]{"0.2.1"})
+                .setCreateLatestTag(false)
+                .setUseCustomImageNameForMultiStageContainerfile(true)
+                .addCustomImageNameForBuildStage("phase", "image-name-number-1")
+                .addCustomImageNameForBuildStage("phase2", "image-name-number-2")
+                .build();
+        configureMojo(image, false, false, "registry.example.com", true);
+        saveMojo.ociLayout = true;
+
+        when(mavenProject.getBuild()).thenReturn(build);
+        when(build.getDirectory()).thenReturn("target");
+        when(serviceHubFactory.createServiceHub(isA(Log.class), isA(MavenProject.class), isA(MavenFileFilter.class), isA(PodmanConfiguration.class), isA(SkopeoConfiguration.class), isA(Settings.class), isA(SettingsDecrypter.class), isA(MavenProjectHelper.class), isA(BuildMetrics.class))).thenReturn(serviceHub);
+        when(serviceHub.getPodmanExecutorService()).thenReturn(podmanExecutorService);
+
+        saveMojo.execute();
+
+        verify(log, times(1)).info("Exporting container images to OCI image layout " + layout + " ...");
+        verify(podmanExecutorService, times(1)).pushToOciLayout("registry.example.com/image-name-number-1:0.2.1", layout.toString(), "registry.example.com/image-name-number-1:0.2.1");
+        verify(podmanExecutorService, times(1)).pushToOciLayout("registry.example.com/image-name-number-2:0.2.1", layout.toString(), "registry.example.com/image-name-number-2:0.2.1");
+        verify(podmanExecutorService, never()).save(anyString(), anyString());
+        verify(log, times(1)).info("Container images exported successfully.");
+    }
+
+    @Test
+    public void testIncrementalSaveSkipsUnchangedImage() throws MojoExecutionException, IOException {
+        Path targetDirectory = Files.createTempDirectory("incremental-save");
+        Path archive = targetDirectory.resolve("incremental_sample_1_0_0.tar.gz").normalize().toAbsolutePath();
+
+        SingleImageConfiguration image = new TestSingleImageConfigurationBuilder("incremental-sample")
+                .setContainerfileDir(DEFAULT_CONTAINERFILE_DIR)
+                .setTags(new String[]{"1.0.0"})
+                .setCreateLatestTag(false)
+                .build();
+        configureMojo(image, false, false, "registry.example.com", true);
+        saveMojo.incremental = true;
+        saveMojo.targetDirectory = targetDirectory.toFile();
+
+        when(mavenProject.getBuild()).thenReturn(build);
+        when(build.getDirectory()).thenReturn("target/podman-test");
+        when(serviceHubFactory.createServiceHub(isA(Log.class), isA(MavenProject.class), isA(MavenFileFilter.class), isA(PodmanConfiguration.class), isA(SkopeoConfiguration.class), isA(Settings.class), isA(SettingsDecrypter.class), isA(MavenProjectHelper.class), isA(BuildMetrics.class))).thenReturn(serviceHub);
+        when(serviceHub.getPodmanExecutorService()).thenReturn(podmanExecutorService);
+        when(podmanExecutorService.getLocalImageId("registry.example.com/incremental-sample:1.0.0")).thenReturn(Optional.of("sha256:1234"));
+        doAnswer(invocation -> Files.write(Paths.get((String) invocation.getArgument(0)), "archive".getBytes(StandardCharsets.UTF_8)))
+                .when(podmanExecutorService).save(archive.toString(), "registry.example.com/incremental-sample:1.0.0");
+
+        try {
+            saveMojo.execute();
+            saveMojo.execute();
+        } finally {
+            FileUtils.deleteDirectory(targetDirectory.toFile());
+        }
+
+        verify(podmanExecutorService, times(1)).save(archive.toString(), "registry.example.com/incremental-sample:1.0.0");
+        verify(log, times(1)).info("Image incremental-sample:1.0.0 has not changed since it was saved to " + archive + ", skipping.");
+    }
+
     private void configureMojo(SingleImageConfiguration image, boolean skipAll, boolean skipSave, String pushRegistry, boolean failOnMissingContainerfile) {
         List<SingleImageConfiguration> images = Collections.singletonList(image);
 
@@ -0,0 +1,135 @@
+package nl.lexemmens.podman.config.image.batch;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.maven.model.Build;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.project.MavenProject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@RunWith(MockitoJUnitRunner.class)
+public class BatchImageBuildConfigurationTest {
+
+    @Mock
+    private MavenProject mavenProject;
+
+    @Mock
+    private Build build;
+
+    private Path baseDir;
+
+    @Before
+    public void before() throws IOException {
+        baseDir = Files.createTempDirectory("batch");
+        for (String directory : Arrays.asList("", "app", "app/nested", "legacy/app", "output/app", "target/app", "node_modules/app", ".git/app")) {
+            Path containerFileDir = Files.createDirectories(baseDir.resolve(directory));
+            Files.write(containerFileDir.resolve("Containerfile"), Collections.singletonList("FROM scratch"));
+        }
+        Files.write(baseDir.resolve("app").resolve("Dockerfile"), Collections.singletonList("FROM scratch"));
+
+        when(mavenProject.getBuild()).thenReturn(build);
+        when(build.getDirectory()).thenReturn(baseDir.resolve("output").toString());
+    }
+
+    @After
+    public void after() throws IOException {
+        FileUtils.deleteDirectory(baseDir.toFile());
+    }
+
+    @Test
+    public void testDefaultExcludesAndBuildDirectoryAreSkipped() throws MojoExecutionException {
+        BatchImageBuildConfiguration configuration = new TestBatchImageConfigurationBuilder("image").build().getBuild();
+
+        assertEquals(Arrays.asList("Containerfile", "app/Containerfile", "app/nested/Containerfile", "legacy/app/Containerfile"), findContainerFiles(configuration));
+    }
+
+    @Test
+    public void testDefaultExcludesCanBeDisabled() throws MojoExecutionException {
+        BatchImageBuildConfiguration configuration = new TestBatchImageConfigurationBuilder("image")
+                .setUseDefaultExcludes(false)
+                .build()
+                .getBuild();
+
+        assertEquals(8, findContainerFiles(configuration).size());
+    }
+
+    @Test
+    public void testExcludedDirectoriesAreSkipped() throws MojoExecutionException {
+        BatchImageBuildConfiguration configuration = new TestBatchImageConfigurationBuilder("image")
+                .setExcludes(new String[]{"legacy/**", "**/nested"})
+                .build()
+                .getBuild();
+
+        assertEquals(Arrays.asList("Containerfile", "app/Containerfile"), findContainerFiles(configuration));
+    }
+
+    @Test
+    public void testOnlyIncludedContainerfilesAreFound() throws MojoExecutionException {
+        BatchImageBuildConfiguration configuration = new TestBatchImageConfigurationBuilder("image")
+                .setIncludes(new String[]{"*/app/Containerfile", "app/Containerfile"})
+                .build()
+                .getBuild();
+
+        assertEquals(Arrays.asList("app/Containerfile", "legacy/app/Containerfile"), findContainerFiles(configuration));
+    }
+
+    @Test
+    public void testMaxDepth() throws MojoExecutionException {
+        BatchImageBuildConfiguration configuration = new TestBatchImageConfigurationBuilder("image")
+                .setMaxDepth(2)
+                .build()
+                .getBuild();
+
+        assertEquals(Arrays.asList("Containerfile", "app/Containerfile"), findContainerFiles(configuration));
+    }
+
+    @Test
+    public void testInvalidMaxDepth() {
+        BatchImageBuildConfiguration configuration = new TestBatchImageConfigurationBuilder("image")
+                .setMaxDepth(0)
+                .build()
+                .getBuild();
+
+        MojoExecutionException e = assertThrows(MojoExecutionException.class, () -> findContainerFiles(configuration));
+        assertEquals("Invalid maxDepth 0 for batch configuration, must be at least 1", e.getMessage());
+    }
+
+    @Test
+    public void testContainerfileName() throws MojoExecutionException {
+        BatchImageBuildConfiguration configuration = new TestBatchImageConfigurationBuilder("image")
+                .setContainerfile("Dockerfile")
+                .build()
+                .getBuild();
+
+        assertEquals(Collections.singletonList("app/Dockerfile"), findContainerFiles(configuration));
+    }
+
+    private List<String> findContainerFiles(BatchImageBuildConfiguration configuration) throws MojoExecutionException {
+        configuration.setContainerFileDir(baseDir.toFile());
+        configuration.validate(mavenProject);
+
+        return configuration.getAllContainerFiles().stream()
+                .map(containerFile -> baseDir.relativize(containerFile).toString().replace('\\', '/'))
+                .sorted()
+                .collect(Collectors.toList());
+    }
+}
@@ -62,6 +62,26 @@ public class TestBatchImageConfigurationBuilder {
         return this;
     }
 
+    public TestBatchImageConfigurationBuilder setIncludes(String[] includes) {
+        image.getBuild().setIncludes(includes);
+        return this;
+    }
+
+    public TestBatchImageConfigurationBuilder setExcludes(String[] excludes) {
+        image.getBuild().setExcludes(excludes);
+        return this;
+    }
+
+    public TestBatchImageConfigurationBuilder setUseDefaultExcludes(Boolean useDefaultExcludes) {
+        image.getBuild().setUseDefaultExcludes(useDefaultExcludes);
+        return this;
+    }
+
+    public TestBatchImageConfigurationBuilder setMaxDepth(Integer maxDepth) {
+        image.getBuild().setMaxDepth(maxDepth);
+        return this;
+    }
+
     public TestBatchImageConfigurationBuilder setTags(String[] tags) {
         image.getBuild().setTags(tags);
         return this;
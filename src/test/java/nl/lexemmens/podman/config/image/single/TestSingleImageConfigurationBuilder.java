@@ -71,6 +71,11 @@ public class TestSingleImageConfigurationBuilder {
         return this;
     }
 
+    public TestSingleImageConfigurationBuilder setContextDir(String contextDir) {
+        image.getBuild().setContextDir(contextDir);
+        return this;
+    }
+
     public TestSingleImageConfigurationBuilder setTags(String[] tags) {
         image.getBuild().setTags(tags);
         return this;
@@ -41,11 +41,21 @@ public class TestPodmanConfigurationBuilder {
         return this;
     }
 
+    public TestPodmanConfigurationBuilder setRetry(RetryConfiguration retry) {
+        podman.retry = retry;
+        return this;
+    }
+
     public TestPodmanConfigurationBuilder setCgroupManager(CGroupManager cgroupManager) {
         podman.cgroupManager = cgroupManager;
         return this;
     }
 
+    public TestPodmanConfigurationBuilder setServiceUrl(String serviceUrl) {
+        podman.serviceUrl = serviceUrl;
+        return this;
+    }
+
     public PodmanConfiguration build() {
         return podman;
     }
@@ -0,0 +1,44 @@
+package nl.lexemmens.podman.config.podman;
+
+public class TestRetryConfigurationBuilder {
+
+    private final RetryConfiguration retry;
+
+    public TestRetryConfigurationBuilder() {
+        retry = new RetryConfiguration();
+    }
+
+    public TestRetryConfigurationBuilder setRetries(int retries) {
+        retry.retries = retries;
+        return this;
+    }
+
+    public TestRetryConfigurationBuilder setInitialBackoff(long initialBackoff) {
+        retry.initialBackoff = initialBackoff;
+        return this;
+    }
+
+    public TestRetryConfigurationBuilder setMaxBackoff(long maxBackoff) {
+        retry.maxBackoff = maxBackoff;
+        return this;
+    }
+
+    public TestRetryConfigurationBuilder setMultiplier(double multiplier) {
+        retry.multiplier = multiplier;
+        return this;
+    }
+
+    public TestRetryConfigurationBuilder setJitter(double jitter) {
+        retry.jitter = jitter;
+        return this;
+    }
+
+    public TestRetryConfigurationBuilder setMaxElapsedTime(long maxElapsedTime) {
+        retry.maxElapsedTime = maxElapsedTime;
+        return this;
+    }
+
+    public RetryConfiguration build() {
+        return retry;
+    }
+}
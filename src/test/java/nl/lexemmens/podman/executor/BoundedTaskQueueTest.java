@@ -0,0 +1,110 @@
+package nl.lexemmens.podman.executor;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+@RunWith(MockitoJUnitRunner.class)
+public class BoundedTaskQueueTest {
+
+    @Mock
+    private Log log;
+
+    @Before
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    public void testSubmittedItemsAreProcessedByWorkers() throws MojoExecutionException {
+        Set<String> processed = ConcurrentHashMap.newKeySet();
+        Thread caller = Thread.currentThread();
+
+        try (BoundedTaskQueue<String> queue = new BoundedTaskQueue<>(log, 2, 1, "test", Function.identity(), (item, taskLog) -> {
+            Assertions.assertFalse(caller == Thread.currentThread());
+            Assertions.assertTrue(Thread.currentThread().getName().startsWith("test-"));
+            processed.add(item);
+        })) {
+            queue.submit("a");
+            queue.submit("b");
+            queue.submit("c");
+            queue.awaitCompletion();
+        }
+
+        Assertions.assertEquals(new HashSet<>(Arrays.asList("a", "b", "c")), processed);
+    }
+
+    @Test
+    public void testSubmitBlocksWhenQueueIsFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch thirdSubmitted = new CountDownLatch(1);
+
+        try (BoundedTaskQueue<String> queue = new BoundedTaskQueue<>(log, 1, 1, "test", Function.identity(), (item, taskLog) -> {
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        })) {
+            // One item is running and one is waiting, so the third item cannot be handed over yet
+            queue.submit("a");
+            queue.submit("b");
+            Thread producer = new Thread(() -> {
+                try {
+                    queue.submit("c");
+                    thirdSubmitted.countDown();
+                } catch (MojoExecutionException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            producer.start();
+
+            Assertions.assertFalse(thirdSubmitted.await(200, TimeUnit.MILLISECONDS));
+            release.countDown();
+            Assertions.assertTrue(thirdSubmitted.await(10, TimeUnit.SECONDS));
+            producer.join();
+            queue.awaitCompletion();
+        }
+    }
+
+    @Test
+    public void testFailuresAreReportedTogether() {
+        MojoExecutionException e;
+        try (BoundedTaskQueue<String> queue = new BoundedTaskQueue<>(log, 2, 2, "test", Function.identity(), (item, taskLog) -> {
+            if (!"b".equals(item)) {
+                throw new MojoExecutionException("Failed " + item);
+            }
+        })) {
+            e = Assertions.assertThrows(MojoExecutionException.class, () -> {
+                queue.submit("a");
+                queue.submit("b");
+                queue.submit("c");
+                queue.awaitCompletion();
+            });
+        }
+
+        Assertions.assertEquals("2 of 3 tasks failed: a, c", e.getMessage());
+        Assertions.assertEquals("Failed a", e.getCause().getMessage());
+        verify(log).error("Failed to process a: Failed a");
+        verify(log).error("Failed to process c: Failed c");
+    }
+}
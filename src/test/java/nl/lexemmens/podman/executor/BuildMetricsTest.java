@@ -0,0 +1,169 @@
+package nl.lexemmens.podman.executor;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.zeroturnaround.exec.ProcessExecutor;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+@RunWith(MockitoJUnitRunner.class)
+public class BuildMetricsTest {
+
+    @Mock
+    private Log log;
+
+    @Before
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    public void testCommandsAreGroupedBySubcommand() {
+        BuildMetrics buildMetrics = new BuildMetrics();
+        long start = System.nanoTime();
+        buildMetrics.recordCommand(Arrays.asList("podman", "--root=/tmp/root", "build", "--tag=image:1.0.0", "."), start, 0, 10, 0);
+        buildMetrics.recordCommand(Arrays.asList("podman", "build", "."), start, 1, 10, 5);
+        buildMetrics.recordCommand(Arrays.asList("skopeo", "copy", "docker://a", "docker://b"), start, 0, 0, 0);
+        buildMetrics.recordCommand(Arrays.asList("chcon", "-R", "/tmp/root"), start, 0, 0, 0);
+
+        Map<String, BuildMetrics.Totals> totals = buildMetrics.getTotals();
+
+        Assertions.assertEquals(Arrays.asList("podman build", "skopeo copy", "chcon"), Arrays.asList(totals.keySet().toArray()));
+        Assertions.assertEquals(2, totals.get("podman build").getCount());
+        Assertions.assertEquals(1, totals.get("chcon").getCount());
+    }
+
+    @Test
+    public void testPhasesAreRecordedWhenTimerIsClosed() {
+        BuildMetrics buildMetrics = new BuildMetrics();
+        try (BuildMetrics.Timer ignored = buildMetrics.startPhase("authentication", null)) {
+            Assertions.assertTrue(buildMetrics.getTotals().isEmpty());
+        }
+        try (BuildMetrics.Timer ignored = buildMetrics.startPhase("containerfile filtering", "image-a")) {
+            // Nothing to measure
+        }
+        try (BuildMetrics.Timer ignored = buildMetrics.startPhase("containerfile filtering", "image-b")) {
+            // Nothing to measure
+        }
+
+        Map<String, BuildMetrics.Totals> totals = buildMetrics.getTotals();
+        Assertions.assertEquals(1, totals.get("authentication").getCount());
+        Assertions.assertEquals(2, totals.get("containerfile filtering").getCount());
+    }
+
+    @Test
+    public void testMeteredDelegateRecordsSuccessfulCommand() throws MojoExecutionException {
+        BuildMetrics buildMetrics = new BuildMetrics();
+        CommandExecutorDelegate delegate = new MeteredCommandExecutorDelegate(processExecutor -> Collections.singletonList("4.0.0"), buildMetrics);
+
+        List<String> output = delegate.executeCommand(new ProcessExecutor().command("podman", "version"));
+
+        Assertions.assertEquals(Collections.singletonList("4.0.0"), output);
+        Assertions.assertEquals(1, buildMetrics.getTotals().get("podman version").getCount());
+    }
+
+    @Test
+    public void testMeteredDelegateRecordsFailedCommand() {
+        BuildMetrics buildMetrics = new BuildMetrics();
+        CommandExecutorDelegate delegate = new MeteredCommandExecutorDelegate(processExecutor -> {
+            throw new CommandExecutionException("Failed", Collections.emptyList(), false, 125);
+        }, buildMetrics);
+
+        CommandExecutionException exception = Assertions.assertThrows(CommandExecutionException.class,
+                () -> delegate.executeCommand(new ProcessExecutor().command("podman", "push", "image:1.0.0")));
+
+        Assertions.assertEquals(125, exception.getExitCode());
+        Assertions.assertEquals(1, buildMetrics.getTotals().get("podman push").getCount());
+    }
+
+    @Test
+    public void testSummaryIsLogged() {
+        BuildMetrics buildMetrics = new BuildMetrics();
+        buildMetrics.recordCommand(Arrays.asList("podman", "build", "."), System.nanoTime(), 0, 0, 0);
+
+        buildMetrics.logSummary(log, "build");
+
+        verify(log).info(contains("Performance summary of goal build"));
+        verify(log).info(contains("podman build"));
+    }
+
+    @Test
+    public void testStepsAreOnlyWrittenToTrace() throws IOException, MojoExecutionException {
+        BuildMetrics buildMetrics = new BuildMetrics();
+        try (BuildMetrics.StepRecorder stepRecorder = buildMetrics.recordSteps("image-a")) {
+            stepRecorder.accept("[1/2] STEP 1/2: FROM alpine:3.19 AS base");
+            stepRecorder.accept("Getting image source signatures");
+            stepRecorder.accept("[1/2] STEP 2/2: RUN echo STEP 3/3: is not a step");
+            stepRecorder.accept("[2/2] STEP 1/1: FROM base");
+        }
+        buildMetrics.recordCommand(Arrays.asList("podman", "build", "."), System.nanoTime(), 0, 0, 0);
+
+        Assertions.assertEquals(Collections.singletonList("podman build"), new ArrayList<>(buildMetrics.getTotals().keySet()));
+
+        Path traceFile = Files.createTempDirectory("trace").resolve("podman").resolve("trace-build.json");
+        buildMetrics.writeTrace(traceFile, "group:artifact:1.0.0", "build");
+
+        JSONArray events = new JSONObject(new String(Files.readAllBytes(traceFile), StandardCharsets.UTF_8)).getJSONArray("traceEvents");
+        List<String> steps = new ArrayList<>();
+        List<String> threadNames = new ArrayList<>();
+        for (int i = 0; i < events.length(); i++) {
+            JSONObject event = events.getJSONObject(i);
+            if ("step".equals(event.optString("cat"))) {
+                Assertions.assertEquals("image-a", event.getJSONObject("args").getString("subject"));
+                steps.add(event.getString("name"));
+            } else if ("thread_name".equals(event.getString("name"))) {
+                threadNames.add(event.getJSONObject("args").getString("name"));
+            }
+        }
+
+        Assertions.assertEquals(Arrays.asList("[1/2] STEP 1/2: FROM alpine:3.19 AS base", "[1/2] STEP 2/2: RUN echo STEP 3/3: is not a step",
+                "[2/2] STEP 1/1: FROM base"), steps);
+        Assertions.assertEquals(Collections.singletonList(Thread.currentThread().getName()), threadNames);
+    }
+
+    @Test
+    public void testEveryThreadHasItsOwnTrack() throws Exception {
+        BuildMetrics buildMetrics = new BuildMetrics();
+        buildMetrics.recordCommand(Arrays.asList("podman", "build", "."), System.nanoTime(), 0, 0, 0);
+        Thread worker = new Thread(() -> buildMetrics.recordCommand(Arrays.asList("podman", "push", "image"), System.nanoTime(), 0, 0, 0), "podman-push-1");
+        worker.start();
+        worker.join();
+
+        Path traceFile = Files.createTempDirectory("trace").resolve("trace-push.json");
+        buildMetrics.writeTrace(traceFile, "group:artifact:1.0.0", "push");
+
+        JSONArray events = new JSONObject(new String(Files.readAllBytes(traceFile), StandardCharsets.UTF_8)).getJSONArray("traceEvents");
+        List<Integer> threadIds = new ArrayList<>();
+        for (int i = 0; i < events.length(); i++) {
+            JSONObject event = events.getJSONObject(i);
+            if ("command".equals(event.optString("cat"))) {
+                threadIds.add(event.getInt("tid"));
+            }
+        }
+
+        Assertions.assertEquals(Arrays.asList(1, 2), threadIds);
+    }
+}
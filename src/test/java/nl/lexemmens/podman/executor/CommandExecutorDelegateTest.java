@@ -5,7 +5,12 @@ import org.junit.Test;
 import org.junit.jupiter.api.Assertions;
 import org.zeroturnaround.exec.ProcessExecutor;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 public class CommandExecutorDelegateTest {
@@ -27,6 +32,50 @@ public class CommandExecutorDelegateTest {
         Assertions.assertEquals("hello world", outputLine);
     }
 
+    @Test
+    public void testSuccesfullCommandWithOutputConsumer() throws MojoExecutionException {
+        CommandExecutorDelegate delegate = new CommandExecutorDelegateImpl();
+
+        ProcessExecutor pe = new ProcessExecutor()
+                .directory(new File("."))
+                .command("printf", "hello\\nworld\\n")
+                .readOutput(true)
+                .exitValueNormal();
+
+        List<String> output = new ArrayList<>();
+        delegate.executeCommand(pe, output::add);
+
+        Assertions.assertEquals(Arrays.asList("hello", "world"), output);
+    }
+
+    @Test
+    public void testSuccesfullCommandWithOutputStream() throws MojoExecutionException {
+        CommandExecutorDelegate delegate = new CommandExecutorDelegateImpl();
+
+        ProcessExecutor pe = new ProcessExecutor()
+                .directory(new File("."))
+                .command("printf", "hello\\000world")
+                .readOutput(true)
+                .exitValueNormal();
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        delegate.executeCommand(pe, output);
+
+        Assertions.assertArrayEquals("hello\0world".getBytes(StandardCharsets.UTF_8), output.toByteArray());
+    }
+
+    @Test
+    public void testFailedCommandWithOutputConsumer() {
+        CommandExecutorDelegate delegate = new CommandExecutorDelegateImpl();
+
+        ProcessExecutor pe = new ProcessExecutor()
+                .directory(new File("."))
+                .command("unknown_command")
+                .exitValueNormal();
+
+        Assertions.assertThrows(MojoExecutionException.class, () -> delegate.executeCommand(pe, line -> { }));
+    }
+
     @Test
     public void testFailedCommand() throws MojoExecutionException {
         CommandExecutorDelegate delegate = new CommandExecutorDelegateImpl();
@@ -40,5 +89,18 @@ public class CommandExecutorDelegateTest {
         Assertions.assertThrows(MojoExecutionException.class, () -> delegate.executeCommand(pe));
     }
 
+    @Test
+    public void testFailedCommandCarriesErrorOutput() {
+        CommandExecutorDelegate delegate = new CommandExecutorDelegateImpl();
+
+        ProcessExecutor pe = new ProcessExecutor()
+                .directory(new File("."))
+                .command("sh", "-c", "echo 'Error: 401 Unauthorized' >&2; exit 1")
+                .readOutput(true)
+                .exitValueNormal();
 
+        CommandExecutionException e = Assertions.assertThrows(CommandExecutionException.class, () -> delegate.executeCommand(pe));
+        Assertions.assertEquals(Collections.singletonList("Error: 401 Unauthorized"), e.getErrorOutput());
+        Assertions.assertFalse(e.isTimedOut());
+    }
 }
@@ -0,0 +1,365 @@
+package nl.lexemmens.podman.executor;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.zeroturnaround.exec.ProcessExecutor;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * <p>
+ * Scriptable stand-ins for podman, buildah, skopeo and every other executable the plugin runs, so that the mojos can be
+ * tested offline, at scale, and against misbehaving tools.
+ * </p>
+ * <p>
+ * Every executable is replaced by a generated shell script. Its behaviour is configured per subcommand (the first
+ * argument that is not an option) using {@link #on(String, String)}: how long it takes, what it writes, how often it
+ * fails and with which exit code. Unconfigured executables and subcommands succeed immediately without output. Like
+ * the real tools, <code>build</code> writes an image ID to the file passed with <code>--iidfile</code> and
+ * <code>save</code> creates the file passed with <code>--output</code>.
+ * </p>
+ * <p>
+ * Commands only execute the stand-ins when they are executed by the delegate returned by {@link #delegate()}. Every
+ * invocation is recorded and can be inspected using {@link #getInvocations(String, String)}.
+ * </p>
+ */
+public final class FakeExecutables implements AutoCloseable {
+
+    private static final String INVOCATION_LOG = "invocations.log";
+    private static final String STATE_DIRECTORY = "state";
+    private static final String BIN_DIRECTORY = "bin";
+
+    private final Path directory;
+    private final Map<String, Map<String, Behaviour>> behaviours = new LinkedHashMap<>();
+
+    private FakeExecutables(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory.resolve(BIN_DIRECTORY));
+        Files.createDirectories(directory.resolve(STATE_DIRECTORY));
+        Files.createFile(directory.resolve(INVOCATION_LOG));
+    }
+
+    /**
+     * Returns whether the stand-ins can be executed on this machine, which requires a POSIX shell.
+     *
+     * @return true if the stand-ins can be used
+     */
+    public static boolean isSupported() {
+        return !System.getProperty("os.name", "").toLowerCase(Locale.ROOT).startsWith("windows")
+                && Files.isExecutable(Paths.get("/bin/sh"));
+    }
+
+    /**
+     * Creates a new, empty set of stand-ins in a temporary directory, which is removed by {@link #close()}
+     *
+     * @return The stand-ins
+     * @throws IOException In case the temporary directory cannot be created
+     */
+    public static FakeExecutables create() throws IOException {
+        return new FakeExecutables(Files.createTempDirectory("fake-executables"));
+    }
+
+    /**
+     * Returns the behaviour of a subcommand of an executable, for example <code>on("podman", "build")</code>
+     *
+     * @param executable The name of the executable
+     * @param subcommand The subcommand
+     * @return The behaviour, which can be configured further
+     */
+    public synchronized Behaviour on(String executable, String subcommand) {
+        return behaviours.computeIfAbsent(executable, e -> new LinkedHashMap<>())
+                .computeIfAbsent(subcommand, s -> new Behaviour(executable));
+    }
+
+    /**
+     * Returns the behaviour of an executable that has no subcommands, for example <code>on("sestatus")</code>. The
+     * behaviour also applies to all subcommands of the executable that are not configured explicitly.
+     *
+     * @param executable The name of the executable
+     * @return The behaviour, which can be configured further
+     */
+    public Behaviour on(String executable) {
+        return on(executable, "");
+    }
+
+    /**
+     * Returns a delegate that executes every command using its stand-in
+     *
+     * @return The delegate
+     */
+    public CommandExecutorDelegate delegate() {
+        return new FakeCommandExecutorDelegate();
+    }
+
+    /**
+     * Returns the arguments of every invocation of a subcommand of an executable, in the order the invocations started
+     *
+     * @param executable The name of the executable
+     * @param subcommand The subcommand
+     * @return The arguments of every invocation, separated by spaces
+     */
+    public List<String> getInvocations(String executable, String subcommand) {
+        List<String> invocations = new ArrayList<>();
+        for (String line : readInvocationLog()) {
+            List<String> arguments = Arrays.asList(line.split(" "));
+            if (arguments.get(0).equals(executable) && subcommand.equals(findSubcommand(arguments.subList(1, arguments.size())))) {
+                invocations.add(line.substring(executable.length()).trim());
+            }
+        }
+        return invocations;
+    }
+
+    /**
+     * Returns the total number of invocations of all stand-ins
+     *
+     * @return The number of invocations
+     */
+    public int getInvocationCount() {
+        return readInvocationLog().size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        FileUtils.deleteDirectory(directory.toFile());
+    }
+
+    private List<String> readInvocationLog() {
+        try {
+            return Files.readAllLines(directory.resolve(INVOCATION_LOG), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String findSubcommand(List<String> arguments) {
+        return arguments.stream().filter(argument -> !argument.startsWith("-")).findFirst().orElse("");
+    }
+
+    private synchronized Path getScript(String executable) {
+        Path script = directory.resolve(BIN_DIRECTORY).resolve(executable);
+        return Files.exists(script) ? script : writeScript(executable);
+    }
+
+    private synchronized Path writeScript(String executable) {
+        Path script = directory.resolve(BIN_DIRECTORY).resolve(executable);
+        try {
+            Files.write(script, createScript(executable).getBytes(StandardCharsets.UTF_8));
+            if (!script.toFile().setExecutable(true)) {
+                throw new IOException("Failed to make " + script + " executable");
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return script;
+    }
+
+    private String createScript(String executable) {
+        Map<String, Behaviour> subcommands = behaviours.getOrDefault(executable, Collections.emptyMap());
+        String stateDirectory = quote(directory.resolve(STATE_DIRECTORY).toString());
+
+        StringBuilder script = new StringBuilder()
+                .append("#!/bin/sh\n")
+                .append("# Stand-in for ").append(executable).append(", generated by ").append(FakeExecutables.class.getSimpleName()).append("\n")
+                .append("sub=''\niidfile=''\noutput=''\n")
+                .append("for arg in \"$@\"; do\n")
+                .append("  case \"$arg\" in\n")
+                .append("    --iidfile=*) iidfile=\"${arg#--iidfile=}\" ;;\n")
+                .append("    --output=*) output=\"${arg#--output=}\" ;;\n")
+                .append("    -*) ;;\n")
+                .append("    *) [ -z \"$sub\" ] && sub=\"$arg\" ;;\n")
+                .append("  esac\n")
+                .append("done\n")
+                // Concurrent invocations count their attempts and record themselves under a lock
+                .append("lock=").append(stateDirectory).append("/lock\n")
+                .append("until mkdir \"$lock\" 2>/dev/null; do sleep 0.01; done\n")
+                .append("counter=").append(stateDirectory).append("/").append(quote(executable)).append("-\"$sub\".count\n")
+                .append("count=$(( $(cat \"$counter\" 2>/dev/null || echo 0) + 1 ))\n")
+                .append("echo \"$count\" > \"$counter\"\n")
+                .append("echo ").append(quote(executable)).append(" \"$*\" >> ").append(quote(directory.resolve(INVOCATION_LOG).toString())).append("\n")
+                .append("rmdir \"$lock\"\n")
+                .append("case \"$sub\" in\n");
+
+        for (Map.Entry<String, Behaviour> subcommand : subcommands.entrySet()) {
+            if (!subcommand.getKey().isEmpty()) {
+                script.append("  ").append(quote(subcommand.getKey())).append(")\n");
+                subcommand.getValue().appendTo(script);
+                script.append("    ;;\n");
+            }
+        }
+
+        script.append("  *)\n");
+        subcommands.getOrDefault("", new Behaviour(executable)).appendTo(script);
+        script.append("    ;;\n")
+                .append("esac\n");
+        return script.toString();
+    }
+
+    private static String quote(String value) {
+        return "'" + value.replace("'", "'\\''") + "'";
+    }
+
+    /**
+     * Configures how a subcommand of a stand-in behaves. Every change takes effect for the invocations that start
+     * after it.
+     */
+    public final class Behaviour {
+
+        private final String executable;
+        private final List<String> outputLines = new ArrayList<>();
+
+        private long latencyMillis;
+        private long generatedLines;
+        private int generatedLineLength;
+        private int failures;
+        private int failureExitCode;
+        private String failureMessage;
+        private int exitCode;
+
+        private Behaviour(String executable) {
+            this.executable = executable;
+        }
+
+        /**
+         * Makes every invocation take at least the provided time
+         *
+         * @param millis The time in milliseconds
+         * @return This behaviour
+         */
+        public Behaviour latency(long millis) {
+            this.latencyMillis = millis;
+            return update();
+        }
+
+        /**
+         * Makes every invocation write the provided lines to stdout
+         *
+         * @param lines The lines to write
+         * @return This behaviour
+         */
+        public Behaviour output(String... lines) {
+            outputLines.addAll(Arrays.asList(lines));
+            return update();
+        }
+
+        /**
+         * Makes every invocation write the provided number of generated lines to stdout, after the lines configured
+         * using {@link #output(String...)}. The lines are generated by the stand-in, so large volumes of output do not
+         * require any memory in the test itself.
+         *
+         * @param lines      The number of lines to write
+         * @param lineLength The length of every line, excluding the line separator
+         * @return This behaviour
+         */
+        public Behaviour outputVolume(long lines, int lineLength) {
+            this.generatedLines = lines;
+            this.generatedLineLength = lineLength;
+            return update();
+        }
+
+        /**
+         * Makes the first invocations fail, after which the invocations behave as configured otherwise
+         *
+         * @param invocations The number of invocations that fail
+         * @param exitCode    The exit code of the failing invocations
+         * @param message     The message the failing invocations write to stderr
+         * @return This behaviour
+         */
+        public Behaviour failFirst(int invocations, int exitCode, String message) {
+            this.failures = invocations;
+            this.failureExitCode = exitCode;
+            this.failureMessage = message;
+            return update();
+        }
+
+        /**
+         * Sets the exit code of every invocation that does not fail because of {@link #failFirst(int, int, String)}
+         *
+         * @param exitCode The exit code
+         * @return This behaviour
+         */
+        public Behaviour exitCode(int exitCode) {
+            this.exitCode = exitCode;
+            return update();
+        }
+
+        private Behaviour update() {
+            writeScript(executable);
+            return this;
+        }
+
+        private void appendTo(StringBuilder script) {
+            if (latencyMillis > 0) {
+                script.append("    sleep ").append(String.format(Locale.ROOT, "%.3f", latencyMillis / 1000.0)).append("\n");
+            }
+            if (failures > 0) {
+                script.append("    if [ \"$count\" -le ").append(failures).append(" ]; then\n")
+                        .append("      echo ").append(quote(failureMessage)).append(" >&2\n")
+                        .append("      exit ").append(failureExitCode).append("\n")
+                        .append("    fi\n");
+            }
+            script.append("    [ -n \"$iidfile\" ] && printf 'sha256:%064d' \"$count\" > \"$iidfile\"\n")
+                    .append("    [ -n \"$output\" ] && : > \"$output\"\n");
+            for (String line : outputLines) {
+                script.append("    echo ").append(quote(line)).append("\n");
+            }
+            if (generatedLines > 0) {
+                String line = generatedLine();
+                script.append("    yes ").append(quote(line)).append(" | head -n ").append(generatedLines).append("\n");
+            }
+            script.append("    exit ").append(exitCode).append("\n");
+        }
+
+        private String generatedLine() {
+            StringBuilder line = new StringBuilder(executable).append(" output");
+            while (line.length() < generatedLineLength) {
+                line.append(" .");
+            }
+            return line.substring(0, generatedLineLength);
+        }
+    }
+
+    /**
+     * Replaces the executable of every command by its stand-in before executing it
+     */
+    private final class FakeCommandExecutorDelegate implements CommandExecutorDelegate {
+
+        private final CommandExecutorDelegate delegate = new CommandExecutorDelegateImpl();
+
+        @Override
+        public List<String> executeCommand(ProcessExecutor processExecutor) throws MojoExecutionException {
+            return delegate.executeCommand(useStandIn(processExecutor));
+        }
+
+        @Override
+        public void executeCommand(ProcessExecutor processExecutor, Consumer<String> outputConsumer) throws MojoExecutionException {
+            delegate.executeCommand(useStandIn(processExecutor), outputConsumer);
+        }
+
+        @Override
+        public void executeCommand(ProcessExecutor processExecutor, OutputStream outputStream) throws MojoExecutionException {
+            delegate.executeCommand(useStandIn(processExecutor), outputStream);
+        }
+
+        private ProcessExecutor useStandIn(ProcessExecutor processExecutor) {
+            List<String> command = new ArrayList<>(processExecutor.getCommand());
+            String executable = Paths.get(command.get(0)).getFileName().toString();
+
+            command.set(0, getScript(executable).toString());
+            return processExecutor.command(command);
+        }
+    }
+}
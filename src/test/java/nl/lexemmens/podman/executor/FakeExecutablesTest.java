@@ -0,0 +1,127 @@
+package nl.lexemmens.podman.executor;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.jupiter.api.Assertions;
+import org.zeroturnaround.exec.ProcessExecutor;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class FakeExecutablesTest {
+
+    private FakeExecutables fakeExecutables;
+
+    @Before
+    public void setup() throws IOException {
+        Assume.assumeTrue(FakeExecutables.isSupported());
+        fakeExecutables = FakeExecutables.create();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        if (fakeExecutables != null) {
+            fakeExecutables.close();
+        }
+    }
+
+    @Test
+    public void testConfiguredOutputIsStreamed() throws MojoExecutionException {
+        fakeExecutables.on("podman", "build").output("STEP 1/2: FROM scratch", "STEP 2/2: COPY . .").outputVolume(10_000, 100);
+
+        AtomicLong lineCount = new AtomicLong();
+        List<String> firstLines = new ArrayList<>();
+        fakeExecutables.delegate().executeCommand(command("podman", "build", "--tls-verify=false", "."), line -> {
+            if (lineCount.incrementAndGet() <= 3) {
+                firstLines.add(line);
+            }
+        });
+
+        Assertions.assertEquals(10_002, lineCount.get());
+        Assertions.assertEquals("STEP 1/2: FROM scratch", firstLines.get(0));
+        Assertions.assertEquals("STEP 2/2: COPY . .", firstLines.get(1));
+        Assertions.assertEquals(100, firstLines.get(2).length());
+    }
+
+    @Test
+    public void testFirstInvocationsFail() throws MojoExecutionException {
+        fakeExecutables.on("podman", "push").failFirst(2, 125, "Error: 503 Service Unavailable");
+        CommandExecutorDelegate delegate = fakeExecutables.delegate();
+
+        for (int attempt = 0; attempt < 2; attempt++) {
+            CommandExecutionException e = Assertions.assertThrows(CommandExecutionException.class,
+                    () -> delegate.executeCommand(command("podman", "push", "registry.example.com/image:1.0.0")));
+            Assertions.assertEquals(125, e.getExitCode());
+            Assertions.assertEquals(Collections.singletonList("Error: 503 Service Unavailable"), e.getErrorOutput());
+        }
+
+        Assertions.assertEquals(Collections.emptyList(), delegate.executeCommand(command("podman", "push", "registry.example.com/image:1.0.0")));
+    }
+
+    @Test
+    public void testExitCode() {
+        fakeExecutables.on("skopeo", "copy").exitCode(2);
+
+        CommandExecutionException e = Assertions.assertThrows(CommandExecutionException.class,
+                () -> fakeExecutables.delegate().executeCommand(command("skopeo", "copy", "docker://a", "docker://b")));
+        Assertions.assertEquals(2, e.getExitCode());
+    }
+
+    @Test
+    public void testLatency() throws MojoExecutionException {
+        fakeExecutables.on("buildah", "unshare").latency(300);
+
+        long start = System.nanoTime();
+        fakeExecutables.delegate().executeCommand(command("buildah", "unshare", "ls"));
+
+        Assertions.assertTrue(System.nanoTime() - start >= 300_000_000L);
+    }
+
+    @Test
+    public void testBuildWritesImageId() throws MojoExecutionException, IOException {
+        Path iidFile = Files.createTempFile("fake-executables", ".iid");
+
+        try {
+            fakeExecutables.delegate().executeCommand(command("podman", "build", "--iidfile=" + iidFile, "."));
+
+            String imageId = new String(Files.readAllBytes(iidFile), StandardCharsets.UTF_8);
+            Assertions.assertTrue(imageId.matches("sha256:[0-9]{64}"), imageId);
+        } finally {
+            Files.deleteIfExists(iidFile);
+        }
+    }
+
+    @Test
+    public void testInvocationsAreRecorded() throws MojoExecutionException {
+        fakeExecutables.on("sestatus").output("SELinux status:                 disabled");
+        CommandExecutorDelegate delegate = fakeExecutables.delegate();
+
+        Assertions.assertEquals(Collections.singletonList("SELinux status:                 disabled"), delegate.executeCommand(command("sestatus")));
+        delegate.executeCommand(command("podman", "tag", "image:1.0.0", "image:latest"));
+        delegate.executeCommand(command("podman", "--root=/tmp/storage", "tag", "image:1.0.0", "image:stable"));
+
+        Assertions.assertEquals(Arrays.asList("tag image:1.0.0 image:latest", "--root=/tmp/storage tag image:1.0.0 image:stable"),
+                fakeExecutables.getInvocations("podman", "tag"));
+        Assertions.assertEquals(Collections.singletonList(""), fakeExecutables.getInvocations("sestatus", ""));
+        Assertions.assertEquals(3, fakeExecutables.getInvocationCount());
+    }
+
+    private static ProcessExecutor command(String... command) {
+        return new ProcessExecutor()
+                .directory(new File("."))
+                .command(command)
+                .readOutput(true)
+                .exitValueNormal();
+    }
+}
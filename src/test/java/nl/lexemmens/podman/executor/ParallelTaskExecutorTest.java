@@ -0,0 +1,177 @@
+package nl.lexemmens.podman.executor;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.runner.RunWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+@RunWith(MockitoJUnitRunner.class)
+public class ParallelTaskExecutorTest {
+
+    @Mock
+    private Log log;
+
+    @Before
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    public void testSingleThreadRunsInOrderOnCallingThread() throws MojoExecutionException {
+        List<String> processed = new ArrayList<>();
+        Thread caller = Thread.currentThread();
+
+        new ParallelTaskExecutor(log, 1, "test").execute(Arrays.asList("a", "b", "c"), Function.identity(), (item, taskLog) -> {
+            Assertions.assertSame(caller, Thread.currentThread());
+            Assertions.assertSame(log, taskLog);
+            processed.add(item);
+        });
+
+        Assertions.assertEquals(Arrays.asList("a", "b", "c"), processed);
+    }
+
+    @Test
+    public void testSingleThreadFailsFast() {
+        List<String> processed = new ArrayList<>();
+
+        MojoExecutionException e = Assertions.assertThrows(MojoExecutionException.class, () ->
+                new ParallelTaskExecutor(log, 1, "test").execute(Arrays.asList("a", "b"), Function.identity(), (item, taskLog) -> {
+                    processed.add(item);
+                    throw new MojoExecutionException("Failed " + item);
+                }));
+
+        Assertions.assertEquals("Failed a", e.getMessage());
+        Assertions.assertEquals(Collections.singletonList("a"), processed);
+    }
+
+    @Test
+    public void testMultipleThreadsRunConcurrently() throws MojoExecutionException {
+        CountDownLatch latch = new CountDownLatch(2);
+        Set<String> threadNames = ConcurrentHashMap.newKeySet();
+
+        new ParallelTaskExecutor(log, 2, "test").execute(Arrays.asList("a", "b"), Function.identity(), (item, taskLog) -> {
+            threadNames.add(Thread.currentThread().getName());
+            latch.countDown();
+            try {
+                // Both tasks must be running at the same time for the latch to reach zero
+                Assertions.assertTrue(latch.await(10, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new MojoExecutionException("Interrupted", e);
+            }
+        });
+
+        Assertions.assertEquals(2, threadNames.size());
+        Assertions.assertTrue(threadNames.stream().allMatch(name -> name.startsWith("test-")));
+    }
+
+    @Test
+    public void testMultipleThreadsBufferOutputPerItem() throws MojoExecutionException {
+        new ParallelTaskExecutor(log, 2, "test").execute(Arrays.asList("a", "b"), Function.identity(), (item, taskLog) -> {
+            Assertions.assertTrue(taskLog instanceof BufferedLog);
+            taskLog.info("first");
+            taskLog.info("second");
+        });
+
+        InOrder inOrderA = inOrder(log);
+        inOrderA.verify(log).info("[a] first");
+        inOrderA.verify(log).info("[a] second");
+
+        InOrder inOrderB = inOrder(log);
+        inOrderB.verify(log).info("[b] first");
+        inOrderB.verify(log).info("[b] second");
+    }
+
+    @Test
+    public void testMultipleThreadsReportAllFailures() {
+        Set<String> processed = ConcurrentHashMap.newKeySet();
+
+        MojoExecutionException e = Assertions.assertThrows(MojoExecutionException.class, () ->
+                new ParallelTaskExecutor(log, 2, "test").execute(Arrays.asList("a", "b", "c"), Function.identity(), (item, taskLog) -> {
+                    processed.add(item);
+                    if (!"b".equals(item)) {
+                        throw new MojoExecutionException("Failed " + item);
+                    }
+                }));
+
+        Assertions.assertEquals(3, processed.size());
+        Assertions.assertEquals("2 of 3 tasks failed: a, c", e.getMessage());
+        verify(log, times(1)).error("Failed to process a: Failed a");
+        verify(log, times(1)).error("Failed to process c: Failed c");
+    }
+
+    @Test
+    public void testDependentTaskStartsAfterItsDependency() throws MojoExecutionException {
+        List<String> processed = Collections.synchronizedList(new ArrayList<>());
+        Function<String, Collection<String>> dependencies = item -> "b".equals(item) ? Collections.singletonList("a") : Collections.emptyList();
+
+        // b is listed first, but depends on a
+        new ParallelTaskExecutor(log, 2, "test").execute(Arrays.asList("b", "a"), Function.identity(), dependencies, (item, taskLog) -> processed.add(item));
+
+        Assertions.assertEquals(Arrays.asList("a", "b"), processed);
+    }
+
+    @Test
+    public void testSingleThreadRespectsDependencies() throws MojoExecutionException {
+        List<String> processed = new ArrayList<>();
+        Function<String, Collection<String>> dependencies = item -> "b".equals(item) ? Collections.singletonList("a") : Collections.emptyList();
+
+        new ParallelTaskExecutor(log, 1, "test").execute(Arrays.asList("b", "c", "a"), Function.identity(), dependencies, (item, taskLog) -> processed.add(item));
+
+        Assertions.assertEquals(Arrays.asList("c", "a", "b"), processed);
+    }
+
+    @Test
+    public void testDependentTaskIsSkippedWhenDependencyFails() {
+        List<String> processed = Collections.synchronizedList(new ArrayList<>());
+        Function<String, Collection<String>> dependencies = item -> "b".equals(item) ? Collections.singletonList("a") : Collections.emptyList();
+
+        MojoExecutionException e = Assertions.assertThrows(MojoExecutionException.class, () ->
+                new ParallelTaskExecutor(log, 2, "test").execute(Arrays.asList("a", "b", "c"), Function.identity(), dependencies, (item, taskLog) -> {
+                    processed.add(item);
+                    if ("a".equals(item)) {
+                        throw new MojoExecutionException("Failed " + item);
+                    }
+                }));
+
+        Assertions.assertFalse(processed.contains("b"));
+        Assertions.assertTrue(processed.contains("c"));
+        Assertions.assertEquals("1 of 3 tasks failed: a. Skipped 1 dependent tasks: b", e.getMessage());
+        verify(log, times(1)).error("Skipped b because an item it depends on failed");
+    }
+
+    @Test
+    public void testCircularDependencyFails() {
+        Function<String, Collection<String>> dependencies = item -> "a".equals(item) ? Collections.singletonList("b") : Collections.singletonList("a");
+
+        MojoExecutionException e = Assertions.assertThrows(MojoExecutionException.class, () ->
+                new ParallelTaskExecutor(log, 2, "test").execute(Arrays.asList("a", "b"), Function.identity(), dependencies, (item, taskLog) -> {
+                }));
+
+        Assertions.assertEquals("Circular dependency detected between: a, b", e.getMessage());
+    }
+}
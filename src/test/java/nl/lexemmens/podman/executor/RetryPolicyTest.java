@@ -0,0 +1,165 @@
+package nl.lexemmens.podman.executor;
+
+import nl.lexemmens.podman.config.podman.RetryConfiguration;
+import nl.lexemmens.podman.config.podman.TestRetryConfigurationBuilder;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+@RunWith(MockitoJUnitRunner.class)
+public class RetryPolicyTest {
+
+    @Mock
+    private Log log;
+
+    private AtomicLong clock;
+    private List<Long> sleeps;
+
+    @Before
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+
+        clock = new AtomicLong();
+        sleeps = new ArrayList<>();
+    }
+
+    @Test
+    public void testBackoffGrowsExponentiallyUpToMaximum() {
+        RetryConfiguration configuration = new TestRetryConfigurationBuilder()
+                .setInitialBackoff(100)
+                .setMultiplier(2.0)
+                .setMaxBackoff(1000)
+                .setJitter(0.0)
+                .build();
+        RetryPolicy retryPolicy = createRetryPolicy(5, configuration);
+
+        Assertions.assertEquals(100, retryPolicy.getBackoff(0));
+        Assertions.assertEquals(200, retryPolicy.getBackoff(1));
+        Assertions.assertEquals(400, retryPolicy.getBackoff(2));
+        Assertions.assertEquals(800, retryPolicy.getBackoff(3));
+        Assertions.assertEquals(1000, retryPolicy.getBackoff(4));
+    }
+
+    @Test
+    public void testJitterReducesBackoff() {
+        RetryConfiguration configuration = new TestRetryConfigurationBuilder()
+                .setInitialBackoff(1000)
+                .setJitter(0.5)
+                .build();
+        RetryPolicy retryPolicy = createRetryPolicy(1, configuration);
+
+        for (int i = 0; i < 100; i++) {
+            long backoff = retryPolicy.getBackoff(0);
+            Assertions.assertTrue(backoff >= 500 && backoff <= 1000, "Unexpected backoff: " + backoff);
+        }
+    }
+
+    @Test
+    public void testRetriesUntilSuccess() throws MojoExecutionException {
+        RetryPolicy retryPolicy = createRetryPolicy(3, new TestRetryConfigurationBuilder().setJitter(0.0).build());
+
+        AtomicInteger attempts = new AtomicInteger();
+        retryPolicy.execute("push image sample", log, () -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw commandFailure("Error: received unexpected HTTP status: 503 Service Unavailable");
+            }
+        });
+
+        Assertions.assertEquals(3, attempts.get());
+        Assertions.assertEquals(Arrays.asList(1000L, 2000L), sleeps);
+        verify(log, times(1)).warn("Failed to push image sample, retrying in 1000 ms...");
+        verify(log, times(1)).warn("Failed to push image sample, retrying in 2000 ms...");
+    }
+
+    @Test
+    public void testThrowsLastFailureWhenRetriesAreExhausted() {
+        RetryPolicy retryPolicy = createRetryPolicy(2, new TestRetryConfigurationBuilder().build());
+
+        AtomicInteger attempts = new AtomicInteger();
+        MojoExecutionException lastFailure = commandFailure("Error: 429 Too Many Requests");
+        MojoExecutionException thrown = Assertions.assertThrows(MojoExecutionException.class, () -> retryPolicy.execute("push image sample", log, () -> {
+            attempts.incrementAndGet();
+            throw lastFailure;
+        }));
+
+        Assertions.assertSame(lastFailure, thrown);
+        Assertions.assertEquals(3, attempts.get());
+        Assertions.assertEquals(2, sleeps.size());
+    }
+
+    @Test
+    public void testAuthenticationErrorsAreNotRetried() {
+        RetryPolicy retryPolicy = createRetryPolicy(3, new TestRetryConfigurationBuilder().build());
+
+        AtomicInteger attempts = new AtomicInteger();
+        Assertions.assertThrows(MojoExecutionException.class, () -> retryPolicy.execute("push image sample", log, () -> {
+            attempts.incrementAndGet();
+            throw commandFailure("Error: writing blob: initiating layer upload: unauthorized: authentication required");
+        }));
+
+        Assertions.assertEquals(1, attempts.get());
+        Assertions.assertTrue(sleeps.isEmpty());
+        verify(log, times(1)).warn("Failed to push image sample. The error cannot be resolved by retrying.");
+    }
+
+    @Test
+    public void testLastReportedErrorDecides() {
+        Assertions.assertFalse(RetryPolicy.isRetryable(commandFailure("Error: 503 Service Unavailable", "Error: 403 Forbidden")));
+        Assertions.assertTrue(RetryPolicy.isRetryable(commandFailure("Error: 403 Forbidden", "Error: net/http: TLS handshake timeout")));
+        Assertions.assertTrue(RetryPolicy.isRetryable(commandFailure("Error: something unexpected happened")));
+        Assertions.assertTrue(RetryPolicy.isRetryable(new MojoExecutionException("Execution failed")));
+        Assertions.assertTrue(RetryPolicy.isRetryable(new CommandExecutionException("Timed out", Collections.singletonList("Error: 401 Unauthorized"), true)));
+    }
+
+    @Test
+    public void testStopsWhenMaxElapsedTimeWouldBeExceeded() {
+        RetryConfiguration configuration = new TestRetryConfigurationBuilder()
+                .setInitialBackoff(1000)
+                .setJitter(0.0)
+                .setMaxElapsedTime(2500)
+                .build();
+        RetryPolicy retryPolicy = createRetryPolicy(10, configuration);
+
+        AtomicInteger attempts = new AtomicInteger();
+        Assertions.assertThrows(MojoExecutionException.class, () -> retryPolicy.execute("push image sample", log, () -> {
+            attempts.incrementAndGet();
+            throw commandFailure("Error: 502 Bad Gateway");
+        }));
+
+        // Waiting 1000 ms after the first attempt fits, waiting another 2000 ms would exceed the maximum
+        Assertions.assertEquals(2, attempts.get());
+        Assertions.assertEquals(Collections.singletonList(1000L), sleeps);
+        verify(log, times(1)).warn("Failed to push image sample. Not retrying, because it would take longer than 2500 ms.");
+    }
+
+    private RetryPolicy createRetryPolicy(int retries, RetryConfiguration configuration) {
+        return new RetryPolicy(retries, configuration, millis -> {
+            sleeps.add(millis);
+            clock.addAndGet(millis);
+        }, clock::get, new Random(42));
+    }
+
+    private static CommandExecutionException commandFailure(String... errorOutput) {
+        return new CommandExecutionException("Failed to execute command", Arrays.asList(errorOutput), false);
+    }
+}
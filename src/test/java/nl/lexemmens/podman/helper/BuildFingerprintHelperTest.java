@@ -0,0 +1,199 @@
+package nl.lexemmens.podman.helper;
+
+import nl.lexemmens.podman.config.image.single.SingleImageConfiguration;
+import nl.lexemmens.podman.config.image.single.TestSingleImageConfigurationBuilder;
+import nl.lexemmens.podman.config.podman.PodmanConfiguration;
+import nl.lexemmens.podman.config.podman.TestPodmanConfigurationBuilder;
+import nl.lexemmens.podman.service.PodmanExecutorService;
+import org.apache.commons.io.FileUtils;
+import org.apache.maven.model.Build;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.project.MavenProject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@RunWith(MockitoJUnitRunner.class)
+public class BuildFingerprintHelperTest {
+
+    @Mock
+    private MavenProject mavenProject;
+
+    @Mock
+    private Build build;
+
+    @Mock
+    private Log log;
+
+    @Mock
+    private PodmanExecutorService podmanExecutorService;
+
+    private Path baseDir;
+    private Path contextDir;
+    private Path targetDir;
+    private PodmanConfiguration podmanConfig;
+    private BuildFingerprintHelper fingerprintHelper;
+
+    @Before
+    public void before() throws IOException {
+        baseDir = Files.createTempDirectory("fingerprint");
+        contextDir = Files.createDirectories(baseDir.resolve("context"));
+        targetDir = Files.createDirectories(baseDir.resolve("target"));
+
+        Files.write(contextDir.resolve("Containerfile"), Collections.singletonList("FROM scratch"));
+        Files.write(contextDir.resolve("app.txt"), Collections.singletonList("version 1"));
+        Files.write(targetDir.resolve("Containerfile"), Collections.singletonList("FROM scratch"));
+
+        when(mavenProject.getBuild()).thenReturn(build);
+        when(build.getDirectory()).thenReturn(targetDir.toString());
+
+        podmanConfig = new TestPodmanConfigurationBuilder().setRunDirectory(baseDir.toFile()).build();
+        fingerprintHelper = new BuildFingerprintHelper(podmanConfig, targetDir.resolve("podman"));
+    }
+
+    @After
+    public void after() throws IOException {
+        FileUtils.deleteDirectory(baseDir.toFile());
+    }
+
+    @Test
+    public void testFingerprintIsStable() throws MojoExecutionException {
+        SingleImageConfiguration image = image();
+
+        assertEquals(fingerprintHelper.computeFingerprint(image, podmanExecutorService), fingerprintHelper.computeFingerprint(image, podmanExecutorService));
+    }
+
+    @Test
+    public void testFingerprintChangesWithContext() throws MojoExecutionException, IOException {
+        SingleImageConfiguration image = image();
+        String fingerprint = fingerprintHelper.computeFingerprint(image, podmanExecutorService);
+
+        Files.write(contextDir.resolve("app.txt"), Collections.singletonList("version 2"));
+
+        assertNotEquals(fingerprint, fingerprintHelper.computeFingerprint(image, podmanExecutorService));
+    }
+
+    @Test
+    public void testFingerprintChangesWithContainerfile() throws MojoExecutionException, IOException {
+        SingleImageConfiguration image = image();
+        String fingerprint = fingerprintHelper.computeFingerprint(image, podmanExecutorService);
+
+        Files.write(targetDir.resolve("Containerfile"), Collections.singletonList("FROM busybox"));
+
+        assertNotEquals(fingerprint, fingerprintHelper.computeFingerprint(image, podmanExecutorService));
+    }
+
+    @Test
+    public void testFingerprintChangesWithBaseImageId() throws MojoExecutionException, IOException {
+        Files.write(targetDir.resolve("Containerfile"), Arrays.asList("FROM busybox AS base", "FROM base", "FROM registry.example.com/parent:1.0.0"));
+        when(podmanExecutorService.getLocalImageId("busybox")).thenReturn(Optional.of("sha256:1111"));
+        when(podmanExecutorService.getLocalImageId("registry.example.com/parent:1.0.0")).thenReturn(Optional.of("sha256:2222"), Optional.of("sha256:3333"));
+        SingleImageConfiguration image = image();
+
+        String fingerprint = fingerprintHelper.computeFingerprint(image, podmanExecutorService);
+
+        // The parent image has been rebuilt
+        assertNotEquals(fingerprint, fingerprintHelper.computeFingerprint(image, podmanExecutorService));
+        verify(podmanExecutorService, times(2)).getLocalImageId("busybox");
+        verify(podmanExecutorService, never()).getLocalImageId("base");
+    }
+
+    @Test
+    public void testFingerprintChangesWithBuildArgs() throws MojoExecutionException {
+        String fingerprint = fingerprintHelper.computeFingerprint(image(), podmanExecutorService);
+
+        SingleImageConfiguration imageWithArgs = new TestSingleImageConfigurationBuilder("sample")
+                .setContainerfileDir(contextDir.toString())
+                .setContextDir("context")
+                .setBuildArgs(Collections.singletonMap("VERSION", "2"))
+                .initAndValidate(mavenProject, log, true)
+                .build();
+
+        assertNotEquals(fingerprint, fingerprintHelper.computeFingerprint(imageWithArgs, podmanExecutorService));
+    }
+
+    @Test
+    public void testIgnoredFilesDoNotChangeFingerprint() throws MojoExecutionException, IOException {
+        Files.write(contextDir.resolve(".containerignore"), Collections.singletonList("*.log"));
+        SingleImageConfiguration image = image();
+        String fingerprint = fingerprintHelper.computeFingerprint(image, podmanExecutorService);
+
+        Files.write(contextDir.resolve("build.log"), Collections.singletonList("some output"));
+
+        assertEquals(fingerprint, fingerprintHelper.computeFingerprint(image, podmanExecutorService));
+    }
+
+    @Test
+    public void testExceptionsInIgnoreFileAreApplied() throws MojoExecutionException, IOException {
+        Files.write(contextDir.resolve(".dockerignore"), Arrays.asList("logs", "!logs/keep.log"));
+        Files.createDirectories(contextDir.resolve("logs"));
+        SingleImageConfiguration image = image();
+        String fingerprint = fingerprintHelper.computeFingerprint(image, podmanExecutorService);
+
+        Files.write(contextDir.resolve("logs/build.log"), Collections.singletonList("some output"));
+        assertEquals(fingerprint, fingerprintHelper.computeFingerprint(image, podmanExecutorService));
+
+        Files.write(contextDir.resolve("logs/keep.log"), Collections.singletonList("used by the image"));
+        assertNotEquals(fingerprint, fingerprintHelper.computeFingerprint(image, podmanExecutorService));
+    }
+
+    @Test
+    public void testInvalidIgnorePatternFingerprintsWholeContext() throws MojoExecutionException, IOException {
+        // An unclosed character class is not a valid pattern
+        Files.write(contextDir.resolve(".dockerignore"), Arrays.asList("*.log", "[a-"));
+        SingleImageConfiguration image = image();
+        String fingerprint = fingerprintHelper.computeFingerprint(image, podmanExecutorService);
+
+        Files.write(contextDir.resolve("build.log"), Collections.singletonList("some output"));
+
+        assertNotEquals(fingerprint, fingerprintHelper.computeFingerprint(image, podmanExecutorService));
+    }
+
+    @Test
+    public void testRecordedBuildIsReturnedForSameFingerprint() throws MojoExecutionException {
+        SingleImageConfiguration image = image();
+        image.setFinalImageHash("ca1f5f48ef43");
+        image.getImageHashPerStage().put("base", "7e72c870614");
+
+        String fingerprint = fingerprintHelper.computeFingerprint(image, podmanExecutorService);
+        fingerprintHelper.recordBuild(image, fingerprint);
+
+        Optional<BuildFingerprintHelper.RecordedBuild> recordedBuild = fingerprintHelper.getRecordedBuild(image, fingerprint);
+        assertTrue(recordedBuild.isPresent());
+        assertEquals("ca1f5f48ef43", recordedBuild.get().getFinalImageHash());
+        assertEquals(Collections.singletonMap("base", "7e72c870614"), recordedBuild.get().getImageHashPerStage());
+
+        assertFalse(fingerprintHelper.getRecordedBuild(image, "other").isPresent());
+    }
+
+    private SingleImageConfiguration image() throws MojoExecutionException {
+        return new TestSingleImageConfigurationBuilder("sample")
+                .setContainerfileDir(contextDir.toString())
+                .setContextDir("context")
+                .initAndValidate(mavenProject, log, true)
+                .build();
+    }
+}
@@ -0,0 +1,70 @@
+package nl.lexemmens.podman.helper;
+
+import org.junit.Test;
+
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ContainerIgnoreFileTest {
+
+    @Test
+    public void testDirectoryPatternIgnoresContents() {
+        ContainerIgnoreFile ignoreFile = ContainerIgnoreFile.parse(Arrays.asList("/target/", "node_modules"));
+
+        assertTrue(ignoreFile.isIgnored(Paths.get("target")));
+        assertTrue(ignoreFile.isIgnored(Paths.get("target/classes/App.class")));
+        assertTrue(ignoreFile.isIgnored(Paths.get("node_modules/lib/index.js")));
+        assertFalse(ignoreFile.isIgnored(Paths.get("src/node_modules")));
+        assertFalse(ignoreFile.isIgnored(Paths.get("targets")));
+        assertFalse(ignoreFile.hasExceptions());
+    }
+
+    @Test
+    public void testWildcards() {
+        ContainerIgnoreFile ignoreFile = ContainerIgnoreFile.parse(Arrays.asList("*.log", "**/*.tar.gz", "docs/?.md", "build[0-9]"));
+
+        assertTrue(ignoreFile.isIgnored(Paths.get("app.log")));
+        assertFalse(ignoreFile.isIgnored(Paths.get("logs/app.log")));
+        assertTrue(ignoreFile.isIgnored(Paths.get("app.tar.gz")));
+        assertTrue(ignoreFile.isIgnored(Paths.get("dist/images/app.tar.gz")));
+        assertFalse(ignoreFile.isIgnored(Paths.get("app.tar")));
+        assertTrue(ignoreFile.isIgnored(Paths.get("docs/a.md")));
+        assertFalse(ignoreFile.isIgnored(Paths.get("docs/ab.md")));
+        assertTrue(ignoreFile.isIgnored(Paths.get("build1")));
+        assertFalse(ignoreFile.isIgnored(Paths.get("buildx")));
+    }
+
+    @Test
+    public void testExceptionIncludesFileAgain() {
+        ContainerIgnoreFile ignoreFile = ContainerIgnoreFile.parse(Arrays.asList("target", "!target/*.jar", "target/test.jar"));
+
+        assertTrue(ignoreFile.hasExceptions());
+        assertTrue(ignoreFile.isIgnored(Paths.get("target/classes")));
+        assertFalse(ignoreFile.isIgnored(Paths.get("target/app.jar")));
+        assertTrue(ignoreFile.isIgnored(Paths.get("target/test.jar")));
+    }
+
+    @Test
+    public void testCharactersAreMatchedLiterally() {
+        ContainerIgnoreFile ignoreFile = ContainerIgnoreFile.parse(Arrays.asList("{a,b}.txt", "c+d", "[!x]"));
+
+        assertTrue(ignoreFile.isIgnored(Paths.get("{a,b}.txt")));
+        assertFalse(ignoreFile.isIgnored(Paths.get("a.txt")));
+        assertTrue(ignoreFile.isIgnored(Paths.get("c+d")));
+        assertFalse(ignoreFile.isIgnored(Paths.get("ccd")));
+        // Unlike a glob, Go's filepath.Match uses '^' to negate a character class
+        assertTrue(ignoreFile.isIgnored(Paths.get("!")));
+        assertFalse(ignoreFile.isIgnored(Paths.get("y")));
+    }
+
+    @Test
+    public void testInvalidPatternIgnoresNothing() {
+        assertFalse(ContainerIgnoreFile.parse(Arrays.asList("target", "[a-")).isIgnored(Paths.get("target")));
+        assertFalse(ContainerIgnoreFile.parse(Arrays.asList("target", "file\\")).isIgnored(Paths.get("target")));
+        assertFalse(ContainerIgnoreFile.parse(Collections.singletonList("# only a comment")).isIgnored(Paths.get("target")));
+    }
+}
@@ -0,0 +1,113 @@
+package nl.lexemmens.podman.helper;
+
+import nl.lexemmens.podman.config.image.single.SingleImageConfiguration;
+import nl.lexemmens.podman.config.image.single.TestSingleImageConfigurationBuilder;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.project.MavenProject;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@RunWith(MockitoJUnitRunner.class)
+public class ImageDependencyHelperTest {
+
+    @Mock
+    private MavenProject mavenProject;
+
+    @Mock
+    private Log log;
+
+    private ImageDependencyHelper imageDependencyHelper;
+
+    @Before
+    public void before() {
+        imageDependencyHelper = new ImageDependencyHelper(mavenProject);
+    }
+
+    @Test
+    public void testIndependentImages() throws MojoExecutionException {
+        SingleImageConfiguration base = image("base");
+        SingleImageConfiguration app = image("app");
+
+        Map<SingleImageConfiguration, List<SingleImageConfiguration>> dependencies = imageDependencyHelper.resolveDependencies(log, Arrays.asList(base, app), name -> "registry.example.com/" + name);
+
+        assertEquals(2, dependencies.size());
+        assertTrue(dependencies.get(base).isEmpty());
+        assertTrue(dependencies.get(app).isEmpty());
+    }
+
+    @Test
+    public void testDependencyViaProjectProperty() throws MojoExecutionException {
+        Properties properties = new Properties();
+        properties.setProperty("base.image", "registry.example.com/base:1.0.0");
+        when(mavenProject.getProperties()).thenReturn(properties);
+
+        SingleImageConfiguration app = image("app");
+        SingleImageConfiguration base = image("base");
+
+        Map<SingleImageConfiguration, List<SingleImageConfiguration>> dependencies = imageDependencyHelper.resolveDependencies(log, Arrays.asList(app, base), name -> "registry.example.com/" + name);
+
+        assertEquals(Collections.singletonList(base), dependencies.get(app));
+        assertTrue(dependencies.get(base).isEmpty());
+    }
+
+    @Test
+    public void testDependencyViaLocalImageIgnoresStageReferences() throws MojoExecutionException {
+        SingleImageConfiguration base = image("base");
+        SingleImageConfiguration tool = image("tool");
+
+        Map<SingleImageConfiguration, List<SingleImageConfiguration>> dependencies = imageDependencyHelper.resolveDependencies(log, Arrays.asList(tool, base), name -> "registry.example.com/" + name);
+
+        assertEquals(Collections.singletonList(base), dependencies.get(tool));
+    }
+
+    @Test
+    public void testDanglingReferenceIsLogged() throws MojoExecutionException {
+        SingleImageConfiguration base = image("base");
+        SingleImageConfiguration dangling = image("dangling");
+
+        Map<SingleImageConfiguration, List<SingleImageConfiguration>> dependencies = imageDependencyHelper.resolveDependencies(log, Arrays.asList(base, dangling), name -> "registry.example.com/" + name);
+
+        assertTrue(dependencies.get(dangling).isEmpty());
+        verify(log, times(1)).warn("Image dangling uses base image base:2.0.0, but this module does not produce this tag. "
+                + "The image does not wait for any image of this module to be built.");
+    }
+
+    @Test
+    public void testCircularDependencyFails() {
+        SingleImageConfiguration cycleA = image("cycle-a");
+        SingleImageConfiguration cycleB = image("cycle-b");
+
+        MojoExecutionException e = assertThrows(MojoExecutionException.class, () ->
+                imageDependencyHelper.resolveDependencies(log, Arrays.asList(cycleA, cycleB), name -> "registry.example.com/" + name));
+
+        assertEquals("Circular dependency detected between container images: cycle-a -> cycle-b -> cycle-a", e.getMessage());
+    }
+
+    private static SingleImageConfiguration image(String name) {
+        return new TestSingleImageConfigurationBuilder(name)
+                .setContainerfile("Containerfile")
+                .setContainerfileDir("src/test/resources/dependencies/" + name)
+                .setTags(new String[]{"1.0.0"})
+                .build();
+    }
+}
@@ -0,0 +1,97 @@
+package nl.lexemmens.podman.helper;
+
+import nl.lexemmens.podman.config.image.single.SingleImageConfiguration;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The implementation of <code>MultiStageBuildOutputHelper#recordImageHashes</code> as of version 1.19.0, which
+ * processed the complete output of a build at once. It is only used to verify that the
+ * {@link MultiStageBuildOutputHelper.ImageHashCollector} determines the same image hashes. Logging has been left out.
+ */
+final class LegacyImageHashParser {
+
+    private static final Pattern IMAGE_HASH_PATTERN = Pattern.compile("\\b([A-Fa-f0-9]{11,64})\\b");
+
+    private LegacyImageHashParser() {
+        // Utility class
+    }
+
+    static Map<String, String> recordImageHashes(SingleImageConfiguration image, List<String> processOutput) {
+        Map<String, String> imageHashPerStage = new HashMap<>();
+        Pattern stagePattern = image.getBuild().getMultistageContainerfilePattern();
+
+        int lastLine = processOutput.size() - 2;
+        int searchIndex = 0;
+        while (searchIndex <= lastLine) {
+            String currentStage = getCurrentStage(stagePattern, processOutput.get(searchIndex));
+            if (currentStage == null) {
+                searchIndex++;
+                continue;
+            }
+
+            ImageHashSearchResult imageHashSearchResult = findImageHash(processOutput, searchIndex + 1, stagePattern);
+            if (imageHashSearchResult.imageHash != null) {
+                imageHashPerStage.put(currentStage, imageHashSearchResult.imageHash);
+            }
+
+            if (imageHashSearchResult.isLastLine) {
+                break;
+            } else {
+                searchIndex = imageHashSearchResult.nextIndex;
+            }
+        }
+
+        return imageHashPerStage;
+    }
+
+    private static String getCurrentStage(Pattern stagePattern, String currentLine) {
+        Matcher stageMatcher = stagePattern.matcher(currentLine);
+        return stageMatcher.find() ? stageMatcher.group(3) : null;
+    }
+
+    private static ImageHashSearchResult findImageHash(List<String> processOutput, int searchStartIndex, Pattern multiStagePattern) {
+        ImageHashSearchResult searchResult = ImageHashSearchResult.EMPTY;
+        String lastKnownImageHash = null;
+
+        int lastLine = processOutput.size() - 2;
+
+        for (int idx = searchStartIndex; idx <= lastLine; idx++) {
+            boolean isLastLine = idx == lastLine;
+
+            String candidate = processOutput.get(idx);
+            boolean candidateLineDefinesStage = multiStagePattern.matcher(candidate).find();
+
+            Matcher imageHashMatcher = IMAGE_HASH_PATTERN.matcher(candidate);
+            if (!candidateLineDefinesStage && imageHashMatcher.find()) {
+                lastKnownImageHash = imageHashMatcher.group(1);
+            }
+
+            if (candidateLineDefinesStage || isLastLine) {
+                searchResult = new ImageHashSearchResult(lastKnownImageHash, idx, isLastLine);
+                break;
+            }
+        }
+
+        return searchResult;
+    }
+
+    private static class ImageHashSearchResult {
+
+        private static final ImageHashSearchResult EMPTY = new ImageHashSearchResult(null, -1, true);
+
+        private final String imageHash;
+        private final int nextIndex;
+        private final boolean isLastLine;
+
+        private ImageHashSearchResult(String imageHash, int nextIndex, boolean isLastLine) {
+            this.imageHash = imageHash;
+            this.nextIndex = nextIndex;
+            this.isLastLine = isLastLine;
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package nl.lexemmens.podman.helper;
+
+import nl.lexemmens.podman.config.image.single.SingleImageConfiguration;
+import nl.lexemmens.podman.config.image.single.TestSingleImageConfigurationBuilder;
+import org.apache.maven.plugin.logging.Log;
+import org.junit.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+@RunWith(MockitoJUnitRunner.class)
+public class MultiStageBuildOutputHelperTest {
+
+    @Mock
+    private Log log;
+
+    private final MultiStageBuildOutputHelper buildOutputHelper = new MultiStageBuildOutputHelper();
+
+    // The expected hashes have been determined by the implementation that processed the complete output at once
+    @Test
+    public void testPodman1xOutput() throws IOException, URISyntaxException {
+        assertImageHashes("/multistagecontainerfile/samplebuildoutput_podman1x.txt",
+                "base", "823ed30df4abf7574498d5f766b0ebf70793d73a99fc4220dda200c5131b60ce",
+                "phase", "b51d6faa80bc4cc9ea93ec3b3b3bdff9629500330df37295c72d388d17b9c303",
+                "phase2", "ba6cb6863b48c3487810458db4b88b238f086cef65078839d9efe30f1069bed7");
+    }
+
+    @Test
+    public void testPodman2xOutput() throws IOException, URISyntaxException {
+        assertImageHashes("/multistagecontainerfile/samplebuildoutput.txt",
+                "base", "7e72c870614",
+                "phase", "7f55eab001a",
+                "phase2", "d2efc6645cb");
+        assertImageHashes("/multistagecontainerfile/samplebuildoutput_multiline_step.txt",
+                "base", "7e72c870614",
+                "phase", "7f55eab001a",
+                "phase2", "d2efc6645cb");
+    }
+
+    // The files in the synthetic directory are written by hand in the output format of later Podman versions. They are
+    // not captured output, so the image hashes below have been determined by the LegacyImageHashParser.
+    @Test
+    public void testPodman3xFormat() throws IOException, URISyntaxException {
+        assertImageHashes("/multistagecontainerfile/synthetic/podman3-format.txt",
+                "base", "9e8d7c6b5a4",
+                "phase", "7f6e5d4c3b2");
+    }
+
+    @Test
+    public void testPodman4xFormat() throws IOException, URISyntaxException {
+        assertImageHashes("/multistagecontainerfile/synthetic/podman4-format.txt",
+                "build", "5e6f7081920",
+                "runtime", "6f708192a3b",
+                "final", "92a3b4c5d6e");
+    }
+
+    @Test
+    public void testPodman5xFormat() throws IOException, URISyntaxException {
+        assertImageHashes("/multistagecontainerfile/synthetic/podman5-format.txt",
+                "tools", "b2c3d4e5f60",
+                "app", "d4e5f607182");
+    }
+
+    @Test
+    public void testStageWithoutImageHash() throws IOException, URISyntaxException {
+        assertImageHashes("/multistagecontainerfile/synthetic/edgecases.txt",
+                "noisy", "abcdefabcde",
+                "last", "fedcba98765");
+
+        verify(log, times(1)).warn("No image hash found for stage: 'empty'");
+    }
+
+    @Test
+    public void testStageIsRecordedWhenNextStageStarts() {
+        SingleImageConfiguration image = image();
+        MultiStageBuildOutputHelper.ImageHashCollector collector = buildOutputHelper.createImageHashCollector(log, image);
+
+        collector.accept("STEP 1: FROM alpine AS base");
+        collector.accept("--> 7e72c870614");
+        collector.accept("STEP 2: FROM 7e72c870614 AS phase");
+        collector.accept("--> 7f55eab001a");
+
+        // The first stage is complete once the next stage starts, even though the build has not finished yet
+        assertEquals(Collections.singletonMap("base", "7e72c870614"), image.getImageHashPerStage());
+        verify(log, times(1)).info("Final image for stage base is: 7e72c870614");
+
+        collector.accept("7f55eab001adf2dfeas8adc03ef847dd3d2b4fa42b4fa418ca4cdeb6eaef8f3b");
+        collector.finish();
+
+        assertEquals(2, image.getImageHashPerStage().size());
+        assertEquals("7f55eab001a", image.getImageHashPerStage().get("phase"));
+    }
+
+    @Test
+    public void testStageOnLastLineHasNoImageHash() {
+        SingleImageConfiguration image = image();
+        MultiStageBuildOutputHelper.ImageHashCollector collector = buildOutputHelper.createImageHashCollector(log, image);
+
+        collector.accept("STEP 1: FROM alpine AS base");
+        collector.accept("7e72c870614c842cefe268dec15cd84d8abd64be16a0c4f76d4883846b1e6104");
+        collector.finish();
+
+        assertTrue(image.getImageHashPerStage().isEmpty());
+        verify(log, times(1)).warn("No image hash found for stage: 'base'");
+    }
+
+    @Test
+    public void testNoLinesAreLoggedWhenDebugIsDisabled() throws IOException, URISyntaxException {
+        assertImageHashes("/multistagecontainerfile/synthetic/podman3-format.txt",
+                "base", "9e8d7c6b5a4",
+                "phase", "7f6e5d4c3b2");
+
+        // Debug logging is disabled by default on a mocked Log
+        verify(log, never()).debug(argThat((CharSequence msg) -> msg.toString().startsWith("Processing")));
+    }
+
+    @Test
+    public void testSameImageHashesAsLegacyParser() throws IOException, URISyntaxException {
+        Path outputDirectory = Paths.get(MultiStageBuildOutputHelperTest.class.getResource("/multistagecontainerfile").toURI());
+        List<Path> buildOutputs;
+        try (Stream<Path> paths = Files.walk(outputDirectory)) {
+            buildOutputs = paths.filter(path -> path.getFileName().toString().endsWith(".txt")).sorted().collect(Collectors.toList());
+        }
+
+        assertTrue(buildOutputs.size() >= 9, "Expected all build output samples to be found, but found " + buildOutputs);
+        for (Path buildOutput : buildOutputs) {
+            assertSameImageHashesAsLegacyParser(buildOutput.toString(), Files.readAllLines(buildOutput));
+        }
+    }
+
+    @Test
+    public void testSameImageHashesAsLegacyParserForIncompleteOutput() {
+        assertSameImageHashesAsLegacyParser("no output", Collections.emptyList());
+        assertSameImageHashesAsLegacyParser("single stage line", Collections.singletonList("STEP 1: FROM alpine AS base"));
+        assertSameImageHashesAsLegacyParser("stage on second to last line", Arrays.asList(
+                "STEP 1: FROM alpine AS base",
+                "--> 7e72c870614",
+                "STEP 2: FROM 7e72c870614 AS phase",
+                "7f55eab001adf2dfeas8adc03ef847dd3d2b4fa42b4fa418ca4cdeb6eaef8f3b"));
+        assertSameImageHashesAsLegacyParser("hash on stage line", Arrays.asList(
+                "STEP 1: FROM alpine AS base",
+                "STEP 2: FROM 7e72c870614 AS phase",
+                "--> 7f55eab001a",
+                "7f55eab001adf2dfeas8adc03ef847dd3d2b4fa42b4fa418ca4cdeb6eaef8f3b"));
+    }
+
+    private void assertSameImageHashesAsLegacyParser(String description, List<String> lines) {
+        SingleImageConfiguration image = image();
+        MultiStageBuildOutputHelper.ImageHashCollector collector = buildOutputHelper.createImageHashCollector(log, image);
+        lines.forEach(collector);
+        collector.finish();
+
+        assertEquals(LegacyImageHashParser.recordImageHashes(image(), lines), image.getImageHashPerStage(), "Different image hashes for " + description);
+    }
+
+    private void assertImageHashes(String resource, String... expectedStagesAndHashes) throws IOException, URISyntaxException {
+        Path buildOutput = Paths.get(MultiStageBuildOutputHelperTest.class.getResource(resource).toURI());
+        List<String> lines = Files.readAllLines(buildOutput);
+
+        SingleImageConfiguration image = image();
+        MultiStageBuildOutputHelper.ImageHashCollector collector = buildOutputHelper.createImageHashCollector(log, image);
+        lines.forEach(collector);
+        collector.finish();
+
+        Map<String, String> expected = new HashMap<>();
+        for (int i = 0; i < expectedStagesAndHashes.length; i += 2) {
+            expected.put(expectedStagesAndHashes[i], expectedStagesAndHashes[i + 1]);
+        }
+        assertEquals(expected, image.getImageHashPerStage(), "Unexpected image hashes for " + resource);
+    }
+
+    private static SingleImageConfiguration image() {
+        return new TestSingleImageConfigurationBuilder("sample").build();
+    }
+}
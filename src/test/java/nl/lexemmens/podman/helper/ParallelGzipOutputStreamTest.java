@@ -0,0 +1,84 @@
+package nl.lexemmens.podman.helper;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ParallelGzipOutputStreamTest {
+
+    @Test
+    public void testCompressedDataCanBeDecompressed() throws IOException {
+        byte[] data = createData(1000 * 1000);
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (ParallelGzipOutputStream out = new ParallelGzipOutputStream(compressed, 6, 4, 64 * 1024)) {
+            out.write(data, 0, 12345);
+            out.write(data[12345]);
+            out.write(data, 12346, data.length - 12346);
+        }
+
+        assertArrayEquals(data, decompress(compressed.toByteArray()));
+        assertTrue(compressed.size() < data.length / 2, "Repetitive data must be compressed");
+    }
+
+    @Test
+    public void testSingleThreadWithSmallBlocks() throws IOException {
+        byte[] data = createData(100 * 1000);
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (ParallelGzipOutputStream out = new ParallelGzipOutputStream(compressed, 9, 1, 1000)) {
+            out.write(data);
+        }
+
+        assertArrayEquals(data, decompress(compressed.toByteArray()));
+    }
+
+    @Test
+    public void testEmptyStream() throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        new ParallelGzipOutputStream(compressed, 6, 2).close();
+
+        assertArrayEquals(new byte[0], decompress(compressed.toByteArray()));
+    }
+
+    @Test
+    public void testWriteAfterClose() throws IOException {
+        ParallelGzipOutputStream out = new ParallelGzipOutputStream(new ByteArrayOutputStream(), 6, 2);
+        out.close();
+
+        assertThrows(IOException.class, () -> out.write("data".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static byte[] createData(int length) {
+        // Mix repeating text with random bytes, so blocks compress differently
+        Random random = new Random(42);
+        byte[] text = "The quick brown fox jumps over the lazy dog. ".getBytes(StandardCharsets.UTF_8);
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = i % 4096 < 256 ? (byte) random.nextInt() : text[i % text.length];
+        }
+        return data;
+    }
+
+    private static byte[] decompress(byte[] compressed) throws IOException {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            ByteArrayOutputStream decompressed = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int length;
+            while ((length = in.read(buffer)) != -1) {
+                decompressed.write(buffer, 0, length);
+            }
+            return decompressed.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package nl.lexemmens.podman.helper;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SavedArchiveHelperTest {
+
+    private final SavedArchiveHelper savedArchiveHelper = new SavedArchiveHelper();
+
+    private Path archive;
+
+    @Before
+    public void before() throws IOException {
+        Path directory = Paths.get("target", "podman-test", "saved-archives");
+        Files.createDirectories(directory);
+
+        archive = directory.resolve("sample_1_0_0.tar.gz");
+        Files.write(archive, "archive".getBytes(StandardCharsets.UTF_8));
+        Files.deleteIfExists(directory.resolve("sample_1_0_0.tar.gz.id"));
+    }
+
+    @Test
+    public void testArchiveWithoutRecordedStateIsNotUpToDate() throws MojoExecutionException {
+        assertFalse(savedArchiveHelper.isUpToDate(archive, "sha256:1234", "NONE"));
+    }
+
+    @Test
+    public void testRecordedArchiveIsUpToDate() throws MojoExecutionException {
+        savedArchiveHelper.record(archive, "sha256:1234", "NONE");
+
+        assertTrue(Files.isRegularFile(archive.resolveSibling("sample_1_0_0.tar.gz.id")));
+        assertTrue(savedArchiveHelper.isUpToDate(archive, "sha256:1234", "NONE"));
+        assertFalse(savedArchiveHelper.isUpToDate(archive, "sha256:5678", "NONE"), "A different image must be saved again");
+        assertFalse(savedArchiveHelper.isUpToDate(archive, "sha256:1234", "GZIP:6"), "A different format must be saved again");
+    }
+
+    @Test
+    public void testModifiedArchiveIsNotUpToDate() throws MojoExecutionException, IOException {
+        savedArchiveHelper.record(archive, "sha256:1234", "NONE");
+        Files.write(archive, "truncated".getBytes(StandardCharsets.UTF_8));
+
+        assertFalse(savedArchiveHelper.isUpToDate(archive, "sha256:1234", "NONE"));
+    }
+
+    @Test
+    public void testInvalidatedArchiveIsNotUpToDate() throws MojoExecutionException {
+        savedArchiveHelper.record(archive, "sha256:1234", "NONE");
+        savedArchiveHelper.invalidate(archive);
+
+        assertFalse(savedArchiveHelper.isUpToDate(archive, "sha256:1234", "NONE"));
+    }
+}
@@ -0,0 +1,63 @@
+package nl.lexemmens.podman.helper;
+
+import nl.lexemmens.podman.helper.SkopeoSyncHelper.SyncBatch;
+import nl.lexemmens.podman.helper.SkopeoSyncHelper.SyncPlan;
+import org.junit.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SkopeoSyncHelperTest {
+
+    private final SkopeoSyncHelper skopeoSyncHelper = new SkopeoSyncHelper();
+
+    @Test
+    public void testImagesAreGroupedPerSourceRegistryAndDestination() {
+        Map<String, String> images = new LinkedHashMap<>();
+        images.put("stage.example.com/project/product:1.0.0", "release.example.com/project/product:1.0.0");
+        images.put("stage.example.com/project/product:latest", "release.example.com/project/product:latest");
+        images.put("stage.example.com/project/other:2.0.0", "release.example.com/project/other:2.0.0");
+        images.put("stage.example.com/tools/tool:3.0.0", "release.example.com/tools/tool:3.0.0");
+        images.put("localhost:5000/project/product:1.0.0", "release.example.com/project/product:1.0.0");
+
+        SyncPlan syncPlan = skopeoSyncHelper.createSyncPlan(images);
+
+        assertEquals(3, syncPlan.getBatches().size());
+        assertTrue(syncPlan.getUnsupportedImages().isEmpty());
+
+        SyncBatch batch = syncPlan.getBatches().get(0);
+        assertEquals("stage.example.com", batch.getSourceRegistry());
+        assertEquals("release.example.com/project", batch.getDestination());
+        assertEquals(3, batch.getImages().size());
+        assertEquals("\"stage.example.com\":\n" +
+                "  tls-verify: true\n" +
+                "  images:\n" +
+                "    \"project/product\":\n" +
+                "      - \"1.0.0\"\n" +
+                "      - \"latest\"\n" +
+                "    \"project/other\":\n" +
+                "      - \"2.0.0\"\n", batch.toYaml(true));
+
+        assertEquals("release.example.com/tools", syncPlan.getBatches().get(1).getDestination());
+        assertEquals("localhost:5000", syncPlan.getBatches().get(2).getSourceRegistry());
+    }
+
+    @Test
+    public void testImagesThatCannotBeSynced() {
+        Map<String, String> images = new LinkedHashMap<>();
+        images.put("stage.example.com/project/product:1.0.0", "release.example.com/project/renamed:1.0.0");
+        images.put("stage.example.com/project/product:1.0.0-rc", "release.example.com/project/product:1.0.0");
+        images.put("stage.example.com/project/product@sha256:1234", "release.example.com/project/product@sha256:1234");
+        images.put("project/product:1.0.0", "release.example.com/project/product:1.0.0");
+        images.put("stage.example.com/project/product", "release.example.com/project/product");
+        images.put("stage.example.com/product:1.0.0", "product:1.0.0");
+
+        SyncPlan syncPlan = skopeoSyncHelper.createSyncPlan(images);
+
+        assertTrue(syncPlan.getBatches().isEmpty());
+        assertEquals(images, syncPlan.getUnsupportedImages());
+    }
+}
@@ -1,5 +1,7 @@
 package nl.lexemmens.podman.service;
 
+import nl.lexemmens.podman.config.podman.PodmanConfiguration;
+import nl.lexemmens.podman.config.podman.TestPodmanConfigurationBuilder;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.logging.Log;
 import org.apache.maven.settings.Proxy;
@@ -181,6 +183,43 @@ public class AuthenticationServiceTest {
         verify(podmanExecutorService, times(1)).login(registryName, "username", "password");
     }
 
+    @Test
+    public void testAuthenticatedRegistriesAreCachedPerConfiguration() throws MojoExecutionException {
+        String registryName = "registry.example.com";
+
+        Server server = new Server();
+        server.setId(registryName);
+        server.setUsername("username");
+        server.setPassword("password");
+
+        List<Server> serverList = Collections.singletonList(server);
+
+        when(settings.getServer(registryName)).thenReturn(server);
+        when(settings.getServers()).thenReturn(serverList);
+        when(settings.getProxies()).thenReturn(new ArrayList<>());
+        when(settingsDecrypter.decrypt(isA(SettingsDecryptionRequest.class))).thenReturn(createSettingsDecryptionResult(serverList, new ArrayList<>()));
+
+        // Set the XDG_RUNTIME_DIR to something else, so that no authentication file is found
+        env.set("XDG_RUNTIME_DIR", "/path/does/not/exist");
+
+        SessionCache sessionCache = new SessionCache();
+        PodmanConfiguration defaultRoot = new TestPodmanConfigurationBuilder().build();
+        PodmanConfiguration customRoot = new TestPodmanConfigurationBuilder().setRoot(new File("/tmp/.containers")).build();
+        String[] registries = new String[]{registryName};
+
+        new AuthenticationService(log, podmanExecutorService, settings, settingsDecrypter, defaultRoot, sessionCache).authenticate(registries);
+        new AuthenticationService(log, podmanExecutorService, settings, settingsDecrypter, defaultRoot, sessionCache).authenticate(registries);
+        verify(podmanExecutorService, times(1)).login(registryName, "username", "password");
+
+        new AuthenticationService(log, podmanExecutorService, settings, settingsDecrypter, customRoot, sessionCache).authenticate(registries);
+        verify(podmanExecutorService, times(2)).login(registryName, "username", "password");
+
+        // For example when the custom root directory is cleaned up
+        sessionCache.invalidate(customRoot);
+        new AuthenticationService(log, podmanExecutorService, settings, settingsDecrypter, customRoot, sessionCache).authenticate(registries);
+        verify(podmanExecutorService, times(3)).login(registryName, "username", "password");
+    }
+
     @Test
     public void testCustomRegistryAuthFile() throws MojoExecutionException {
         Path customAuthFile = Paths.get("src", "test", "resources", "validauth.json").toAbsolutePath();
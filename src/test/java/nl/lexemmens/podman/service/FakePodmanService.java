@@ -0,0 +1,181 @@
+package nl.lexemmens.podman.service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * In-process HTTP server that mimics the REST API of a Podman system service. Records every request and replies
+ * with a configured response.
+ */
+class FakePodmanService implements AutoCloseable {
+
+    private final HttpServer server;
+    private final List<RecordedRequest> requests = new CopyOnWriteArrayList<>();
+    private final Map<String, Reply> replies = new ConcurrentHashMap<>();
+
+    FakePodmanService() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    String getUrl() {
+        return "tcp://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+    }
+
+    /**
+     * Replies to every request of which the method and path start with the provided value, i.e. "POST /v4.0.0/libpod/build"
+     */
+    FakePodmanService reply(String methodAndPath, int status, String body) {
+        replies.put(methodAndPath, new Reply(status, body.getBytes(StandardCharsets.UTF_8)));
+        return this;
+    }
+
+    FakePodmanService reply(String methodAndPath, int status, byte[] body) {
+        replies.put(methodAndPath, new Reply(status, body));
+        return this;
+    }
+
+    List<RecordedRequest> getRequests() {
+        return requests;
+    }
+
+    RecordedRequest getLastRequest() {
+        return requests.get(requests.size() - 1);
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        RecordedRequest request = new RecordedRequest(exchange.getRequestMethod(), exchange.getRequestURI().toString(),
+                exchange.getRequestHeaders().getFirst("X-Registry-Auth"), exchange.getRequestHeaders().getFirst("Content-Type"),
+                readFully(exchange.getRequestBody()));
+        requests.add(request);
+
+        // The most specific configured reply is used
+        Reply reply = new Reply(200, "{}".getBytes(StandardCharsets.UTF_8));
+        String matchedPrefix = "";
+        String methodAndPath = request.getMethod() + " " + request.getUri();
+        for (Map.Entry<String, Reply> candidate : replies.entrySet()) {
+            if (methodAndPath.startsWith(candidate.getKey()) && candidate.getKey().length() > matchedPrefix.length()) {
+                reply = candidate.getValue();
+                matchedPrefix = candidate.getKey();
+            }
+        }
+
+        // A length of 0 results in a chunked response, like the responses of the actual service
+        exchange.sendResponseHeaders(reply.status, 0);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(reply.body);
+        }
+    }
+
+    private static byte[] readFully(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    private static final class Reply {
+        private final int status;
+        private final byte[] body;
+
+        private Reply(int status, byte[] body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+
+    static final class RecordedRequest {
+        private final String method;
+        private final String uri;
+        private final String registryAuth;
+        private final String contentType;
+        private final byte[] body;
+
+        private RecordedRequest(String method, String uri, String registryAuth, String contentType, byte[] body) {
+            this.method = method;
+            this.uri = uri;
+            this.registryAuth = registryAuth;
+            this.contentType = contentType;
+            this.body = body;
+        }
+
+        String getMethod() {
+            return method;
+        }
+
+        String getUri() {
+            return uri;
+        }
+
+        String getRegistryAuth() {
+            return registryAuth;
+        }
+
+        String getContentType() {
+            return contentType;
+        }
+
+        byte[] getBody() {
+            return body;
+        }
+
+        /**
+         * Returns the names of the entries in the tar archive that was sent as the body of this request
+         */
+        List<String> getTarEntries() {
+            List<String> entries = new ArrayList<>();
+            String paxPath = null;
+            int offset = 0;
+            while (offset + 512 <= body.length && body[offset] != 0) {
+                String name = readString(offset, 100);
+                long size = Long.parseLong(readString(offset + 124, 12).trim(), 8);
+                byte type = body[offset + 156];
+                int dataOffset = offset + 512;
+
+                if (type == 'x') {
+                    String records = new String(body, dataOffset, (int) size, StandardCharsets.UTF_8);
+                    for (String record : records.split("\n")) {
+                        if (record.contains(" path=")) {
+                            paxPath = record.substring(record.indexOf(" path=") + 6);
+                        }
+                    }
+                } else {
+                    entries.add(paxPath == null ? name : paxPath);
+                    paxPath = null;
+                }
+                offset = dataOffset + (int) ((size + 511) / 512 * 512);
+            }
+            return entries;
+        }
+
+        private String readString(int offset, int length) {
+            int end = offset;
+            while (end < offset + length && body[end] != 0) {
+                end++;
+            }
+            return new String(body, offset, end - offset, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -7,6 +7,7 @@ import nl.lexemmens.podman.config.podman.TestPodmanConfigurationBuilder;
 import nl.lexemmens.podman.enumeration.CGroupManager;
 import nl.lexemmens.podman.enumeration.PullPolicy;
 import nl.lexemmens.podman.executor.CommandExecutorDelegate;
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.maven.model.Build;
 import org.apache.maven.plugin.MojoExecutionException;
@@ -22,9 +23,19 @@ import org.mockito.MockitoAnnotations;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.zeroturnaround.exec.ProcessExecutor;
+import org.zeroturnaround.exec.stream.PumpStreamHandler;
+import org.zeroturnaround.exec.stream.slf4j.Slf4jDebugOutputStream;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.zip.GZIPInputStream;
 
 import static nl.lexemmens.podman.enumeration.ContainerFormat.DOCKER;
 import static nl.lexemmens.podman.enumeration.ContainerFormat.OCI;
@@ -144,6 +155,17 @@ public class PodmanExecutorServiceTest {
         Assertions.assertEquals("podman push --tls-verify=true registry.example.com/sample/1.0.0", delegate.getCommandAsString());
     }
 
+    @Test
+    public void testPushToOciLayout() throws MojoExecutionException {
+        PodmanConfiguration podmanConfig = new TestPodmanConfigurationBuilder().setTlsVerify(TRUE).initAndValidate(mavenProject, log).build();
+
+        InterceptorCommandExecutorDelegate delegate = new InterceptorCommandExecutorDelegate();
+        podmanExecutorService = new PodmanExecutorService(log, podmanConfig, delegate);
+        podmanExecutorService.pushToOciLayout("registry.example.com/sample:1.0.0", "/tmp/oci-layout", "registry.example.com/sample:1.0.0");
+
+        Assertions.assertEquals("podman push --tls-verify=true registry.example.com/sample:1.0.0 oci:/tmp/oci-layout:registry.example.com/sample:1.0.0", delegate.getCommandAsString());
+    }
+
     @Test
     public void testVersion() throws MojoExecutionException {
         PodmanConfiguration podmanConfig = new TestPodmanConfigurationBuilder().setTlsVerify(TRUE).initAndValidate(mavenProject, log).build();
@@ -166,6 +188,17 @@ public class PodmanExecutorServiceTest {
         Assertions.assertEquals("podman tag this_is_an_image_hash registry.example.com/sample/1.0.0", delegate.getCommandAsString());
     }
 
+    @Test
+    public void testTagWithMultipleNames() throws MojoExecutionException {
+        PodmanConfiguration podmanConfig = new TestPodmanConfigurationBuilder().setTlsVerify(TRUE).initAndValidate(mavenProject, log).build();
+
+        InterceptorCommandExecutorDelegate delegate = new InterceptorCommandExecutorDelegate();
+        podmanExecutorService = new PodmanExecutorService(log, podmanConfig, delegate);
+        podmanExecutorService.tag("this_is_an_image_hash", Arrays.asList("registry.example.com/sample:1.0.0", "registry.example.com/sample:latest"));
+
+        Assertions.assertEquals("podman tag this_is_an_image_hash registry.example.com/sample:1.0.0 registry.example.com/sample:latest", delegate.getCommandAsString());
+    }
+
     @Test
     public void testRemoveLocalImage() throws MojoExecutionException {
         PodmanConfiguration podmanConfig = new TestPodmanConfigurationBuilder().setTlsVerify(TRUE).initAndValidate(mavenProject, log).build();
@@ -177,6 +210,32 @@ public class PodmanExecutorServiceTest {
         Assertions.assertEquals("podman rmi registry.example.com/sample/1.0.0", delegate.getCommandAsString());
     }
 
+    @Test
+    public void testGetLocalImageId() throws MojoExecutionException {
+        PodmanConfiguration podmanConfig = new TestPodmanConfigurationBuilder().setTlsVerify(TRUE).initAndValidate(mavenProject, log).build();
+
+        InterceptorCommandExecutorDelegate delegate = new InterceptorCommandExecutorDelegate(Collections.singletonList("ca1f5f48ef43 "));
+        podmanExecutorService = new PodmanExecutorService(log, podmanConfig, delegate);
+
+        Assertions.assertEquals(Optional.of("ca1f5f48ef43"), podmanExecutorService.getLocalImageId("registry.example.com/sample:1.0.0"));
+        Assertions.assertEquals("podman image inspect --format={{.Id}} registry.example.com/sample:1.0.0", delegate.getCommandAsString());
+    }
+
+    @Test
+    public void testGetLocalImageIdOfMissingImage() throws MojoExecutionException {
+        PodmanConfiguration podmanConfig = new TestPodmanConfigurationBuilder().setTlsVerify(TRUE).initAndValidate(mavenProject, log).build();
+
+        List<OutputStream> errorStreams = new ArrayList<>();
+        podmanExecutorService = new PodmanExecutorService(log, podmanConfig, processExecutor -> {
+            errorStreams.add(((PumpStreamHandler) processExecutor.streams()).getErr());
+            throw new MojoExecutionException("Error: registry.example.com/sample:1.0.0: image not known");
+        });
+
+        Assertions.assertFalse(podmanExecutorService.getLocalImageId("registry.example.com/sample:1.0.0").isPresent());
+        // A missing image is expected, so Podman's error output must not be logged as an error
+        Assertions.assertTrue(errorStreams.get(0) instanceof Slf4jDebugOutputStream);
+    }
+
     @Test
     public void testSave() throws MojoExecutionException {
         PodmanConfiguration podmanConfig = new TestPodmanConfigurationBuilder().setTlsVerify(TRUE).initAndValidate(mavenProject, log).build();
@@ -188,6 +247,37 @@ public class PodmanExecutorServiceTest {
         Assertions.assertEquals("podman save --format=oci-archive --output=image_arhive.tar.gz registry.example.com/sample/1.0.0", delegate.getCommandAsString());
     }
 
+    @Test
+    public void testSaveCompressed() throws MojoExecutionException, IOException {
+        PodmanConfiguration podmanConfig = new TestPodmanConfigurationBuilder().setTlsVerify(TRUE).initAndValidate(mavenProject, log).build();
+        Path archive = Paths.get("target", "podman-test", "image_archive_compressed.tar.gz");
+        Files.createDirectories(archive.getParent());
+
+        InterceptorCommandExecutorDelegate delegate = new InterceptorCommandExecutorDelegate(Arrays.asList("archive", "contents"));
+        podmanExecutorService = new PodmanExecutorService(log, podmanConfig, delegate);
+        podmanExecutorService.save(archive.toString(), "registry.example.com/sample/1.0.0", 6, 2);
+
+        Assertions.assertEquals("podman save --format=oci-archive registry.example.com/sample/1.0.0", delegate.getCommandAsString());
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(archive))) {
+            Assertions.assertEquals("archive\ncontents\n", IOUtils.toString(in, StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void testSaveCompressedRemovesIncompleteArchive() throws MojoExecutionException, IOException {
+        PodmanConfiguration podmanConfig = new TestPodmanConfigurationBuilder().setTlsVerify(TRUE).initAndValidate(mavenProject, log).build();
+        Path archive = Paths.get("target", "podman-test", "image_archive_failed.tar.gz");
+        Files.createDirectories(archive.getParent());
+
+        CommandExecutorDelegate delegate = processExecutor -> {
+            throw new MojoExecutionException("Image not known");
+        };
+        podmanExecutorService = new PodmanExecutorService(log, podmanConfig, delegate);
+
+        Assertions.assertThrows(MojoExecutionException.class, () -> podmanExecutorService.save(archive.toString(), "registry.example.com/sample/1.0.0", 6, 2));
+        Assertions.assertFalse(Files.exists(archive));
+    }
+
     @Test
     public void testBuildOciFormat() throws MojoExecutionException {
         when(mavenProject.getBuild()).thenReturn(build);
@@ -209,6 +299,76 @@ public class PodmanExecutorServiceTest {
                 delegate.getCommandAsString());
     }
 
+    @Test
+    public void testBuildWithOutputConsumer() throws MojoExecutionException {
+        when(mavenProject.getBuild()).thenReturn(build);
+        when(build.getDirectory()).thenReturn("target");
+
+        PodmanConfiguration podmanConfig = new TestPodmanConfigurationBuilder().setTlsVerify(TRUE).initAndValidate(mavenProject, log).build();
+        SingleImageConfiguration image = new TestSingleImageConfigurationBuilder("test_image")
+                .setContainerfileDir("src/test/resources")
+                .initAndValidate(mavenProject, log, true)
+                .build();
+
+        List<String> buildOutput = Arrays.asList("STEP 1: FROM scratch", "this_would_normally_be_an_image_hash");
+        InterceptorCommandExecutorDelegate delegate = new InterceptorCommandExecutorDelegate(buildOutput);
+        podmanExecutorService = new PodmanExecutorService(log, podmanConfig, delegate);
+
+        List<String> consumedOutput = new ArrayList<>();
+        Optional<String> imageId = podmanExecutorService.build(image, consumedOutput::add);
+
+        Assertions.assertEquals(buildOutput, consumedOutput);
+        Assertions.assertFalse(imageId.isPresent());
+        Assertions.assertEquals("podman build --tls-verify=true --format=oci --file=" + image.getBuild().getTargetContainerFile() + " --no-cache=false "
+                + "--iidfile=" + getIidFile(image, "test_image") + " .", delegate.getCommandAsString());
+    }
+
+    @Test
+    public void testBuildWithOutputConsumerReadsImageIdFile() throws MojoExecutionException {
+        when(mavenProject.getBuild()).thenReturn(build);
+        when(build.getDirectory()).thenReturn("target");
+
+        PodmanConfiguration podmanConfig = new TestPodmanConfigurationBuilder().setTlsVerify(TRUE).initAndValidate(mavenProject, log).build();
+        SingleImageConfiguration image = new TestSingleImageConfigurationBuilder("test_image")
+                .setContainerfileDir("src/test/resources")
+                .initAndValidate(mavenProject, log, true)
+                .build();
+
+        InterceptorCommandExecutorDelegate delegate = new InterceptorCommandExecutorDelegate(Collections.singletonList("not_the_image_id"));
+        delegate.setImageId("sha256:0123456789abcdef");
+        podmanExecutorService = new PodmanExecutorService(log, podmanConfig, delegate);
+
+        Optional<String> imageId = podmanExecutorService.build(image, line -> { });
+
+        Assertions.assertEquals(Optional.of("0123456789abcdef"), imageId);
+    }
+
+    @Test
+    public void testBuildStage() throws MojoExecutionException {
+        when(mavenProject.getBuild()).thenReturn(build);
+        when(build.getDirectory()).thenReturn("target");
+
+        PodmanConfiguration podmanConfig = new TestPodmanConfigurationBuilder().setTlsVerify(TRUE).initAndValidate(mavenProject, log).build();
+        SingleImageConfiguration image = new TestSingleImageConfigurationBuilder("test_image")
+                .setContainerfileDir("src/test/resources")
+                .setNoCache(true)
+                .setSquashAll(true)
+                .setLayers(false)
+                .setPullPolicy(PullPolicy.ALWAYS)
+                .initAndValidate(mavenProject, log, true)
+                .build();
+
+        InterceptorCommandExecutorDelegate delegate = new InterceptorCommandExecutorDelegate();
+        delegate.setImageId("fedcba9876543210");
+        podmanExecutorService = new PodmanExecutorService(log, podmanConfig, delegate);
+
+        Optional<String> imageId = podmanExecutorService.buildStage(image, "base", line -> { });
+
+        Assertions.assertEquals(Optional.of("fedcba9876543210"), imageId);
+        Assertions.assertEquals("podman build --tls-verify=true --format=oci --file=" + image.getBuild().getTargetContainerFile() + " --no-cache=false "
+                + "--layers=true --pull=never --target=base --iidfile=" + getIidFile(image, "test_image-base") + " .", delegate.getCommandAsString());
+    }
+
     @Test
     public void testBuildOciFormatWithCgroupFs() throws MojoExecutionException {
         when(mavenProject.getBuild()).thenReturn(build);
@@ -630,10 +790,17 @@ public class PodmanExecutorServiceTest {
 
     }
 
+    private static Path getIidFile(SingleImageConfiguration image, String name) {
+        return image.getBuild().getOutputDirectory().toPath().toAbsolutePath().resolve("podman").resolve(name + ".iid");
+    }
+
     private static class InterceptorCommandExecutorDelegate implements CommandExecutorDelegate {
 
+        private static final String IID_FILE_OPTION = "--iidfile=";
+
         private final List<String> processOutput;
         private List<String> executedCommands;
+        private String imageId;
 
         InterceptorCommandExecutorDelegate() {
             this.processOutput = new ArrayList<>();
@@ -644,11 +811,30 @@ public class PodmanExecutorServiceTest {
         }
 
         @Override
-        public List<String> executeCommand(ProcessExecutor processExecutor) {
+        public List<String> executeCommand(ProcessExecutor processExecutor) throws MojoExecutionException {
             executedCommands = processExecutor.getCommand();
+            if (imageId != null) {
+                writeImageId();
+            }
             return processOutput;
         }
 
+        void setImageId(String imageId) {
+            this.imageId = imageId;
+        }
+
+        private void writeImageId() throws MojoExecutionException {
+            for (String argument : executedCommands) {
+                if (argument.startsWith(IID_FILE_OPTION)) {
+                    try {
+                        Files.write(Paths.get(argument.substring(IID_FILE_OPTION.length())), imageId.getBytes(StandardCharsets.UTF_8));
+                    } catch (IOException e) {
+                        throw new MojoExecutionException(e.getMessage(), e);
+                    }
+                }
+            }
+        }
+
         String getCommandAsString() {
             return StringUtils.join(executedCommands, " ");
         }
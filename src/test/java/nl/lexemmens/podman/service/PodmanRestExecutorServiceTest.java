@@ -0,0 +1,325 @@
+package nl.lexemmens.podman.service;
+
+import nl.lexemmens.podman.config.image.single.SingleImageConfiguration;
+import nl.lexemmens.podman.config.image.single.TestSingleImageConfigurationBuilder;
+import nl.lexemmens.podman.config.podman.PodmanConfiguration;
+import nl.lexemmens.podman.config.podman.TestPodmanConfigurationBuilder;
+import nl.lexemmens.podman.executor.CommandExecutionException;
+import nl.lexemmens.podman.executor.CommandExecutorDelegate;
+import nl.lexemmens.podman.executor.PodmanServiceClient;
+import org.apache.commons.io.FileUtils;
+import org.apache.maven.model.Build;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.project.MavenProject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static nl.lexemmens.podman.enumeration.TlsVerify.FALSE;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@RunWith(MockitoJUnitRunner.class)
+public class PodmanRestExecutorServiceTest {
+
+    private static final String BUILD_OUTPUT = "{\"stream\":\"STEP 1/2: FROM scratch\\n\"}\n"
+            + "{\"stream\":\"STEP 2/2: COPY app.txt /\\n\"}\n"
+            + "{\"aux\":{\"ID\":\"sha256:0123456789abcdef\"}}\n"
+            + "{\"stream\":\"Successfully built 0123456789ab\\n\"}\n";
+
+    @Mock
+    private MavenProject mavenProject;
+
+    @Mock
+    private Build build;
+
+    @Mock
+    private Log log;
+
+    @Mock
+    private CommandExecutorDelegate delegate;
+
+    private Path baseDir;
+    private Path contextDir;
+    private Path targetDir;
+    private FakePodmanService service;
+    private PodmanRestExecutorService podmanExecutorService;
+
+    @Before
+    public void before() throws IOException, MojoExecutionException {
+        baseDir = Files.createTempDirectory("podman-service");
+        contextDir = Files.createDirectories(baseDir.resolve("context"));
+        targetDir = Files.createDirectories(baseDir.resolve("target"));
+
+        Files.write(contextDir.resolve("app.txt"), Collections.singletonList("version 1"));
+        Files.write(targetDir.resolve("Containerfile"), Collections.singletonList("FROM scratch"));
+
+        service = new FakePodmanService();
+        PodmanConfiguration podmanConfig = new TestPodmanConfigurationBuilder()
+                .setTlsVerify(FALSE)
+                .setRunDirectory(baseDir.toFile())
+                .setServiceUrl(service.getUrl())
+                .initAndValidate(mavenProject, log)
+                .build();
+        podmanExecutorService = new PodmanRestExecutorService(log, podmanConfig, delegate, new PodmanServiceClient(podmanConfig.getServiceUrl()));
+    }
+
+    @After
+    public void after() throws IOException {
+        service.close();
+        FileUtils.deleteDirectory(baseDir.toFile());
+    }
+
+    @Test
+    public void testBuildStreamsContextAndOutput() throws MojoExecutionException {
+        service.reply("POST /v4.0.0/libpod/build", 200, BUILD_OUTPUT);
+
+        List<String> output = new ArrayList<>();
+        Optional<String> imageId = podmanExecutorService.build(image(), output::add);
+
+        Assertions.assertEquals(Optional.of("0123456789abcdef"), imageId);
+        Assertions.assertEquals(Arrays.asList("STEP 1/2: FROM scratch", "STEP 2/2: COPY app.txt /", "Successfully built 0123456789ab"), output);
+
+        FakePodmanService.RecordedRequest request = service.getLastRequest();
+        Assertions.assertEquals("application/x-tar", request.getContentType());
+        Assertions.assertTrue(request.getUri().startsWith("/v4.0.0/libpod/build?dockerfile=.podman-maven-plugin-Containerfile&nocache=false"));
+        Assertions.assertEquals(Arrays.asList("app.txt", ".podman-maven-plugin-Containerfile"), request.getTarEntries());
+        verifyNoInteractions(delegate);
+    }
+
+    @Test
+    public void testBuildUsesRunDirectoryAsDefaultContextDir() throws MojoExecutionException {
+        service.reply("POST /v4.0.0/libpod/build", 200, BUILD_OUTPUT);
+        when(mavenProject.getBuild()).thenReturn(build);
+        when(build.getDirectory()).thenReturn(targetDir.toString());
+
+        SingleImageConfiguration image = new TestSingleImageConfigurationBuilder("sample")
+                .setContainerfileDir(contextDir.toString())
+                .setTargetStage("runtime")
+                .initAndValidate(mavenProject, log, false)
+                .build();
+        List<String> output = podmanExecutorService.build(image);
+
+        Assertions.assertEquals("0123456789abcdef", output.get(output.size() - 1));
+        FakePodmanService.RecordedRequest request = service.getLastRequest();
+        // Like 'podman build', the run directory is the default context directory
+        Assertions.assertTrue(request.getUri().startsWith("/v4.0.0/libpod/build?dockerfile=target%2FContainerfile&"));
+        Assertions.assertTrue(request.getUri().contains("&target=runtime"));
+        Assertions.assertEquals(Arrays.asList("context/", "context/app.txt", "target/", "target/Containerfile"), request.getTarEntries());
+    }
+
+    @Test
+    public void testBuildLeavesOutIgnoredFiles() throws IOException, MojoExecutionException {
+        service.reply("POST /v4.0.0/libpod/build", 200, BUILD_OUTPUT);
+        when(mavenProject.getBuild()).thenReturn(build);
+        when(build.getDirectory()).thenReturn(targetDir.toString());
+        Files.write(baseDir.resolve(".containerignore"), Arrays.asList("# Build output", "target", "**/*.tar.gz", ".git/"));
+        Files.write(Files.createDirectories(baseDir.resolve(".git")).resolve("HEAD"), Collections.singletonList("ref: refs/heads/main"));
+        Files.write(contextDir.resolve("app.tar.gz"), Collections.singletonList("archive"));
+        Files.write(targetDir.resolve("app.jar"), Collections.singletonList("jar"));
+
+        SingleImageConfiguration image = new TestSingleImageConfigurationBuilder("sample")
+                .setContainerfileDir(contextDir.toString())
+                .initAndValidate(mavenProject, log, false)
+                .build();
+        podmanExecutorService.build(image);
+
+        // The Containerfile is sent even though the target directory is ignored
+        Assertions.assertEquals(Arrays.asList(".containerignore", "context/", "context/app.txt", "target/Containerfile"), service.getLastRequest().getTarEntries());
+    }
+
+    @Test
+    public void testBuildSquashesNewLayers() throws MojoExecutionException {
+        service.reply("POST /v4.0.0/libpod/build", 200, BUILD_OUTPUT);
+        when(mavenProject.getBuild()).thenReturn(build);
+        when(build.getDirectory()).thenReturn(targetDir.toString());
+
+        SingleImageConfiguration image = new TestSingleImageConfigurationBuilder("sample")
+                .setContainerfileDir(contextDir.toString())
+                .setContextDir("context")
+                .setSquash(true)
+                .setLayers(true)
+                .initAndValidate(mavenProject, log, false)
+                .build();
+        podmanExecutorService.build(image);
+
+        Assertions.assertTrue(service.getLastRequest().getUri().contains("&outputformat=application%2Fvnd.oci.image.manifest.v1%2Bjson&squash=true&layers=true&buildargs="));
+    }
+
+    @Test
+    public void testBuildSquashesAllLayers() throws MojoExecutionException {
+        service.reply("POST /v4.0.0/libpod/build", 200, BUILD_OUTPUT);
+        when(mavenProject.getBuild()).thenReturn(build);
+        when(build.getDirectory()).thenReturn(targetDir.toString());
+
+        SingleImageConfiguration image = new TestSingleImageConfigurationBuilder("sample")
+                .setContainerfileDir(contextDir.toString())
+                .setContextDir("context")
+                .setSquashAll(true)
+                .setLayers(true)
+                .initAndValidate(mavenProject, log, false)
+                .build();
+        podmanExecutorService.build(image);
+
+        Assertions.assertTrue(service.getLastRequest().getUri().contains("&outputformat=application%2Fvnd.oci.image.manifest.v1%2Bjson&squash=true&layers=false&buildargs="));
+    }
+
+    @Test
+    public void testBuildFailure() {
+        service.reply("POST /v4.0.0/libpod/build", 200, "{\"stream\":\"STEP 1/2: FROM scratch\\n\"}\n{\"error\":\"COPY failed: no such file\"}\n");
+
+        MojoExecutionException exception = Assertions.assertThrows(MojoExecutionException.class, () -> podmanExecutorService.build(image(), line -> {
+        }));
+
+        Assertions.assertTrue(exception.getMessage().contains("COPY failed: no such file"));
+    }
+
+    @Test
+    public void testTag() throws MojoExecutionException {
+        podmanExecutorService.tag("0123456789abcdef", "registry.example.com/sample:1.0.0");
+
+        FakePodmanService.RecordedRequest request = service.getLastRequest();
+        Assertions.assertEquals("POST", request.getMethod());
+        Assertions.assertEquals("/v4.0.0/libpod/images/0123456789abcdef/tag?repo=registry.example.com%2Fsample&tag=1.0.0", request.getUri());
+    }
+
+    @Test
+    public void testTagWithMultipleNames() throws MojoExecutionException {
+        podmanExecutorService.tag("0123456789abcdef", Arrays.asList("registry.example.com/sample:1.0.0", "registry.example.com/sample:latest"));
+
+        List<FakePodmanService.RecordedRequest> requests = service.getRequests();
+        Assertions.assertEquals(2, requests.size());
+        Assertions.assertEquals("/v4.0.0/libpod/images/0123456789abcdef/tag?repo=registry.example.com%2Fsample&tag=latest", requests.get(1).getUri());
+    }
+
+    @Test
+    public void testTagWithMultipleNamesContinuesAfterFailure() {
+        service.reply("POST /v4.0.0/libpod/images/0123456789abcdef/tag?repo=registry.example.com%2Fsample&tag=1.0.0", 500, "{\"message\":\"database is locked\"}");
+
+        CommandExecutionException exception = Assertions.assertThrows(CommandExecutionException.class, () -> podmanExecutorService.tag("0123456789abcdef",
+                Arrays.asList("registry.example.com/sample:1.0.0", "registry.example.com/sample:latest")));
+
+        Assertions.assertEquals("Failed to tag image 0123456789abcdef as registry.example.com/sample:1.0.0", exception.getMessage());
+        Assertions.assertTrue(String.join("", exception.getErrorOutput()).contains("database is locked"));
+        Assertions.assertEquals(2, service.getRequests().size());
+    }
+
+    @Test
+    public void testPushSendsCredentialsOfLogin() throws MojoExecutionException {
+        podmanExecutorService.login("registry.example.com", "username", "password");
+        podmanExecutorService.push("registry.example.com/sample:1.0.0");
+
+        List<FakePodmanService.RecordedRequest> requests = service.getRequests();
+        Assertions.assertEquals("/v4.0.0/auth", requests.get(0).getUri());
+        Assertions.assertEquals("/v4.0.0/libpod/images/registry.example.com/sample:1.0.0/push?destination=registry.example.com%2Fsample%3A1.0.0&tlsVerify=false",
+                requests.get(1).getUri());
+
+        String registryAuth = new String(Base64.getUrlDecoder().decode(requests.get(1).getRegistryAuth()), StandardCharsets.UTF_8);
+        Assertions.assertTrue(registryAuth.contains("\"username\":\"username\""));
+    }
+
+    @Test
+    public void testPushFailure() {
+        service.reply("POST /v4.0.0/libpod/images/registry.example.com/sample:1.0.0/push", 200, "{\"error\":\"unauthorized: authentication required\"}\n");
+
+        MojoExecutionException exception = Assertions.assertThrows(MojoExecutionException.class,
+                () -> podmanExecutorService.push("registry.example.com/sample:1.0.0"));
+
+        Assertions.assertTrue(exception.getMessage().contains("unauthorized: authentication required"));
+    }
+
+    @Test
+    public void testLoginFailureDoesNotExposePassword() {
+        service.reply("POST /v4.0.0/auth", 500, "{\"cause\":\"invalid username/password\",\"message\":\"login failed: invalid username/password\"}");
+
+        MojoExecutionException exception = Assertions.assertThrows(MojoExecutionException.class,
+                () -> podmanExecutorService.login("registry.example.com", "username", "secret-password"));
+
+        Assertions.assertTrue(exception.getMessage().contains("invalid username/password"));
+        Assertions.assertFalse(exception.getMessage().contains("secret-password"));
+    }
+
+    @Test
+    public void testSave() throws MojoExecutionException, IOException {
+        byte[] archiveContents = "an oci archive".getBytes(StandardCharsets.UTF_8);
+        service.reply("GET /v4.0.0/libpod/images/registry.example.com/sample:1.0.0/get", 200, archiveContents);
+
+        Path archive = targetDir.resolve("sample.tar");
+        podmanExecutorService.save(archive.toString(), "registry.example.com/sample:1.0.0");
+
+        Assertions.assertEquals("/v4.0.0/libpod/images/registry.example.com/sample:1.0.0/get?format=oci-archive", service.getLastRequest().getUri());
+        Assertions.assertArrayEquals(archiveContents, Files.readAllBytes(archive));
+    }
+
+    @Test
+    public void testSaveFailureRemovesIncompleteArchive() {
+        service.reply("GET /v4.0.0/libpod/images/", 404, "{\"message\":\"no such image\"}");
+
+        Path archive = targetDir.resolve("sample.tar");
+        Assertions.assertThrows(MojoExecutionException.class, () -> podmanExecutorService.save(archive.toString(), "registry.example.com/sample:1.0.0"));
+        Assertions.assertFalse(Files.exists(archive));
+    }
+
+    @Test
+    public void testGetLocalImageId() {
+        service.reply("GET /v4.0.0/libpod/images/sample:1.0.0/json", 200, "{\"Id\":\"0123456789abcdef\"}");
+
+        Assertions.assertEquals(Optional.of("0123456789abcdef"), podmanExecutorService.getLocalImageId("sample:1.0.0"));
+    }
+
+    @Test
+    public void testGetLocalImageIdOfMissingImage() {
+        service.reply("GET /v4.0.0/libpod/images/", 404, "{\"message\":\"no such image\"}");
+
+        Assertions.assertFalse(podmanExecutorService.getLocalImageId("sample:1.0.0").isPresent());
+    }
+
+    @Test
+    public void testRemoveLocalImage() throws MojoExecutionException {
+        podmanExecutorService.removeLocalImage("registry.example.com/sample:1.0.0");
+
+        FakePodmanService.RecordedRequest request = service.getLastRequest();
+        Assertions.assertEquals("DELETE", request.getMethod());
+        Assertions.assertEquals("/v4.0.0/libpod/images/registry.example.com/sample:1.0.0", request.getUri());
+    }
+
+    @Test
+    public void testUnreachableService() {
+        PodmanConfiguration podmanConfig = new TestPodmanConfigurationBuilder().setServiceUrl("tcp://127.0.0.1:1").build();
+        PodmanRestExecutorService unreachable = new PodmanRestExecutorService(log, podmanConfig, delegate, new PodmanServiceClient(podmanConfig.getServiceUrl()));
+
+        MojoExecutionException exception = Assertions.assertThrows(MojoExecutionException.class, () -> unreachable.removeLocalImage("sample:1.0.0"));
+
+        Assertions.assertTrue(exception.getMessage().startsWith("Failed to connect to the Podman service at tcp://127.0.0.1:1"));
+    }
+
+    private SingleImageConfiguration image() throws MojoExecutionException {
+        when(mavenProject.getBuild()).thenReturn(build);
+        when(build.getDirectory()).thenReturn(targetDir.toString());
+
+        return new TestSingleImageConfigurationBuilder("sample")
+                .setContainerfileDir(contextDir.toString())
+                .setContextDir("context")
+                .initAndValidate(mavenProject, log, false)
+                .build();
+    }
+}
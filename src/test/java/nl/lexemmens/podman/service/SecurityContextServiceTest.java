@@ -3,6 +3,7 @@ package nl.lexemmens.podman.service;
 import nl.lexemmens.podman.config.podman.PodmanConfiguration;
 import nl.lexemmens.podman.config.podman.TestPodmanConfigurationBuilder;
 import nl.lexemmens.podman.executor.CommandExecutorDelegate;
+import org.apache.commons.io.FileUtils;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.logging.Log;
 import org.junit.Before;
@@ -16,10 +17,15 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.zeroturnaround.exec.ProcessExecutor;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.stream.Collectors;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
@@ -86,14 +92,85 @@ public class SecurityContextServiceTest {
                 "for this location. Refer to the documentation of this plugin if you run into any issues.");
     }
 
+    @Test
+    public void testProbesAreExecutedOncePerSession() throws MojoExecutionException {
+        InterceptorCommandExecutorDelegate delegate = new InterceptorCommandExecutorDelegate("enabled");
+        PodmanConfiguration podmanCfg = new TestPodmanConfigurationBuilder().setRoot(new File("/tmp/.containers")).build();
+        SessionCache sessionCache = new SessionCache();
+
+        new SecurityContextService(log, podmanCfg, delegate, sessionCache).setSecurityContext();
+        new SecurityContextService(log, podmanCfg, delegate, sessionCache).setSecurityContext();
+
+        assertEquals(1, countExecutions(delegate, "sestatus"));
+        assertEquals(1, countExecutions(delegate, "podman"));
+        assertEquals(1, countExecutions(delegate, "chcon"));
+
+        // Once the storage is removed, Podman must be asked for its graphRoot again
+        sessionCache.invalidate(podmanCfg);
+        new SecurityContextService(log, podmanCfg, delegate, sessionCache).setSecurityContext();
+
+        assertEquals(1, countExecutions(delegate, "sestatus"));
+        assertEquals(2, countExecutions(delegate, "podman"));
+        assertEquals(2, countExecutions(delegate, "chcon"));
+    }
+
+    @Test
+    public void testOnlyFilesLackingSecurityContextAreRelabeled() throws MojoExecutionException, IOException {
+        Path root = Files.createTempDirectory("podman-root");
+        try {
+            InterceptorCommandExecutorDelegate delegate = new InterceptorCommandExecutorDelegate("enabled", "system_u:object_r:data_home_t:s0");
+            PodmanConfiguration podmanCfg = new TestPodmanConfigurationBuilder().setRoot(root.toFile()).build();
+
+            new SecurityContextService(log, podmanCfg, delegate).setSecurityContext();
+
+            List<String> expectedCommand = Arrays.asList("find", root.toFile().getAbsolutePath(), "!", "-context", "system_u:object_r:data_home_t:s0",
+                    "-exec", "chcon", "--no-dereference", "--reference", "/var/lib/containers/storage", "{}", "+");
+            assertTrue(delegate.getExecutedCommands().contains(expectedCommand));
+            assertEquals(0, countExecutions(delegate, "chcon"));
+            assertEquals("system_u:object_r:data_home_t:s0",
+                    new String(Files.readAllBytes(root.resolve(".podman-maven-plugin-security-context")), StandardCharsets.UTF_8));
+        } finally {
+            FileUtils.deleteDirectory(root.toFile());
+        }
+    }
+
+    @Test
+    public void testRelabelIsSkippedWhenSecurityContextWasApplied() throws MojoExecutionException, IOException {
+        Path root = Files.createTempDirectory("podman-root");
+        try {
+            Files.write(root.resolve(".podman-maven-plugin-security-context"), "system_u:object_r:data_home_t:s0".getBytes(StandardCharsets.UTF_8));
+            InterceptorCommandExecutorDelegate delegate = new InterceptorCommandExecutorDelegate("enabled", "system_u:object_r:data_home_t:s0");
+            PodmanConfiguration podmanCfg = new TestPodmanConfigurationBuilder().setRoot(root.toFile()).build();
+
+            new SecurityContextService(log, podmanCfg, delegate).setSecurityContext();
+
+            // Only the security context of the graphRoot is read
+            assertEquals(1, countExecutions(delegate, "find"));
+            assertEquals(0, countExecutions(delegate, "chcon"));
+            verify(log, times(1)).info("Security context system_u:object_r:data_home_t:s0 has already been applied to " + root.toFile());
+        } finally {
+            FileUtils.deleteDirectory(root.toFile());
+        }
+    }
+
+    private static long countExecutions(InterceptorCommandExecutorDelegate delegate, String executable) {
+        return delegate.getExecutedCommands().stream().filter(command -> command.get(0).equals(executable)).count();
+    }
+
     private static class InterceptorCommandExecutorDelegate implements CommandExecutorDelegate {
 
         private final String seLinuxStatus;
+        private final String securityContext;
         private final List<String> processOutput;
         private final List<List<String>> executedCommands = new ArrayList<>();
 
         InterceptorCommandExecutorDelegate(String seLinuxStatus) {
+            this(seLinuxStatus, null);
+        }
+
+        InterceptorCommandExecutorDelegate(String seLinuxStatus, String securityContext) {
             this.seLinuxStatus = seLinuxStatus;
+            this.securityContext = securityContext;
             this.processOutput = new ArrayList<>();
         }
 
@@ -106,6 +183,10 @@ public class SecurityContextServiceTest {
                 return sestatusOutput;
             }
 
+            if(securityContext != null && processExecutor.getCommand().contains("-printf")) {
+                return Collections.singletonList(securityContext);
+            }
+
             if(processExecutor.getCommand().contains("podman")) {
                 List<String> sestatusOutput = new ArrayList<>();
                 sestatusOutput.add("graphRoot: /var/lib/containers/storage");
@@ -2,6 +2,7 @@ package nl.lexemmens.podman.service;
 
 import nl.lexemmens.podman.config.podman.PodmanConfiguration;
 import nl.lexemmens.podman.config.skopeo.SkopeoConfiguration;
+import nl.lexemmens.podman.executor.BuildMetrics;
 import org.apache.maven.plugin.logging.Log;
 import org.apache.maven.project.MavenProject;
 import org.apache.maven.project.MavenProjectHelper;
@@ -47,7 +48,7 @@ public class ServiceHubFactoryTest {
     @Test
     public void testServiceHubFactory() {
         ServiceHubFactory serviceHubFactory = new ServiceHubFactory();
-        ServiceHub serviceHub = serviceHubFactory.createServiceHub(log, mavenProject, mavenFileFilter, podmanConfiguration, skopeoConfiguration, mavenSettings, settingsDecrypter, mavenProjectHelper);
+        ServiceHub serviceHub = serviceHubFactory.createServiceHub(log, mavenProject, mavenFileFilter, podmanConfiguration, skopeoConfiguration, mavenSettings, settingsDecrypter, mavenProjectHelper, new BuildMetrics());
 
         Assertions.assertNotNull(serviceHub.getPodmanExecutorService());
         Assertions.assertNotNull(serviceHub.getContainerfileDecorator());
@@ -0,0 +1,88 @@
+package nl.lexemmens.podman.service;
+
+import nl.lexemmens.podman.config.podman.PodmanConfiguration;
+import nl.lexemmens.podman.config.podman.TestPodmanConfigurationBuilder;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.junit.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.runner.RunWith;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.File;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+
+@ExtendWith(MockitoExtension.class)
+@RunWith(MockitoJUnitRunner.class)
+public class SessionCacheTest {
+
+    @Test
+    public void testValueIsLoadedOnce() throws MojoExecutionException {
+        SessionCache sessionCache = new SessionCache();
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals("value", sessionCache.get("key", () -> {
+            loads.incrementAndGet();
+            return "value";
+        }));
+        assertEquals("value", sessionCache.get("key", () -> "other" + loads.incrementAndGet()));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void testFailedLoadIsNotCached() throws MojoExecutionException {
+        SessionCache sessionCache = new SessionCache();
+
+        assertThrows(MojoExecutionException.class, () -> sessionCache.get("key", () -> {
+            throw new MojoExecutionException("Probe failed");
+        }));
+        assertEquals("value", sessionCache.get("key", () -> "value"));
+    }
+
+    @Test
+    public void testValuesAreStoredPerConfiguration() throws MojoExecutionException {
+        SessionCache sessionCache = new SessionCache();
+        PodmanConfiguration defaultRoot = new TestPodmanConfigurationBuilder().build();
+        PodmanConfiguration customRoot = new TestPodmanConfigurationBuilder().setRoot(new File("/tmp/.containers")).build();
+
+        assertEquals("default", sessionCache.get("graphRoot", defaultRoot, () -> "default"));
+        assertEquals("custom", sessionCache.get("graphRoot", customRoot, () -> "custom"));
+        assertEquals("default", sessionCache.get("graphRoot", defaultRoot, () -> "unexpected"));
+    }
+
+    @Test
+    public void testInvalidateOnlyDiscardsValuesOfConfiguration() throws MojoExecutionException {
+        SessionCache sessionCache = new SessionCache();
+        PodmanConfiguration defaultRoot = new TestPodmanConfigurationBuilder().build();
+        PodmanConfiguration customRoot = new TestPodmanConfigurationBuilder().setRoot(new File("/tmp/.containers")).build();
+        sessionCache.get("graphRoot", defaultRoot, () -> "default");
+        sessionCache.get("graphRoot", customRoot, () -> "custom");
+        sessionCache.get("selinux", () -> Boolean.TRUE);
+
+        sessionCache.invalidate(customRoot);
+
+        assertEquals("default", sessionCache.get("graphRoot", defaultRoot, () -> "unexpected"));
+        assertEquals("reloaded", sessionCache.get("graphRoot", customRoot, () -> "reloaded"));
+        assertEquals(Boolean.TRUE, sessionCache.get("selinux", () -> Boolean.FALSE));
+    }
+
+    @Test
+    public void testNewSessionDiscardsValues() throws MojoExecutionException {
+        SessionCache sessionCache = new SessionCache();
+        MavenSession firstSession = mock(MavenSession.class);
+        MavenSession secondSession = mock(MavenSession.class);
+
+        sessionCache.startSession(firstSession);
+        sessionCache.get("key", () -> "first");
+        sessionCache.startSession(firstSession);
+        assertEquals("first", sessionCache.get("key", () -> "unexpected"));
+
+        sessionCache.startSession(secondSession);
+        assertEquals("second", sessionCache.get("key", () -> "second"));
+    }
+}
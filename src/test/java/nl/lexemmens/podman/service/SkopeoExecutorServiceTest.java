@@ -2,7 +2,10 @@ package nl.lexemmens.podman.service;
 
 import nl.lexemmens.podman.config.skopeo.SkopeoConfiguration;
 import nl.lexemmens.podman.config.skopeo.TestSkopeoConfigurationBuilder;
+import nl.lexemmens.podman.enumeration.TlsVerify;
 import nl.lexemmens.podman.executor.CommandExecutorDelegate;
+import nl.lexemmens.podman.helper.SkopeoSyncHelper;
+import nl.lexemmens.podman.helper.SkopeoSyncHelper.SyncBatch;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.logging.Log;
 import org.junit.Before;
@@ -15,12 +18,19 @@ import org.mockito.junit.MockitoJUnitRunner;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.zeroturnaround.exec.ProcessExecutor;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 
 @ExtendWith(MockitoExtension.class)
 @RunWith(MockitoJUnitRunner.class)
@@ -90,10 +100,112 @@ public class SkopeoExecutorServiceTest {
         )));
     }
 
+    @Test
+    public void testCopyWithPodmanTlsVerify() throws MojoExecutionException {
+        SkopeoConfiguration skopeoConfiguration = new TestSkopeoConfigurationBuilder()
+                .build();
+        InterceptorCommandExecutorDelegate delegate = new InterceptorCommandExecutorDelegate();
+        SkopeoExecutorService skopeoExecutorService = new SkopeoExecutorService(log, skopeoConfiguration, delegate);
+        skopeoExecutorService.copy("registry.example.com/sample:1.0.0", "registry.example.com/sample:latest", TlsVerify.TRUE);
+        assertEquals(delegate.getExecutedCommands(), Collections.singletonList(Arrays.asList(
+                "skopeo",
+                "copy",
+                "--src-tls-verify=true",
+                "--dest-tls-verify=true",
+                "docker://registry.example.com/sample:1.0.0",
+                "docker://registry.example.com/sample:latest"
+        )));
+    }
+
+    @Test
+    public void testCopyWithPodmanTlsVerifyNotSpecified() throws MojoExecutionException {
+        SkopeoConfiguration skopeoConfiguration = new TestSkopeoConfigurationBuilder()
+                .build();
+        InterceptorCommandExecutorDelegate delegate = new InterceptorCommandExecutorDelegate();
+        SkopeoExecutorService skopeoExecutorService = new SkopeoExecutorService(log, skopeoConfiguration, delegate);
+        skopeoExecutorService.copy("registry.example.com/sample:1.0.0", "registry.example.com/sample:latest", TlsVerify.NOT_SPECIFIED);
+        assertEquals(delegate.getExecutedCommands(), Collections.singletonList(Arrays.asList(
+                "skopeo",
+                "copy",
+                "docker://registry.example.com/sample:1.0.0",
+                "docker://registry.example.com/sample:latest"
+        )));
+    }
+
+    @Test
+    public void testSync() throws MojoExecutionException {
+        SkopeoConfiguration skopeoConfiguration = new TestSkopeoConfigurationBuilder()
+                .build();
+        Map<String, String> images = new LinkedHashMap<>();
+        images.put("stage.example.com/project/product:1.0.0", "release.example.com/project/product:1.0.0");
+        SyncBatch batch = new SkopeoSyncHelper().createSyncPlan(images).getBatches().get(0);
+
+        List<String> sourceFileContents = new ArrayList<>();
+        InterceptorCommandExecutorDelegate delegate = new InterceptorCommandExecutorDelegate() {
+            @Override
+            public List<String> executeCommand(ProcessExecutor processExecutor) {
+                List<String> command = processExecutor.getCommand();
+                try {
+                    sourceFileContents.addAll(Files.readAllLines(Paths.get(command.get(command.size() - 2))));
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+                return super.executeCommand(processExecutor);
+            }
+        };
+        SkopeoExecutorService skopeoExecutorService = new SkopeoExecutorService(log, skopeoConfiguration, delegate);
+        skopeoExecutorService.sync(batch);
+
+        List<String> command = delegate.getExecutedCommands().get(0);
+        assertEquals(Arrays.asList("skopeo", "sync", "--src=yaml", "--dest=docker", "--dest-tls-verify=false"), command.subList(0, 5));
+        assertEquals("release.example.com/project", command.get(6));
+        assertEquals(Arrays.asList(
+                "\"stage.example.com\":",
+                "  tls-verify: false",
+                "  images:",
+                "    \"project/product\":",
+                "      - \"1.0.0\""
+        ), sourceFileContents);
+        assertFalse(Files.exists(Paths.get(command.get(5))), "The source file must be removed after syncing");
+    }
+
+    @Test
+    public void testGetDigest() {
+        SkopeoConfiguration skopeoConfiguration = new TestSkopeoConfigurationBuilder()
+                .build();
+        InterceptorCommandExecutorDelegate delegate = new InterceptorCommandExecutorDelegate();
+        delegate.setProcessOutput(Collections.singletonList("sha256:1234567890abcdef"));
+        SkopeoExecutorService skopeoExecutorService = new SkopeoExecutorService(log, skopeoConfiguration, delegate);
+
+        assertEquals(Optional.of("sha256:1234567890abcdef"), skopeoExecutorService.getDigest("registry.example.com/sample:1.0.0", true));
+        assertEquals(Optional.of("sha256:1234567890abcdef"), skopeoExecutorService.getDigest("registry.example.com/sample:1.0.0", true));
+
+        // The second call is served from the cache
+        assertEquals(delegate.getExecutedCommands(), Collections.singletonList(Arrays.asList(
+                "skopeo",
+                "inspect",
+                "--tls-verify=true",
+                "--format={{.Digest}}",
+                "--no-tags",
+                "docker://registry.example.com/sample:1.0.0"
+        )));
+    }
+
+    @Test
+    public void testGetDigestOfMissingImage() {
+        SkopeoConfiguration skopeoConfiguration = new TestSkopeoConfigurationBuilder()
+                .build();
+        CommandExecutorDelegate delegate = processExecutor -> {
+            throw new MojoExecutionException("manifest unknown");
+        };
+        SkopeoExecutorService skopeoExecutorService = new SkopeoExecutorService(log, skopeoConfiguration, delegate);
+
+        assertEquals(Optional.empty(), skopeoExecutorService.getDigest("registry.example.com/sample:1.0.0", false));
+    }
 
     private static class InterceptorCommandExecutorDelegate implements CommandExecutorDelegate {
 
-        private final List<String> processOutput;
+        private List<String> processOutput;
         private final List<List<String>> executedCommands = new ArrayList<>();
 
         InterceptorCommandExecutorDelegate() {
@@ -106,6 +218,10 @@ public class SkopeoExecutorServiceTest {
             return processOutput;
         }
 
+        void setProcessOutput(List<String> processOutput) {
+            this.processOutput = processOutput;
+        }
+
         List<List<String>> getExecutedCommands() {
             return executedCommands;
         }
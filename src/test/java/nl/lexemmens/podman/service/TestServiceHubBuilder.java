@@ -0,0 +1,84 @@
+package nl.lexemmens.podman.service;
+
+import nl.lexemmens.podman.config.podman.PodmanConfiguration;
+import nl.lexemmens.podman.config.skopeo.SkopeoConfiguration;
+import nl.lexemmens.podman.executor.BuildMetrics;
+import nl.lexemmens.podman.executor.FakeExecutables;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.project.MavenProjectHelper;
+import org.apache.maven.settings.Settings;
+import org.apache.maven.settings.crypto.SettingsDecrypter;
+import org.apache.maven.shared.filtering.MavenFileFilter;
+
+/**
+ * Creates a {@link ServiceHub} with real services that execute their commands using {@link FakeExecutables}
+ */
+public class TestServiceHubBuilder {
+
+    private final FakeExecutables fakeExecutables;
+
+    private Log log;
+    private MavenProject mavenProject;
+    private MavenFileFilter mavenFileFilter;
+    private PodmanConfiguration podmanConfig;
+    private SkopeoConfiguration skopeoConfig;
+    private Settings mavenSettings;
+    private SettingsDecrypter settingsDecrypter;
+    private MavenProjectHelper mavenProjectHelper;
+    private BuildMetrics buildMetrics = new BuildMetrics();
+
+    public TestServiceHubBuilder(FakeExecutables fakeExecutables) {
+        this.fakeExecutables = fakeExecutables;
+    }
+
+    public TestServiceHubBuilder setLog(Log log) {
+        this.log = log;
+        return this;
+    }
+
+    public TestServiceHubBuilder setMavenProject(MavenProject mavenProject) {
+        this.mavenProject = mavenProject;
+        return this;
+    }
+
+    public TestServiceHubBuilder setMavenFileFilter(MavenFileFilter mavenFileFilter) {
+        this.mavenFileFilter = mavenFileFilter;
+        return this;
+    }
+
+    public TestServiceHubBuilder setPodmanConfig(PodmanConfiguration podmanConfig) {
+        this.podmanConfig = podmanConfig;
+        return this;
+    }
+
+    public TestServiceHubBuilder setSkopeoConfig(SkopeoConfiguration skopeoConfig) {
+        this.skopeoConfig = skopeoConfig;
+        return this;
+    }
+
+    public TestServiceHubBuilder setMavenSettings(Settings mavenSettings) {
+        this.mavenSettings = mavenSettings;
+        return this;
+    }
+
+    public TestServiceHubBuilder setSettingsDecrypter(SettingsDecrypter settingsDecrypter) {
+        this.settingsDecrypter = settingsDecrypter;
+        return this;
+    }
+
+    public TestServiceHubBuilder setMavenProjectHelper(MavenProjectHelper mavenProjectHelper) {
+        this.mavenProjectHelper = mavenProjectHelper;
+        return this;
+    }
+
+    public TestServiceHubBuilder setBuildMetrics(BuildMetrics buildMetrics) {
+        this.buildMetrics = buildMetrics;
+        return this;
+    }
+
+    public ServiceHub build() {
+        return new ServiceHub(log, mavenProject, mavenFileFilter, podmanConfig, skopeoConfig, mavenSettings, settingsDecrypter,
+                mavenProjectHelper, new SessionCache(), buildMetrics, fakeExecutables::delegate);
+    }
+}